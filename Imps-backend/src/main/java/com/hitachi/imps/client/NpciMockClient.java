@@ -1,17 +1,23 @@
 package com.hitachi.imps.client;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import com.hitachi.imps.config.RoutingConfig;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.limit.DownstreamLimiter.Downstream;
+import com.hitachi.imps.socket.SocketTransport;
 
 /**
  * Client for sending XML messages to NPCI Mock Client (port 8083).
  * Replaces NpciClient - all NPCI communication now goes through mock client.
+ *
+ * Requests go through the pooled {@link OutboundHttpClient}. The sendXxxAsync methods return a
+ * future that completes with the response XML, or null on failure; the plain sendXxx methods
+ * wait for it. With socket.enabled they go over the persistent {@link SocketTransport} connection instead.
  */
 @Component
 public class NpciMockClient {
@@ -19,48 +25,79 @@ public class NpciMockClient {
     @Autowired
     private RoutingConfig routingConfig;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-
-    /* ===============================
-       GENERIC SEND METHOD
-       =============================== */
-    public String send(String endpointKey, String xml) {
-        try {
-            String url = routingConfig.getNpci().getFullUrl(endpointKey);
+    @Autowired
+    private OutboundHttpClient http;
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_XML);
+    @Autowired
+    private DownstreamLimiter limiter;
 
-            HttpEntity<String> request = new HttpEntity<>(xml, headers);
+    @Autowired
+    private SocketTransport sockets;
 
-            String response = restTemplate.postForObject(url, request, String.class);
+    /** Every NPCI call holds a {@link Downstream#NPCI} permit until its response arrives. */
+    private CompletableFuture<String> post(String url, String xml) {
+        return limiter.async(Downstream.NPCI, () -> sockets.isEnabled() ? sockets.sendToNpci(url, xml) : http.postXml(url, xml));
+    }
 
-            System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + endpointKey + "] ===");
-            System.out.println(response);
-            System.out.println("==============================================");
+    private CompletableFuture<String> post(String url, byte[] xml) {
+        return limiter.async(Downstream.NPCI, () -> sockets.isEnabled() ? sockets.sendToNpci(url, xml) : http.postXml(url, xml));
+    }
 
-            return response;
+    /* ===============================
+       GENERIC SEND METHOD
+       =============================== */
+    public String send(String endpointKey, String xml) {
+        return sendAsync(endpointKey, xml).join();
+    }
 
+    public CompletableFuture<String> sendAsync(String endpointKey, String xml) {
+        String url;
+        try {
+            url = routingConfig.getNpci().getFullUrl(endpointKey);
         } catch (Exception e) {
             System.err.println("NPCI MOCK CLIENT SEND FAILED [" + endpointKey + "]: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
+        return post(url, xml)
+            .thenApply(response -> {
+                System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + endpointKey + "] ===");
+                System.out.println(response);
+                System.out.println("==============================================");
+                return response;
+            })
+            .exceptionally(e -> {
+                System.err.println("NPCI MOCK CLIENT SEND FAILED [" + endpointKey + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
     }
 
     /**
      * Send ACK to NPCI Mock Client so it is visible in npci_mock console.
-     * Called by IMPS when a request lands; then further processing (ISO, Switch) follows.
+     * Request threads go through {@link com.hitachi.imps.service.ack.AckSender} instead of waiting on this.
      */
     public void sendAckToNpciMock(String ackXml) {
+        awaitAck(sendAckAsync(ackXml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Same as {@link #sendAckToNpciMock(String)} for an ACK already rendered to UTF-8 bytes. */
+    public void sendAckToNpciMock(byte[] ackXml) {
+        awaitAck(sendAckAsync(ackXml));
+    }
+
+    /** POST an ACK to npci_mock /ack; completes exceptionally on failure (the caller logs and counts). */
+    public CompletableFuture<String> sendAckAsync(byte[] ackXml) {
+        try {
+            return post(routingConfig.getNpci().getFullUrl("ack"), ackXml);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void awaitAck(CompletableFuture<String> sent) {
         try {
-            String url = routingConfig.getNpci().getFullUrl("ack");
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_XML);
-            HttpEntity<String> request = new HttpEntity<>(ackXml, headers);
-            restTemplate.postForObject(url, request, String.class);
+            sent.join();
         } catch (Exception e) {
-            System.err.println("NPCI MOCK: Send ACK failed (npci_mock may be down): " + e.getMessage());
+            System.err.println("NPCI MOCK: Send ACK failed (npci_mock may be down): " + OutboundHttpClient.describe(e));
         }
     }
 
@@ -72,83 +109,131 @@ public class NpciMockClient {
      * Send ReqPay XML to NPCI Mock Client
      */
     public String sendReqPay(String xml) {
-        return send("reqpay", xml);
+        return sendReqPayAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendReqPayAsync(String xml) {
+        return sendAsync("reqpay", xml);
     }
 
     public String sendReqPay(String xml, String txnId) {
-        return sendToImpsDynamic("reqpay", txnId, xml);
+        return sendReqPayAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendReqPayAsync(String xml, String txnId) {
+        return sendToImpsDynamicAsync("reqpay", txnId, xml);
     }
 
     /**
      * Send RespPay XML to NPCI Mock Client (dynamic URL with txnId when provided)
      */
     public String sendRespPay(String xml) {
-        return send("resppay", xml);
+        return sendRespPayAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendRespPayAsync(String xml) {
+        return sendAsync("resppay", xml);
     }
 
     public String sendRespPay(String xml, String txnId) {
-        return sendToNpciDynamic("resppay", txnId, xml);
+        return sendRespPayAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendRespPayAsync(String xml, String txnId) {
+        return sendToNpciDynamicAsync("resppay", txnId, xml);
     }
 
     /**
      * Send to NPCI mock at /imps/{reqpay|reqchktxn|...}/{txnId} (for Switch-initiated requests).
      */
-    private String sendToImpsDynamic(String apiType, String txnId, String xml) {
-        if (txnId == null || txnId.isBlank()) return send(apiType, xml);
-        try {
-            String url = routingConfig.getNpci().getBaseUrl() + "/imps/" + apiType + "/" + txnId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_XML);
-            HttpEntity<String> request = new HttpEntity<>(xml, headers);
-            String response = restTemplate.postForObject(url, request, String.class);
-            System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + apiType + "/" + txnId + "] ===");
-            System.out.println(response != null ? response : "");
-            return response;
-        } catch (Exception e) {
-            System.err.println("NPCI MOCK SEND FAILED [" + apiType + "/" + txnId + "]: " + e.getMessage());
-            return null;
-        }
+    private CompletableFuture<String> sendToImpsDynamicAsync(String apiType, String txnId, String xml) {
+        if (txnId == null || txnId.isBlank()) return sendAsync(apiType, xml);
+        String url = routingConfig.getNpci().getBaseUrl() + "/imps/" + apiType + "/" + txnId;
+        return post(url, xml)
+            .thenApply(response -> {
+                System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + apiType + "/" + txnId + "] ===");
+                System.out.println(response);
+                return response;
+            })
+            .exceptionally(e -> {
+                System.err.println("NPCI MOCK SEND FAILED [" + apiType + "/" + txnId + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
     }
 
     /**
      * Build dynamic NPCI URL: http://localhost:8083/npci/{resppay|respchktxn|...}/{txn_id}
      */
-    private String sendToNpciDynamic(String apiType, String txnId, String xml) {
-        if (txnId == null || txnId.isBlank()) return null;
+    private CompletableFuture<String> sendToNpciDynamicAsync(String apiType, String txnId, String xml) {
+        if (txnId == null || txnId.isBlank()) return CompletableFuture.completedFuture(null);
+        String url = routingConfig.getNpci().getBaseUrl() + "/npci/" + apiType + "/" + txnId;
+        return post(url, xml)
+            .thenApply(response -> {
+                System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + apiType + "/" + txnId + "] ===");
+                return response;
+            })
+            .exceptionally(e -> {
+                System.err.println("NPCI MOCK SEND FAILED [" + apiType + "/" + txnId + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
+    }
+
+    /**
+     * POST a response to /npci/{apiType}/{txnId}, or to the configured apiType endpoint without a txnId.
+     * Unlike the sendXxxAsync methods this completes exceptionally on failure, so
+     * {@link com.hitachi.imps.service.outbox.NpciOutbox} can retry it.
+     */
+    public CompletableFuture<String> deliverAsync(String apiType, String txnId, String xml) {
+        String url;
         try {
-            String url = routingConfig.getNpci().getBaseUrl() + "/npci/" + apiType + "/" + txnId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_XML);
-            HttpEntity<String> request = new HttpEntity<>(xml, headers);
-            String response = restTemplate.postForObject(url, request, String.class);
-            System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + apiType + "/" + txnId + "] ===");
-            return response;
+            url = txnId == null || txnId.isBlank()
+                ? routingConfig.getNpci().getFullUrl(apiType)
+                : routingConfig.getNpci().getBaseUrl() + "/npci/" + apiType + "/" + txnId;
         } catch (Exception e) {
-            System.err.println("NPCI MOCK SEND FAILED [" + apiType + "/" + txnId + "]: " + e.getMessage());
-            return null;
+            return CompletableFuture.failedFuture(e);
         }
+        return post(url, xml).thenApply(response -> {
+            System.out.println("=== NPCI MOCK CLIENT RESPONSE FROM [" + apiType + (txnId != null ? "/" + txnId : "") + "] ===");
+            return response;
+        });
     }
 
     /**
      * Send ReqChkTxn XML to NPCI Mock Client
      */
     public String sendReqChkTxn(String xml) {
-        return send("reqchktxn", xml);
+        return sendReqChkTxnAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendReqChkTxnAsync(String xml) {
+        return sendAsync("reqchktxn", xml);
     }
 
     public String sendReqChkTxn(String xml, String txnId) {
-        return sendToImpsDynamic("reqchktxn", txnId, xml);
+        return sendReqChkTxnAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendReqChkTxnAsync(String xml, String txnId) {
+        return sendToImpsDynamicAsync("reqchktxn", txnId, xml);
     }
 
     /**
      * Send RespChkTxn XML to NPCI Mock: POST /npci/respchktxn/{txnId}
      */
     public String sendRespChkTxn(String xml) {
-        return send("respchktxn", xml);
+        return sendRespChkTxnAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendRespChkTxnAsync(String xml) {
+        return sendAsync("respchktxn", xml);
     }
 
     public String sendRespChkTxn(String xml, String txnId) {
-        return sendToNpciDynamic("respchktxn", txnId, xml);
+        return sendRespChkTxnAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendRespChkTxnAsync(String xml, String txnId) {
+        return sendToNpciDynamicAsync("respchktxn", txnId, xml);
     }
 
     /**
@@ -156,80 +241,122 @@ public class NpciMockClient {
      * NPCI Mock (ImpsMockController) expects POST /imps/hbt/req/{txnId}.
      */
     public String sendReqHbt(String xml) {
-        String txnId = com.hitachi.imps.service.iso.XmlUtil.read(xml, "//*[local-name()='Txn']/@id");
-        if (txnId == null || txnId.isBlank()) txnId = com.hitachi.imps.service.iso.XmlUtil.read(xml, "//*[local-name()='Head']/@msgId");
-        return sendReqHbt(xml, txnId != null ? txnId : "HBT" + System.currentTimeMillis());
+        return sendReqHbtAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendReqHbtAsync(String xml) {
+        com.hitachi.imps.service.iso.NpciXmlFields fields = com.hitachi.imps.service.iso.XmlUtil.extract(xml);
+        String txnId = fields.attr("Txn", "id");
+        if (txnId == null || txnId.isBlank()) txnId = fields.attr("Head", "msgId");
+        return sendReqHbtAsync(xml, txnId != null && !txnId.isBlank() ? txnId : "HBT" + System.currentTimeMillis());
     }
 
     /**
      * Send ReqHbt to NPCI Mock at /imps/hbt/req/{txnId}.
      */
     public String sendReqHbt(String xml, String txnId) {
-        if (txnId == null || txnId.isBlank()) return sendReqHbt(xml);
-        try {
-            String url = routingConfig.getNpci().getBaseUrl() + "/imps/hbt/req/" + txnId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_XML);
-            HttpEntity<String> request = new HttpEntity<>(xml, headers);
-            String response = restTemplate.postForObject(url, request, String.class);
-            System.out.println("=== NPCI MOCK CLIENT REQHBT RESPONSE [" + txnId + "] ===");
-            System.out.println(response != null ? response : "");
-            return response;
-        } catch (Exception e) {
-            System.err.println("NPCI MOCK CLIENT SEND FAILED [reqhbt/" + txnId + "]: " + e.getMessage());
-            e.printStackTrace();
-            return null;
-        }
+        return sendReqHbtAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendReqHbtAsync(String xml, String txnId) {
+        if (txnId == null || txnId.isBlank()) return sendReqHbtAsync(xml);
+        String url = routingConfig.getNpci().getBaseUrl() + "/imps/hbt/req/" + txnId;
+        return post(url, xml)
+            .thenApply(response -> {
+                System.out.println("=== NPCI MOCK CLIENT REQHBT RESPONSE [" + txnId + "] ===");
+                System.out.println(response);
+                return response;
+            })
+            .exceptionally(e -> {
+                System.err.println("NPCI MOCK CLIENT SEND FAILED [reqhbt/" + txnId + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
     }
 
     /**
      * Send RespHbt XML to NPCI Mock: POST /npci/resphbt/{txnId}
      */
     public String sendRespHbt(String xml) {
-        return send("resphbt", xml);
+        return sendRespHbtAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendRespHbtAsync(String xml) {
+        return sendAsync("resphbt", xml);
     }
 
     public String sendRespHbt(String xml, String txnId) {
-        return sendToNpciDynamic("resphbt", txnId, xml);
+        return sendRespHbtAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendRespHbtAsync(String xml, String txnId) {
+        return sendToNpciDynamicAsync("resphbt", txnId, xml);
     }
 
     /**
      * Send ReqListAccPvd XML to NPCI Mock Client
      */
     public String sendReqListAccPvd(String xml) {
-        return send("reqlistaccpvd", xml);
+        return sendReqListAccPvdAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendReqListAccPvdAsync(String xml) {
+        return sendAsync("reqlistaccpvd", xml);
     }
 
     /**
      * Send RespListAccPvd XML to NPCI Mock: POST /npci/resplistaccpvd/{txnId}
      */
     public String sendRespListAccPvd(String xml) {
-        return send("resplistaccpvd", xml);
+        return sendRespListAccPvdAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendRespListAccPvdAsync(String xml) {
+        return sendAsync("resplistaccpvd", xml);
     }
 
     public String sendRespListAccPvd(String xml, String txnId) {
-        return sendToNpciDynamic("resplistaccpvd", txnId, xml);
+        return sendRespListAccPvdAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendRespListAccPvdAsync(String xml, String txnId) {
+        return sendToNpciDynamicAsync("resplistaccpvd", txnId, xml);
     }
 
     /**
      * Send ReqValAdd XML to NPCI Mock Client
      */
     public String sendReqValAdd(String xml) {
-        return send("reqvaladd", xml);
+        return sendReqValAddAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendReqValAddAsync(String xml) {
+        return sendAsync("reqvaladd", xml);
     }
 
     public String sendReqValAdd(String xml, String txnId) {
-        return sendToImpsDynamic("reqvaladd", txnId, xml);
+        return sendReqValAddAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendReqValAddAsync(String xml, String txnId) {
+        return sendToImpsDynamicAsync("reqvaladd", txnId, xml);
     }
 
     /**
      * Send RespValAdd XML to NPCI Mock: POST /npci/respvaladd/{txnId}
      */
     public String sendRespValAdd(String xml) {
-        return send("respvaladd", xml);
+        return sendRespValAddAsync(xml).join();
+    }
+
+    public CompletableFuture<String> sendRespValAddAsync(String xml) {
+        return sendAsync("respvaladd", xml);
     }
 
     public String sendRespValAdd(String xml, String txnId) {
-        return sendToNpciDynamic("respvaladd", txnId, xml);
+        return sendRespValAddAsync(xml, txnId).join();
+    }
+
+    public CompletableFuture<String> sendRespValAddAsync(String xml, String txnId) {
+        return sendToNpciDynamicAsync("respvaladd", txnId, xml);
     }
 }
@@ -0,0 +1,218 @@
+package com.hitachi.imps.client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.exception.OutboundHttpException;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Shared outbound HTTP transport for the Switch and NPCI legs (SwitchClient, NpciMockClient, RoutingService).
+ *
+ * One JDK HttpClient (HTTP/1.1, keep-alive connection pool, non-blocking I/O) with connect and
+ * read deadlines. Each destination (scheme://host:port) gets at most
+ * imps.http.max-connections-per-destination requests in flight; further requests wait in a
+ * bounded per-destination queue without holding a thread, and are rejected when it is full.
+ * Calls return CompletableFutures completed on the imps-http callback threads; a non-2xx status
+ * completes exceptionally with {@link OutboundHttpException}.
+ */
+@Component
+public class OutboundHttpClient {
+
+    public static final String APPLICATION_XML = "application/xml";
+    public static final String APPLICATION_OCTET_STREAM = "application/octet-stream";
+
+    @Value("${imps.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${imps.http.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${imps.http.keep-alive-seconds:30}")
+    private int keepAliveSeconds;
+
+    @Value("${imps.http.max-connections-per-destination:64}")
+    private int maxConnectionsPerDestination;
+
+    @Value("${imps.http.max-pending-per-destination:1000}")
+    private int maxPendingPerDestination;
+
+    @Value("${imps.http.callback-threads:8}")
+    private int callbackThreads;
+
+    private HttpClient client;
+    private ExecutorService callbackExecutor;
+
+    private final Map<String, DestinationPermits> destinations = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        // Idle keep-alive of pooled connections; read once by the JDK client, so set before it is built
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(keepAliveSeconds));
+        }
+        AtomicInteger seq = new AtomicInteger();
+        callbackExecutor = Executors.newFixedThreadPool(callbackThreads, r -> {
+            Thread t = new Thread(r, "imps-http-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            .executor(callbackExecutor)
+            .build();
+
+        System.out.println("=== Outbound HTTP Client Initialized ===");
+        System.out.println("Connect/Read timeout ms: " + connectTimeoutMs + "/" + readTimeoutMs);
+        System.out.println("Max connections per destination: " + maxConnectionsPerDestination
+            + " (pending " + maxPendingPerDestination + ")");
+        System.out.println("========================================");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (callbackExecutor != null) {
+            callbackExecutor.shutdown();
+        }
+    }
+
+    /* ===============================
+       POST
+       =============================== */
+    /** POST {@code body} and complete with the response body (empty array for no content). */
+    public CompletableFuture<byte[]> post(String url, String contentType, byte[] body) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .timeout(Duration.ofMillis(readTimeoutMs))
+            .header("Content-Type", contentType)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body != null ? body : new byte[0]))
+            .build();
+
+        DestinationPermits permits = destinations.computeIfAbsent(destination(uri),
+            d -> new DestinationPermits(maxConnectionsPerDestination, maxPendingPerDestination));
+        CompletableFuture<Void> permit = permits.acquire();
+        if (!permit.isDone()) {
+            // waiting for a connection slot counts against the read deadline
+            permit.orTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return permit
+            .thenCompose(v -> client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((r, e) -> permits.release()))
+            .thenApply(response -> {
+                int status = response.statusCode();
+                if (status < 200 || status >= 300) {
+                    throw new OutboundHttpException(url, status, new String(response.body(), StandardCharsets.UTF_8));
+                }
+                return response.body();
+            });
+    }
+
+    /** POST an XML body and complete with the response as a String. */
+    public CompletableFuture<String> postXml(String url, String xml) {
+        return post(url, APPLICATION_XML, xml != null ? xml.getBytes(StandardCharsets.UTF_8) : null)
+            .thenApply(b -> new String(b, StandardCharsets.UTF_8));
+    }
+
+    /** POST already-encoded XML bytes and complete with the response as a String. */
+    public CompletableFuture<String> postXml(String url, byte[] xml) {
+        return post(url, APPLICATION_XML, xml).thenApply(b -> new String(b, StandardCharsets.UTF_8));
+    }
+
+    /** In-flight requests to the destination of {@code url} (0 when it has not been called). */
+    public int inFlight(String url) {
+        DestinationPermits permits = destinations.get(destination(URI.create(url)));
+        return permits != null ? permits.inUse() : 0;
+    }
+
+    /** Message of the underlying failure, unwrapping CompletionException. */
+    public static String describe(Throwable e) {
+        while (e instanceof CompletionException && e.getCause() != null) {
+            e = e.getCause();
+        }
+        String msg = e.getMessage();
+        return msg != null && !msg.isBlank() ? msg : e.getClass().getSimpleName();
+    }
+
+    private static String destination(URI uri) {
+        return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+
+    /* ===============================
+       PER-DESTINATION LIMIT
+       =============================== */
+    /** Non-blocking permit queue: waiters are futures completed as permits are released. */
+    static final class DestinationPermits {
+
+        private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+        private final int max;
+        private final int maxPending;
+        private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+        private int inUse;
+
+        DestinationPermits(int max, int maxPending) {
+            this.max = max;
+            this.maxPending = maxPending;
+        }
+
+        synchronized CompletableFuture<Void> acquire() {
+            if (inUse < max) {
+                inUse++;
+                return GRANTED;
+            }
+            if (waiters.size() >= maxPending) {
+                return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Outbound queue full (" + maxPending + " pending)"));
+            }
+            CompletableFuture<Void> waiter = new CompletableFuture<>();
+            waiters.add(waiter);
+            return waiter;
+        }
+
+        /** Hand the permit to the next live waiter (timed-out waiters are skipped), else free it. */
+        void release() {
+            while (true) {
+                CompletableFuture<Void> next;
+                synchronized (this) {
+                    next = waiters.poll();
+                    if (next == null) {
+                        inUse--;
+                        return;
+                    }
+                }
+                if (next.complete(null)) {
+                    return;
+                }
+            }
+        }
+
+        synchronized int inUse() {
+            return inUse;
+        }
+    }
+}
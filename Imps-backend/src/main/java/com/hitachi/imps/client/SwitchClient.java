@@ -1,19 +1,31 @@
 package com.hitachi.imps.client;
 
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.concurrent.CompletableFuture;
+
 import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import com.hitachi.imps.config.RoutingConfig;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.exception.OutboundHttpException;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.limit.DownstreamLimiter.Downstream;
+import com.hitachi.imps.socket.SocketTransport;
+import com.hitachi.imps.socket.SwitchIsoChannel;
 
 /**
  * Client for sending ISO 8583 messages to Switch endpoints.
  * Handles all request forwards to Switch after processing NPCI requests.
+ *
+ * The sendXxxAsync methods return as soon as the request is queued on the pooled
+ * {@link OutboundHttpClient}; the future completes with the Switch response, or null on failure.
+ * The plain sendXxx methods wait for that result.
+ * With socket.enabled the same paths go over the persistent {@link SocketTransport} connection instead.
+ * With socket.switch-channel.enabled requests go over the pipelined {@link SwitchIsoChannel} and the
+ * future completes with the Switch's reply, already handed to the matching SwitchResp*Service.
  */
 @Component
 public class SwitchClient {
@@ -21,7 +33,20 @@ public class SwitchClient {
     @Autowired
     private RoutingConfig routingConfig;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private IsoCodecService isoCodec;
+
+    @Autowired
+    private OutboundHttpClient http;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private SocketTransport sockets;
+
+    @Autowired
+    private SwitchIsoChannel isoChannel;
 
     /**
      * Build dynamic Switch URL: http://localhost:8082/switch/{reqpay|reqchktxn|reqvaladd|reqhbt|reqlistaccpvd}/{txn_id}
@@ -31,20 +56,47 @@ public class SwitchClient {
         return base + "/switch/" + apiType + "/" + (txnId != null ? txnId : "");
     }
 
-    /** Send to dynamic URL: /switch/{apiType}/{txnId} */
-    private byte[] sendDynamic(String apiType, String txnId, byte[] isoBytes) {
-        if (txnId == null || txnId.isBlank()) return null;
-        try {
-            String url = buildDynamicUrl(apiType, txnId);
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            HttpEntity<byte[]> request = new HttpEntity<>(isoBytes, headers);
-            byte[] response = restTemplate.postForObject(url, request, byte[].class);
-            return response;
-        } catch (Exception e) {
-            System.err.println("SWITCH SEND FAILED [" + apiType + "/" + txnId + "]: " + e.getMessage());
-            return null;
+    /** Send to dynamic URL: /switch/{apiType}/{txnId}; completes with null on failure. */
+    private CompletableFuture<byte[]> sendDynamicAsync(String apiType, String txnId, byte[] isoBytes) {
+        return sendDynamicOrFailAsync(apiType, txnId, isoBytes).exceptionally(e -> null);
+    }
+
+    /** Send to dynamic URL: /switch/{apiType}/{txnId}; fails with the cause (logged here). */
+    private CompletableFuture<byte[]> sendDynamicOrFailAsync(String apiType, String txnId, byte[] isoBytes) {
+        if (txnId == null || txnId.isBlank()) return CompletableFuture.completedFuture(null);
+        String url = buildDynamicUrl(apiType, txnId);
+        return limiter.async(Downstream.SWITCH, () -> isoChannel.isEnabled() && apiType.startsWith("req")
+                ? isoChannel.send(apiType, txnId, isoBytes)
+                : sockets.isEnabled()
+                ? sockets.sendToSwitch(url, isoBytes)
+                : http.post(url, OutboundHttpClient.APPLICATION_OCTET_STREAM, isoBytes))
+            .whenComplete((r, e) -> {
+                if (e != null) {
+                    System.err.println("SWITCH SEND FAILED [" + apiType + "/" + txnId + "]: " + OutboundHttpClient.describe(e));
+                }
+            });
+    }
+
+    /**
+     * True when a failed send certainly did not go through at the Switch: refused here (concurrency limit,
+     * circuit breaker, channel window), no connection could be opened, or the Switch answered with an error.
+     * False when the outcome is unknown (timeout, connection lost after sending): the Switch may have
+     * processed the request, so only a ChkTxn can settle it.
+     */
+    public static boolean isDefiniteFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (DownstreamLimiter.isLocalRefusal(t)
+                    || t instanceof OutboundHttpException
+                    || t instanceof ConnectException
+                    || t instanceof HttpConnectTimeoutException) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private byte[] sendDynamic(String apiType, String txnId, byte[] isoBytes) {
+        return sendDynamicAsync(apiType, txnId, isoBytes).join();
     }
 
     /* ===============================
@@ -55,73 +107,146 @@ public class SwitchClient {
      * Send ReqPay ISO to Switch: POST /switch/reqpay/{txnId}
      */
     public byte[] sendReqPay(ISOMsg iso, String txnId) {
-        return sendDynamic("reqpay", txnId, IsoUtil.pack(iso));
+        return sendDynamic("reqpay", txnId, isoCodec.pack(iso));
     }
 
     public byte[] sendReqPay(byte[] isoBytes, String txnId) {
         return sendDynamic("reqpay", txnId, isoBytes);
     }
 
+    public CompletableFuture<byte[]> sendReqPayAsync(ISOMsg iso, String txnId) {
+        return sendDynamicAsync("reqpay", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqPayAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicAsync("reqpay", txnId, isoBytes);
+    }
+
+    /** As sendReqPayAsync, but fails with the cause so the caller can apply {@link #isDefiniteFailure}. */
+    public CompletableFuture<byte[]> sendReqPayOrFailAsync(ISOMsg iso, String txnId) {
+        return sendDynamicOrFailAsync("reqpay", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqPayOrFailAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicOrFailAsync("reqpay", txnId, isoBytes);
+    }
+
     /**
      * Send ReqChkTxn ISO to Switch: POST /switch/reqchktxn/{txnId}
      */
     public byte[] sendReqChkTxn(ISOMsg iso, String txnId) {
-        return sendDynamic("reqchktxn", txnId, IsoUtil.pack(iso));
+        return sendDynamic("reqchktxn", txnId, isoCodec.pack(iso));
     }
 
     public byte[] sendReqChkTxn(byte[] isoBytes, String txnId) {
         return sendDynamic("reqchktxn", txnId, isoBytes);
     }
 
+    public CompletableFuture<byte[]> sendReqChkTxnAsync(ISOMsg iso, String txnId) {
+        return sendDynamicAsync("reqchktxn", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqChkTxnAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicAsync("reqchktxn", txnId, isoBytes);
+    }
+
     /**
      * Send ReqHbt ISO to Switch: POST /switch/reqhbt/{txnId}
      */
     public byte[] sendReqHbt(ISOMsg iso, String txnId) {
-        return sendDynamic("reqhbt", txnId, IsoUtil.pack(iso));
+        return sendDynamic("reqhbt", txnId, isoCodec.pack(iso));
     }
 
     public byte[] sendReqHbt(byte[] isoBytes, String txnId) {
         return sendDynamic("reqhbt", txnId, isoBytes);
     }
 
+    public CompletableFuture<byte[]> sendReqHbtAsync(ISOMsg iso, String txnId) {
+        return sendDynamicAsync("reqhbt", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqHbtAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicAsync("reqhbt", txnId, isoBytes);
+    }
+
     /**
      * Send ReqListAccPvd ISO to Switch: POST /switch/reqlistaccpvd/{txnId}
      */
     public byte[] sendReqListAccPvd(ISOMsg iso, String txnId) {
-        return sendDynamic("reqlistaccpvd", txnId, IsoUtil.pack(iso));
+        return sendDynamic("reqlistaccpvd", txnId, isoCodec.pack(iso));
     }
 
     public byte[] sendReqListAccPvd(byte[] isoBytes, String txnId) {
         return sendDynamic("reqlistaccpvd", txnId, isoBytes);
     }
 
+    public CompletableFuture<byte[]> sendReqListAccPvdAsync(ISOMsg iso, String txnId) {
+        return sendDynamicAsync("reqlistaccpvd", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqListAccPvdAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicAsync("reqlistaccpvd", txnId, isoBytes);
+    }
+
     /**
      * Send ReqValAdd ISO to Switch: POST /switch/reqvaladd/{txnId}
      */
     public byte[] sendReqValAdd(ISOMsg iso, String txnId) {
-        return sendDynamic("reqvaladd", txnId, IsoUtil.pack(iso));
+        return sendDynamic("reqvaladd", txnId, isoCodec.pack(iso));
     }
 
     public byte[] sendReqValAdd(byte[] isoBytes, String txnId) {
         return sendDynamic("reqvaladd", txnId, isoBytes);
     }
 
+    public CompletableFuture<byte[]> sendReqValAddAsync(ISOMsg iso, String txnId) {
+        return sendDynamicAsync("reqvaladd", txnId, isoCodec.pack(iso));
+    }
+
+    public CompletableFuture<byte[]> sendReqValAddAsync(byte[] isoBytes, String txnId) {
+        return sendDynamicAsync("reqvaladd", txnId, isoBytes);
+    }
+
     /**
      * Send RespPay ISO to Switch (when IMPS forwards NPCI response): POST /switch/resppay/{txnId}
      */
     public byte[] sendRespPay(ISOMsg iso, String txnId) {
-        return txnId != null && !txnId.isBlank() ? sendDynamic("resppay", txnId, IsoUtil.pack(iso)) : null;
+        return sendRespPayAsync(iso, txnId).join();
+    }
+
+    public CompletableFuture<byte[]> sendRespPayAsync(ISOMsg iso, String txnId) {
+        return txnId != null && !txnId.isBlank()
+            ? sendDynamicAsync("resppay", txnId, isoCodec.pack(iso))
+            : CompletableFuture.completedFuture(null);
     }
 
     public byte[] sendRespChkTxn(ISOMsg iso, String txnId) {
-        return txnId != null && !txnId.isBlank() ? sendDynamic("respchktxn", txnId, IsoUtil.pack(iso)) : null;
+        return sendRespChkTxnAsync(iso, txnId).join();
+    }
+
+    public CompletableFuture<byte[]> sendRespChkTxnAsync(ISOMsg iso, String txnId) {
+        return txnId != null && !txnId.isBlank()
+            ? sendDynamicAsync("respchktxn", txnId, isoCodec.pack(iso))
+            : CompletableFuture.completedFuture(null);
     }
 
     public byte[] sendRespHbt(ISOMsg iso, String txnId) {
-        return txnId != null && !txnId.isBlank() ? sendDynamic("resphbt", txnId, IsoUtil.pack(iso)) : null;
+        return sendRespHbtAsync(iso, txnId).join();
+    }
+
+    public CompletableFuture<byte[]> sendRespHbtAsync(ISOMsg iso, String txnId) {
+        return txnId != null && !txnId.isBlank()
+            ? sendDynamicAsync("resphbt", txnId, isoCodec.pack(iso))
+            : CompletableFuture.completedFuture(null);
     }
 
     public byte[] sendRespValAdd(ISOMsg iso, String txnId) {
-        return txnId != null && !txnId.isBlank() ? sendDynamic("respvaladd", txnId, IsoUtil.pack(iso)) : null;
+        return sendRespValAddAsync(iso, txnId).join();
+    }
+
+    public CompletableFuture<byte[]> sendRespValAddAsync(ISOMsg iso, String txnId) {
+        return txnId != null && !txnId.isBlank()
+            ? sendDynamicAsync("respvaladd", txnId, isoCodec.pack(iso))
+            : CompletableFuture.completedFuture(null);
     }
 }
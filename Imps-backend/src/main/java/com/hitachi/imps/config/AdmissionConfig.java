@@ -0,0 +1,64 @@
+package com.hitachi.imps.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Admission control settings (application.yml 'imps.admission' prefix), used by
+ * {@link com.hitachi.imps.service.admission.AdmissionControl}.
+ *
+ * Load is the highest of: @Async queue fill, @Async tasks in flight / maxInFlight, and threads waiting for
+ * a DB connection / dbMaxWaiting. An API is rejected once load reaches its shedAt share (1.0 = full).
+ */
+@Configuration
+@ConfigurationProperties(prefix = "imps.admission")
+public class AdmissionConfig {
+
+    private boolean enabled = true;
+    private int maxInFlight = 550;
+    private int dbMaxWaiting = 50;
+    private String rejectCode = "91";
+    private long retryAfterSeconds = 1;
+    private double defaultShedAt = 0.8;
+    /** API (lower case, e.g. reqpay) → load at which it is shed. */
+    private Map<String, Double> shedAt = defaultShedAt();
+
+    private static Map<String, Double> defaultShedAt() {
+        Map<String, Double> m = new LinkedHashMap<>();
+        m.put("reqlistaccpvd", 0.5);
+        m.put("resplistaccpvd", 0.5);
+        m.put("reqhbt", 0.7);
+        m.put("resphbt", 0.7);
+        m.put("reqvaladd", 0.7);
+        m.put("respvaladd", 0.85);
+        m.put("reqchktxn", 0.85);
+        m.put("respchktxn", 0.95);
+        m.put("resppay", 0.95);
+        m.put("reqpay", 1.0);
+        return m;
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxInFlight() { return maxInFlight; }
+    public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+
+    public int getDbMaxWaiting() { return dbMaxWaiting; }
+    public void setDbMaxWaiting(int dbMaxWaiting) { this.dbMaxWaiting = dbMaxWaiting; }
+
+    public String getRejectCode() { return rejectCode; }
+    public void setRejectCode(String rejectCode) { this.rejectCode = rejectCode; }
+
+    public long getRetryAfterSeconds() { return retryAfterSeconds; }
+    public void setRetryAfterSeconds(long retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
+
+    public double getDefaultShedAt() { return defaultShedAt; }
+    public void setDefaultShedAt(double defaultShedAt) { this.defaultShedAt = defaultShedAt; }
+
+    public Map<String, Double> getShedAt() { return shedAt; }
+    public void setShedAt(Map<String, Double> shedAt) { this.shedAt = shedAt; }
+}
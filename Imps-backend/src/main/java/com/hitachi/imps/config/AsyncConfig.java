@@ -2,11 +2,16 @@ package com.hitachi.imps.config;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.hitachi.imps.service.admission.AdmissionControl;
+
 /**
  * Configuration for async processing to handle multiple concurrent requests.
  * 
@@ -14,13 +19,54 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
  * - Handle N number of concurrent IMPS requests
  * - Send immediate ACKs while processing continues in background
  * - Scale based on load
+ *
+ * imps.async.executor-mode selects the executor behind @Async:
+ * - pool    – fixed ThreadPoolTaskExecutor (default)
+ * - virtual – one virtual thread per task (Java 21+; falls back to pool on older runtimes).
+ *             Concurrency is then bounded per downstream by DownstreamLimiter, not by thread count.
+ *
+ * Either way every task is counted by {@link AdmissionControl}, which sheds NPCI messages at the edge
+ * before the queue fills up.
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    @Value("${imps.async.executor-mode:pool}")
+    private String executorMode;
+
+    @Autowired
+    private AdmissionControl admission;
+
     @Bean(name = "taskExecutor")
     public Executor taskExecutor() {
+        if ("virtual".equalsIgnoreCase(executorMode)) {
+            try {
+                return virtualThreadExecutor();
+            } catch (UnsupportedOperationException e) {
+                System.out.println("WARNING: imps.async.executor-mode=virtual needs Java 21+ (running "
+                    + Runtime.version() + ") - using thread pool");
+            }
+        }
+        return threadPoolExecutor();
+    }
+
+    private Executor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("IMPS-VT-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(admission::track);
+
+        // Wait for tasks to complete on shutdown
+        executor.setTaskTerminationTimeout(60_000);
+
+        System.out.println("=== Async Executor Initialized ===");
+        System.out.println("Mode: virtual threads (limits per downstream: DB / Switch / NPCI)");
+        System.out.println("==================================");
+
+        return executor;
+    }
+
+    private Executor threadPoolExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
         // Core pool size - minimum threads always kept alive
@@ -34,12 +80,16 @@ public class AsyncConfig {
         
         // Thread name prefix for debugging
         executor.setThreadNamePrefix("IMPS-Async-");
+
+        // Tasks queued + running, for admission control
+        executor.setTaskDecorator(admission::track);
         
         // Wait for tasks to complete on shutdown
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(60);
         
         executor.initialize();
+        admission.watch(executor);
         
         System.out.println("=== Async Executor Initialized ===");
         System.out.println("Core Pool: " + executor.getCorePoolSize());
@@ -0,0 +1,59 @@
+package com.hitachi.imps.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Refuses to start on a database that lacks the tables written with native SQL (transaction_txn_id,
+ * npci_outbox). They are not entities, so ddl-auto does not create them, and schema.sql is not run by
+ * the backend; without the migration every insert would fail after the ACK has already gone out.
+ */
+@Component
+public class SchemaGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaGuard.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${imps.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    @PostConstruct
+    public void check() {
+        List<String> missing = new ArrayList<>();
+        if (!tableExists("transaction_txn_id")) {
+            missing.add("table transaction_txn_id (run imps_transaction_txn_id.sql)");
+        }
+        if (outboxEnabled) {
+            if (!tableExists("npci_outbox")) {
+                missing.add("table npci_outbox (run imps_npci_outbox.sql)");
+            } else if (!constraintExists("uk_npci_outbox_api_txn")) {
+                missing.add("unique (api_type, txn_id) on npci_outbox (run imps_npci_outbox.sql again)");
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Database schema is out of date: " + String.join("; ", missing)
+                + ". The SQL files are in the repository root.");
+        }
+        log.info("Schema check passed");
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private boolean constraintExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = ?)", Boolean.class, name));
+    }
+}
@@ -0,0 +1,164 @@
+package com.hitachi.imps.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * TCP socket transport settings (application.yml 'socket' prefix), used by
+ * {@link com.hitachi.imps.socket.SocketTransport}.
+ * When enabled, NPCI and Switch traffic also goes over persistent length-prefixed connections
+ * instead of one HTTP POST per message.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "socket")
+public class SocketConfig {
+
+    private boolean enabled;
+    private Server server = new Server();
+    private Client client = new Client();
+    private Threading threading = new Threading();
+    private Framing framing = new Framing();
+    private SwitchChannel switchChannel = new SwitchChannel();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Server getServer() { return server; }
+    public void setServer(Server server) { this.server = server; }
+
+    public Client getClient() { return client; }
+    public void setClient(Client client) { this.client = client; }
+
+    public Threading getThreading() { return threading; }
+    public void setThreading(Threading threading) { this.threading = threading; }
+
+    public Framing getFraming() { return framing; }
+    public void setFraming(Framing framing) { this.framing = framing; }
+
+    public SwitchChannel getSwitchChannel() { return switchChannel; }
+    public void setSwitchChannel(SwitchChannel switchChannel) { this.switchChannel = switchChannel; }
+
+    /**
+     * Listeners: NPCI → IMPS (/imps/*, /npci/*) and Switch → IMPS (/switch/*).
+     */
+    public static class Server {
+        private String bindHost = "0.0.0.0";
+        private Port npci = new Port();
+        private Port switchPort = new Port();
+
+        public String getBindHost() { return bindHost; }
+        public void setBindHost(String bindHost) { this.bindHost = bindHost; }
+
+        public Port getNpci() { return npci; }
+        public void setNpci(Port npci) { this.npci = npci; }
+
+        public Port getSwitch() { return switchPort; }
+        public void setSwitch(Port switchPort) { this.switchPort = switchPort; }
+    }
+
+    public static class Port {
+        private int port;
+
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+    }
+
+    /**
+     * Outbound connections: IMPS → NPCI and IMPS → Switch.
+     */
+    public static class Client {
+        private Endpoint npci = new Endpoint();
+        private Endpoint switchEndpoint = new Endpoint();
+        private long connectTimeoutMs = 2000;
+        private long readTimeoutMs = 10000;
+
+        public Endpoint getNpci() { return npci; }
+        public void setNpci(Endpoint npci) { this.npci = npci; }
+
+        public Endpoint getSwitch() { return switchEndpoint; }
+        public void setSwitch(Endpoint switchEndpoint) { this.switchEndpoint = switchEndpoint; }
+
+        public long getConnectTimeoutMs() { return connectTimeoutMs; }
+        public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+        public long getReadTimeoutMs() { return readTimeoutMs; }
+        public void setReadTimeoutMs(long readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+    }
+
+    public static class Endpoint {
+        private String host = "localhost";
+        private int port;
+
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+    }
+
+    public static class Threading {
+        private int acceptorThreads = 1;
+        private int ioPoolSize = 10;
+        private int processingPoolSize = 20;
+        private int queueCapacity = 1000;
+
+        public int getAcceptorThreads() { return acceptorThreads; }
+        public void setAcceptorThreads(int acceptorThreads) { this.acceptorThreads = acceptorThreads; }
+
+        public int getIoPoolSize() { return ioPoolSize; }
+        public void setIoPoolSize(int ioPoolSize) { this.ioPoolSize = ioPoolSize; }
+
+        public int getProcessingPoolSize() { return processingPoolSize; }
+        public void setProcessingPoolSize(int processingPoolSize) { this.processingPoolSize = processingPoolSize; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    }
+
+    public static class Framing {
+        private int lengthPrefixBytes = 4;
+        private String encoding = "UTF-8";
+        private int maxFrameBytes = 4 * 1024 * 1024;
+
+        public int getLengthPrefixBytes() { return lengthPrefixBytes; }
+        public void setLengthPrefixBytes(int lengthPrefixBytes) { this.lengthPrefixBytes = lengthPrefixBytes; }
+
+        public String getEncoding() { return encoding; }
+        public void setEncoding(String encoding) { this.encoding = encoding; }
+
+        public int getMaxFrameBytes() { return maxFrameBytes; }
+        public void setMaxFrameBytes(int maxFrameBytes) { this.maxFrameBytes = maxFrameBytes; }
+    }
+
+    /**
+     * Pipelined ISO 8583 link to the Switch ({@link com.hitachi.imps.socket.SwitchIsoChannel}):
+     * raw length-prefixed ISO over a few persistent connections, replies matched by DE120 / DE11+DE37 / DE37.
+     * Independent of 'enabled' above; uses framing.length-prefix-bytes and framing.max-frame-bytes.
+     */
+    public static class SwitchChannel {
+        private boolean enabled;
+        private String host = "localhost";
+        private int port = 9282;
+        private int connections = 2;
+        private int maxInFlight = 1000;
+        private long timeoutMs = 30000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public String getHost() { return host; }
+        public void setHost(String host) { this.host = host; }
+
+        public int getPort() { return port; }
+        public void setPort(int port) { this.port = port; }
+
+        public int getConnections() { return connections; }
+        public void setConnections(int connections) { this.connections = connections; }
+
+        public int getMaxInFlight() { return maxInFlight; }
+        public void setMaxInFlight(int maxInFlight) { this.maxInFlight = maxInFlight; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+    }
+}
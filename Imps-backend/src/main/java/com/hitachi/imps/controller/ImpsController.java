@@ -4,12 +4,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
-import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.exception.CommonCodeValidationException;
 import com.hitachi.imps.exception.InvalidReqMsgIdException;
 import com.hitachi.imps.service.TransactionService;
+import com.hitachi.imps.service.admission.AdmissionControl;
+import com.hitachi.imps.service.ack.AckSender;
 import com.hitachi.imps.service.ack.AckService;
 import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 import com.hitachi.imps.service.chktxn.reqchktxn.NpciReqChkTxnService;
 import com.hitachi.imps.service.heartbeat.reqhbt.NpciReqHbtService;
 import com.hitachi.imps.service.listaccpvd.reqlistaccpvd.NpciReqListAccPvdService;
@@ -24,6 +26,8 @@ import com.hitachi.imps.service.validation.CommonCodeValidationService;
  * URL pattern: http://localhost:8081/imps/{reqpay|reqchktxn|reqvaladd|reqhbt|reqlistaccpvd}/{txn_id}
  * txnId: unique per transaction (validated against public.transaction; duplicate rejected with 409).
  *
+ * Requests pass {@link AdmissionControl} before they are ACKed; over capacity they get a 503 error ACK.
+ *
  * Flow: NPCI → IMPS (ACK to npci_mock) → process → IMPS → Switch; Switch → IMPS (/switch/resp*) → IMPS → NPCI (/npci/resp*).
  */
 @RestController
@@ -32,8 +36,9 @@ public class ImpsController {
 
     @Autowired private AckService ackService;
     @Autowired private XmlParsingService xmlParsingService;
-    @Autowired private NpciMockClient npciMockClient;
+    @Autowired private AckSender ackSender;
     @Autowired private TransactionService transactionService;
+    @Autowired private AdmissionControl admission;
 
     @Autowired private CommonCodeValidationService commonCodeValidationService;
     @Autowired private ReqPayValidationService reqPayValidationService;
@@ -49,55 +54,61 @@ public class ImpsController {
         transactionService.validateNewTxnId(txnId);
     }
 
-    private String ackAndProcessReq(String xml, String txnId, String apiName, String reqType, Runnable process) {
-        String reqMsgId = xmlParsingService.extractMsgId(xml);
+    private byte[] ackAndProcessReq(ParsedNpciMessage msg, String txnId, String apiName, String reqType, Runnable process) {
+        String reqMsgId = msg.getMsgId();
         if (reqMsgId == null || reqMsgId.isBlank())
             throw new InvalidReqMsgIdException("reqMsgId (Head @msgId) is required for ACK and must not be blank");
-        System.out.println("ack of " + reqType + "/" + txnId + " send to npci");
-        String ack = ackService.buildAck(apiName, reqMsgId);
-        npciMockClient.sendAckToNpciMock(ack);
-        process.run();
+        byte[] ack = ackService.buildAckBytes(apiName, reqMsgId);
+        // ACK only once processing is queued: over capacity → 503 error ACK, nothing processed
+        admission.handOff(apiName, reqMsgId, process);
+        ackSender.submit(ack);
+        System.out.println("ack of " + reqType + "/" + txnId + " queued to npci");
         return ack;
     }
 
     /* ========== NPCI → IMPS (dynamic paths) ========== */
     @PostMapping(value = "/reqpay/{txnId}", consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqpay(@PathVariable String txnId, @RequestBody String xml) throws ReqPayValidationException {
+    public byte[] reqpay(@PathVariable String txnId, @RequestBody String xml) throws ReqPayValidationException {
         System.out.println("imps reqpay/" + txnId + " receive");
         validateNewTxnId(txnId);
-        reqPayValidationService.validate(xml);
-        return ackAndProcessReq(xml, txnId, "ReqPay", "reqpay", () -> reqPayService.processAsync(xml, txnId));
+        ParsedNpciMessage msg = xmlParsingService.parse(xml);
+        reqPayValidationService.validate(msg);
+        return ackAndProcessReq(msg, txnId, "ReqPay", "reqpay", () -> reqPayService.processAsync(msg, txnId));
     }
 
     @PostMapping(value = "/reqchktxn/{txnId}", consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqchktxn(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
+    public byte[] reqchktxn(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
         System.out.println("imps reqchktxn/" + txnId + " receive");
         validateNewTxnId(txnId);
-        commonCodeValidationService.validateCommonHeadTxn(xml);
-        return ackAndProcessReq(xml, txnId, "ReqChkTxn", "reqchktxn", () -> reqChkTxnService.processAsync(xml, txnId));
+        ParsedNpciMessage msg = xmlParsingService.parse(xml);
+        commonCodeValidationService.validateCommonHeadTxn(msg);
+        return ackAndProcessReq(msg, txnId, "ReqChkTxn", "reqchktxn", () -> reqChkTxnService.processAsync(msg, txnId));
     }
 
     @PostMapping(value = "/reqhbt/{txnId}", consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqhbt(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
+    public byte[] reqhbt(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
         System.out.println("imps reqhbt/" + txnId + " receive");
         validateNewTxnId(txnId);
-        commonCodeValidationService.validateCommonHeadTxn(xml);
-        return ackAndProcessReq(xml, txnId, "ReqHbt", "reqhbt", () -> reqHbtService.processAsync(xml, txnId));
+        ParsedNpciMessage msg = xmlParsingService.parse(xml);
+        commonCodeValidationService.validateCommonHeadTxn(msg);
+        return ackAndProcessReq(msg, txnId, "ReqHbt", "reqhbt", () -> reqHbtService.processAsync(msg, txnId));
     }
 
     @PostMapping(value = "/reqlistaccpvd/{txnId}", consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqlistaccpvd(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
+    public byte[] reqlistaccpvd(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
         System.out.println("imps reqlistaccpvd/" + txnId + " receive");
         validateNewTxnId(txnId);
-        commonCodeValidationService.validateCommonHeadTxn(xml);
-        return ackAndProcessReq(xml, txnId, "ReqListAccPvd", "reqlistaccpvd", () -> reqListAccPvdService.processAsync(xml, txnId));
+        ParsedNpciMessage msg = xmlParsingService.parse(xml);
+        commonCodeValidationService.validateCommonHeadTxn(msg);
+        return ackAndProcessReq(msg, txnId, "ReqListAccPvd", "reqlistaccpvd", () -> reqListAccPvdService.processAsync(msg, txnId));
     }
 
     @PostMapping(value = "/reqvaladd/{txnId}", consumes = MediaType.APPLICATION_XML_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqvaladd(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
+    public byte[] reqvaladd(@PathVariable String txnId, @RequestBody String xml) throws CommonCodeValidationException {
         System.out.println("imps reqvaladd/" + txnId + " receive");
         validateNewTxnId(txnId);
-        commonCodeValidationService.validateCommonHeadTxn(xml);
-        return ackAndProcessReq(xml, txnId, "ReqValAdd", "reqvaladd", () -> reqValAddService.processAsync(xml, txnId));
+        ParsedNpciMessage msg = xmlParsingService.parse(xml);
+        commonCodeValidationService.validateCommonHeadTxn(msg);
+        return ackAndProcessReq(msg, txnId, "ReqValAdd", "reqvaladd", () -> reqValAddService.processAsync(msg, txnId));
     }
 }
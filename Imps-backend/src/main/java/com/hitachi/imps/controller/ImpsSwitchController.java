@@ -28,45 +28,45 @@ public class ImpsSwitchController {
     @Autowired private SwitchRespValAddService respValAddService;
 
     @PostMapping(value = "/resppay/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String resppay(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] resppay(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("switch resppay/" + txnId + " receive");
-        String ack = ackService.buildAck("RespPay", txnId);
+        byte[] ack = ackService.buildAckBytes("RespPay", txnId);
         System.out.println("ack send to switch of resppay/" + txnId);
         respPayService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/respchktxn/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String respchktxn(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] respchktxn(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("switch respchktxn/" + txnId + " receive");
-        String ack = ackService.buildAck("RespChkTxn", txnId);
+        byte[] ack = ackService.buildAckBytes("RespChkTxn", txnId);
         System.out.println("ack send to switch of respchktxn/" + txnId);
         respChkTxnService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/resphbt/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String resphbt(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] resphbt(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("switch resphbt/" + txnId + " receive");
-        String ack = ackService.buildAck("RespHbt", txnId);
+        byte[] ack = ackService.buildAckBytes("RespHbt", txnId);
         System.out.println("ack send to switch of resphbt/" + txnId);
         respHbtService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/resplistaccpvd/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String resplistaccpvd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] resplistaccpvd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("switch resplistaccpvd/" + txnId + " receive");
-        String ack = ackService.buildAck("RespListAccPvd", txnId);
+        byte[] ack = ackService.buildAckBytes("RespListAccPvd", txnId);
         System.out.println("ack send to switch of resplistaccpvd/" + txnId);
         respListAccPvdService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/respvaladd/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String respvaladd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] respvaladd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("switch respvaladd/" + txnId + " receive");
-        String ack = ackService.buildAck("RespValAdd", txnId);
+        byte[] ack = ackService.buildAckBytes("RespValAdd", txnId);
         System.out.println("ack send to switch of respvaladd/" + txnId);
         respValAddService.processAsync(isoBytes, txnId);
         return ack;
@@ -0,0 +1,25 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.ack.AckSender;
+
+/**
+ * Ops endpoint for asynchronous ACK delivery to NPCI.
+ * GET /imps/admin/ack-sender – submitted / delivered / failed / dropped counts, queue depth, batch sizes, latency
+ */
+@RestController
+@RequestMapping("/imps/admin/ack-sender")
+public class AckSenderAdminController {
+
+    @Autowired private AckSender ackSender;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return ackSender.stats();
+    }
+}
@@ -0,0 +1,26 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.admission.AdmissionControl;
+
+/**
+ * Ops endpoint for admission control at the NPCI edge.
+ * GET /imps/admin/admission – current load and what drives it (async queue, tasks in flight, DB waiters),
+ *                             shed thresholds per API, admitted / rejected counts per API
+ */
+@RestController
+@RequestMapping("/imps/admin/admission")
+public class AdmissionAdminController {
+
+    @Autowired private AdmissionControl admission;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return admission.stats();
+    }
+}
@@ -0,0 +1,25 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.audit.AuditWriter;
+
+/**
+ * Ops endpoint for the write-behind audit pipeline.
+ * GET /imps/admin/audit-writer – written / buffered / spilled / dropped counts and batch totals
+ */
+@RestController
+@RequestMapping("/imps/admin/audit-writer")
+public class AuditWriterAdminController {
+
+    @Autowired private AuditWriter auditWriter;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return auditWriter.stats();
+    }
+}
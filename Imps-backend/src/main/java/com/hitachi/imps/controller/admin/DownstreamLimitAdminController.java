@@ -0,0 +1,26 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Ops endpoint for the per-downstream concurrency limits.
+ * GET /imps/admin/downstream-limits – permits, in use, waiting and rejected counts for DB; for SWITCH / NPCI
+ *                                    the adaptive limit, in flight, RTT, drops and circuit breaker state
+ */
+@RestController
+@RequestMapping("/imps/admin/downstream-limits")
+public class DownstreamLimitAdminController {
+
+    @Autowired private DownstreamLimiter limiter;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return limiter.stats();
+    }
+}
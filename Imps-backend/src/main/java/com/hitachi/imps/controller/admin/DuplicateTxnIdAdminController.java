@@ -0,0 +1,26 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.dedup.DuplicateTxnIdDetector;
+
+/**
+ * Ops endpoint for duplicate txn_id detection.
+ * GET /imps/admin/txn-id-dedup – requests admitted without a DB read, DB confirmations, filter false positives,
+ * rejections and unique-index conflicts at insert
+ */
+@RestController
+@RequestMapping("/imps/admin/txn-id-dedup")
+public class DuplicateTxnIdAdminController {
+
+    @Autowired private DuplicateTxnIdDetector detector;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return detector.stats();
+    }
+}
@@ -0,0 +1,25 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.correlation.InFlightRegistry;
+
+/**
+ * Ops endpoint for the in-flight correlation registry.
+ * GET /imps/admin/inflight – entries awaiting a Switch response, hit / miss counts and TTL evictions
+ */
+@RestController
+@RequestMapping("/imps/admin/inflight")
+public class InFlightAdminController {
+
+    @Autowired private InFlightRegistry registry;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return registry.stats();
+    }
+}
@@ -0,0 +1,26 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.outbox.NpciOutbox;
+
+/**
+ * Ops endpoint for the NPCI response outbox.
+ * GET /imps/admin/outbox – pending rows and age of the oldest (outbox lag), delivered, failed attempts,
+ *                          dead rows and deliveries in flight
+ */
+@RestController
+@RequestMapping("/imps/admin/outbox")
+public class OutboxAdminController {
+
+    @Autowired private NpciOutbox outbox;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return outbox.stats();
+    }
+}
@@ -0,0 +1,32 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.partition.PartitionManager;
+
+/**
+ * Ops endpoints for the transaction / message_audit_log partitions.
+ * GET  /imps/admin/partitions      – settings, counters and the result of the last maintenance run
+ * POST /imps/admin/partitions/run  – create upcoming / retire expired partitions now
+ */
+@RestController
+@RequestMapping("/imps/admin/partitions")
+public class PartitionAdminController {
+
+    @Autowired private PartitionManager partitionManager;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return partitionManager.stats();
+    }
+
+    @PostMapping(value = "/run", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> run() {
+        System.out.println("=== Partition maintenance requested ===");
+        return partitionManager.maintain();
+    }
+}
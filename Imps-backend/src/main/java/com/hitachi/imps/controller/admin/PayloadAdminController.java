@@ -0,0 +1,41 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.payload.PayloadCodec;
+import com.hitachi.imps.service.payload.PayloadMigrator;
+
+/**
+ * Ops endpoints for compressed payload storage.
+ * GET  /imps/admin/payload          – codec settings / ratio, column types and migration counters
+ * POST /imps/admin/payload/migrate  – compress up to limit rows of table after afterId; repeat with
+ *                                     the returned nextAfterId until done
+ */
+@RestController
+@RequestMapping("/imps/admin/payload")
+public class PayloadAdminController {
+
+    @Autowired private PayloadCodec codec;
+    @Autowired private PayloadMigrator migrator;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("codec", codec.stats());
+        m.put("migration", migrator.stats());
+        return m;
+    }
+
+    @PostMapping(value = "/migrate", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> migrate(@RequestParam String table,
+                                       @RequestParam(defaultValue = "0") long afterId,
+                                       @RequestParam(defaultValue = "10000") int limit) {
+        System.out.println("=== Payload migration requested: " + table + " after id " + afterId + " ===");
+        return migrator.migrate(table, afterId, limit);
+    }
+}
@@ -0,0 +1,32 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
+
+/**
+ * Ops endpoints for the reference-data cache.
+ * GET  /imps/admin/refdata          – institutions loaded, last refresh, account cache hits / misses / evictions
+ * POST /imps/admin/refdata/refresh  – reload institution_master and drop cached accounts now (after editing them)
+ */
+@RestController
+@RequestMapping("/imps/admin/refdata")
+public class RefDataAdminController {
+
+    @Autowired private ReferenceDataCache refData;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return refData.stats();
+    }
+
+    @PostMapping(value = "/refresh", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> refresh() {
+        System.out.println("=== Reference data refresh requested ===");
+        return refData.refresh();
+    }
+}
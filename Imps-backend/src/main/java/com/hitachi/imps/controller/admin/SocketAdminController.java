@@ -0,0 +1,35 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.socket.SocketTransport;
+import com.hitachi.imps.socket.SwitchIsoChannel;
+
+/**
+ * Ops endpoint for the TCP socket transport.
+ * GET /imps/admin/socket – listeners (connections, frames, 503 rejections) and NPCI / Switch client
+ *                          connections (connected, pending replies, failures)
+ * GET /imps/admin/socket/switch-channel – pipelined ISO channel to the Switch (in flight, matched,
+ *                          unmatched, timeouts, window rejections)
+ */
+@RestController
+@RequestMapping("/imps/admin/socket")
+public class SocketAdminController {
+
+    @Autowired private SocketTransport socketTransport;
+    @Autowired private SwitchIsoChannel switchIsoChannel;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> stats() {
+        return socketTransport.stats();
+    }
+
+    @GetMapping(value = "/switch-channel", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> switchChannel() {
+        return switchIsoChannel.stats();
+    }
+}
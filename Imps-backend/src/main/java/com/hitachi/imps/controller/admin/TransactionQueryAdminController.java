@@ -0,0 +1,68 @@
+package com.hitachi.imps.controller.admin;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.hitachi.imps.service.query.TransactionFilter;
+import com.hitachi.imps.service.query.TransactionQueryService;
+
+/**
+ * Ops read API over the transaction table (no req_xml / resp_xml).
+ * GET /imps/admin/transactions         – one page, newest first; pass the returned nextCursor as cursor
+ *                                        for the next page
+ * GET /imps/admin/transactions/export  – every matching row as NDJSON, streamed
+ * Filters: status, txnType, from / to (txn_date, yyyy-MM-dd; default the last imps.txn-query.default-days days),
+ * de37, de11.
+ */
+@RestController
+@RequestMapping("/imps/admin/transactions")
+public class TransactionQueryAdminController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired private TransactionQueryService queryService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> page(@RequestParam(required = false) String status,
+                                    @RequestParam(required = false) String txnType,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                    @RequestParam(required = false) String de37,
+                                    @RequestParam(required = false) String de11,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(defaultValue = "50") int limit) {
+        return queryService.page(new TransactionFilter(status, txnType, from, to, de37, de11), cursor, limit);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) String status,
+                                                        @RequestParam(required = false) String txnType,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(required = false) String de37,
+                                                        @RequestParam(required = false) String de11) {
+        // resolved here so a bad range is a 400, not a broken stream
+        TransactionFilter filter = queryService.resolve(new TransactionFilter(status, txnType, from, to, de37, de11));
+        System.out.println("=== Transaction export requested ===");
+        StreamingResponseBody body = out -> queryService.export(filter, out);
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions.ndjson\"")
+            .body(body);
+    }
+
+    /** Bad date range or cursor; kept here so the NPCI fallback handler does not turn it into a RespPay. */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> badRequest(IllegalArgumentException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", ex.getMessage()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.hitachi.imps.controller.admin;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.hitachi.imps.service.iso.XPathRuleCache;
+
+/**
+ * Ops endpoints for the cached XPath rules (xml_path_req_pay, response_xpath).
+ * GET  /imps/admin/xpath-rules          – current snapshot
+ * POST /imps/admin/xpath-rules/refresh  – reload from DB now (after editing the rule tables)
+ */
+@RestController
+@RequestMapping("/imps/admin/xpath-rules")
+public class XPathRuleAdminController {
+
+    @Autowired private XPathRuleCache ruleCache;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> current() {
+        return describe(ruleCache.current());
+    }
+
+    @PostMapping(value = "/refresh", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> refresh() {
+        System.out.println("=== XPath rule cache refresh requested ===");
+        return describe(ruleCache.refresh());
+    }
+
+    private Map<String, Object> describe(XPathRuleCache.Snapshot s) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("loadedAt", s.getLoadedAt().toString());
+        body.put("compiledXPathCount", s.getCompiledXPathCount());
+        body.put("reqPay", rules(s.getReqPay()));
+        body.put("response", rules(s.getResponse()));
+        return body;
+    }
+
+    private List<Map<String, Object>> rules(List<XPathRuleCache.CompiledRule> rules) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (XPathRuleCache.CompiledRule r : rules) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", r.getName());
+            m.put("xpath", r.getXpath());
+            m.put("plan", r.getFieldKey() != null ? "single-pass:" + r.getFieldKey()
+                : (r.isCompiledXPath() ? "compiled-xpath" : "invalid"));
+            out.add(m);
+        }
+        return out;
+    }
+}
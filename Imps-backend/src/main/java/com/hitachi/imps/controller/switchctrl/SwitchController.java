@@ -33,41 +33,41 @@ public class SwitchController {
     @Autowired private SwitchReqValAddService reqValAddService;
 
     @PostMapping(value = "/reqpay/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqPay(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] reqPay(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("=== SWITCH REQPAY RECEIVED txnId=" + txnId + " ===");
-        String ack = ackService.buildAck("ReqPay", txnId);
+        byte[] ack = ackService.buildAckBytes("ReqPay", txnId);
         reqPayService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/reqchktxn/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqChkTxn(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] reqChkTxn(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("=== SWITCH REQCHKTXN RECEIVED txnId=" + txnId + " ===");
-        String ack = ackService.buildAck("ReqChkTxn", txnId);
+        byte[] ack = ackService.buildAckBytes("ReqChkTxn", txnId);
         reqChkTxnService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/reqhbt/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqHbt(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] reqHbt(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("=== SWITCH REQHBT RECEIVED txnId=" + txnId + " ===");
-        String ack = ackService.buildAck("ReqHbt", txnId);
+        byte[] ack = ackService.buildAckBytes("ReqHbt", txnId);
         reqHbtService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/reqlistaccpvd/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqListAccPvd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] reqListAccPvd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("=== SWITCH REQLISTACCPVD RECEIVED txnId=" + txnId + " ===");
-        String ack = ackService.buildAck("ReqListAccPvd", txnId);
+        byte[] ack = ackService.buildAckBytes("ReqListAccPvd", txnId);
         reqListAccPvdService.processAsync(isoBytes, txnId);
         return ack;
     }
 
     @PostMapping(value = "/reqvaladd/{txnId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE, produces = MediaType.APPLICATION_XML_VALUE)
-    public String reqValAdd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+    public byte[] reqValAdd(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
         System.out.println("=== SWITCH REQVALADD RECEIVED txnId=" + txnId + " ===");
-        String ack = ackService.buildAck("ReqValAdd", txnId);
+        byte[] ack = ackService.buildAckBytes("ReqValAdd", txnId);
         reqValAddService.processAsync(isoBytes, txnId);
         return ack;
     }
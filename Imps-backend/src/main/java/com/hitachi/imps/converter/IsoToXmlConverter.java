@@ -1,17 +1,27 @@
 package com.hitachi.imps.converter;
 
 import org.jpos.iso.ISOMsg;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.hitachi.imps.iso.ImpsIsoPackager;
-import com.hitachi.imps.util.IsoUtil;
-
-import java.time.OffsetDateTime;
+import com.hitachi.imps.iso.ImpsIsoView;
+import com.hitachi.imps.iso.IsoFieldReader;
+import com.hitachi.imps.iso.IsoMsgPool;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.xml.XmlTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Converter for transforming ISO 8583 messages to NPCI XML format.
  * Supports all IMPS API types: RespPay, RespChkTxn, RespHbt, RespValAdd, RespListAccPvd
+ *
+ * Each message shape is an {@link XmlTemplate} compiled once into static byte segments;
+ * a conversion only fills the escaped value slots and the timestamps into a pooled, reused buffer.
  */
 @Component
 public class IsoToXmlConverter {
@@ -20,16 +30,158 @@ public class IsoToXmlConverter {
     private static final String PROD_TYPE = "IMPS";
     private static final String API_VERSION = "2.0";
 
+    /* ===============================
+       MESSAGE TEMPLATES
+       =============================== */
+    private static final Map<String, String> CONSTANTS = Map.of(
+        "ns", NAMESPACE, "ver", API_VERSION, "prodType", PROD_TYPE);
+
+    private static final Map<String, String> RESP_PAY_CONSTANTS = Map.of(
+        "ns", RespPaySpec.truncate(NAMESPACE, RespPaySpec.XMLNS_MAX),
+        "ver", RespPaySpec.truncate(API_VERSION, RespPaySpec.HEAD_VER_MAX),
+        "prodType", RespPaySpec.PRODTYPE_FIXED);
+
+    private static final XmlTemplate REQ_PAY = XmlTemplate.compile("""
+        <ns2:ReqPay xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Switch Request" custRef="${custRef}" type="PAY" ts="#{ts}"/>
+            <Payer addr="switch@bank" name="SWITCH_PAYER" seqNum="1" type="ENTITY" code="0000">
+                <Ac addrType="ACCOUNT">
+                    <Detail name="ACNUM" value="${payerAc}"/>
+                    <Detail name="ACTYPE" value="SAVINGS"/>
+                </Ac>
+                <Amount value="${amount}" curr="INR"/>
+            </Payer>
+            <Payees>
+                <Payee seqNum="1" type="PERSON" code="0000">
+                    <Ac addrType="ACCOUNT">
+                        <Detail name="IFSC" value="${payeeIfsc}"/>
+                        <Detail name="ACNUM" value="${payeeAc}"/>
+                        <Detail name="ACTYPE" value="SAVINGS"/>
+                    </Ac>
+                    <Amount value="${amount}" curr="INR"/>
+                </Payee>
+            </Payees>
+        </ns2:ReqPay>
+        """, CONSTANTS);
+
+    private static final XmlTemplate RESP_PAY = XmlTemplate.compile("""
+        <ns2:RespPay xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="${orgId}" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Response" refId="" refUrl="" ts="#{ts}" type="CREDIT" subType="PAY" initiationMode="API" refCategory="00"/>
+            <Resp reqMsgId="${reqMsgId}" result="${result}">
+                <Ref type="PAYEE" seqNum="1"
+                     addr="${addr}"
+                     settAmount="${settAmount}"
+                     orgAmount="${orgAmount}"
+                     settCurrency="INR"
+                     approvalNum="${approvalNum}"
+                     respCode="${respCode}"
+                     regName="${regName}"
+                     reversalRespCode=""
+                     acNum="${acNum}"
+                     code="0000"
+                     IFSC="${ifsc}"
+                     accType="SAVINGS"/>
+            </Resp>
+        </ns2:RespPay>
+        """, RESP_PAY_CONSTANTS);
+
+    private static final XmlTemplate REQ_CHK_TXN = XmlTemplate.compile("""
+        <ns2:ReqChkTxn xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Status Check" custRef="${custRef}" orgTxnId="${orgTxnId}" orgRrn="${orgRrn}" type="VR" ts="#{ts}"/>
+            <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000">
+                <Amount value="${amount}" curr="INR"/>
+            </Payer>
+        </ns2:ReqChkTxn>
+        """, CONSTANTS);
+
+    private static final XmlTemplate RESP_CHK_TXN = XmlTemplate.compile("""
+        <ns2:RespChkTxn xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Status Response" type="ChkBankStatus" ts="#{ts}"/>
+            <Resp reqMsgId="${reqMsgId}" result="${result}">
+                <Ref type="PAYEE" seqNum="1"
+                     settAmount="${settAmount}"
+                     orgAmount="${orgAmount}"
+                     settCurrency="INR"
+                     approvalNum="${approvalNum}"
+                     respCode="${respCode}"/>
+            </Resp>
+        </ns2:RespChkTxn>
+        """, CONSTANTS);
+
+    private static final XmlTemplate REQ_HBT = XmlTemplate.compile("""
+        <upi:ReqHbt xmlns:upi="${ns}">
+            <Head ver="1.0" ts="#{ts}" orgId="SWITCH" msgId="${msgId}"/>
+            <Txn id="${txnId}" note="Heartbeat" refId="" refUrl="" ts="#{ts}" type="Hbt"/>
+            <HbtMsg type="${hbtType}" value="NA"/>
+        </upi:ReqHbt>
+        """, CONSTANTS);
+
+    private static final XmlTemplate RESP_HBT = XmlTemplate.compile("""
+        <upi:RespHbt xmlns:upi="${ns}">
+            <Head ver="1.0" ts="#{ts}" orgId="SWITCH" msgId="${msgId}"/>
+            <Txn id="${txnId}" note="Heartbeat Response" refId="" refUrl="" ts="#{ts}" type="Hbt"/>
+            <Resp reqMsgId="${reqMsgId}" result="${result}"/>
+        </upi:RespHbt>
+        """, CONSTANTS);
+
+    private static final XmlTemplate REQ_VAL_ADD = XmlTemplate.compile("""
+        <ns2:ReqValAdd xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Name Enquiry" type="NameEnq" ts="#{ts}"/>
+            <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000"/>
+            <Payee seqNum="1" type="PERSON" code="0000">
+                <Ac addrType="ACCOUNT">
+                    <Detail name="IFSC" value="${ifsc}"/>
+                    <Detail name="ACNUM" value="${acNum}"/>
+                    <Detail name="ACTYPE" value="DEFAULT"/>
+                </Ac>
+            </Payee>
+        </ns2:ReqValAdd>
+        """, CONSTANTS);
+
+    private static final XmlTemplate RESP_VAL_ADD = XmlTemplate.compile("""
+        <ns2:RespValAdd xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn id="${txnId}" note="Name Enquiry Response" type="NameEnq" ts="#{ts}"/>
+            <Resp reqMsgId="${reqMsgId}" result="${result}"
+                  IFSC="${ifsc}" acNum="${acNum}" accType="DEFAULT"
+                  approvalNum="${approvalNum}" code="0000" type="PERSON"/>
+        </ns2:RespValAdd>
+        """, CONSTANTS);
+
+    private static final XmlTemplate RESP_LIST_ACC_PVD = XmlTemplate.compile("""
+        <ns2:RespListAccPvd xmlns:ns2="${ns}">
+            <Head ver="${ver}" ts="#{ts}" orgId="SWITCH" msgId="${msgId}" prodType="${prodType}"/>
+            <Txn type="ListAccPvd"/>
+            <Resp reqMsgId="${reqMsgId}" result="SUCCESS"/>
+            <AccPvdList/>
+        </ns2:RespListAccPvd>
+        """, CONSTANTS);
+
+
+    @Autowired
+    private IsoMsgPool msgPool;
+
+    @Autowired
+    private IsoCodecService isoCodec;
+
     /* ===============================
        REQPAY - ISO 0200 to XML
        (When Switch initiates a request)
        =============================== */
     public String convertReqPayToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertReqPayToXml(iso);
+        return fromBytes(isoBytes, this::convertReqPayToXml);
     }
 
     public String convertReqPayToXml(ISOMsg iso) {
+        return convertReqPayToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertReqPayToXml(IsoFieldReader iso) {
         try {
             // Rule 021/022: msgId and Txn id 35 chars (3 BPC + 32)
             String txnId = "TXN" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
@@ -39,37 +191,7 @@ public class IsoToXmlConverter {
             String payeeAc = iso.getString(103);
             String payeeIfsc = iso.getString(33);
 
-            return """
-                <ns2:ReqPay xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Switch Request" custRef="%s" type="PAY" ts="%s"/>
-                    <Payer addr="switch@bank" name="SWITCH_PAYER" seqNum="1" type="ENTITY" code="0000">
-                        <Ac addrType="ACCOUNT">
-                            <Detail name="ACNUM" value="%s"/>
-                            <Detail name="ACTYPE" value="SAVINGS"/>
-                        </Ac>
-                        <Amount value="%s" curr="INR"/>
-                    </Payer>
-                    <Payees>
-                        <Payee seqNum="1" type="PERSON" code="0000">
-                            <Ac addrType="ACCOUNT">
-                                <Detail name="IFSC" value="%s"/>
-                                <Detail name="ACNUM" value="%s"/>
-                                <Detail name="ACTYPE" value="SAVINGS"/>
-                            </Ac>
-                            <Amount value="%s" curr="INR"/>
-                        </Payee>
-                    </Payees>
-                </ns2:ReqPay>
-                """.formatted(
-                    NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                    txnId, iso.getString(37), OffsetDateTime.now(),
-                    payerAc != null ? payerAc : "",
-                    amount,
-                    payeeIfsc != null ? payeeIfsc : "",
-                    payeeAc != null ? payeeAc : "",
-                    amount
-                );
+            return REQ_PAY.renderToString(msgId, txnId, iso.getString(37), payerAc, amount, payeeIfsc, payeeAc);
         } catch (Exception e) {
             throw new RuntimeException("ISO to ReqPay XML conversion failed", e);
         }
@@ -79,8 +201,7 @@ public class IsoToXmlConverter {
        RESPPAY - ISO 0210 to XML
        =============================== */
     public String convertRespPayToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertRespPayToXml(iso);
+        return fromBytes(isoBytes, this::convertRespPayToXml);
     }
 
     /**
@@ -92,8 +213,11 @@ public class IsoToXmlConverter {
      * 5.2 Ref: type, seqNum(Max3), addr(Max255), settAmount(totalDigits15), settCurrency(3), approvalNum(6), respCode(Max20), regName(Max99), orgAmount(totalDigits15), reversalRespCode(Max20), acNum(Max30), code(4), IFSC(11), accType
      */
     public String convertRespPayToXml(ISOMsg iso) {
+        return convertRespPayToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertRespPayToXml(IsoFieldReader iso) {
         try {
-            String ts = RespPaySpec.truncate(OffsetDateTime.now().toString(), RespPaySpec.HEAD_TS_MAX);
             // Rule 021: Head msgId 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
             String responseCode = iso.getString(39);
@@ -111,31 +235,7 @@ public class IsoToXmlConverter {
             String regName = RespPaySpec.truncate("BENEFICIARY", RespPaySpec.REF_REGNAME_MAX);
             String respCode = RespPaySpec.truncate(responseCode != null ? responseCode : "00", RespPaySpec.REF_RESPCODE_MAX);
 
-            return """
-                <ns2:RespPay xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="%s" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Response" refId="" refUrl="" ts="%s" type="CREDIT" subType="PAY" initiationMode="API" refCategory="00"/>
-                    <Resp reqMsgId="%s" result="%s">
-                        <Ref type="PAYEE" seqNum="1"
-                             addr="%s"
-                             settAmount="%s"
-                             orgAmount="%s"
-                             settCurrency="INR"
-                             approvalNum="%s"
-                             respCode="%s"
-                             regName="%s"
-                             reversalRespCode=""
-                             acNum="%s"
-                             code="0000"
-                             IFSC="%s"
-                             accType="SAVINGS"/>
-                    </Resp>
-                </ns2:RespPay>
-                """.formatted(
-                    NAMESPACE.length() > RespPaySpec.XMLNS_MAX ? NAMESPACE.substring(0, RespPaySpec.XMLNS_MAX) : NAMESPACE,
-                    RespPaySpec.truncate(API_VERSION, RespPaySpec.HEAD_VER_MAX), ts, orgId, msgId, RespPaySpec.PRODTYPE_FIXED,
-                    txnId, ts, reqMsgId, result, addr, amount, amount, approvalNum, respCode, regName, acNum, ifsc
-                );
+            return RESP_PAY.renderToString(orgId, msgId, txnId, reqMsgId, result, addr, amount, amount, approvalNum, respCode, regName, acNum, ifsc);
         } catch (Exception e) {
             throw new RuntimeException("ISO to RespPay XML conversion failed", e);
         }
@@ -145,11 +245,14 @@ public class IsoToXmlConverter {
        REQCHKTXN - ISO 0200 to XML
        =============================== */
     public String convertReqChkTxnToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertReqChkTxnToXml(iso);
+        return fromBytes(isoBytes, this::convertReqChkTxnToXml);
     }
 
     public String convertReqChkTxnToXml(ISOMsg iso) {
+        return convertReqChkTxnToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertReqChkTxnToXml(IsoFieldReader iso) {
         try {
             // Rule 021/022: 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
@@ -158,19 +261,7 @@ public class IsoToXmlConverter {
             String orgRrn = iso.getString(37);
             String amount = paiseToRupees(iso.getString(4));
 
-            return """
-                <ns2:ReqChkTxn xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Status Check" custRef="%s" orgTxnId="%s" orgRrn="%s" type="VR" ts="%s"/>
-                    <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000">
-                        <Amount value="%s" curr="INR"/>
-                    </Payer>
-                </ns2:ReqChkTxn>
-                """.formatted(
-                    NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                    txnId, orgRrn != null ? orgRrn : "", orgTxnId != null ? orgTxnId : "", orgRrn != null ? orgRrn : "",
-                    OffsetDateTime.now(), amount
-                );
+            return REQ_CHK_TXN.renderToString(msgId, txnId, orgRrn, orgTxnId, orgRrn, amount);
         } catch (Exception e) {
             throw new RuntimeException("ISO to ReqChkTxn XML conversion failed", e);
         }
@@ -180,11 +271,14 @@ public class IsoToXmlConverter {
        RESPCHKTXN - ISO 0210 to XML
        =============================== */
     public String convertRespChkTxnToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertRespChkTxnToXml(iso);
+        return fromBytes(isoBytes, this::convertRespChkTxnToXml);
     }
 
     public String convertRespChkTxnToXml(ISOMsg iso) {
+        return convertRespChkTxnToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertRespChkTxnToXml(IsoFieldReader iso) {
         try {
             // Rule 021: Head msgId 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
@@ -193,27 +287,9 @@ public class IsoToXmlConverter {
             String approvalNum = iso.getString(38);
             String amount = paiseToRupees(iso.getString(4));
 
-            return """
-                <ns2:RespChkTxn xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Status Response" type="ChkBankStatus" ts="%s"/>
-                    <Resp reqMsgId="%s" result="%s">
-                        <Ref type="PAYEE" seqNum="1"
-                             settAmount="%s"
-                             orgAmount="%s"
-                             settCurrency="INR"
-                             approvalNum="%s"
-                             respCode="%s"/>
-                    </Resp>
-                </ns2:RespChkTxn>
-                """.formatted(
-                    NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                    iso.getString(37), OffsetDateTime.now(),
-                    iso.getString(11), result,
-                    amount, amount,
+            return RESP_CHK_TXN.renderToString(msgId, iso.getString(37), iso.getString(11), result, amount, amount,
                     approvalNum != null ? approvalNum : "000000",
-                    responseCode != null ? responseCode : "00"
-                );
+                    responseCode != null ? responseCode : "00");
         } catch (Exception e) {
             throw new RuntimeException("ISO to RespChkTxn XML conversion failed", e);
         }
@@ -223,28 +299,21 @@ public class IsoToXmlConverter {
        REQHBT - ISO 0800 to XML
        =============================== */
     public String convertReqHbtToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertReqHbtToXml(iso);
+        return fromBytes(isoBytes, this::convertReqHbtToXml);
     }
 
     public String convertReqHbtToXml(ISOMsg iso) {
+        return convertReqHbtToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertReqHbtToXml(IsoFieldReader iso) {
         try {
             // Rule 021/022: 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
             String txnId = "HBT" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
             String hbtType = iso.getString(48);
 
-            return """
-                <upi:ReqHbt xmlns:upi="%s">
-                    <Head ver="1.0" ts="%s" orgId="SWITCH" msgId="%s"/>
-                    <Txn id="%s" note="Heartbeat" refId="" refUrl="" ts="%s" type="Hbt"/>
-                    <HbtMsg type="%s" value="NA"/>
-                </upi:ReqHbt>
-                """.formatted(
-                    NAMESPACE, OffsetDateTime.now(), msgId,
-                    txnId, OffsetDateTime.now(),
-                    hbtType != null ? hbtType : "ALIVE"
-                );
+            return REQ_HBT.renderToString(msgId, txnId, hbtType != null ? hbtType : "ALIVE");
         } catch (Exception e) {
             throw new RuntimeException("ISO to ReqHbt XML conversion failed", e);
         }
@@ -254,28 +323,21 @@ public class IsoToXmlConverter {
        RESPHBT - ISO 0810 to XML
        =============================== */
     public String convertRespHbtToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertRespHbtToXml(iso);
+        return fromBytes(isoBytes, this::convertRespHbtToXml);
     }
 
     public String convertRespHbtToXml(ISOMsg iso) {
+        return convertRespHbtToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertRespHbtToXml(IsoFieldReader iso) {
         try {
             // Rule 021: Head msgId 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
             String responseCode = iso.getString(39);
             String result = "00".equals(responseCode) ? "SUCCESS" : "FAILURE";
 
-            return """
-                <upi:RespHbt xmlns:upi="%s">
-                    <Head ver="1.0" ts="%s" orgId="SWITCH" msgId="%s"/>
-                    <Txn id="%s" note="Heartbeat Response" refId="" refUrl="" ts="%s" type="Hbt"/>
-                    <Resp reqMsgId="%s" result="%s"/>
-                </upi:RespHbt>
-                """.formatted(
-                    NAMESPACE, OffsetDateTime.now(), msgId,
-                    iso.getString(37), OffsetDateTime.now(),
-                    iso.getString(11), result
-                );
+            return RESP_HBT.renderToString(msgId, iso.getString(37), iso.getString(11), result);
         } catch (Exception e) {
             throw new RuntimeException("ISO to RespHbt XML conversion failed", e);
         }
@@ -285,11 +347,14 @@ public class IsoToXmlConverter {
        REQVALADD - ISO 0200 to XML
        =============================== */
     public String convertReqValAddToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertReqValAddToXml(iso);
+        return fromBytes(isoBytes, this::convertReqValAddToXml);
     }
 
     public String convertReqValAddToXml(ISOMsg iso) {
+        return convertReqValAddToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertReqValAddToXml(IsoFieldReader iso) {
         try {
             // Rule 021/022: 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
@@ -297,25 +362,7 @@ public class IsoToXmlConverter {
             String acNum = iso.getString(102);
             String ifsc = iso.getString(33);
 
-            return """
-                <ns2:ReqValAdd xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Name Enquiry" type="NameEnq" ts="%s"/>
-                    <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000"/>
-                    <Payee seqNum="1" type="PERSON" code="0000">
-                        <Ac addrType="ACCOUNT">
-                            <Detail name="IFSC" value="%s"/>
-                            <Detail name="ACNUM" value="%s"/>
-                            <Detail name="ACTYPE" value="DEFAULT"/>
-                        </Ac>
-                    </Payee>
-                </ns2:ReqValAdd>
-                """.formatted(
-                    NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                    txnId, OffsetDateTime.now(),
-                    ifsc != null ? ifsc : "",
-                    acNum != null ? acNum : ""
-                );
+            return REQ_VAL_ADD.renderToString(msgId, txnId, ifsc, acNum);
         } catch (Exception e) {
             throw new RuntimeException("ISO to ReqValAdd XML conversion failed", e);
         }
@@ -325,11 +372,14 @@ public class IsoToXmlConverter {
        RESPVALADD - ISO 0210 to XML
        =============================== */
     public String convertRespValAddToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertRespValAddToXml(iso);
+        return fromBytes(isoBytes, this::convertRespValAddToXml);
     }
 
     public String convertRespValAddToXml(ISOMsg iso) {
+        return convertRespValAddToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertRespValAddToXml(IsoFieldReader iso) {
         try {
             // Rule 021: Head msgId 35 chars
             String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
@@ -339,22 +389,8 @@ public class IsoToXmlConverter {
             String ifsc = iso.getString(33);
             String approvalNum = iso.getString(38);
 
-            return """
-                <ns2:RespValAdd xmlns:ns2="%s">
-                    <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                    <Txn id="%s" note="Name Enquiry Response" type="NameEnq" ts="%s"/>
-                    <Resp reqMsgId="%s" result="%s"
-                          IFSC="%s" acNum="%s" accType="DEFAULT"
-                          approvalNum="%s" code="0000" type="PERSON"/>
-                </ns2:RespValAdd>
-                """.formatted(
-                    NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                    iso.getString(37), OffsetDateTime.now(),
-                    iso.getString(11), result,
-                    ifsc != null ? ifsc : "",
-                    acNum != null ? acNum : "",
-                    approvalNum != null ? approvalNum : "000000"
-                );
+            return RESP_VAL_ADD.renderToString(msgId, iso.getString(37), iso.getString(11), result, ifsc, acNum,
+                    approvalNum != null ? approvalNum : "000000");
         } catch (Exception e) {
             throw new RuntimeException("ISO to RespValAdd XML conversion failed", e);
         }
@@ -365,32 +401,47 @@ public class IsoToXmlConverter {
        (List Account Provider doesn't typically use ISO)
        =============================== */
     public String convertRespListAccPvdToXml(byte[] isoBytes) {
-        ISOMsg iso = unpackIso(isoBytes);
-        return convertRespListAccPvdToXml(iso);
+        return fromBytes(isoBytes, this::convertRespListAccPvdToXml);
     }
 
     public String convertRespListAccPvdToXml(ISOMsg iso) {
+        return convertRespListAccPvdToXml(IsoFieldReader.of(iso));
+    }
+
+    public String convertRespListAccPvdToXml(IsoFieldReader iso) {
         // Rule 021: Head msgId 35 chars
         String msgId = "MSG" + UUID.randomUUID().toString().replace("-", "").substring(0, 32);
 
-        return """
-            <ns2:RespListAccPvd xmlns:ns2="%s">
-                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
-                <Txn type="ListAccPvd"/>
-                <Resp reqMsgId="%s" result="SUCCESS"/>
-                <AccPvdList/>
-            </ns2:RespListAccPvd>
-            """.formatted(
-                NAMESPACE, API_VERSION, OffsetDateTime.now(), msgId, PROD_TYPE,
-                iso.getString(11)
-            );
+        return RESP_LIST_ACC_PVD.renderToString(msgId, iso.getString(11));
     }
 
     /* ===============================
        HELPER METHODS
        =============================== */
+    /** Read the fields through the flyweight view (imps.iso.codec=flyweight), else via a pooled jPOS ISOMsg. */
+    private String fromBytes(byte[] isoBytes, Function<IsoFieldReader, String> converter) {
+        ImpsIsoView view = isoCodec.view(isoBytes);
+        if (view != null) {
+            return converter.apply(view);
+        }
+        ISOMsg iso = unpackIso(isoBytes);
+        try {
+            return converter.apply(IsoFieldReader.of(iso));
+        } finally {
+            msgPool.release(iso);
+        }
+    }
+
+    /** Unpack into a pooled ISOMsg; callers release it once the XML is built. */
     private ISOMsg unpackIso(byte[] isoBytes) {
-        return IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        ISOMsg iso = msgPool.borrow(ImpsIsoPackager.INSTANCE);
+        try {
+            iso.unpack(isoBytes);
+            return iso;
+        } catch (Exception e) {
+            msgPool.release(iso);
+            throw new RuntimeException("ISO unpack failed", e);
+        }
     }
 
     private String paiseToRupees(String paise) {
@@ -398,9 +449,7 @@ public class IsoToXmlConverter {
             return "0.00";
         }
         try {
-            long paiseValue = Long.parseLong(paise.trim());
-            double rupees = paiseValue / 100.0;
-            return String.format("%.2f", rupees);
+            return BigDecimal.valueOf(Long.parseLong(paise.trim()), 2).toPlainString();
         } catch (NumberFormatException e) {
             return "0.00";
         }
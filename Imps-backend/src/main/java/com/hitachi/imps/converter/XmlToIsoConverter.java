@@ -4,6 +4,9 @@ import org.jpos.iso.ISOMsg;
 import org.springframework.stereotype.Component;
 
 import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoFieldWriter;
+import com.hitachi.imps.service.iso.NpciXmlFields;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 import com.hitachi.imps.service.iso.XmlUtil;
 
 import java.time.LocalDateTime;
@@ -14,6 +17,9 @@ import java.util.Random;
 /**
  * Converter for transforming NPCI XML messages to ISO 8583 format.
  * Supports all IMPS API types: ReqPay, ReqChkTxn, ReqHbt, ReqValAdd, ReqListAccPvd
+ *
+ * Each message is filled through an {@link IsoFieldWriter}: an {@link com.hitachi.imps.iso.ImpsIsoWriter}
+ * packs it without a jPOS ISOMsg; the ISOMsg-returning overloads fill a jPOS message the same way.
  */
 @Component
 public class XmlToIsoConverter {
@@ -32,11 +38,20 @@ public class XmlToIsoConverter {
 
     /** Convert ReqPay XML to ISO; when txnIdForDe120 is provided, use it for DE120 (so switch response matches stored transaction). */
     public ISOMsg convertReqPay(String xml, String txnIdForDe120) {
+        return convertReqPay(ParsedNpciMessage.of(xml), txnIdForDe120);
+    }
+
+    /** Same as {@link #convertReqPay(String, String)} on a ReqPay already parsed at the HTTP edge. */
+    public ISOMsg convertReqPay(ParsedNpciMessage msg, String txnIdForDe120) {
+        ISOMsg iso = newIsoMsg();
+        convertReqPay(msg, txnIdForDe120, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertReqPay(ParsedNpciMessage msg, String txnIdForDe120, IsoFieldWriter iso) {
         try {
-            Map<String, String> tags = XmlUtil.parseReqPay(xml);
+            Map<String, String> tags = XmlUtil.parseReqPay(msg.getFields());
 
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0200");
 
             // DE3: Processing code for fund transfer (400000 = P2P transfer)
@@ -92,9 +107,6 @@ public class XmlToIsoConverter {
             if (txnId != null && !txnId.isEmpty()) {
                 iso.set(120, txnId);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("ReqPay XML to ISO conversion failed", e);
         }
@@ -105,11 +117,19 @@ public class XmlToIsoConverter {
        As per IMPS Specification
        =============================== */
     public ISOMsg convertRespPay(String xml) {
+        return convertRespPay(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertRespPay(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertRespPay(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertRespPay(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            Map<String, String> tags = XmlUtil.parseRespPay(xml);
+            Map<String, String> tags = XmlUtil.parseRespPay(msg.getFields());
 
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0210");
 
             String result = tags.get("result");
@@ -158,9 +178,6 @@ public class XmlToIsoConverter {
             if (acNum != null && !acNum.isEmpty()) {
                 iso.set(103, acNum);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("RespPay XML to ISO conversion failed", e);
         }
@@ -170,18 +187,27 @@ public class XmlToIsoConverter {
        REQCHKTXN - XML to ISO 0200 (Inquiry)
        =============================== */
     public ISOMsg convertReqChkTxn(String xml) {
+        return convertReqChkTxn(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertReqChkTxn(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertReqChkTxn(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertReqChkTxn(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0200");
 
             // Processing code for status inquiry
             iso.set(3, "380000");
 
-            String txnId = XmlUtil.read(xml, "//*[local-name()='Txn']/@id");
-            String orgTxnId = XmlUtil.read(xml, "//*[local-name()='Txn']/@orgTxnId");
-            String orgRrn = XmlUtil.read(xml, "//*[local-name()='Txn']/@orgRrn");
-            String amount = XmlUtil.read(xml, "//*[local-name()='Amount']/@value");
+            NpciXmlFields fields = msg.getFields();
+            String txnId = fields.attr("Txn", "id");
+            String orgTxnId = fields.attr("Txn", "orgTxnId");
+            String orgRrn = fields.attr("Txn", "orgRrn");
+            String amount = fields.attr("Amount", "value");
 
             iso.set(4, amountToPaise(amount));
             iso.set(11, generateStan());
@@ -199,9 +225,6 @@ public class XmlToIsoConverter {
             if (txnId != null && !txnId.isEmpty()) {
                 iso.set(120, txnId);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("ReqChkTxn XML to ISO conversion failed", e);
         }
@@ -211,14 +234,23 @@ public class XmlToIsoConverter {
        RESPCHKTXN - XML to ISO 0210
        =============================== */
     public ISOMsg convertRespChkTxn(String xml) {
+        return convertRespChkTxn(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertRespChkTxn(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertRespChkTxn(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertRespChkTxn(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0210");
 
-            String result = XmlUtil.read(xml, "//*[local-name()='Resp']/@result");
-            String respCode = XmlUtil.read(xml, "//*[local-name()='Ref']/@respCode");
-            String approvalNum = XmlUtil.read(xml, "//*[local-name()='Ref']/@approvalNum");
+            NpciXmlFields fields = msg.getFields();
+            String result = fields.attr("Resp", "result");
+            String respCode = fields.attr("Ref", "respCode");
+            String approvalNum = fields.attr("Ref", "approvalNum");
 
             iso.set(3, "380000");
             iso.set(11, generateStan());
@@ -229,9 +261,6 @@ public class XmlToIsoConverter {
             iso.set(39, normalizeDe39(result, respCode));
             iso.set(41, "IMPSTERM");
             iso.set(49, "356");
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("RespChkTxn XML to ISO conversion failed", e);
         }
@@ -241,13 +270,22 @@ public class XmlToIsoConverter {
        REQHBT - XML to ISO 0800 (Network Management)
        =============================== */
     public ISOMsg convertReqHbt(String xml) {
+        return convertReqHbt(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertReqHbt(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertReqHbt(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertReqHbt(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0800");
 
-            String txnId = XmlUtil.read(xml, "//*[local-name()='Txn']/@id");
-            String hbtType = XmlUtil.read(xml, "//*[local-name()='HbtMsg']/@type");
+            NpciXmlFields fields = msg.getFields();
+            String txnId = fields.attr("Txn", "id");
+            String hbtType = fields.attr("HbtMsg", "type");
 
             // Processing code for heartbeat
             iso.set(3, "990000");
@@ -268,9 +306,6 @@ public class XmlToIsoConverter {
             if (txnId != null && !txnId.isEmpty()) {
                 iso.set(120, txnId);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("ReqHbt XML to ISO conversion failed", e);
         }
@@ -280,12 +315,21 @@ public class XmlToIsoConverter {
        RESPHBT - XML to ISO 0810
        =============================== */
     public ISOMsg convertRespHbt(String xml) {
+        return convertRespHbt(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertRespHbt(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertRespHbt(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertRespHbt(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0810");
 
-            String result = XmlUtil.read(xml, "//*[local-name()='Resp']/@result");
+            NpciXmlFields fields = msg.getFields();
+            String result = fields.attr("Resp", "result");
 
             iso.set(3, "990000");
             iso.set(11, generateStan());
@@ -294,9 +338,6 @@ public class XmlToIsoConverter {
             iso.set(37, generateRrn());
             iso.set(39, "SUCCESS".equalsIgnoreCase(result) ? "00" : "96");
             iso.set(41, "IMPSTERM");
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("RespHbt XML to ISO conversion failed", e);
         }
@@ -307,11 +348,19 @@ public class XmlToIsoConverter {
        As per IMPS Specification
        =============================== */
     public ISOMsg convertReqValAdd(String xml) {
+        return convertReqValAdd(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertReqValAdd(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertReqValAdd(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertReqValAdd(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            Map<String, String> tags = XmlUtil.parseReqValAdd(xml);
+            Map<String, String> tags = XmlUtil.parseReqValAdd(msg.getFields());
 
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0200");
 
             // DE3: Processing code for account validation
@@ -352,9 +401,6 @@ public class XmlToIsoConverter {
             if (txnId != null && !txnId.isEmpty()) {
                 iso.set(120, txnId);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("ReqValAdd XML to ISO conversion failed", e);
         }
@@ -364,15 +410,24 @@ public class XmlToIsoConverter {
        RESPVALADD - XML to ISO 0210
        =============================== */
     public ISOMsg convertRespValAdd(String xml) {
+        return convertRespValAdd(ParsedNpciMessage.of(xml));
+    }
+
+    public ISOMsg convertRespValAdd(ParsedNpciMessage msg) {
+        ISOMsg iso = newIsoMsg();
+        convertRespValAdd(msg, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertRespValAdd(ParsedNpciMessage msg, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0210");
 
-            String result = XmlUtil.read(xml, "//*[local-name()='Resp']/@result");
-            String acNum = XmlUtil.read(xml, "//*[local-name()='Resp']/@acNum");
-            String ifsc = XmlUtil.read(xml, "//*[local-name()='Resp']/@IFSC");
-            String approvalNum = XmlUtil.read(xml, "//*[local-name()='Resp']/@approvalNum");
+            NpciXmlFields fields = msg.getFields();
+            String result = fields.attr("Resp", "result");
+            String acNum = fields.attr("Resp", "acNum");
+            String ifsc = fields.attr("Resp", "IFSC");
+            String approvalNum = fields.attr("Resp", "approvalNum");
 
             iso.set(3, "310000");
             iso.set(11, generateStan());
@@ -389,9 +444,6 @@ public class XmlToIsoConverter {
             if (ifsc != null) {
                 iso.set(33, ifsc);
             }
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("RespValAdd XML to ISO conversion failed", e);
         }
@@ -401,9 +453,13 @@ public class XmlToIsoConverter {
        REQLISTACCPVD - XML to ISO 0200 (List Request)
        =============================== */
     public ISOMsg convertReqListAccPvd(String xml) {
+        ISOMsg iso = newIsoMsg();
+        convertReqListAccPvd(xml, IsoFieldWriter.of(iso));
+        return iso;
+    }
+
+    public void convertReqListAccPvd(String xml, IsoFieldWriter iso) {
         try {
-            ISOMsg iso = new ISOMsg();
-            iso.setPackager(new ImpsIsoPackager());
             iso.setMTI("0200");
 
             // Processing code for list request
@@ -413,9 +469,6 @@ public class XmlToIsoConverter {
             iso.set(13, LocalDateTime.now().format(DATE_FORMAT));
             iso.set(37, generateRrn());
             iso.set(41, "IMPSTERM");
-
-            return iso;
-
         } catch (Exception e) {
             throw new RuntimeException("ReqListAccPvd XML to ISO conversion failed", e);
         }
@@ -424,6 +477,12 @@ public class XmlToIsoConverter {
     /* ===============================
        HELPER METHODS
        =============================== */
+    private ISOMsg newIsoMsg() {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        return iso;
+    }
+
     private String amountToPaise(String amount) {
         if (amount == null || amount.isBlank()) {
             return "000000000000";
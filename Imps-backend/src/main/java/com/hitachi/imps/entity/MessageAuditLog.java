@@ -2,14 +2,20 @@ package com.hitachi.imps.entity;
 
 import java.time.LocalDateTime;
 
+import com.hitachi.imps.service.payload.PayloadConverter;
+
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "message_audit_log")
 public class MessageAuditLog {
 
+    /** Ids handed out per nextval('message_audit_log_id_seq'); the sequence increments by this much (pooled-lo). */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_audit_log_id_seq")
+    @SequenceGenerator(name = "message_audit_log_id_seq", sequenceName = "message_audit_log_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
 
     @Column(name = "txn_id")
@@ -18,10 +24,13 @@ public class MessageAuditLog {
     @Column(name = "stage")
     private String stage;
 
-    @Column(name = "raw_message", columnDefinition = "TEXT")
+    /** Stored compressed (BYTEA, see PayloadCodec) */
+    @Convert(converter = PayloadConverter.class)
+    @Column(name = "raw_message", columnDefinition = "BYTEA")
     private String rawMessage;
 
-    @Column(name = "parsed_message", columnDefinition = "TEXT")
+    @Convert(converter = PayloadConverter.class)
+    @Column(name = "parsed_message", columnDefinition = "BYTEA")
     private String parsedMessage;
 
     @Column(name = "created_at")
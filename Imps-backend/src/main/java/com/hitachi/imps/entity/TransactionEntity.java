@@ -1,15 +1,32 @@
 package com.hitachi.imps.entity;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
+import com.hitachi.imps.service.payload.PayloadConverter;
+
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "transaction")
+@Table(name = "transaction", indexes = {
+    // same day only (must include the partition key); txn_id is unique across days via transaction_txn_id
+    @Index(name = "uk_transaction_txn_id", columnList = "txn_id, txn_date", unique = true),
+    @Index(name = "idx_transaction_npci_txn_id", columnList = "npci_txn_id"),
+    // keyset browsing (TransactionQueryService); idx_transaction_browse also INCLUDEs the summary
+    // columns in the SQL schema, which JPA cannot express
+    @Index(name = "idx_transaction_browse", columnList = "txn_date, id"),
+    @Index(name = "idx_transaction_status_date", columnList = "switch_status, txn_date, id"),
+    @Index(name = "idx_transaction_type_date", columnList = "txn_type, txn_date, id"),
+    @Index(name = "idx_transaction_de37_date", columnList = "de37, txn_date")
+})
 public class TransactionEntity {
 
+    /** Ids handed out per nextval('transaction_id_seq'); the sequence increments by this much (pooled-lo). */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_id_seq")
+    @SequenceGenerator(name = "transaction_id_seq", sequenceName = "transaction_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
 
     @Column(name = "txn_id")
@@ -18,6 +35,14 @@ public class TransactionEntity {
     @Column(name = "txn_type")
     private String txnType;
 
+    /** Day the request was received; range partition key of transaction (see imps_partitioning.sql) */
+    @Column(name = "txn_date")
+    private LocalDate txnDate;
+
+    /** Txn @id of the NPCI request; correlation key for Switch responses (DE120) */
+    @Column(name = "npci_txn_id")
+    private String npciTxnId;
+
     @Column(name = "req_in_date_time")
     private String reqInDateTime;
 
@@ -30,10 +55,13 @@ public class TransactionEntity {
     @Column(name = "resp_out_date_time")
     private LocalDateTime respOutDateTime;
 
-    @Column(name = "req_xml", columnDefinition = "TEXT")
+    /** Stored compressed (BYTEA, see PayloadCodec) */
+    @Convert(converter = PayloadConverter.class)
+    @Column(name = "req_xml", columnDefinition = "BYTEA")
     private String reqXml;
 
-    @Column(name = "resp_xml", columnDefinition = "TEXT")
+    @Convert(converter = PayloadConverter.class)
+    @Column(name = "resp_xml", columnDefinition = "BYTEA")
     private String respXml;
 
     @Column(name = "switch_status")
@@ -66,6 +94,12 @@ public class TransactionEntity {
     public String getTxnType() { return txnType; }
     public void setTxnType(String txnType) { this.txnType = txnType; }
 
+    public LocalDate getTxnDate() { return txnDate; }
+    public void setTxnDate(LocalDate txnDate) { this.txnDate = txnDate; }
+
+    public String getNpciTxnId() { return npciTxnId; }
+    public void setNpciTxnId(String npciTxnId) { this.npciTxnId = npciTxnId; }
+
     public String getReqInDateTime() { return reqInDateTime; }
     public void setReqInDateTime(String reqInDateTime) { this.reqInDateTime = reqInDateTime; }
 
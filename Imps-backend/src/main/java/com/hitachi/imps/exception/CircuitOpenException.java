@@ -0,0 +1,21 @@
+package com.hitachi.imps.exception;
+
+/**
+ * Thrown when a call to a downstream (Switch, NPCI) is refused because its circuit breaker is open.
+ * The request was not sent. Surfaces as HTTP 503 when it reaches a controller.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String downstream;
+
+    public CircuitOpenException(String downstream, long retryInMs) {
+        super(downstream + " unavailable: circuit open, next probe in " + retryInMs + " ms");
+        this.downstream = downstream;
+    }
+
+    public String getDownstream() {
+        return downstream;
+    }
+}
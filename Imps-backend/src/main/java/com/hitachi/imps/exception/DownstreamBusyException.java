@@ -0,0 +1,21 @@
+package com.hitachi.imps.exception;
+
+/**
+ * Thrown when no permit for a downstream (DB, Switch, NPCI) became free within the acquire timeout.
+ * Surfaces as HTTP 503 when it reaches a controller.
+ */
+public class DownstreamBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String downstream;
+
+    public DownstreamBusyException(String downstream, int permits) {
+        super(downstream + " busy: all " + permits + " permits in use");
+        this.downstream = downstream;
+    }
+
+    public String getDownstream() {
+        return downstream;
+    }
+}
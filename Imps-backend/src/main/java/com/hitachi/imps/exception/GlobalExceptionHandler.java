@@ -3,8 +3,12 @@ package com.hitachi.imps.exception;
 import java.util.UUID;
 
 import com.hitachi.imps.converter.RespPaySpec;
+import com.hitachi.imps.service.ack.AckService;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -13,6 +17,9 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private AckService ackService;
+
     /**
      * Duplicate txn_id in URL/request - reject with 409.
      * txn_id must be unique in public.transaction.
@@ -87,6 +94,48 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    /**
+     * DB / Switch / NPCI concurrency limit reached - reject with 503 so NPCI retries later.
+     */
+    @ExceptionHandler(DownstreamBusyException.class)
+    public ResponseEntity<String> handleDownstreamBusy(DownstreamBusyException ex) {
+        String body = """
+            <ns2:Error xmlns:ns2="http://npci.org/upi/schema/">
+                <code>DOWNSTREAM_BUSY</code>
+                <message>%s</message>
+            </ns2:Error>
+            """.formatted(ex.getMessage()).trim();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+
+    /**
+     * Switch / NPCI circuit breaker open - reject with 503 so NPCI retries later.
+     */
+    @ExceptionHandler(CircuitOpenException.class)
+    public ResponseEntity<String> handleCircuitOpen(CircuitOpenException ex) {
+        String body = """
+            <ns2:Error xmlns:ns2="http://npci.org/upi/schema/">
+                <code>DOWNSTREAM_UNAVAILABLE</code>
+                <message>%s</message>
+            </ns2:Error>
+            """.formatted(ex.getMessage()).trim();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+    }
+
+    /**
+     * IMPS over capacity for this API (admission control) - error ACK with the NPCI error code and 503,
+     * so NPCI retries later. Nothing was processed.
+     */
+    @ExceptionHandler(OverloadedException.class)
+    public ResponseEntity<byte[]> handleOverloaded(OverloadedException ex) {
+        System.out.println("ADMISSION: " + ex.getMessage());
+        byte[] body = ackService.buildErrorAckBytes(ex.getApi(), ex.getReqMsgId(), ex.getErrCode(), "IMPS busy, retry later");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .contentType(MediaType.APPLICATION_XML)
+            .body(body);
+    }
+
     /**
      * NPCI Duplicate Transaction Handling
      * Response Code = 94 (MANDATORY)
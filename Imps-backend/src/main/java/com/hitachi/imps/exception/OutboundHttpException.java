@@ -0,0 +1,32 @@
+package com.hitachi.imps.exception;
+
+/**
+ * Thrown when an outbound call to the Switch or NPCI answers with a non-2xx HTTP status.
+ */
+public class OutboundHttpException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String url;
+    private final int status;
+    private final String body;
+
+    public OutboundHttpException(String url, int status, String body) {
+        super("HTTP " + status + " from " + url);
+        this.url = url;
+        this.status = status;
+        this.body = body;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
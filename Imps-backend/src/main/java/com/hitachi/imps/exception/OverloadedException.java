@@ -0,0 +1,39 @@
+package com.hitachi.imps.exception;
+
+/**
+ * Thrown by {@link com.hitachi.imps.service.admission.AdmissionControl} when a request arrives while IMPS is
+ * over capacity for its API. Surfaces as HTTP 503 with an error ACK carrying the NPCI error code.
+ */
+public class OverloadedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String api;
+    private final String reqMsgId;
+    private final String errCode;
+    private final long retryAfterSeconds;
+
+    public OverloadedException(String api, String reqMsgId, String errCode, String reason, long retryAfterSeconds) {
+        super(api + " not accepted, IMPS over capacity: " + reason);
+        this.api = api;
+        this.reqMsgId = reqMsgId;
+        this.errCode = errCode;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getApi() {
+        return api;
+    }
+
+    public String getReqMsgId() {
+        return reqMsgId;
+    }
+
+    public String getErrCode() {
+        return errCode;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
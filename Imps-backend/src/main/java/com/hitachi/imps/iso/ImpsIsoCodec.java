@@ -0,0 +1,461 @@
+package com.hitachi.imps.iso;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.jpos.iso.ISOComponent;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+/**
+ * Allocation-light ISO 8583 codec for the {@link ImpsIsoPackager} field layout.
+ *
+ * Packing writes the field values straight into a ByteBuffer (one exact-size array for
+ * {@link #pack(ISOMsg)}), from an ISOMsg or an {@link ImpsIsoWriter} that never builds one;
+ * unpacking reads through the {@link ImpsIsoView} flyweight. Neither
+ * builds jPOS's per-field byte[] / ISOBitMap / padded-string intermediates. The wire format
+ * is byte-for-byte ImpsIsoPackager's; messages the codec does not model (DE28-30, fields
+ * beyond 128, non Latin-1 data, nested components) are handed to ImpsIsoPackager.
+ */
+public final class ImpsIsoCodec {
+
+    /** Wire representation of a field, mirroring the jPOS field packager in ImpsIsoPackager. */
+    enum Kind {
+        NONE,        // no packager for this field
+        OTHER,       // defined in ImpsIsoPackager but not modelled here (IFB_AMOUNT)
+        A_NUMERIC,   // IFA_NUMERIC: fixed ASCII, zero padded left
+        B_NUMERIC,   // IFB_NUMERIC(pad=true): fixed BCD, zero padded left
+        B_LLNUM,     // IFB_LLNUM(pad=false): 1-byte BCD length + BCD, odd length padded right
+        A_LLCHAR,    // IFA_LLCHAR: 2 ASCII length digits + ASCII
+        A_LLLCHAR,   // IFA_LLLCHAR: 3 ASCII length digits + ASCII
+        CHAR,        // IF_CHAR: fixed ASCII, space padded right
+        BINARY       // IFB_BINARY: fixed raw bytes
+    }
+
+    static final int MAX_FIELD = 128;
+
+    private static final Kind[] KIND = new Kind[MAX_FIELD + 1];
+    private static final int[] LENGTH = new int[MAX_FIELD + 1];
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    /** Per-thread value table (String or byte[] per field) for {@link #fields(ISOMsg)}. */
+    private static final ThreadLocal<Object[]> SCRATCH = ThreadLocal.withInitial(() -> new Object[MAX_FIELD + 1]);
+
+    static {
+        Arrays.fill(KIND, Kind.NONE);
+
+        def(0, Kind.A_NUMERIC, 4);
+
+        def(2, Kind.B_LLNUM, 19);
+        def(3, Kind.B_NUMERIC, 6);
+        def(4, Kind.B_NUMERIC, 12);
+        def(5, Kind.B_NUMERIC, 12);
+        def(6, Kind.B_NUMERIC, 12);
+        def(7, Kind.B_NUMERIC, 10);
+        def(11, Kind.B_NUMERIC, 6);
+        def(12, Kind.B_NUMERIC, 6);
+        def(13, Kind.B_NUMERIC, 4);
+        def(15, Kind.B_NUMERIC, 4);
+        def(18, Kind.B_NUMERIC, 4);
+        def(22, Kind.B_NUMERIC, 3);
+        def(24, Kind.B_NUMERIC, 3);
+        def(25, Kind.B_NUMERIC, 2);
+
+        def(28, Kind.OTHER, 0);
+        def(29, Kind.OTHER, 0);
+        def(30, Kind.OTHER, 0);
+
+        def(31, Kind.A_LLCHAR, 11);
+        def(32, Kind.A_LLCHAR, 11);
+        def(33, Kind.A_LLCHAR, 11);
+        def(35, Kind.A_LLCHAR, 37);
+        def(37, Kind.CHAR, 12);
+        def(38, Kind.CHAR, 6);
+        def(39, Kind.CHAR, 2);
+
+        def(41, Kind.CHAR, 8);
+        def(42, Kind.CHAR, 15);
+        def(43, Kind.CHAR, 40);
+
+        def(44, Kind.A_LLCHAR, 25);
+        def(46, Kind.A_LLLCHAR, 999);
+        def(48, Kind.A_LLLCHAR, 999);
+
+        def(49, Kind.CHAR, 3);
+        def(52, Kind.BINARY, 8);
+        def(64, Kind.BINARY, 8);
+
+        def(102, Kind.A_LLCHAR, 28);
+        def(103, Kind.A_LLCHAR, 28);
+
+        def(120, Kind.A_LLLCHAR, 999);
+        def(121, Kind.A_LLLCHAR, 999);
+        def(123, Kind.A_LLLCHAR, 999);
+        def(124, Kind.A_LLLCHAR, 999);
+        def(125, Kind.A_LLLCHAR, 999);
+        def(126, Kind.A_LLLCHAR, 999);
+
+        def(128, Kind.BINARY, 8);
+    }
+
+    private static void def(int field, Kind kind, int length) {
+        KIND[field] = kind;
+        LENGTH[field] = length;
+    }
+
+    private ImpsIsoCodec() {
+    }
+
+    static Kind kind(int field) {
+        return field >= 0 && field <= MAX_FIELD ? KIND[field] : Kind.NONE;
+    }
+
+    static int length(int field) {
+        return LENGTH[field];
+    }
+
+    /* ===============================
+       PACK
+       =============================== */
+    /** ISOMsg → bytes, identical to {@code iso.pack()} with ImpsIsoPackager. */
+    public static byte[] pack(ISOMsg iso) throws ISOException {
+        Object[] fields = fields(iso);
+        if (fields == null) {
+            return packWithJpos(iso);
+        }
+        try {
+            byte[] out = new byte[packedLength(fields)];
+            write(fields, ByteBuffer.wrap(out));
+            return out;
+        } finally {
+            Arrays.fill(fields, null);
+        }
+    }
+
+    /**
+     * Pack into {@code out} at its position (advanced past the message).
+     *
+     * @return number of bytes written
+     */
+    public static int pack(ISOMsg iso, ByteBuffer out) throws ISOException {
+        Object[] fields = fields(iso);
+        if (fields == null) {
+            byte[] b = packWithJpos(iso);
+            out.put(b);
+            return b.length;
+        }
+        try {
+            return pack(fields, out);
+        } finally {
+            Arrays.fill(fields, null);
+        }
+    }
+
+    /** ImpsIsoWriter → bytes, identical to packing {@link ImpsIsoWriter#toISOMsg()} with ImpsIsoPackager. */
+    public static byte[] pack(ImpsIsoWriter writer) throws ISOException {
+        Object[] fields = writer.values();
+        if (!canPack(fields)) {
+            return packWithJpos(writer.toISOMsg());
+        }
+        byte[] out = new byte[packedLength(fields)];
+        write(fields, ByteBuffer.wrap(out));
+        return out;
+    }
+
+    /** As {@link #pack(ISOMsg, ByteBuffer)} for an ImpsIsoWriter. */
+    public static int pack(ImpsIsoWriter writer, ByteBuffer out) throws ISOException {
+        Object[] fields = writer.values();
+        if (!canPack(fields)) {
+            byte[] b = packWithJpos(writer.toISOMsg());
+            out.put(b);
+            return b.length;
+        }
+        return pack(fields, out);
+    }
+
+    private static int pack(Object[] fields, ByteBuffer out) throws ISOException {
+        int len = packedLength(fields);
+        if (out.remaining() < len) {
+            throw new ISOException("ByteBuffer too small: need " + len + ", remaining " + out.remaining());
+        }
+        write(fields, out);
+        return len;
+    }
+
+    private static byte[] packWithJpos(ISOMsg iso) throws ISOException {
+        iso.recalcBitMap();
+        return ImpsIsoPackager.INSTANCE.pack(iso);
+    }
+
+    /**
+     * The message's field values indexed by number (in this thread's scratch array, cleared by the caller),
+     * or null when a field is one the codec does not write itself (jPOS packs the message then).
+     * One pass over the children: ISOMsg.getComponent / hasField are a TreeMap lookup each.
+     */
+    private static Object[] fields(ISOMsg iso) {
+        Object[] fields = SCRATCH.get();
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) iso.getChildren()).entrySet()) {
+            int i = e.getKey() instanceof Integer n ? n : Integer.MIN_VALUE;
+            if (i == -1) {
+                continue; // bitmap left by recalcBitMap(); rebuilt from the fields
+            }
+            Object value = i < 0 || i > MAX_FIELD ? null : value((ISOComponent) e.getValue());
+            if (value == null || !canPack(i, value)) {
+                Arrays.fill(fields, null);
+                return null;
+            }
+            fields[i] = value;
+        }
+        if (fields[0] == null) {
+            Arrays.fill(fields, null);
+            return null;
+        }
+        return fields;
+    }
+
+    private static Object value(ISOComponent c) {
+        try {
+            return c.getValue();
+        } catch (ISOException e) {
+            return null;
+        }
+    }
+
+    /** True when every field of the value table is one the codec writes itself (MTI required). */
+    private static boolean canPack(Object[] fields) {
+        if (fields[0] == null) {
+            return false;
+        }
+        for (int i = 0; i <= MAX_FIELD; i++) {
+            if (fields[i] != null && !canPack(i, fields[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canPack(int i, Object value) {
+        if (i == 1) {
+            return false;
+        }
+        Kind kind = KIND[i];
+        if (kind == Kind.NONE || kind == Kind.OTHER) {
+            return false;
+        }
+        if (kind == Kind.BINARY) {
+            return value instanceof byte[];
+        }
+        if (value instanceof String s) {
+            return isLatin1(s);
+        }
+        return value instanceof byte[];
+    }
+
+    private static int maxField(Object[] fields) {
+        for (int i = MAX_FIELD; i > 0; i--) {
+            if (fields[i] != null) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isLatin1(String s) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Size of the packed message; also enforces the jPOS length limits. */
+    private static int packedLength(Object[] fields) throws ISOException {
+        int max = maxField(fields);
+        int len = packedLength(0, fields[0]) + bitmapLength(max);
+        for (int i = 2; i <= max; i++) {
+            if (fields[i] != null) {
+                len += packedLength(i, fields[i]);
+            }
+        }
+        return len;
+    }
+
+    /** Hex bitmap characters: none without data elements (as IFA_BITMAP), 16, or 32 with a secondary bitmap. */
+    private static int bitmapLength(int maxField) {
+        return maxField < 2 ? 0 : maxField > 64 ? 32 : 16;
+    }
+
+    private static int packedLength(int field, Object value) throws ISOException {
+        Kind kind = KIND[field];
+        int max = LENGTH[field];
+        int n = valueLength(value);
+        if (kind == Kind.BINARY) {
+            if (n != max) {
+                throw new ISOException("error packing field " + field
+                    + " (Binary data length not the same as the packager length (" + n + "/" + max + "))");
+            }
+            return max;
+        }
+        if (n > max) {
+            throw new ISOException("error packing field " + field + " (Field length " + n + " too long. Max: " + max + ")");
+        }
+        switch (kind) {
+            case A_NUMERIC:
+            case CHAR:
+                return max;
+            case B_NUMERIC:
+                return (max + 1) / 2;
+            case B_LLNUM:
+                return 1 + (n + 1) / 2;
+            case A_LLCHAR:
+                return 2 + n;
+            case A_LLLCHAR:
+                return 3 + n;
+            default:
+                throw new ISOException("error packing field " + field + " (unsupported)");
+        }
+    }
+
+    private static void write(Object[] fields, ByteBuffer out) throws ISOException {
+        int max = maxField(fields);
+
+        // MTI
+        writeAscii(out, fields[0], LENGTH[0], (byte) '0', true);
+
+        // BITMAP (hex ASCII, secondary when any field > 64)
+        int bitmapLength = bitmapLength(max);
+        boolean secondary = bitmapLength == 32;
+        long primary = secondary ? 1L << 63 : 0L;
+        long second = 0L;
+        for (int i = 2; i <= max; i++) {
+            if (fields[i] != null) {
+                if (i <= 64) {
+                    primary |= 1L << (64 - i);
+                } else {
+                    second |= 1L << (128 - i);
+                }
+            }
+        }
+        if (bitmapLength > 0) {
+            writeHex(out, primary);
+        }
+        if (secondary) {
+            writeHex(out, second);
+        }
+
+        // DATA ELEMENTS
+        for (int i = 2; i <= max; i++) {
+            Object value = fields[i];
+            if (value == null) {
+                continue;
+            }
+            int width = LENGTH[i];
+            int n = valueLength(value);
+            switch (KIND[i]) {
+                case A_NUMERIC:
+                    writeAscii(out, value, width, (byte) '0', true);
+                    break;
+                case CHAR:
+                    writeAscii(out, value, width, (byte) ' ', false);
+                    break;
+                case B_NUMERIC:
+                    writeBcd(out, value, n, width, true);
+                    break;
+                case B_LLNUM:
+                    out.put((byte) (((n % 100) / 10 << 4) + n % 10));
+                    writeBcd(out, value, n, n, false);
+                    break;
+                case A_LLCHAR:
+                    out.put((byte) ('0' + n / 10 % 10));
+                    out.put((byte) ('0' + n % 10));
+                    writeAscii(out, value, n, (byte) 0, false);
+                    break;
+                case A_LLLCHAR:
+                    out.put((byte) ('0' + n / 100 % 10));
+                    out.put((byte) ('0' + n / 10 % 10));
+                    out.put((byte) ('0' + n % 10));
+                    writeAscii(out, value, n, (byte) 0, false);
+                    break;
+                case BINARY:
+                    out.put((byte[]) value);
+                    break;
+                default:
+                    throw new ISOException("error packing field " + i + " (unsupported)");
+            }
+        }
+    }
+
+    private static int valueLength(Object value) {
+        return value instanceof byte[] b ? b.length : ((String) value).length();
+    }
+
+    private static int charAt(Object value, int i) {
+        return value instanceof byte[] b ? b[i] & 0xFF : ((String) value).charAt(i);
+    }
+
+    /** Value padded to {@code width} with {@code pad} (left or right), as Latin-1 bytes. */
+    private static void writeAscii(ByteBuffer out, Object value, int width, byte pad, boolean padLeft) {
+        int n = valueLength(value);
+        if (padLeft) {
+            for (int i = n; i < width; i++) out.put(pad);
+        }
+        for (int i = 0; i < n; i++) {
+            out.put((byte) charAt(value, i));
+        }
+        if (!padLeft) {
+            for (int i = n; i < width; i++) out.put(pad);
+        }
+    }
+
+    /**
+     * BCD of the value left-padded with '0' to {@code digits}; same nibble arithmetic as
+     * jPOS ISOUtil.str2bcd so non-digit input encodes identically.
+     */
+    private static void writeBcd(ByteBuffer out, Object value, int n, int digits, boolean padLeft) {
+        int zeros = digits - n;
+        int bytes = (digits + 1) / 2;
+        int start = (digits & 1) == 1 && padLeft ? 1 : 0;
+        int base = out.position();
+        for (int j = 0; j < bytes; j++) {
+            out.put(base + j, (byte) 0);
+        }
+        for (int i = start; i < digits + start; i++) {
+            int k = i - start;
+            int ch = k < zeros ? '0' : charAt(value, k - zeros);
+            int at = base + (i >> 1);
+            out.put(at, (byte) (out.get(at) | (ch - '0') << ((i & 1) == 1 ? 0 : 4)));
+        }
+        out.position(base + bytes);
+    }
+
+    private static void writeHex(ByteBuffer out, long bits) {
+        for (int shift = 60; shift >= 0; shift -= 4) {
+            out.put(HEX[(int) (bits >>> shift) & 0x0F]);
+        }
+    }
+
+    /* ===============================
+       UNPACK
+       =============================== */
+    /** Flyweight view over {@code data}, or null when the message uses a field the codec does not model. */
+    public static ImpsIsoView view(byte[] data) throws ISOException {
+        ImpsIsoView view = new ImpsIsoView();
+        return view.wrap(data) ? view : null;
+    }
+
+    /** bytes → ISOMsg, equal field-for-field to {@code ISOMsg.unpack} with ImpsIsoPackager. */
+    public static ISOMsg unpack(byte[] data) throws ISOException {
+        ImpsIsoView view = view(data);
+        if (view != null) {
+            return view.toISOMsg();
+        }
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        iso.unpack(data);
+        return iso;
+    }
+}
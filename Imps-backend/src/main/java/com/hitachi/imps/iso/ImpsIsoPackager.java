@@ -2,13 +2,21 @@ package com.hitachi.imps.iso;
 
 import org.jpos.iso.*;
 
-public class ImpsIsoPackager extends ISOBasePackager {
+/**
+ * IMPS ISO 8583 packager.
+ *
+ * Field packagers are stateless, so one instance is shared by every pack/unpack
+ * ({@link #INSTANCE}); the field layout is frozen after construction.
+ */
+public final class ImpsIsoPackager extends ISOBasePackager {
 
-    protected ISOFieldPackager[] fld = new ISOFieldPackager[129];
+    public static final ImpsIsoPackager INSTANCE = new ImpsIsoPackager();
 
-    public ImpsIsoPackager() {
+    private final boolean frozen;
+
+    private ImpsIsoPackager() {
         super();
-        setFieldPackager(fld);
+        ISOFieldPackager[] fld = new ISOFieldPackager[129];
 
         // -------------------------------------------------
         // MTI & BITMAPS (handled by ISOBasePackager)
@@ -90,5 +98,47 @@ public class ImpsIsoPackager extends ISOBasePackager {
         fld[126] = new IFA_LLLCHAR(999, "IMPS Specific Data");      // DE-126
 
         fld[128]= new IFB_BINARY(8, "Secondary MAC");               // DE-128
+
+        super.setFieldPackager(fld);
+        frozen = true;
+    }
+
+    /* ===============================
+       IMMUTABLE (shared instance)
+       =============================== */
+    @Override
+    public void setFieldPackager(ISOFieldPackager[] fld) {
+        checkNotFrozen();
+        super.setFieldPackager(fld);
+    }
+
+    @Override
+    public void setFieldPackager(int fldNumber, ISOFieldPackager fieldPackager) {
+        checkNotFrozen();
+        super.setFieldPackager(fldNumber, fieldPackager);
+    }
+
+    @Override
+    public void setThirdBitmapField(int f) throws ISOException {
+        checkNotFrozen();
+        super.setThirdBitmapField(f);
+    }
+
+    @Override
+    public void setHeaderLength(int len) {
+        checkNotFrozen();
+        super.setHeaderLength(len);
+    }
+
+    @Override
+    public void setLogger(org.jpos.util.Logger logger, String realm) {
+        checkNotFrozen();
+        super.setLogger(logger, realm);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("ImpsIsoPackager is shared and immutable");
+        }
     }
 }
@@ -0,0 +1,287 @@
+package com.hitachi.imps.iso;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.jpos.iso.ISOBinaryField;
+import org.jpos.iso.ISOBitMap;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOField;
+import org.jpos.iso.ISOMsg;
+
+import com.hitachi.imps.iso.ImpsIsoCodec.Kind;
+
+/**
+ * Flyweight read view over a packed ImpsIsoPackager message.
+ *
+ * {@link #wrap(ByteBuffer)} walks the bitmap once and records where each field sits; values
+ * are decoded only when asked for, straight from the buffer. A view can be re-wrapped to read
+ * the next message without allocating. Values match what jPOS unpack puts in the ISOMsg.
+ */
+public final class ImpsIsoView implements IsoFieldReader {
+
+    private static final int MAX_FIELD = ImpsIsoCodec.MAX_FIELD;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private ByteBuffer buf;
+    private int start;
+    private int consumed;
+    private long primary;
+    private long secondary;
+
+    /** Absolute index of each field's data in {@link #buf} (-1 when absent). */
+    private final int[] offset = new int[MAX_FIELD + 1];
+    /** Characters (ASCII), digits (BCD) or bytes (binary) of each field. */
+    private final int[] length = new int[MAX_FIELD + 1];
+
+    public ImpsIsoView() {
+        Arrays.fill(offset, -1);
+    }
+
+    /* ===============================
+       WRAP
+       =============================== */
+    public boolean wrap(byte[] data) throws ISOException {
+        return wrap(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Index the message from the buffer's position to its limit (the buffer itself is not moved).
+     *
+     * @return false when the message uses a field the codec does not model (decode it with jPOS)
+     * @throws ISOException when the message is malformed, as jPOS unpack would
+     */
+    public boolean wrap(ByteBuffer data) throws ISOException {
+        Arrays.fill(offset, -1);
+        buf = data;
+        start = data.position();
+        primary = 0L;
+        secondary = 0L;
+        int end = data.limit();
+        int p = start;
+
+        // MTI
+        p = fixed(0, p, end, ImpsIsoCodec.length(0));
+
+        // BITMAP (ISOUtil.hex2BitSet semantics)
+        need(-1, p, 16, end);
+        int bits = (hexDigit(p) & 0x08) == 0x08 ? 128 : 64;
+        need(-1, p, bits >> 2, end);
+        for (int i = 0; i < bits; i++) {
+            int digit = hexDigit(p + (i >> 2));
+            if ((digit & (8 >> (i % 4))) > 0) {
+                setBit(i + 1);
+            }
+        }
+        p += bits >> 2;
+
+        // DATA ELEMENTS
+        for (int i = 2; i <= MAX_FIELD; i++) {
+            if (!bit(i)) {
+                continue;
+            }
+            Kind kind = ImpsIsoCodec.kind(i);
+            int max = ImpsIsoCodec.length(i);
+            switch (kind) {
+                case A_NUMERIC:
+                case CHAR:
+                    p = fixed(i, p, end, max);
+                    break;
+                case B_NUMERIC:
+                    need(i, p, (max + 1) / 2, end);
+                    offset[i] = p;
+                    length[i] = max;
+                    p += (max + 1) / 2;
+                    break;
+                case B_LLNUM: {
+                    need(i, p, 1, end);
+                    int b = buf.get(p);
+                    int len = ((b & 0xF0) >> 4) * 10 + (b & 0x0F);
+                    checkMax(i, len, max);
+                    need(i, p + 1, (len + 1) / 2, end);
+                    offset[i] = p + 1;
+                    length[i] = len;
+                    p += 1 + (len + 1) / 2;
+                    break;
+                }
+                case A_LLCHAR:
+                    p = prefixed(i, p, end, 2, max);
+                    break;
+                case A_LLLCHAR:
+                    p = prefixed(i, p, end, 3, max);
+                    break;
+                case BINARY:
+                    p = fixed(i, p, end, max);
+                    break;
+                case OTHER:
+                    Arrays.fill(offset, -1);
+                    buf = null;
+                    return false;
+                default:
+                    throw new ISOException("field packager '" + i + "' is null");
+            }
+        }
+        consumed = p - start;
+        return true;
+    }
+
+    private int fixed(int field, int p, int end, int len) throws ISOException {
+        need(field, p, len, end);
+        offset[field] = p;
+        length[field] = len;
+        return p + len;
+    }
+
+    private int prefixed(int field, int p, int end, int digits, int max) throws ISOException {
+        need(field, p, digits, end);
+        int len = 0;
+        for (int d = 0; d < digits; d++) {
+            int c = buf.get(p + d);
+            if (c < '0' || c > '9') {
+                throw new ISOException("error unpacking field " + field + " (Invalid character found. Expected digit.)");
+            }
+            len = len * 10 + c - '0';
+        }
+        checkMax(field, len, max);
+        return fixed(field, p + digits, end, len);
+    }
+
+    private static void checkMax(int field, int len, int max) throws ISOException {
+        if (len > max) {
+            throw new ISOException("error unpacking field " + field + " (Field length " + len + " too long. Max: " + max + ")");
+        }
+    }
+
+    private static void need(int field, int p, int len, int end) throws ISOException {
+        if (p + len > end) {
+            throw new ISOException("error unpacking field " + field + " (required " + len
+                + " bytes, " + Math.max(0, end - p) + " left)");
+        }
+    }
+
+    private int hexDigit(int index) {
+        return Character.digit((char) buf.get(index), 16);
+    }
+
+    private void setBit(int i) {
+        if (i <= 64) {
+            primary |= 1L << (64 - i);
+        } else {
+            secondary |= 1L << (128 - i);
+        }
+    }
+
+    private boolean bit(int i) {
+        return i <= 64 ? (primary & 1L << (64 - i)) != 0 : (secondary & 1L << (128 - i)) != 0;
+    }
+
+    /* ===============================
+       READ
+       =============================== */
+    /** Bytes taken by the message (trailing bytes are ignored, as in jPOS). */
+    public int getConsumed() {
+        return consumed;
+    }
+
+    public String getMTI() {
+        return getString(0);
+    }
+
+    public boolean hasField(int fieldNumber) {
+        return fieldNumber >= 0 && fieldNumber <= MAX_FIELD && offset[fieldNumber] >= 0;
+    }
+
+    @Override
+    public String getString(int fieldNumber) {
+        if (!hasField(fieldNumber)) {
+            return null;
+        }
+        int off = offset[fieldNumber];
+        int len = length[fieldNumber];
+        switch (ImpsIsoCodec.kind(fieldNumber)) {
+            case B_NUMERIC:
+                return bcd(off, len, true);
+            case B_LLNUM:
+                return bcd(off, len, false);
+            case BINARY:
+                return hex(off, len);
+            default:
+                return latin1(off, len);
+        }
+    }
+
+    /** Raw bytes of a binary field (DE52, DE64, DE128), or null when absent / not binary. */
+    public byte[] getBytes(int fieldNumber) {
+        if (!hasField(fieldNumber) || ImpsIsoCodec.kind(fieldNumber) != Kind.BINARY) {
+            return null;
+        }
+        byte[] b = new byte[length[fieldNumber]];
+        buf.get(offset[fieldNumber], b);
+        return b;
+    }
+
+    /** Materialise as a jPOS ISOMsg (same components jPOS unpack would create). */
+    public ISOMsg toISOMsg() throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        iso.set(new ISOField(0, getString(0)));
+
+        BitSet bmap = new BitSet(secondary != 0 || bit(1) ? 128 : 64);
+        for (int i = 1; i <= MAX_FIELD; i++) {
+            if (bit(i)) {
+                bmap.set(i);
+            }
+        }
+        iso.set(new ISOBitMap(-1, bmap));
+
+        for (int i = 2; i <= MAX_FIELD; i++) {
+            if (offset[i] < 0) {
+                continue;
+            }
+            if (ImpsIsoCodec.kind(i) == Kind.BINARY) {
+                iso.set(new ISOBinaryField(i, getBytes(i)));
+            } else {
+                iso.set(new ISOField(i, getString(i)));
+            }
+        }
+        return iso;
+    }
+
+    /* ===============================
+       DECODE (ISOUtil.bcd2str / hexString semantics)
+       =============================== */
+    private String latin1(int off, int len) {
+        if (buf.hasArray()) {
+            return new String(buf.array(), buf.arrayOffset() + off, len, StandardCharsets.ISO_8859_1);
+        }
+        byte[] b = new byte[len];
+        buf.get(off, b);
+        return new String(b, StandardCharsets.ISO_8859_1);
+    }
+
+    private String bcd(int off, int len, boolean padLeft) {
+        char[] d = new char[len];
+        int first = (len & 1) == 1 && padLeft ? 1 : 0;
+        for (int i = first; i < len + first; i++) {
+            int shift = (i & 1) == 1 ? 0 : 4;
+            char c = Character.forDigit(buf.get(off + (i >> 1)) >> shift & 0x0F, 16);
+            if (c == 'd') {
+                c = '=';
+            }
+            d[i - first] = Character.toUpperCase(c);
+        }
+        return new String(d);
+    }
+
+    private String hex(int off, int len) {
+        char[] d = new char[len * 2];
+        for (int i = 0; i < len; i++) {
+            int b = buf.get(off + i);
+            d[2 * i] = HEX[(b >> 4) & 0x0F];
+            d[2 * i + 1] = HEX[b & 0x0F];
+        }
+        return new String(d);
+    }
+}
@@ -0,0 +1,81 @@
+package com.hitachi.imps.iso;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+/**
+ * Field table for an outbound message, packed by {@link ImpsIsoCodec} without building a jPOS ISOMsg.
+ *
+ * Converters fill it through {@link IsoFieldWriter}; the same values can be read back (audit, DE11/37/13
+ * for correlation) through {@link IsoFieldReader}. {@link #toISOMsg()} is there for callers that still
+ * need jPOS, and for fields the codec does not model (packed by ImpsIsoPackager then).
+ */
+public final class ImpsIsoWriter implements IsoFieldWriter, IsoFieldReader {
+
+    private static final int MAX_FIELD = ImpsIsoCodec.MAX_FIELD;
+
+    /** Values by field number; index 0 is the MTI. */
+    private final Object[] values = new Object[MAX_FIELD + 1];
+
+    @Override
+    public void setMTI(String mti) {
+        values[0] = mti;
+    }
+
+    @Override
+    public void set(int fieldNumber, String value) throws ISOException {
+        if (fieldNumber < 0 || fieldNumber > MAX_FIELD) {
+            throw new ISOException("field " + fieldNumber + " out of range");
+        }
+        values[fieldNumber] = value;
+    }
+
+    /** Unset every field so the writer can be filled again. */
+    public void clear() {
+        Arrays.fill(values, null);
+    }
+
+    @Override
+    public String getMTI() {
+        return getString(0);
+    }
+
+    @Override
+    public String getString(int fieldNumber) {
+        return fieldNumber >= 0 && fieldNumber <= MAX_FIELD ? (String) values[fieldNumber] : null;
+    }
+
+    Object[] values() {
+        return values;
+    }
+
+    /* ===============================
+       PACK
+       =============================== */
+    public byte[] pack() throws ISOException {
+        return ImpsIsoCodec.pack(this);
+    }
+
+    /** Pack into {@code out} at its position; returns the number of bytes written. */
+    public int pack(ByteBuffer out) throws ISOException {
+        return ImpsIsoCodec.pack(this, out);
+    }
+
+    /** Same fields as a jPOS ISOMsg with ImpsIsoPackager. */
+    public ISOMsg toISOMsg() throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        if (values[0] != null) {
+            iso.setMTI((String) values[0]);
+        }
+        for (int i = 1; i <= MAX_FIELD; i++) {
+            if (values[i] != null) {
+                iso.set(i, (String) values[i]);
+            }
+        }
+        return iso;
+    }
+}
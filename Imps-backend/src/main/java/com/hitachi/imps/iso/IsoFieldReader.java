@@ -0,0 +1,26 @@
+package com.hitachi.imps.iso;
+
+import org.jpos.iso.ISOMsg;
+
+/**
+ * Read-only access to ISO 8583 field values, as {@link ISOMsg#getString(int)} returns them.
+ * Implemented by {@link ImpsIsoView} and {@link ImpsIsoWriter}; {@link #of(ISOMsg)} adapts a jPOS message.
+ */
+@FunctionalInterface
+public interface IsoFieldReader {
+
+    /** Field value, or null when the field is absent. */
+    String getString(int fieldNumber);
+
+    default String getMTI() {
+        return getString(0);
+    }
+
+    default boolean hasField(int fieldNumber) {
+        return getString(fieldNumber) != null;
+    }
+
+    static IsoFieldReader of(ISOMsg iso) {
+        return iso::getString;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hitachi.imps.iso;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+/**
+ * Write access to ISO 8583 field values, as {@link ISOMsg#setMTI(String)} / {@link ISOMsg#set(int, String)} take them.
+ * Implemented by {@link ImpsIsoWriter}; {@link #of(ISOMsg)} adapts a jPOS message.
+ */
+public interface IsoFieldWriter {
+
+    void setMTI(String mti) throws ISOException;
+
+    /** Set a field; a null value unsets it. */
+    void set(int fieldNumber, String value) throws ISOException;
+
+    static IsoFieldWriter of(ISOMsg iso) {
+        return new IsoFieldWriter() {
+            @Override
+            public void setMTI(String mti) throws ISOException {
+                iso.setMTI(mti);
+            }
+
+            @Override
+            public void set(int fieldNumber, String value) throws ISOException {
+                iso.set(fieldNumber, value);
+            }
+        };
+    }
+}
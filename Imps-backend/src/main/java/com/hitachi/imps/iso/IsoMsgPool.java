@@ -0,0 +1,98 @@
+package com.hitachi.imps.iso;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOPackager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional recycling pool for ISOMsg on short-lived unpack → read → discard paths
+ * (e.g. IsoToXmlConverter). Enabled with imps.iso.msg-pool.enabled; when disabled
+ * {@link #borrow(ISOPackager)} returns a fresh ISOMsg and {@link #release(ISOMsg)} is a no-op.
+ *
+ * A released message must not be referenced by the caller any more.
+ */
+@Component
+public class IsoMsgPool {
+
+    @Value("${imps.iso.msg-pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${imps.iso.msg-pool.max-size:256}")
+    private int maxSize;
+
+    private volatile BlockingQueue<PooledIsoMsg> free;
+
+    public IsoMsgPool() {
+    }
+
+    /** Standalone pool (outside Spring, e.g. benchmarks). */
+    public IsoMsgPool(boolean enabled, int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+    }
+
+    /** Empty ISOMsg bound to the given packager. */
+    public ISOMsg borrow(ISOPackager packager) {
+        ISOMsg iso = enabled ? queue().poll() : null;
+        if (iso == null) {
+            iso = enabled ? new PooledIsoMsg() : new ISOMsg();
+        }
+        iso.setPackager(packager);
+        return iso;
+    }
+
+    /** Return a message obtained from {@link #borrow(ISOPackager)}; extra messages are dropped. */
+    public void release(ISOMsg iso) {
+        if (!enabled || !(iso instanceof PooledIsoMsg pooled)) {
+            return;
+        }
+        pooled.reset();
+        queue().offer(pooled);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Messages currently idle in the pool. */
+    public int size() {
+        BlockingQueue<PooledIsoMsg> q = free;
+        return q != null ? q.size() : 0;
+    }
+
+    private BlockingQueue<PooledIsoMsg> queue() {
+        BlockingQueue<PooledIsoMsg> q = free;
+        if (q == null) {
+            synchronized (this) {
+                q = free;
+                if (q == null) {
+                    q = new ArrayBlockingQueue<>(Math.max(1, maxSize));
+                    free = q;
+                }
+            }
+        }
+        return q;
+    }
+
+    /* ===============================
+       POOLED MESSAGE
+       =============================== */
+    static final class PooledIsoMsg extends ISOMsg {
+
+        /** Back to the state of {@code new ISOMsg()}. */
+        void reset() {
+            fields.clear();
+            maxField = -1;
+            maxFieldDirty = true;
+            dirty = true;
+            direction = 0;
+            header = null;
+            trailer = null;
+            packager = null;
+        }
+    }
+}
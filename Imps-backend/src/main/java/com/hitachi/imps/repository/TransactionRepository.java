@@ -1,10 +1,16 @@
 package com.hitachi.imps.repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.hitachi.imps.entity.TransactionEntity;
 
@@ -20,6 +26,31 @@ extends JpaRepository<TransactionEntity, Integer> {
 	Optional<TransactionEntity> findByTxnId(String txnId);
 	Optional<TransactionEntity> findTopByTxnIdOrderByIdDesc(String txnId);
 	boolean existsByTxnId(String txnId);
+
+	/*
+	 * txn_id across all days: transaction_txn_id (primary key txn_id), written in the DB transaction that
+	 * inserts the row. uk_transaction_txn_id includes txn_date, so it only stops a same-day repeat.
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "INSERT INTO transaction_txn_id (txn_id, txn_date) VALUES (:txnId, :txnDate)", nativeQuery = true)
+	int claimTxnId(@Param("txnId") String txnId, @Param("txnDate") LocalDate txnDate);
+
+	@Query(value = "SELECT EXISTS (SELECT 1 FROM transaction_txn_id WHERE txn_id = :txnId)", nativeQuery = true)
+	boolean isTxnIdClaimed(@Param("txnId") String txnId);
+
+	/** txn_ids received at or after :since (req_in_date_time is yyyyMMddHHmmss, so it compares as text). */
+	@Query("SELECT t.txnId FROM TransactionEntity t WHERE t.txnDate >= :sinceDate AND t.reqInDateTime >= :since"
+		+ " AND t.txnId IS NOT NULL")
+	List<String> findTxnIdsReceivedSince(@Param("sinceDate") LocalDate sinceDate, @Param("since") String since);
+
+	/*
+	 * Response correlation: bounded by txn_date so Postgres only visits the recent partitions.
+	 */
+	Optional<TransactionEntity> findTopByTxnIdAndTxnDateGreaterThanEqualOrderByIdDesc(String txnId, LocalDate since);
+
+	Optional<TransactionEntity> findFirstByDe11AndDe37AndDe13AndTxnDateGreaterThanEqual(
+		String de11, String de37, String de13, LocalDate since);
 	 Optional<TransactionEntity>findTopByTxnIdOrderByReqInDateTimeDesc(String txnId);
 
 	/** Find VALADD transactions in ISO_SENT (for fallback lookup by Txn id in req_xml). */
@@ -27,4 +58,32 @@ extends JpaRepository<TransactionEntity, Integer> {
 
 	/** Same, oldest first (FIFO) so one response updates the oldest pending request. */
 	List<TransactionEntity> findByTxnTypeAndSwitchStatusOrderByIdAsc(String txnType, String switchStatus);
+
+	/** Oldest pending row for an NPCI Txn id (idx_transaction_npci_txn_id). */
+	Optional<TransactionEntity> findFirstByTxnTypeAndNpciTxnIdAndSwitchStatusAndTxnDateGreaterThanEqualOrderByIdAsc(
+		String txnType, String npciTxnId, String switchStatus, LocalDate since);
+
+	/*
+	 * Status transitions: column-targeted UPDATEs keyed by (id, txn_date), so only the row's partition is
+	 * touched, and guarded by the expected current status, so a transition never rewrites req_xml and a
+	 * late or duplicate update cannot overwrite a newer state.
+	 * Return the number of rows changed (0 = status was no longer :from).
+	 */
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Transactional
+	@Query("UPDATE TransactionEntity t SET t.switchStatus = :to, t.reqOutDateTime = :reqOut"
+		+ " WHERE t.id = :id AND t.txnDate = :txnDate AND t.switchStatus = :from")
+	int updateRequestSent(@Param("id") Integer id, @Param("txnDate") LocalDate txnDate, @Param("from") String from,
+		@Param("to") String to, @Param("reqOut") String reqOutDateTime);
+
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Transactional
+	@Query("UPDATE TransactionEntity t SET t.switchStatus = :to, t.approvalNumber = :approval, t.respXml = :respXml,"
+		+ " t.respInDateTime = :respIn, t.respOutDateTime = :respOut"
+		+ " WHERE t.id = :id AND t.txnDate = :txnDate AND t.switchStatus = :from")
+	int updateResponse(@Param("id") Integer id, @Param("txnDate") LocalDate txnDate, @Param("from") String from,
+		@Param("to") String to,
+		@Param("approval") String approvalNumber, @Param("respXml") String respXml,
+		@Param("respIn") String respInDateTime, @Param("respOut") LocalDateTime respOutDateTime);
 }
@@ -8,13 +8,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.entity.InstitutionMaster;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 import com.hitachi.imps.spec.NpciReqPayRules;
 
 /**
  * Generates msgId and txn_id per Rule 021 and 022:
  * - Total length 35 characters.
- * - First 3 = Bank Participation Code (BPC) from public.institution_master.
+ * - First 3 = Bank Participation Code (BPC) from public.institution_master (via {@link ReferenceDataCache}).
  * - Remaining 32 = unique id (UUID-based alphanumeric).
  *
  * reqMsgId / Txn id format: &lt;BPC 3 chars&gt; + &lt;32 alphanumeric&gt;.
@@ -25,7 +25,7 @@ public class ImpsIdGeneratorService {
     private static final String DEFAULT_BPC = "BAN";
 
     @Autowired
-    private InstitutionMasterRepository institutionMasterRepository;
+    private ReferenceDataCache refData;
 
     @Value("${imps.org-id:BANK01}")
     private String orgId;
@@ -35,11 +35,11 @@ public class ImpsIdGeneratorService {
      * Uses first active institution for request_org_id = imps.org-id, else first active; first 3 of bank_code, padded to 3.
      */
     public String getBankParticipationCode() {
-        Optional<InstitutionMaster> byOrg = institutionMasterRepository.findFirstByRequestOrgIdAndActiveTrueOrderByIdAsc(orgId);
+        Optional<InstitutionMaster> byOrg = refData.firstActiveForOrg(orgId);
         if (byOrg.isPresent() && byOrg.get().getBankCode() != null && !byOrg.get().getBankCode().isBlank()) {
             return normalizeBpc(byOrg.get().getBankCode());
         }
-        Optional<InstitutionMaster> first = institutionMasterRepository.findByActiveTrue().stream().findFirst();
+        Optional<InstitutionMaster> first = refData.activeInstitutions().stream().findFirst();
         if (first.isPresent() && first.get().getBankCode() != null && !first.get().getBankCode().isBlank()) {
             return normalizeBpc(first.get().getBankCode());
         }
@@ -100,6 +100,6 @@ public class ImpsIdGeneratorService {
      */
     public boolean isValidBpc(String bpc) {
         if (bpc == null || bpc.length() != NpciReqPayRules.BPC_LENGTH) return false;
-        return institutionMasterRepository.existsByBpc(bpc);
+        return refData.isActiveBpc(bpc);
     }
 }
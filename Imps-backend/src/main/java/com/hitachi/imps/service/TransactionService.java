@@ -1,17 +1,29 @@
 package com.hitachi.imps.service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.Optional;
-import java.util.regex.Pattern;
 
+import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.hitachi.imps.entity.TransactionEntity;
 import com.hitachi.imps.exception.DuplicateTxnIdException;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.repository.TransactionRepository;
+import com.hitachi.imps.service.correlation.InFlightRegistry;
+import com.hitachi.imps.service.dedup.DuplicateTxnIdDetector;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.outbox.NpciOutbox;
+
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class TransactionService {
@@ -25,6 +37,28 @@ public class TransactionService {
     @Autowired
     private TransactionRepository repo;
 
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private InFlightRegistry inFlight;
+
+    @Autowired
+    private DuplicateTxnIdDetector duplicates;
+
+    @Autowired
+    private NpciOutbox outbox;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Status update + outbox row in one DB transaction. */
+    private TransactionTemplate tx;
+
+    /** Response lookups that miss the in-flight registry search rows from this many days back (partition pruning). */
+    @Value("${imps.partitions.lookup-days:1}")
+    private int lookupDays;
+
     private static final DateTimeFormatter FMT =
             DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
 
@@ -32,84 +66,188 @@ public class TransactionService {
         return LocalDateTime.now().format(FMT);
     }
 
+    @PostConstruct
+    void initTransactionTemplate() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    private LocalDate lookupSince() {
+        return LocalDate.now().minusDays(lookupDays);
+    }
+
     /**
-     * Validate that txn_id does not already exist in public.transaction.
+     * Validate that txn_id does not already exist in public.transaction. Reads the DB only when the
+     * recent-id filter has seen the id; duplicates it cannot see fail at insert (transaction_txn_id claim).
      * @throws DuplicateTxnIdException if txn_id already exists
      */
     public void validateNewTxnId(String txnId) {
-        if (txnId != null && !txnId.isBlank() && repo.existsByTxnId(txnId)) {
-            throw new DuplicateTxnIdException(txnId);
+        if (txnId != null && !txnId.isBlank()) {
+            duplicates.check(txnId);
         }
     }
 
     public boolean existsByTxnId(String txnId) {
-        return txnId != null && !txnId.isBlank() && repo.existsByTxnId(txnId);
+        return txnId != null && !txnId.isBlank() && limiter.db(() -> repo.existsByTxnId(txnId));
     }
 
     /* ===============================
        1️⃣ Create initial transaction
+       (the only statement that writes req_xml)
        =============================== */
     public TransactionEntity createRequest(String txnId, String reqXml) {
         return createRequest(txnId, reqXml, "PAY");
     }
 
     public TransactionEntity createRequest(String txnId, String reqXml, String txnType) {
+        return createRequest(txnId, reqXml, txnType, null);
+    }
+
+    /**
+     * Insert the row with the tracking fields of the outgoing ISO (DE11, DE37, DE12, DE13) already set,
+     * so no later UPDATE has to carry them.
+     */
+    public TransactionEntity createRequest(String txnId, String reqXml, String txnType, ISOMsg iso) {
+        return insert(txnId, reqXml, txnType, iso != null ? IsoFieldReader.of(iso) : null, null);
+    }
+
+    /**
+     * As above, also recording the request's Txn @id (npci_txn_id) for response correlation.
+     * The fields are read from the ImpsIsoWriter the converter filled (or any other reader).
+     */
+    public TransactionEntity createRequest(ParsedNpciMessage msg, String txnId, String txnType, IsoFieldReader iso) {
+        return insert(txnId, msg.getXml(), txnType, iso, msg.getTxnId());
+    }
+
+    private TransactionEntity insert(String txnId, String reqXml, String txnType, IsoFieldReader iso, String npciTxnId) {
         TransactionEntity txn = new TransactionEntity();
         txn.setTxnId(txnId);
         txn.setTxnType(txnType != null ? txnType : "PAY");
+        txn.setNpciTxnId(npciTxnId);
         txn.setReqXml(reqXml);
-        txn.setReqInDateTime(now());
+        LocalDateTime received = LocalDateTime.now();
+        txn.setReqInDateTime(received.format(FMT));
+        txn.setTxnDate(received.toLocalDate());
         txn.setSwitchStatus(STATUS_INIT);
-        return repo.save(txn);
+        if (iso != null) {
+            if (iso.hasField(11)) txn.setDe11(iso.getString(11));
+            if (iso.hasField(37)) txn.setDe37(iso.getString(37));
+            if (iso.hasField(12)) txn.setDe12(iso.getString(12));
+            if (iso.hasField(13)) txn.setDe13(iso.getString(13));
+        }
+        try {
+            // txn_id claim and row commit together; the claim fails for a txn_id stored on any day.
+            // flushed here (sequence ids defer the INSERT) so a duplicate fails inside this try
+            TransactionEntity saved = limiter.db(() -> tx.execute(s -> {
+                if (txnId != null) repo.claimTxnId(txnId, txn.getTxnDate());
+                return repo.saveAndFlush(txn);
+            }));
+            duplicates.admitted(txnId);
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            throw duplicates.onInsertFailure(txnId, e);
+        }
     }
 
     /* ===============================
-       2️⃣ ISO sent to switch
+       2️⃣ ISO sent to switch: INIT → ISO_SENT
        =============================== */
-    public void markIsoSent(TransactionEntity txn) {
-        txn.setReqOutDateTime(now());
+    public boolean markIsoSent(TransactionEntity txn) {
+        String reqOut = now();
+        int rows = limiter.db(() -> repo.updateRequestSent(txn.getId(), txn.getTxnDate(), STATUS_INIT, STATUS_ISO_SENT, reqOut));
+        if (rows == 0) {
+            return skipped(txn, STATUS_INIT, STATUS_ISO_SENT);
+        }
+        txn.setReqOutDateTime(reqOut);
         txn.setSwitchStatus(STATUS_ISO_SENT);
-        repo.save(txn);
+        inFlight.register(txn);
+        return true;
     }
 
     /* ===============================
        3️⃣ SUCCESS response
        =============================== */
-    public void markSuccess(
+    public boolean markSuccess(
             TransactionEntity txn,
             String respXml,
             String approvalNumber,
             String settlementDate) {
 
-        txn.setSwitchStatus(STATUS_SUCCESS);
-        txn.setApprovalNumber(approvalNumber);   // DE38
-        txn.setRespXml(respXml);
-        txn.setRespInDateTime(now());
-        txn.setRespOutDateTime(LocalDateTime.now());  // when response is finalized/sent out
+        return complete(txn, STATUS_SUCCESS, approvalNumber, respXml, null);   // DE38
+    }
+
+    /** As above, storing the response to NPCI in npci_outbox in the same DB transaction. */
+    public boolean markSuccess(
+            TransactionEntity txn,
+            String respXml,
+            String approvalNumber,
+            String settlementDate,
+            NpciOutbox.Message npciResponse) {
 
-        repo.save(txn);   // ✅ FIXED
+        return complete(txn, STATUS_SUCCESS, approvalNumber, respXml, npciResponse);
     }
 
     /* ===============================
        4️⃣ FAILURE response
        =============================== */
-    public void markFailure(
+    public boolean markFailure(
             TransactionEntity txn,
             String respXml) {
 
-        txn.setSwitchStatus(STATUS_FAILED);
+        return markFailure(txn, respXml, null);
+    }
+
+    /** As above, storing the response to NPCI in npci_outbox in the same DB transaction. */
+    public boolean markFailure(
+            TransactionEntity txn,
+            String respXml,
+            NpciOutbox.Message npciResponse) {
 
         // 🔴 NPCI HARD RULE
-        if (txn.getApprovalNumber() == null || txn.getApprovalNumber().isBlank()) {
-            txn.setApprovalNumber(generateApproval());
+        String approval = txn.getApprovalNumber();
+        if (approval == null || approval.isBlank()) {
+            approval = generateApproval();
         }
 
+        return complete(txn, STATUS_FAILED, approval, respXml, npciResponse);
+    }
 
+    /**
+     * INIT | ISO_SENT → SUCCESS | FAILED, expecting the status this txn was read with. A transaction that
+     * is already final (duplicate Switch response, or the no-response path racing a real response) is
+     * left as it is, and its npciResponse is not stored.
+     */
+    private boolean complete(TransactionEntity txn, String status, String approvalNumber, String respXml,
+                             NpciOutbox.Message npciResponse) {
+        String from = txn.getSwitchStatus();
+        if (!STATUS_INIT.equals(from) && !STATUS_ISO_SENT.equals(from)) {
+            return skipped(txn, from, status);
+        }
+        String respIn = now();
+        LocalDateTime respOut = LocalDateTime.now();  // when response is finalized/sent out
+        int rows = limiter.db(() -> npciResponse == null || !outbox.isEnabled()
+            ? repo.updateResponse(txn.getId(), txn.getTxnDate(), from, status, approvalNumber, respXml, respIn, respOut)
+            : tx.execute(s -> {
+                int updated = repo.updateResponse(txn.getId(), txn.getTxnDate(), from, status, approvalNumber, respXml, respIn, respOut);
+                if (updated > 0) outbox.insert(npciResponse);
+                return updated;
+            }));
+        if (rows == 0) {
+            return skipped(txn, from, status);
+        }
+        txn.setSwitchStatus(status);
+        txn.setApprovalNumber(approvalNumber);
         txn.setRespXml(respXml);
-        txn.setRespInDateTime(now());
-        txn.setRespOutDateTime(LocalDateTime.now());  // when response is finalized/sent out
+        txn.setRespInDateTime(respIn);
+        txn.setRespOutDateTime(respOut);
+        inFlight.remove(txn);
+        return true;
+    }
 
-        repo.save(txn);
+    private boolean skipped(TransactionEntity txn, String from, String to) {
+        inFlight.remove(txn);
+        System.out.println("TXN " + txn.getTxnId() + " (id " + txn.getId() + "): " + from + " → " + to
+            + " not applied, status already changed");
+        return false;
     }
 
 
@@ -120,7 +258,7 @@ public class TransactionService {
     public TransactionEntity findByTxnId(String txnId) {
         // Use findTopByTxnIdOrderByIdDesc to get the LATEST transaction
         // This handles cases where same txnId exists multiple times (e.g., during testing)
-        return repo.findTopByTxnIdOrderByIdDesc(txnId)
+        return limiter.db(() -> repo.findTopByTxnIdOrderByIdDesc(txnId))
                 .orElseThrow(() ->
                         new RuntimeException(
                             "Transaction not found: " + txnId));
@@ -135,7 +273,7 @@ public class TransactionService {
             String status) {
 
         TransactionEntity txn =
-                repo.findByTxnId(txnId)
+                limiter.db(() -> repo.findByTxnId(txnId))
                     .orElseThrow(() ->
                         new RuntimeException(
                             "Transaction not found: " + txnId));
@@ -144,7 +282,7 @@ public class TransactionService {
         txn.setSwitchStatus(status);
         txn.setRespOutDateTime(LocalDateTime.now());
 
-        repo.save(txn);
+        limiter.db(() -> repo.save(txn));
     }
     
     /* ===============================
@@ -152,38 +290,48 @@ public class TransactionService {
     =============================== */
     
     public TransactionEntity findLatestByTxnId(String txnId) {
-        return repo.findTopByTxnIdOrderByIdDesc(txnId)
+        return limiter.db(() -> repo.findTopByTxnIdOrderByIdDesc(txnId))
             .orElseThrow(() ->
                 new RuntimeException("Transaction not found: " + txnId));
     }
 
     /** Find transaction by txn_id if exists (for updating response status). */
     public Optional<TransactionEntity> findOptionalByTxnId(String txnId) {
-        return repo.findTopByTxnIdOrderByIdDesc(txnId);
+        return limiter.db(() -> repo.findTopByTxnIdOrderByIdDesc(txnId));
+    }
+
+    /* ===============================
+       7️⃣ Switch response correlation
+       (in-flight registry first, DB on miss)
+       =============================== */
+
+    /** Transaction a Switch response belongs to, by the txn_id IMPS sent (callback path or DE120). */
+    public Optional<TransactionEntity> findInFlight(String txnId) {
+        Optional<TransactionEntity> hit = inFlight.byTxnId(txnId);
+        return hit.isPresent() ? hit : limiter.db(() ->
+            repo.findTopByTxnIdAndTxnDateGreaterThanEqualOrderByIdDesc(txnId, lookupSince()));
+    }
+
+    /** Same, by the DE11 / DE37 / DE13 echoed in the response, when it carries no txn id. */
+    public Optional<TransactionEntity> findInFlightByDe(String de11, String de37, String de13) {
+        Optional<TransactionEntity> hit = inFlight.byDe(de11, de37, de13);
+        return hit.isPresent() ? hit : limiter.db(() ->
+            repo.findFirstByDe11AndDe37AndDe13AndTxnDateGreaterThanEqual(de11, de37, de13, lookupSince()));
     }
 
     /**
-     * Fallback for VALADD: find ISO_SENT row whose req_xml contains Txn id (for old rows stored with msgId as txn_id).
-     * DE120 in response is Txn @id; older rows have txn_id = msgId, so lookup by DE120 fails.
-     * Uses oldest-first (FIFO) so when multiple rows share the same Txn id, the first response updates the first request.
-     * Matches id="VALUE", id='VALUE', or id = "VALUE" (optional spaces) so stored XML variations still match.
+     * Fallback for VALADD: the oldest ISO_SENT row for the Txn @id carried in the response (DE120), for rows
+     * whose txn_id is not that id (older rows stored msgId as txn_id). Rows sent from this instance come from
+     * the in-flight registry; anything else (other instance, restart, duplicate Txn id) from the indexed
+     * npci_txn_id lookup.
      */
-    public Optional<TransactionEntity> findOptionalValAddIsoSentByTxnIdInReqXml(String txnIdFromResponse) {
-        if (txnIdFromResponse == null || txnIdFromResponse.isBlank()) return Optional.empty();
-        List<TransactionEntity> list = repo.findByTxnTypeAndSwitchStatusOrderByIdAsc("VALADD", STATUS_ISO_SENT);
-        // Exact patterns (fast path)
-        String patternDbl = "id=\"" + txnIdFromResponse + "\"";
-        String patternSgl = "id='" + txnIdFromResponse + "'";
-        // Regex: id, optional spaces, =, optional spaces, quote, value, quote (handles id = "VALUE" etc.)
-        Pattern regex = Pattern.compile("id\\s*=\\s*[\"']" + Pattern.quote(txnIdFromResponse) + "[\"']");
-        return list.stream()
-            .filter(t -> {
-                String req = t.getReqXml();
-                if (req == null) return false;
-                if (req.contains(patternDbl) || req.contains(patternSgl)) return true;
-                return regex.matcher(req).find();
-            })
-            .findFirst();
+    public Optional<TransactionEntity> findOptionalValAddIsoSentByNpciTxnId(String npciTxnId) {
+        if (npciTxnId == null || npciTxnId.isBlank()) return Optional.empty();
+        Optional<TransactionEntity> hit = inFlight.byNpciTxnId(npciTxnId);
+        if (hit.isPresent()) return hit;
+        return limiter.db(() ->
+            repo.findFirstByTxnTypeAndNpciTxnIdAndSwitchStatusAndTxnDateGreaterThanEqualOrderByIdAsc(
+                "VALADD", npciTxnId, STATUS_ISO_SENT, lookupSince()));
     }
 
     /* ===============================
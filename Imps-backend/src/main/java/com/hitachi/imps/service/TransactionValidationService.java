@@ -9,9 +9,9 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.entity.AccountMaster;
 import com.hitachi.imps.entity.InstitutionMaster;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.repository.AccountMasterRepository;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.repository.TransactionRepository;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 
 /**
  * Transaction Validation Service
@@ -24,10 +24,7 @@ public class TransactionValidationService {
     private TransactionRepository transactionRepository;
 
     @Autowired
-    private AccountMasterRepository accountMasterRepository;
-
-    @Autowired
-    private InstitutionMasterRepository institutionMasterRepository;
+    private ReferenceDataCache refData;
 
     /**
      * Validate transaction after receiving RespPay from Switch
@@ -36,6 +33,11 @@ public class TransactionValidationService {
      * @return ValidationResult
      */
     public ValidationResult validateTransaction(ISOMsg iso, TransactionEntity txn) {
+        return validateTransaction(IsoFieldReader.of(iso), txn);
+    }
+
+    /** Same checks on the fields of a flyweight view (no jPOS ISOMsg needed). */
+    public ValidationResult validateTransaction(IsoFieldReader iso, TransactionEntity txn) {
         ValidationResult result = new ValidationResult();
         result.setValid(true);
 
@@ -115,8 +117,7 @@ public class TransactionValidationService {
                 }
                 
                 if (payeeAccount != null && payeeIfsc != null) {
-                    Optional<AccountMaster> accountOpt = accountMasterRepository
-                        .findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled(payeeAccount, payeeIfsc, "ACTIVE", "Y");
+                    Optional<AccountMaster> accountOpt = refData.activeAccount(payeeAccount, payeeIfsc);
                     
                     if (accountOpt.isPresent()) {
                         System.out.println("✓ Payee Account Valid: " + accountOpt.get().getAccountHolderName());
@@ -132,8 +133,7 @@ public class TransactionValidationService {
 
             // 6. Validate Institution via institution_master (IMPS validation table)
             if (payeeIfsc != null) {
-                Optional<InstitutionMaster> institutionOpt = institutionMasterRepository
-                    .findByIfscCode(payeeIfsc);
+                Optional<InstitutionMaster> institutionOpt = refData.institutionByIfsc(payeeIfsc);
                 
                 if (institutionOpt.isPresent() && Boolean.TRUE.equals(institutionOpt.get().getActive())) {
                     System.out.println("✓ Institution Valid (institution_master): " + institutionOpt.get().getName());
@@ -1,14 +1,13 @@
 package com.hitachi.imps.service;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.hitachi.imps.entity.XmlPathReqPay;
-import com.hitachi.imps.repository.XmlPathReqPayRepository;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.service.iso.XPathRuleCache;
 import com.hitachi.imps.service.iso.XmlUtil;
 
 /**
@@ -19,47 +18,58 @@ import com.hitachi.imps.service.iso.XmlUtil;
 public class XmlParsingService {
 
     @Autowired
-    private XmlPathReqPayRepository repo;
-
-    @Autowired
-    private XmlUtil xmlUtil;
+    private XPathRuleCache ruleCache;
 
     /* =========================================================
        NPCI FINANCIAL API - ReqPay
-       Uses DB-driven XPath (NPCI compliant)
+       Uses DB-driven XPath (NPCI compliant), served from XPathRuleCache
        ========================================================= */
     public Map<String, String> parseNpcIReqPay(String xml) {
-        Map<String, String> data = new HashMap<>();
+        return parseNpcIReqPay(ParsedNpciMessage.of(xml));
+    }
 
-        // Load ACTIVE XPath rules from DB
-        List<XmlPathReqPay> rules = repo.findByStatus("ACTIVE");
-        for (XmlPathReqPay rule : rules) {
-            String value = xmlUtil.read(xml, rule.getxPath());
-            data.put(rule.getName(), value);
-        }
+    public Map<String, String> parseNpcIReqPay(ParsedNpciMessage msg) {
+        // ACTIVE rules from xml_path_req_pay (cached, precompiled)
+        Map<String, String> data = new HashMap<>(ruleCache.evaluateReqPay(msg));
 
         // Mandatory header attributes
-        data.put("msg_id", xmlUtil.read(xml, "//*[local-name()='Head']/@msgId"));
-        data.put("org_id", xmlUtil.read(xml, "//*[local-name()='Head']/@orgId"));
-        data.put("prod_type", xmlUtil.read(xml, "//*[local-name()='Head']/@prodType"));
+        data.put("msg_id", msg.attr("Head", "msgId"));
+        data.put("org_id", msg.attr("Head", "orgId"));
+        data.put("prod_type", msg.attr("Head", "prodType"));
 
         // Transaction attributes
-        data.put("txn_id", xmlUtil.read(xml, "//*[local-name()='Txn']/@id"));
-        data.put("txn_type", xmlUtil.read(xml, "//*[local-name()='Txn']/@type"));
+        data.put("txn_id", msg.attr("Txn", "id"));
+        data.put("txn_type", msg.attr("Txn", "type"));
 
         return data;
     }
 
+    /* =========================================================
+       NPCI RESPONSE APIs - RespPay etc.
+       Uses DB-driven XPath from response_xpath, served from XPathRuleCache
+       ========================================================= */
+    public Map<String, String> parseNpciResponse(String xml) {
+        return parseNpciResponse(ParsedNpciMessage.of(xml));
+    }
+
+    public Map<String, String> parseNpciResponse(ParsedNpciMessage msg) {
+        return new HashMap<>(ruleCache.evaluateResponse(msg));
+    }
+
     /* =========================================================
        CHECK STATUS API - ReqChkTxn
        ========================================================= */
     public Map<String, String> parseReqChkTxn(String xml) {
+        return parseReqChkTxn(ParsedNpciMessage.of(xml));
+    }
+
+    public Map<String, String> parseReqChkTxn(ParsedNpciMessage msg) {
         Map<String, String> map = new HashMap<>();
 
-        map.put("msg_id", xmlUtil.read(xml, "//*[local-name()='Head']/@msgId"));
-        map.put("orgTxnId", xmlUtil.read(xml, "//*[local-name()='Txn']/@orgTxnId"));
-        map.put("orgRrn", xmlUtil.read(xml, "//*[local-name()='Txn']/@orgRrn"));
-        map.put("orgTxnDate", xmlUtil.read(xml, "//*[local-name()='Txn']/@orgTxnDate"));
+        map.put("msg_id", msg.attr("Head", "msgId"));
+        map.put("orgTxnId", msg.attr("Txn", "orgTxnId"));
+        map.put("orgRrn", msg.attr("Txn", "orgRrn"));
+        map.put("orgTxnDate", msg.attr("Txn", "orgTxnDate"));
 
         return map;
     }
@@ -68,15 +78,17 @@ public class XmlParsingService {
        NAME ENQUIRY API - ReqValAdd
        ========================================================= */
     public Map<String, String> parseReqValAdd(String xml) {
+        return parseReqValAdd(ParsedNpciMessage.of(xml));
+    }
+
+    public Map<String, String> parseReqValAdd(ParsedNpciMessage msg) {
         Map<String, String> map = new HashMap<>();
 
-        map.put("msg_id", xmlUtil.read(xml, "//*[local-name()='Head']/@msgId"));
+        map.put("msg_id", msg.attr("Head", "msgId"));
         
         // Payee account details for name enquiry
-        map.put("ACNUM", xmlUtil.read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='ACNUM']/@value"));
-        map.put("IFSC", xmlUtil.read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='IFSC']/@value"));
+        map.put("ACNUM", msg.named("Payee", "Detail", "ACNUM"));
+        map.put("IFSC", msg.named("Payee", "Detail", "IFSC"));
 
         return map;
     }
@@ -85,30 +97,42 @@ public class XmlParsingService {
        GENERIC HELPER - Extract msgId (ACK usage)
        ========================================================= */
     public String extractMsgId(String xml) {
-        return xmlUtil.read(xml, "//*[local-name()='Head']/@msgId");
+        return XmlUtil.extract(xml).attr("Head", "msgId");
     }
 
     /* =========================================================
        GENERIC HELPER - Extract txnId (Transaction ID)
        ========================================================= */
     public String extractTxnId(String xml) {
-        return xmlUtil.read(xml, "//*[local-name()='Txn']/@id");
+        return XmlUtil.extract(xml).attr("Txn", "id");
+    }
+
+    /* =========================================================
+       GENERIC HELPER - Parse once at the HTTP edge
+       Result is passed to validators, processAsync and the converter.
+       ========================================================= */
+    public ParsedNpciMessage parse(String xml) {
+        return ParsedNpciMessage.of(xml);
     }
 
     /* =========================================================
        HEARTBEAT API - ReqHbt (NPCI SYSTEM MONITORING)
        ========================================================= */
     public Map<String, String> parseReqHbt(String xml) {
+        return parseReqHbt(ParsedNpciMessage.of(xml));
+    }
+
+    public Map<String, String> parseReqHbt(ParsedNpciMessage msg) {
         Map<String, String> map = new HashMap<>();
 
-        map.put("msg_id", xmlUtil.read(xml, "//*[local-name()='Head']/@msgId"));
-        map.put("org_id", xmlUtil.read(xml, "//*[local-name()='Head']/@orgId"));
-        map.put("txn_id", xmlUtil.read(xml, "//*[local-name()='Txn']/@id"));
-        map.put("note", xmlUtil.read(xml, "//*[local-name()='Txn']/@note"));
-        map.put("ref_id", xmlUtil.read(xml, "//*[local-name()='Txn']/@refId"));
-        map.put("txn_ts", xmlUtil.read(xml, "//*[local-name()='Txn']/@ts"));
-        map.put("hbt_type", xmlUtil.read(xml, "//*[local-name()='HbtMsg']/@type"));
-        map.put("hbt_value", xmlUtil.read(xml, "//*[local-name()='HbtMsg']/@value"));
+        map.put("msg_id", msg.attr("Head", "msgId"));
+        map.put("org_id", msg.attr("Head", "orgId"));
+        map.put("txn_id", msg.attr("Txn", "id"));
+        map.put("note", msg.attr("Txn", "note"));
+        map.put("ref_id", msg.attr("Txn", "refId"));
+        map.put("txn_ts", msg.attr("Txn", "ts"));
+        map.put("hbt_type", msg.attr("HbtMsg", "type"));
+        map.put("hbt_value", msg.attr("HbtMsg", "value"));
 
         return map;
     }
@@ -117,11 +141,15 @@ public class XmlParsingService {
        LIST ACCOUNT PROVIDER API - ReqListAccPvd
        ========================================================= */
     public Map<String, String> parseReqListAccPvd(String xml) {
+        return parseReqListAccPvd(ParsedNpciMessage.of(xml));
+    }
+
+    public Map<String, String> parseReqListAccPvd(ParsedNpciMessage msg) {
         Map<String, String> map = new HashMap<>();
 
-        map.put("msg_id", xmlUtil.read(xml, "//*[local-name()='Head']/@msgId"));
-        map.put("org_id", xmlUtil.read(xml, "//*[local-name()='Head']/@orgId"));
-        map.put("txn_id", xmlUtil.read(xml, "//*[local-name()='Txn']/@id"));
+        map.put("msg_id", msg.attr("Head", "msgId"));
+        map.put("org_id", msg.attr("Head", "orgId"));
+        map.put("txn_id", msg.attr("Txn", "id"));
 
         return map;
     }
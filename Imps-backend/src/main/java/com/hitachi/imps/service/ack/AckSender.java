@@ -0,0 +1,174 @@
+package com.hitachi.imps.service.ack;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.client.NpciMockClient;
+import com.hitachi.imps.client.OutboundHttpClient;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers ACKs to NPCI (npci_mock /ack) off the inbound request thread.
+ *
+ * Controllers call {@link #submit(byte[])}, which only enqueues into a bounded queue and never
+ * blocks; when the queue is full the ACK is dropped and counted. One dispatcher thread drains
+ * whatever has accumulated (up to imps.ack.sender.max-batch) and sends the burst concurrently
+ * over the pooled keep-alive connections, then waits for the batch before draining again, so at
+ * most max-batch ACKs are in flight. Counters are exposed via {@link #stats()}.
+ */
+@Component
+public class AckSender {
+
+    @Autowired
+    private NpciMockClient npciMockClient;
+
+    @Value("${imps.ack.sender.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${imps.ack.sender.max-batch:64}")
+    private int maxBatch;
+
+    @Value("${imps.ack.sender.shutdown-drain-ms:5000}")
+    private long shutdownDrainMs;
+
+    private BlockingQueue<PendingAck> queue;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+    private final AtomicLong totalLatencyMicros = new AtomicLong();
+    private final AtomicLong maxLatencyMicros = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "IMPS-AckSender");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        System.out.println("=== ACK Sender Initialized ===");
+        System.out.println("Queue Capacity: " + queueCapacity + ", Max Batch: " + maxBatch);
+        System.out.println("==============================");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(shutdownDrainMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            System.err.println("ACK SENDER: " + queue.size() + " ACK(s) not delivered at shutdown");
+        }
+    }
+
+    /**
+     * Queue an ACK for delivery to NPCI. Returns false (and counts a drop) when the queue is full.
+     */
+    public boolean submit(byte[] ackXml) {
+        submitted.incrementAndGet();
+        if (queue.offer(new PendingAck(ackXml, System.nanoTime()))) {
+            return true;
+        }
+        long n = dropped.incrementAndGet();
+        if (n == 1 || n % 1000 == 0) {
+            System.err.println("ACK SENDER: queue full (" + queueCapacity + "), " + n + " ACK(s) dropped so far");
+        }
+        return false;
+    }
+
+    /* ===============================
+       DISPATCH
+       =============================== */
+    private void dispatchLoop() {
+        List<PendingAck> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAck first = running ? queue.take() : queue.poll();
+                if (first == null) break;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                // stop() interrupts the idle take(); the loop condition then drains what is left
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void sendBatch(List<PendingAck> batch) {
+        batches.incrementAndGet();
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        CompletableFuture<?>[] inFlight = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            PendingAck ack = batch.get(i);
+            inFlight[i] = npciMockClient.sendAckAsync(ack.body).whenComplete((r, e) -> {
+                if (e == null) {
+                    delivered.incrementAndGet();
+                    long micros = (System.nanoTime() - ack.enqueuedNanos) / 1_000;
+                    totalLatencyMicros.addAndGet(micros);
+                    maxLatencyMicros.accumulateAndGet(micros, Math::max);
+                } else {
+                    failed.incrementAndGet();
+                    System.err.println("NPCI MOCK: Send ACK failed (npci_mock may be down): " + OutboundHttpClient.describe(e));
+                }
+            });
+        }
+        // each send is bounded by the HTTP client's read deadline, so this wait is too
+        CompletableFuture.allOf(inFlight).handle((r, e) -> null).join();
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        long ok = delivered.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("submitted", submitted.get());
+        m.put("delivered", ok);
+        m.put("failed", failed.get());
+        m.put("dropped", dropped.get());
+        m.put("queueDepth", queue.size());
+        m.put("queueCapacity", queueCapacity);
+        m.put("batches", batches.get());
+        m.put("largestBatch", largestBatch.get());
+        m.put("avgDeliveryMs", ok == 0 ? 0.0 : totalLatencyMicros.get() / 1000.0 / ok);
+        m.put("maxDeliveryMs", TimeUnit.MICROSECONDS.toMillis(maxLatencyMicros.get()));
+        return m;
+    }
+
+    private static final class PendingAck {
+        final byte[] body;
+        final long enqueuedNanos;
+
+        PendingAck(byte[] body, long enqueuedNanos) {
+            this.body = body;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
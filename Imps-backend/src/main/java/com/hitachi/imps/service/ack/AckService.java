@@ -1,11 +1,13 @@
 package com.hitachi.imps.service.ack;
 
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
 
 import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.exception.InvalidReqMsgIdException;
+import com.hitachi.imps.xml.XmlTemplate;
 
 /**
  * Service to build ACK (Acknowledgement) messages as per IMPS specification.
@@ -19,13 +21,25 @@ import com.hitachi.imps.exception.InvalidReqMsgIdException;
  * - api: identifies which request/response this ACK is for (ReqPay, RespPay, ReqChkTxn, etc.).
  * - reqMsgId: message ID from the request being acknowledged (Head @msgId); validated like txn_id (required, non-blank when required).
  * - ts: ISO timestamp.
+ *
+ * The ACK shape is precompiled once ({@link XmlTemplate}); each ACK is rendered into a pooled
+ * {@link com.hitachi.imps.xml.XmlBuffer} and handed out as bytes, a String, or written to a stream.
  */
 @Service
 public class AckService {
 
     private static final String XMLNS_NS2 = "http://npci.org/upi/schema/";
     private static final String XMLNS_NS3 = "http://npci.org/cm/schema/";
-    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private static final XmlTemplate ACK = XmlTemplate.compile(
+        "<ns2:Ack xmlns:ns2=\"${ns2}\" xmlns:ns3=\"${ns3}\" api=\"${api}\" reqMsgId=\"${reqMsgId}\" ts=\"#{ts}\"></ns2:Ack>",
+        Map.of("ns2", XMLNS_NS2, "ns3", XMLNS_NS3));
+
+    /** Negative ACK: the message was not accepted (err = NPCI error code). */
+    private static final XmlTemplate ERROR_ACK = XmlTemplate.compile(
+        "<ns2:Ack xmlns:ns2=\"${ns2}\" xmlns:ns3=\"${ns3}\" api=\"${api}\" reqMsgId=\"${reqMsgId}\" err=\"${err}\" ts=\"#{ts}\">"
+            + "<errorMessages><errorDetail errorCd=\"${err}\" errorDtl=\"${detail}\"/></errorMessages></ns2:Ack>",
+        Map.of("ns2", XMLNS_NS2, "ns3", XMLNS_NS3));
 
     /**
      * Build ACK XML. reqMsgId must be non-blank (validated like txn_id).
@@ -37,12 +51,34 @@ public class AckService {
      * @throws InvalidReqMsgIdException if reqMsgId is null or blank
      */
     public String buildAck(String api, String reqMsgId) {
+        return ACK.renderToString(ackValues(api, reqMsgId));
+    }
+
+    /** Same as {@link #buildAck} as UTF-8 bytes, for controllers that return the ACK body directly. */
+    public byte[] buildAckBytes(String api, String reqMsgId) {
+        return ACK.renderToBytes(ackValues(api, reqMsgId));
+    }
+
+    /** Write the ACK straight to {@code out} (e.g. the servlet OutputStream). */
+    public void writeAck(String api, String reqMsgId, OutputStream out) throws IOException {
+        ACK.renderTo(out, ackValues(api, reqMsgId));
+    }
+
+    /**
+     * ACK rejecting the message, e.g. when IMPS is over capacity: same shape as {@link #buildAck} plus
+     * err and an errorDetail.
+     */
+    public byte[] buildErrorAckBytes(String api, String reqMsgId, String errCode, String detail) {
+        if (reqMsgId == null || reqMsgId.isBlank())
+            throw new InvalidReqMsgIdException("reqMsgId is required for ACK and must not be blank");
+        return ERROR_ACK.renderToBytes(api != null ? api : "", reqMsgId.trim(),
+            errCode != null ? errCode : "", detail != null ? detail : "");
+    }
+
+    private static String[] ackValues(String api, String reqMsgId) {
         if (reqMsgId == null || reqMsgId.isBlank())
             throw new InvalidReqMsgIdException("reqMsgId is required for ACK and must not be blank");
-        String ts = OffsetDateTime.now().format(TS_FORMAT);
-        String escapedReqMsgId = escapeXmlAttr(reqMsgId.trim());
-        String escapedApi = escapeXmlAttr(api != null ? api : "");
-        return "<ns2:Ack xmlns:ns2=\"" + XMLNS_NS2 + "\" xmlns:ns3=\"" + XMLNS_NS3 + "\" api=\"" + escapedApi + "\" reqMsgId=\"" + escapedReqMsgId + "\" ts=\"" + ts + "\"></ns2:Ack>";
+        return new String[] { api != null ? api : "", reqMsgId.trim() };
     }
 
     /**
@@ -55,11 +91,6 @@ public class AckService {
         return buildAck(api, id);
     }
 
-    private static String escapeXmlAttr(String s) {
-        if (s == null) return "";
-        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&apos;");
-    }
-
     public String buildReqPayAck(String reqMsgId) { return buildAck("ReqPay", reqMsgId); }
     public String buildRespPayAck(String reqMsgId) { return buildAck("RespPay", reqMsgId); }
     public String buildReqChkTxnAck(String reqMsgId) { return buildAck("ReqChkTxn", reqMsgId); }
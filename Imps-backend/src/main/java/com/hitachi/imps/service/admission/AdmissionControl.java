@@ -0,0 +1,190 @@
+package com.hitachi.imps.service.admission;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.config.AdmissionConfig;
+import com.hitachi.imps.exception.OverloadedException;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.limit.DownstreamLimiter.Downstream;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Admission control at the HTTP edge, before the ACK and the @Async hand-off of an NPCI message.
+ *
+ * Load (0 = idle, 1 = full) is the highest of:
+ * - @Async queue fill (thread pool mode)
+ * - @Async tasks queued or running / imps.admission.max-in-flight
+ * - threads waiting for a DB permit or a pooled connection / imps.admission.db-max-waiting
+ * Each API is shed once load reaches its imps.admission.shed-at share, so under pressure ReqListAccPvd
+ * goes first and ReqPay last. A rejected message gets HTTP 503 with an error ACK (err = reject-code)
+ * and no processing; it is never ACKed and then dropped.
+ */
+@Component
+public class AdmissionControl {
+
+    @Autowired
+    private AdmissionConfig config;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /** @Async tasks submitted and not finished (counted by {@link #track}). */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile ThreadPoolTaskExecutor pool;
+    private volatile HikariPoolMXBean hikari;
+    private volatile boolean hikariResolved;
+
+    private final Map<String, AtomicLong> admitted = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> rejected = new ConcurrentHashMap<>();
+    private final AtomicLong rejectedByExecutor = new AtomicLong();
+
+    /** Called by AsyncConfig with the @Async pool, whose queue fill counts towards load. */
+    public void watch(ThreadPoolTaskExecutor executor) {
+        this.pool = executor;
+    }
+
+    /** TaskDecorator for the @Async executor: counts tasks from submission until they finish. */
+    public Runnable track(Runnable task) {
+        inFlight.incrementAndGet();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Admit the message for api (e.g. "ReqPay") and run process, which queues its @Async processing.
+     * Call before the ACK goes out.
+     * @throws OverloadedException over capacity for this API, or the executor refused the task
+     */
+    public void handOff(String api, String reqMsgId, Runnable process) {
+        String key = api.toLowerCase(Locale.ROOT);
+        if (config.isEnabled()) {
+            double shedAt = config.getShedAt().getOrDefault(key, config.getDefaultShedAt());
+            Load load = load();
+            if (load.value >= shedAt) {
+                counter(rejected, key).incrementAndGet();
+                throw new OverloadedException(api, reqMsgId, config.getRejectCode(),
+                    load.cause + " at " + percent(load.value) + "% (" + api + " shed at " + percent(shedAt) + "%)",
+                    config.getRetryAfterSeconds());
+            }
+        }
+        try {
+            process.run();
+        } catch (TaskRejectedException e) {
+            // decorated (counted) before the pool refused it
+            inFlight.decrementAndGet();
+            rejectedByExecutor.incrementAndGet();
+            counter(rejected, key).incrementAndGet();
+            throw new OverloadedException(api, reqMsgId, config.getRejectCode(), "@Async queue full",
+                config.getRetryAfterSeconds());
+        }
+        counter(admitted, key).incrementAndGet();
+    }
+
+    /* ===============================
+       LOAD
+       =============================== */
+
+    private static final class Load {
+        final double value;
+        final String cause;
+
+        Load(double value, String cause) {
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+
+    private Load load() {
+        Load load = new Load(queueFill(), "async queue");
+        double tasks = (double) inFlight.get() / Math.max(1, config.getMaxInFlight());
+        if (tasks > load.value) load = new Load(tasks, "async tasks in flight");
+        double db = (double) dbWaiting() / Math.max(1, config.getDbMaxWaiting());
+        if (db > load.value) load = new Load(db, "DB connection waiters");
+        return load;
+    }
+
+    private double queueFill() {
+        ThreadPoolTaskExecutor p = pool;
+        if (p == null || p.getQueueCapacity() <= 0) return 0;
+        return (double) p.getQueueSize() / p.getQueueCapacity();
+    }
+
+    private int dbWaiting() {
+        int waiting = limiter.waiting(Downstream.DB);
+        HikariPoolMXBean mx = hikari();
+        return mx != null ? Math.max(waiting, mx.getThreadsAwaitingConnection()) : waiting;
+    }
+
+    /** Hikari pool MXBean once the pool has started; null for other DataSources. */
+    private HikariPoolMXBean hikari() {
+        if (hikariResolved) return hikari;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariPoolMXBean mx = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                if (mx == null) return null;   // pool not started yet
+                hikari = mx;
+            }
+        } catch (SQLException e) {
+            // not a Hikari pool: DownstreamLimiter DB waiters only
+        }
+        hikariResolved = true;
+        return hikari;
+    }
+
+    private static AtomicLong counter(Map<String, AtomicLong> counters, String api) {
+        return counters.computeIfAbsent(api, k -> new AtomicLong());
+    }
+
+    private static long percent(double share) {
+        return Math.round(share * 100);
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", config.isEnabled());
+        Load load = load();
+        m.put("loadPercent", percent(load.value));
+        m.put("loadCause", load.cause);
+        m.put("asyncQueuePercent", percent(queueFill()));
+        m.put("asyncInFlight", inFlight.get());
+        m.put("maxInFlight", config.getMaxInFlight());
+        m.put("dbWaiting", dbWaiting());
+        m.put("dbMaxWaiting", config.getDbMaxWaiting());
+        m.put("shedAt", config.getShedAt());
+        m.put("admitted", snapshot(admitted));
+        m.put("rejected", snapshot(rejected));
+        m.put("rejectedByExecutor", rejectedByExecutor.get());
+        return m;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> counters) {
+        Map<String, Long> m = new LinkedHashMap<>();
+        counters.forEach((k, v) -> m.put(k, v.get()));
+        return m;
+    }
+}
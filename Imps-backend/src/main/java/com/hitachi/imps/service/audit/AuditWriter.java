@@ -0,0 +1,446 @@
+package com.hitachi.imps.service.audit;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.imps.entity.MessageAuditLog;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.payload.PayloadCodec;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind writer for message_audit_log.
+ *
+ * {@link #submit(MessageAuditLog)} puts the record in a bounded buffer (imps.audit.writer.capacity)
+ * and returns; one flusher thread writes the buffer with JDBC batch inserts when batch-size records
+ * are waiting or flush-interval-ms has passed, whichever comes first. When the buffer is full,
+ * imps.audit.writer.overflow decides:
+ * - block – the caller waits for space (no audit row is lost)
+ * - spill – the record is appended to spill-file (one JSON line) and inserted later by the flusher
+ * - drop  – the record is discarded and counted
+ * A batch that fails to insert is spilled too. Everything still buffered is flushed on shutdown.
+ *
+ * The flusher replays spilled rows between batches once the DB takes writes again, a few batches at a
+ * time (replay-batches), and retries every replay-interval-ms while it does not. A line that cannot be
+ * read back, or a row the table refuses, is moved to spill-file.rejected instead of holding up the rest.
+ */
+@Component
+public class AuditWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO message_audit_log (id, txn_id, stage, raw_message, parsed_message, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String NEXT_ID_BLOCKS_SQL =
+        "SELECT nextval('message_audit_log_id_seq') FROM generate_series(1, ?)";
+
+    /** Payload columns are stored through {@link PayloadCodec}, as the entity's converter would. */
+    private final ParameterizedPreparedStatementSetter<MessageAuditLog> bind = (ps, log) -> {
+        ps.setInt(1, log.getId());
+        ps.setString(2, log.getTxnId());
+        ps.setString(3, log.getStage());
+        ps.setBytes(4, this.codec.encode(log.getRawMessage()));
+        ps.setBytes(5, this.codec.encode(log.getParsedMessage()));
+        // created_at is the partition key; never insert NULL
+        ps.setTimestamp(6, Timestamp.valueOf(log.getCreatedAt() != null ? log.getCreatedAt() : LocalDateTime.now()));
+    };
+
+    public enum Overflow { BLOCK, SPILL, DROP }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private PayloadCodec codec;
+
+    @Value("${imps.audit.writer.capacity:8192}")
+    private int capacity;
+
+    @Value("${imps.audit.writer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${imps.audit.writer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${imps.audit.writer.overflow:spill}")
+    private String overflowPolicy;
+
+    @Value("${imps.audit.writer.spill-file:audit-spill.ndjson}")
+    private String spillFile;
+
+    @Value("${imps.audit.writer.replay-batches:10}")
+    private int replayBatches;
+
+    @Value("${imps.audit.writer.replay-interval-ms:30000}")
+    private long replayIntervalMs;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private BlockingQueue<MessageAuditLog> buffer;
+    private Overflow overflow;
+    private Path spillPath;
+    private Thread flusher;
+    private volatile boolean running;
+    private volatile boolean replayPending;
+    private long nextReplayAt;   // flusher only
+
+    /* ===== ID BLOCKS (pooled-lo, shared with the entity's generator) ===== */
+    private final ArrayDeque<Integer> idBlocks = new ArrayDeque<>();
+    private int nextId;
+    private int idsLeft;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong replayFailures = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        overflow = Overflow.valueOf(overflowPolicy.trim().toUpperCase());
+        spillPath = Paths.get(spillFile);
+        // left by a previous run: the flusher replays it
+        replayPending = Files.exists(spillPath) || Files.exists(replayPath());
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "IMPS-AuditWriter");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        System.out.println("=== Audit Writer Initialized ===");
+        System.out.println("Capacity: " + capacity + ", Batch: " + batchSize + ", Flush ms: " + flushIntervalMs
+            + ", Overflow: " + overflow);
+        System.out.println("================================");
+    }
+
+    @PreDestroy
+    public void stop() {
+        // no interrupt: the flusher notices within flush-interval-ms and an in-progress batch is not cut short
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // flusher gone or stuck: keep whatever is left rather than lose it
+        List<MessageAuditLog> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        if (!rest.isEmpty()) {
+            spill(rest);
+        }
+        System.out.println("=== Audit Writer Stopped: " + written.get() + " written, " + spilled.get() + " spilled ===");
+    }
+
+    /**
+     * Queue one audit row. Never touches the DB on the calling thread.
+     */
+    public void submit(MessageAuditLog log) {
+        submitted.incrementAndGet();
+        if (buffer.offer(log)) {
+            return;
+        }
+        switch (overflow) {
+            case BLOCK:
+                blocked.incrementAndGet();
+                try {
+                    buffer.put(log);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    spill(List.of(log));
+                }
+                break;
+            case SPILL:
+                spill(List.of(log));
+                break;
+            default:
+                long n = dropped.incrementAndGet();
+                if (n == 1 || n % 1000 == 0) {
+                    System.err.println("AUDIT WRITER: buffer full (" + capacity + "), " + n + " audit row(s) dropped so far");
+                }
+        }
+    }
+
+    /* ===============================
+       FLUSH
+       =============================== */
+    private void flushLoop() {
+        List<MessageAuditLog> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                // collect until the batch is full or the flush interval has passed
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0 || !running) break;
+                    MessageAuditLog first = buffer.poll(wait, TimeUnit.NANOSECONDS);
+                    if (first == null) break;
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!running) {
+                buffer.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+            if (replayPending && running && System.currentTimeMillis() >= nextReplayAt) {
+                replaySpill();
+            }
+        }
+    }
+
+    private void write(List<MessageAuditLog> batch) {
+        try {
+            limiter.db(() -> {
+                assignIds(batch);
+                return jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), bind);
+            });
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+            nextReplayAt = 0;   // the DB takes writes again: replay without waiting out the interval
+        } catch (Exception e) {
+            failedBatches.incrementAndGet();
+            nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+            System.err.println("AUDIT WRITER: batch insert of " + batch.size() + " row(s) failed, spilling: " + e.getMessage());
+            spill(batch);
+        }
+    }
+
+    /**
+     * Give every row an id from message_audit_log_id_seq the way Hibernate's pooled-lo optimizer does:
+     * each nextval v stands for ids v .. v + ID_ALLOCATION_SIZE - 1, so one query covers a whole batch
+     * and the ids never collide with rows saved through the entity.
+     */
+    private synchronized void assignIds(List<MessageAuditLog> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (idsLeft == 0) {
+                if (idBlocks.isEmpty()) {
+                    int needed = batch.size() - i;
+                    int blocks = (needed + MessageAuditLog.ID_ALLOCATION_SIZE - 1) / MessageAuditLog.ID_ALLOCATION_SIZE;
+                    idBlocks.addAll(jdbcTemplate.queryForList(NEXT_ID_BLOCKS_SQL, Integer.class, blocks));
+                }
+                nextId = idBlocks.poll();
+                idsLeft = MessageAuditLog.ID_ALLOCATION_SIZE;
+            }
+            batch.get(i).setId(nextId++);
+            idsLeft--;
+        }
+    }
+
+    /* ===============================
+       SPILL FILE (one JSON object per line)
+       =============================== */
+    private synchronized void spill(List<MessageAuditLog> logs) {
+        try (BufferedWriter out = Files.newBufferedWriter(spillPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (MessageAuditLog log : logs) {
+                Map<String, String> line = new LinkedHashMap<>();
+                line.put("txnId", log.getTxnId());
+                line.put("stage", log.getStage());
+                line.put("rawMessage", log.getRawMessage());
+                line.put("parsedMessage", log.getParsedMessage());
+                line.put("createdAt", log.getCreatedAt() != null ? log.getCreatedAt().toString() : null);
+                out.write(mapper.writeValueAsString(line));
+                out.newLine();
+            }
+            spilled.addAndGet(logs.size());
+            replayPending = true;
+        } catch (IOException e) {
+            dropped.addAndGet(logs.size());
+            System.err.println("AUDIT WRITER: spill to " + spillPath + " failed, " + logs.size() + " row(s) lost: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Insert up to replay-batches batches of spilled rows. The file being replayed is renamed .replay
+     * (new spills start a fresh spill-file) and .replay.offset records how many of its lines are in the
+     * table after each batch, so a DB outage or a restart resumes after them. Rows of a batch that was
+     * inserted just before a crash, ahead of its offset, can repeat.
+     */
+    private void replaySpill() {
+        Path replaying = replayPath();
+        try {
+            int used = 0;
+            if (Files.exists(replaying)) {
+                used = replay(replaying, replayBatches);
+            }
+            if (!Files.exists(replaying) && used < replayBatches) {
+                synchronized (this) {   // spill() appends under the same lock
+                    if (Files.exists(spillPath)) {
+                        Files.deleteIfExists(replaying.resolveSibling(replaying.getFileName() + ".offset"));
+                        Files.move(spillPath, replaying);
+                    }
+                }
+                if (Files.exists(replaying)) {
+                    replay(replaying, replayBatches - used);
+                }
+            }
+            synchronized (this) {
+                replayPending = Files.exists(replaying) || Files.exists(spillPath);
+            }
+            nextReplayAt = 0;
+        } catch (Exception e) {
+            // DB not taking writes (or the file unreadable): the offset is kept, try again later
+            replayFailures.incrementAndGet();
+            nextReplayAt = System.currentTimeMillis() + replayIntervalMs;
+            System.err.println("AUDIT WRITER: spill replay stopped, retrying in " + replayIntervalMs + " ms: " + e.getMessage());
+        }
+    }
+
+    /** Returns the number of batches inserted; the file is deleted once every line is in. */
+    private int replay(Path file, int maxBatches) throws IOException {
+        Path offsetFile = file.resolveSibling(file.getFileName() + ".offset");
+        long done = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : 0;
+        List<MessageAuditLog> batch = new ArrayList<>(batchSize);
+        List<String> lines = new ArrayList<>(batchSize);
+        int used = 0;
+        long lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (++lineNo <= done || line.isBlank()) continue;
+                try {
+                    batch.add(parse(line));
+                    lines.add(line);
+                } catch (Exception e) {
+                    reject(line, "unreadable: " + e.getMessage());
+                }
+                if (batch.size() == batchSize) {
+                    insertReplayed(batch, lines);
+                    Files.writeString(offsetFile, Long.toString(lineNo));
+                    if (++used == maxBatches) return used;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertReplayed(batch, lines);
+            used++;
+        }
+        Files.delete(file);
+        Files.deleteIfExists(offsetFile);
+        System.out.println("=== Audit Writer: spill replayed, " + replayed.get() + " row(s) so far, "
+            + rejected.get() + " rejected ===");
+        return used;
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageAuditLog parse(String line) throws IOException {
+        Map<String, String> m = mapper.readValue(line, Map.class);
+        MessageAuditLog log = new MessageAuditLog();
+        log.setTxnId(m.get("txnId"));
+        log.setStage(m.get("stage"));
+        log.setRawMessage(m.get("rawMessage"));
+        log.setParsedMessage(m.get("parsedMessage"));
+        log.setCreatedAt(m.get("createdAt") != null ? LocalDateTime.parse(m.get("createdAt")) : null);
+        return log;
+    }
+
+    /**
+     * One row the table refuses fails the whole batch; then the rows go in one at a time and only the
+     * refused ones are rejected. Any other failure (DB down) is thrown and the batch is retried later.
+     */
+    private void insertReplayed(List<MessageAuditLog> batch, List<String> lines) {
+        try {
+            limiter.db(() -> {
+                assignIds(batch);   // kept if the rows are retried one at a time below
+                return jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), bind);
+            });
+            replayed.addAndGet(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            for (int i = 0; i < batch.size(); i++) {
+                List<MessageAuditLog> one = List.of(batch.get(i));
+                try {
+                    limiter.db(() -> jdbcTemplate.batchUpdate(INSERT_SQL, one, 1, bind));
+                    replayed.incrementAndGet();
+                } catch (DuplicateKeyException dup) {
+                    replayed.incrementAndGet();   // same id: already went in with the failed batch
+                } catch (DataIntegrityViolationException bad) {
+                    reject(lines.get(i), bad.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        batch.clear();
+        lines.clear();
+    }
+
+    private void reject(String line, String reason) {
+        Path rejectedPath = spillPath.resolveSibling(spillPath.getFileName() + ".rejected");
+        try {
+            Files.writeString(rejectedPath, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            rejected.incrementAndGet();
+            System.err.println("AUDIT WRITER: spilled row moved to " + rejectedPath + ": " + reason);
+        } catch (IOException e) {
+            dropped.incrementAndGet();
+            System.err.println("AUDIT WRITER: spilled row lost (" + reason + "), " + rejectedPath + " not writable: " + e.getMessage());
+        }
+    }
+
+    private Path replayPath() {
+        return spillPath.resolveSibling(spillPath.getFileName() + ".replay");
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("overflow", overflow.name().toLowerCase());
+        m.put("submitted", submitted.get());
+        m.put("written", written.get());
+        m.put("batches", batches.get());
+        m.put("buffered", buffer.size());
+        m.put("capacity", capacity);
+        m.put("blocked", blocked.get());
+        m.put("spilled", spilled.get());
+        m.put("dropped", dropped.get());
+        m.put("failedBatches", failedBatches.get());
+        m.put("replayed", replayed.get());
+        m.put("rejected", rejected.get());
+        m.put("replayFailures", replayFailures.get());
+        m.put("replayPending", replayPending);
+        return m;
+    }
+}
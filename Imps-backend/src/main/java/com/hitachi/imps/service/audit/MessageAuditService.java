@@ -6,11 +6,14 @@ import java.util.Base64;
 import org.jpos.iso.ISOMsg;
 import org.jpos.iso.ISOException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hitachi.imps.entity.MessageAuditLog;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.repository.MessageAuditLogRepository;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
 
 @Service
 public class MessageAuditService {
@@ -18,6 +21,16 @@ public class MessageAuditService {
     @Autowired
     private MessageAuditLogRepository repo;
 
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private AuditWriter writer;
+
+    /** true = rows go through the write-behind {@link AuditWriter}; false = synchronous repo.save. */
+    @Value("${imps.audit.writer.enabled:true}")
+    private boolean writeBehind;
+
     private final ObjectMapper mapper = new ObjectMapper();
 
     /* ===============================
@@ -38,6 +51,22 @@ public class MessageAuditService {
         return sb.toString();
     }
 
+    /** Same format for a flyweight view / writer, read without a jPOS ISOMsg. */
+    private String isoToString(IsoFieldReader iso) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("MTI=").append(iso.getMTI()).append("\n");
+
+        for (int i = 1; i <= 128; i++) {
+            if (iso.hasField(i)) {
+                sb.append("DE").append(i)
+                  .append("=")
+                  .append(iso.getString(i))
+                  .append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
     /* ===============================
        SANITIZE STRING FOR DATABASE
        (Remove null bytes and invalid UTF-8)
@@ -48,6 +77,14 @@ public class MessageAuditService {
         return input.replaceAll("\\x00", "").replaceAll("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F]", "");
     }
 
+    private void persist(MessageAuditLog log) {
+        if (writeBehind) {
+            writer.submit(log);
+        } else {
+            limiter.db(() -> repo.save(log));
+        }
+    }
+
     /* ===============================
        RAW MESSAGE (XML / ISO STRING)
        =============================== */
@@ -59,7 +96,7 @@ public class MessageAuditService {
         log.setParsedMessage(null);
         log.setCreatedAt(LocalDateTime.now());
 
-        repo.save(log);
+        persist(log);
     }
 
     /* ===============================
@@ -75,11 +112,11 @@ public class MessageAuditService {
         log.setParsedMessage(null);
         log.setCreatedAt(LocalDateTime.now());
 
-        repo.save(log);
+        persist(log);
     }
 
     /* ===============================
-       PARSED MESSAGE (Map / ISOMsg)
+       PARSED MESSAGE (Map / ISOMsg / IsoFieldReader)
        =============================== */
     public void saveParsed(String txnId, String stage, Object data) {
         try {
@@ -88,6 +125,8 @@ public class MessageAuditService {
             if (data instanceof ISOMsg iso) {
                 // ✅ Convert ISO safely (NO Jackson)
                 content = isoToString(iso);
+            } else if (data instanceof IsoFieldReader iso) {
+                content = isoToString(iso);
             } else {
                 // ✅ JSON only for Map / simple objects
                 content = mapper.writeValueAsString(data);
@@ -99,7 +138,7 @@ public class MessageAuditService {
             log.setParsedMessage(content);
             log.setCreatedAt(LocalDateTime.now());
 
-            repo.save(log);
+            persist(log);
 
         } catch (Exception e) {
             throw new RuntimeException("Audit save failed", e);
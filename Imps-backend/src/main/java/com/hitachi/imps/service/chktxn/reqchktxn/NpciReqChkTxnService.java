@@ -10,7 +10,7 @@ import com.hitachi.imps.converter.XmlToIsoConverter;
 import com.hitachi.imps.entity.TransactionEntity;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling ReqChkTxn requests from NPCI.
@@ -26,7 +26,6 @@ public class NpciReqChkTxnService {
     @Autowired private XmlToIsoConverter xmlToIsoConverter;
     @Autowired private SwitchClient switchClient;
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -49,14 +48,29 @@ public class NpciReqChkTxnService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciReqChkTxnService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
         process(xml, null);
     }
 
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_REQCHKTXN_XML_IN", xml);
@@ -68,7 +82,7 @@ public class NpciReqChkTxnService {
         System.out.println("MsgId: " + msgId + ", TxnId: " + txnId);
 
         // 3. Convert XML to ISO 0200
-        ISOMsg iso = xmlToIsoConverter.convertReqChkTxn(xml);
+        ISOMsg iso = xmlToIsoConverter.convertReqChkTxn(msg);
 
         // 4. Audit ISO message
         auditService.saveParsed(msgId, "SWITCH_REQCHKTXN_ISO_OUT", iso);
@@ -79,11 +93,12 @@ public class NpciReqChkTxnService {
         // 5. Mark ISO sent and send to Switch (dynamic URL with txnId)
         transactionService.markIsoSent(txn);
         System.out.println("reqchktxn/" + txnId + " send to switch");
-        byte[] response = switchClient.sendReqChkTxn(iso, txnId);
-        if (response != null)
-            System.out.println("switch ack receive of reqchktxn/" + txnId);
-        if (response == null)
-            System.out.println("=== No Response from Switch ===");
+        switchClient.sendReqChkTxnAsync(iso, txnId).thenAccept(response -> {
+            if (response != null)
+                System.out.println("switch ack receive of reqchktxn/" + txnId);
+            if (response == null)
+                System.out.println("=== No Response from Switch ===");
+        });
     }
 
     private void printIso(ISOMsg iso) {
@@ -1,5 +1,7 @@
 package com.hitachi.imps.service.chktxn.reqchktxn;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -61,17 +63,14 @@ public class SwitchReqChkTxnService {
         System.out.println(xml);
 
         // 4. Send XML to NPCI Mock Client (dynamic URL with txnId)
-        try {
-            String response = (txnId != null && !txnId.isBlank()) ? npciMockClient.sendReqChkTxn(xml, txnId) : npciMockClient.sendReqChkTxn(xml);
+        CompletableFuture<String> sent = (txnId != null && !txnId.isBlank()) ? npciMockClient.sendReqChkTxnAsync(xml, txnId) : npciMockClient.sendReqChkTxnAsync(xml);
+        sent.thenAccept(response -> {
             if (response != null) {
                 System.out.println("=== NPCI MOCK CLIENT ACK Received ===");
                 System.out.println(response);
             } else {
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
             }
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 }
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.client.SwitchClient;
 import com.hitachi.imps.converter.XmlToIsoConverter;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling RespChkTxn responses from NPCI.
@@ -24,7 +24,6 @@ public class NpciRespChkTxnService {
     @Autowired private XmlToIsoConverter xmlToIsoConverter;
     @Autowired private SwitchClient switchClient;
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
 
     @Async
     public void processAsync(String xml) {
@@ -46,14 +45,29 @@ public class NpciRespChkTxnService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciRespChkTxnService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
         process(xml, null);
     }
 
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_RESPCHKTXN_XML_IN", xml);
@@ -62,7 +76,7 @@ public class NpciRespChkTxnService {
         System.out.println("MsgId: " + msgId + ", TxnId: " + txnId);
 
         // 2. Convert XML to ISO 0210
-        ISOMsg iso = xmlToIsoConverter.convertRespChkTxn(xml);
+        ISOMsg iso = xmlToIsoConverter.convertRespChkTxn(msg);
 
         // 3. Audit ISO message
         auditService.saveParsed(msgId, "SWITCH_RESPCHKTXN_ISO_OUT", iso);
@@ -71,13 +85,13 @@ public class NpciRespChkTxnService {
         printIso(iso);
 
         // 4. Send ISO to Switch: POST /switch/respchktxn/{txnId}
-        byte[] response = switchClient.sendRespChkTxn(iso, txnId);
-
-        if (response != null) {
-            System.out.println("=== Switch ACK Received ===");
-        } else {
-            System.out.println("=== No ACK from Switch ===");
-        }
+        switchClient.sendRespChkTxnAsync(iso, txnId).thenAccept(response -> {
+            if (response != null) {
+                System.out.println("=== Switch ACK Received ===");
+            } else {
+                System.out.println("=== No ACK from Switch ===");
+            }
+        });
     }
 
     private void printIso(ISOMsg iso) {
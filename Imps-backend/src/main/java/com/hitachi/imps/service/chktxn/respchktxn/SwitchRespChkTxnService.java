@@ -2,18 +2,17 @@ package com.hitachi.imps.service.chktxn.respchktxn;
 
 import java.util.Optional;
 
-import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.converter.IsoToXmlConverter;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.outbox.NpciOutbox;
 
 /**
  * Service for handling RespChkTxn responses from Switch.
@@ -29,8 +28,9 @@ import com.hitachi.imps.util.IsoUtil;
 public class SwitchRespChkTxnService {
 
     @Autowired private IsoToXmlConverter isoToXmlConverter;
-    @Autowired private NpciMockClient npciMockClient;
+    @Autowired private NpciOutbox outbox;
     @Autowired private MessageAuditService auditService;
+    @Autowired private IsoCodecService isoCodec;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -58,8 +58,8 @@ public class SwitchRespChkTxnService {
     }
 
     public void process(byte[] isoBytes, String pathTxnId) {
-        // 1. Unpack ISO to extract DE120 (original txnId), DE39 (response code), DE38 (approval)
-        ISOMsg iso = IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        // 1. Decode ISO once to extract DE120 (original txnId), DE39 (response code), DE38 (approval)
+        IsoFieldReader iso = isoCodec.read(isoBytes);
         String origTxnId = null;
         String respCode = null;
         String approvalNum = null;
@@ -87,22 +87,28 @@ public class SwitchRespChkTxnService {
         System.out.println("Approval Number (DE38): " + approvalNumber);
 
         // 3. Convert ISO to XML first (so we can store it in transaction)
-        String xml = isoToXmlConverter.convertRespChkTxnToXml(isoBytes);
+        String xml = isoToXmlConverter.convertRespChkTxnToXml(iso);
+
+        // Outbound message for NPCI, stored in npci_outbox with the status update below
+        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
+        NpciOutbox.Message npciResponse = outbox.message("respchktxn", txnIdForNpci, xml);
 
         // 4. Update transaction status (use pathTxnId from callback URL first, then DE120)
         String lookupId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
+        boolean stored = false;
         try {
             if (lookupId != null && !lookupId.isBlank()) {
-                Optional<TransactionEntity> opt = transactionService.findOptionalByTxnId(lookupId);
-                opt.ifPresent(txn -> {
+                Optional<TransactionEntity> opt = transactionService.findInFlight(lookupId);
+                if (opt.isPresent()) {
+                    TransactionEntity txn = opt.get();
                     if ("00".equals(responseCode)) {
-                        transactionService.markSuccess(txn, xml, approvalNumber, null);
+                        stored = transactionService.markSuccess(txn, xml, approvalNumber, null, npciResponse);
                         System.out.println("=== ChkTxn transaction marked SUCCESS ===");
                     } else {
-                        transactionService.markFailure(txn, xml);
+                        stored = transactionService.markFailure(txn, xml, npciResponse);
                         System.out.println("=== ChkTxn transaction marked FAILED (code: " + responseCode + ") ===");
                     }
-                });
+                }
             } else {
                 System.out.println("=== WARNING: No txnId (path or DE120), cannot update transaction ===");
             }
@@ -116,21 +122,11 @@ public class SwitchRespChkTxnService {
         System.out.println("=== XML Response Message Built ===");
         System.out.println(xml);
 
-        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/respchktxn/{txnId})
-        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
-        try {
-            if (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("respchktxn/" + txnIdForNpci + " send to npci");
-            String response = (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                ? npciMockClient.sendRespChkTxn(xml, txnIdForNpci)
-                : npciMockClient.sendRespChkTxn(xml);
-            if (response != null && txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("npci ack receive for respchktxn/" + txnIdForNpci);
-            if (response == null && txnIdForNpci != null)
-                System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/respchktxn/{txnId}); retried from npci_outbox until delivered,
+        //    or sent once unstored when the status update was skipped
+        if (txnIdForNpci != null && !txnIdForNpci.isBlank())
+            System.out.println("respchktxn/" + txnIdForNpci + " send to npci");
+        if (stored) outbox.send(npciResponse);
+        else outbox.sendUnstored(npciResponse);
     }
 }
@@ -0,0 +1,226 @@
+package com.hitachi.imps.service.correlation;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.entity.TransactionEntity;
+
+/**
+ * Transactions sent to the Switch and not yet answered, so a Switch response finds its row without a DB read.
+ *
+ * TransactionService registers a row when it moves to ISO_SENT and removes it when it completes. Entries are
+ * indexed by txn_id (path id / DE120), by the packed DE11+DE37+DE13 key and, for VALADD, by npci_txn_id
+ * (oldest kept, as responses are matched FIFO). Entries older than imps.inflight.ttl-ms are treated as
+ * misses and swept; a miss always falls back to the DB, so the registry is only ever a shortcut.
+ *
+ * An entry keeps only what the response path reads (id, txn_date, txn_id, type, status, DE11/37/13,
+ * npci_txn_id), never req_xml; a hit comes back as a detached TransactionEntity with just those fields.
+ */
+@Component
+public class InFlightRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(InFlightRegistry.class);
+
+    @Value("${imps.inflight.ttl-ms:120000}")
+    private long ttlMs;
+
+    @Value("${imps.inflight.max-entries:100000}")
+    private int maxEntries;
+
+    private final Map<String, Entry> byTxnId = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byDeKey = new ConcurrentHashMap<>();
+    private final Map<String, Entry> byNpciTxnId = new ConcurrentHashMap<>();
+
+    /* ===== METRICS ===== */
+    private final AtomicLong registered = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong overflow = new AtomicLong();
+
+    /* ===============================
+       REGISTER / REMOVE
+       =============================== */
+    public void register(TransactionEntity txn) {
+        if (byTxnId.size() >= maxEntries) {
+            if (overflow.incrementAndGet() == 1) {
+                log.warn("In-flight registry full ({} entries): Switch responses for newer transactions are matched"
+                    + " from the DB; raise imps.inflight.max-entries or lower imps.inflight.ttl-ms", maxEntries);
+            }
+            return;
+        }
+        Entry entry = new Entry(txn, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        if (txn.getTxnId() != null) {
+            // newest wins, like findTopByTxnIdOrderByIdDesc
+            byTxnId.put(txn.getTxnId(), entry);
+        }
+        String deKey = deKey(txn.getDe11(), txn.getDe37(), txn.getDe13());
+        if (deKey != null) {
+            byDeKey.put(deKey, entry);
+        }
+        if ("VALADD".equals(txn.getTxnType()) && txn.getNpciTxnId() != null) {
+            byNpciTxnId.putIfAbsent(txn.getNpciTxnId(), entry);
+        }
+        registered.incrementAndGet();
+    }
+
+    public void remove(TransactionEntity txn) {
+        remove(txn.getId(), txn.getTxnId(), deKey(txn.getDe11(), txn.getDe37(), txn.getDe13()), txn.getNpciTxnId());
+    }
+
+    /** Drop the slots still held by row {@code id} (a newer row for the same key keeps its slot). */
+    private void remove(Integer id, String txnId, String deKey, String npciTxnId) {
+        if (id == null) {
+            return;
+        }
+        if (txnId != null) {
+            byTxnId.computeIfPresent(txnId, (k, e) -> id.equals(e.id) ? null : e);
+        }
+        if (deKey != null) {
+            byDeKey.computeIfPresent(deKey, (k, e) -> id.equals(e.id) ? null : e);
+        }
+        if (npciTxnId != null) {
+            byNpciTxnId.computeIfPresent(npciTxnId, (k, e) -> id.equals(e.id) ? null : e);
+        }
+    }
+
+    /* ===============================
+       LOOKUP
+       =============================== */
+    public Optional<TransactionEntity> byTxnId(String txnId) {
+        return lookup(byTxnId, txnId);
+    }
+
+    public Optional<TransactionEntity> byDe(String de11, String de37, String de13) {
+        return lookup(byDeKey, deKey(de11, de37, de13));
+    }
+
+    public Optional<TransactionEntity> byNpciTxnId(String npciTxnId) {
+        return lookup(byNpciTxnId, npciTxnId);
+    }
+
+    private Optional<TransactionEntity> lookup(Map<String, Entry> index, String key) {
+        Entry e = key != null ? index.get(key) : null;
+        if (e == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (e.isExpired(System.nanoTime())) {
+            expire(e);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(e.toEntity());
+    }
+
+    /** DE11 (STAN) + DE37 (RRN) + DE13 (date) identify a request to the Switch; null unless all three are set. */
+    static String deKey(String de11, String de37, String de13) {
+        if (de11 == null || de37 == null || de13 == null) return null;
+        return de11 + '|' + de37 + '|' + de13;
+    }
+
+    /* ===============================
+       TTL SWEEP
+       =============================== */
+    @Scheduled(
+        initialDelayString = "${imps.inflight.sweep-interval-ms:10000}",
+        fixedDelayString = "${imps.inflight.sweep-interval-ms:10000}"
+    )
+    public void sweep() {
+        long now = System.nanoTime();
+        long before = expired.get();
+        for (Entry e : byTxnId.values()) {
+            if (e.isExpired(now)) expire(e);
+        }
+        // entries only reachable by DE key / npci_txn_id (txn_id slot taken by a newer row)
+        byDeKey.values().removeIf(e -> e.isExpired(now));
+        byNpciTxnId.values().removeIf(e -> e.isExpired(now));
+        long n = expired.get() - before;
+        if (n > 0) {
+            log.info("In-flight registry: {} transaction(s) unanswered after {} ms evicted", n, ttlMs);
+        }
+    }
+
+    private void expire(Entry e) {
+        remove(e.id, e.txnId, deKey(e.de11, e.de37, e.de13), e.npciTxnId);
+        expired.incrementAndGet();
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        long h = hits.get();
+        long m = misses.get();
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("inFlight", byTxnId.size());
+        out.put("byDeKey", byDeKey.size());
+        out.put("byNpciTxnId", byNpciTxnId.size());
+        out.put("maxEntries", maxEntries);
+        out.put("ttlMs", ttlMs);
+        out.put("registered", registered.get());
+        out.put("hits", h);
+        out.put("misses", m);
+        out.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        out.put("expired", expired.get());
+        out.put("overflow", overflow.get());
+        return out;
+    }
+
+    private static final class Entry {
+        final Integer id;
+        final LocalDate txnDate;
+        final String txnId;
+        final String txnType;
+        final String switchStatus;
+        final String de11;
+        final String de37;
+        final String de13;
+        final String npciTxnId;
+        final long expiresAtNanos;
+
+        Entry(TransactionEntity txn, long expiresAtNanos) {
+            this.id = txn.getId();
+            this.txnDate = txn.getTxnDate();
+            this.txnId = txn.getTxnId();
+            this.txnType = txn.getTxnType();
+            this.switchStatus = txn.getSwitchStatus();
+            this.de11 = txn.getDe11();
+            this.de37 = txn.getDe37();
+            this.de13 = txn.getDe13();
+            this.npciTxnId = txn.getNpciTxnId();
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        /** Detached row with the correlation fields; enough for validation and the status UPDATE. */
+        TransactionEntity toEntity() {
+            TransactionEntity txn = new TransactionEntity();
+            txn.setId(id);
+            txn.setTxnDate(txnDate);
+            txn.setTxnId(txnId);
+            txn.setTxnType(txnType);
+            txn.setSwitchStatus(switchStatus);
+            txn.setDe11(de11);
+            txn.setDe37(de37);
+            txn.setDe13(de13);
+            txn.setNpciTxnId(npciTxnId);
+            return txn;
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
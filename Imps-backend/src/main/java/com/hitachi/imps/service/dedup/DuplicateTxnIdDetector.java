@@ -0,0 +1,137 @@
+package com.hitachi.imps.service.dedup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.exception.DuplicateTxnIdException;
+import com.hitachi.imps.repository.TransactionRepository;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Duplicate txn_id detection for inbound NPCI requests, in layers:
+ * 1. {@link RecentTxnIdFilter} – an id not admitted in the last one to two imps.dedup.window-ms is accepted
+ *    with no DB read (the common case); ids older than that, or admitted by another instance, pass here;
+ * 2. a "maybe" from the filter is confirmed against transaction_txn_id before rejecting (filter false positives);
+ * 3. the insert is the authority: TransactionService claims the id in transaction_txn_id (primary key
+ *    txn_id, no partition key) in the same DB transaction as the row, so an id stored on any day within
+ *    retention, or two concurrent requests with the same id, fail there and are mapped by
+ *    {@link #onInsertFailure}. uk_transaction_txn_id (txn_id, txn_date) alone would only stop a same-day repeat.
+ */
+@Component
+public class DuplicateTxnIdDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateTxnIdDetector.class);
+
+    /** Unique index on transaction (txn_id, txn_date) (see TransactionEntity). */
+    public static final String TXN_ID_UNIQUE_INDEX = "uk_transaction_txn_id";
+
+    /** Primary key of transaction_txn_id: txn_id across all days. */
+    public static final String TXN_ID_KEY = "transaction_txn_id_pkey";
+
+    private static final DateTimeFormatter REQ_IN_FMT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    @Autowired
+    private RecentTxnIdFilter filter;
+
+    @Autowired
+    private TransactionRepository repo;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Value("${imps.dedup.window-ms:900000}")
+    private long windowMs;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong fastAccepted = new AtomicLong();
+    private final AtomicLong dbConfirmations = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong insertConflicts = new AtomicLong();
+    private final AtomicLong seeded = new AtomicLong();
+
+    /** Remember ids admitted in the last window before a restart, so they are not only caught at insert. */
+    @PostConstruct
+    public void seed() {
+        LocalDateTime from = LocalDateTime.now().minusNanos(windowMs * 1_000_000);
+        String since = from.format(REQ_IN_FMT);
+        try {
+            List<String> ids = limiter.db(() -> repo.findTxnIdsReceivedSince(from.toLocalDate(), since));
+            ids.forEach(filter::put);
+            seeded.set(ids.size());
+            log.info("Recent txn_id filter seeded with {} id(s) received since {}", ids.size(), since);
+        } catch (Exception e) {
+            log.warn("Recent txn_id filter not seeded, duplicates older than this start rely on the unique index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Admit a new txn_id or throw {@link DuplicateTxnIdException}.
+     */
+    public void check(String txnId) {
+        checked.incrementAndGet();
+        if (filter.mightContain(txnId)) {
+            dbConfirmations.incrementAndGet();
+            if (limiter.db(() -> repo.isTxnIdClaimed(txnId))) {
+                rejected.incrementAndGet();
+                throw new DuplicateTxnIdException(txnId);
+            }
+            // not stored yet: a filter false positive, or the same id admitted moments ago and still queued
+            falsePositives.incrementAndGet();
+        } else {
+            fastAccepted.incrementAndGet();
+        }
+        filter.put(txnId);
+    }
+
+    /**
+     * Remember a txn_id whose row was just inserted. Every insert reports here, including the NPCI
+     * request paths that never call {@link #check(String)}, so the filter covers all stored ids.
+     */
+    public void admitted(String txnId) {
+        if (txnId != null) {
+            filter.put(txnId);
+        }
+    }
+
+    /**
+     * Map a failed insert to {@link DuplicateTxnIdException} when the txn_id claim (any day) or the unique
+     * index on txn_id (same day) rejected it; any other integrity violation is rethrown as is.
+     */
+    public RuntimeException onInsertFailure(String txnId, DataIntegrityViolationException e) {
+        String cause = String.valueOf(e.getMostSpecificCause().getMessage());
+        if (e instanceof DuplicateKeyException || cause.contains(TXN_ID_KEY) || cause.contains(TXN_ID_UNIQUE_INDEX)) {
+            insertConflicts.incrementAndGet();
+            return new DuplicateTxnIdException(txnId);
+        }
+        return e;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("checked", checked.get());
+        m.put("acceptedWithoutRead", fastAccepted.get());
+        m.put("dbConfirmations", dbConfirmations.get());
+        m.put("falsePositives", falsePositives.get());
+        m.put("rejected", rejected.get());
+        m.put("insertConflicts", insertConflicts.get());
+        m.put("seeded", seeded.get());
+        m.put("filter", filter.stats());
+        return m;
+    }
+}
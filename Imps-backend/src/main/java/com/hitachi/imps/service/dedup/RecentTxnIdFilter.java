@@ -0,0 +1,139 @@
+package com.hitachi.imps.service.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Time-windowed Bloom filter over the txn_ids admitted recently.
+ *
+ * Two generations, each sized for imps.dedup.expected-per-window ids at imps.dedup.false-positive-rate;
+ * every imps.dedup.window-ms the older one is discarded, so an id is remembered for one to two windows.
+ * {@link #mightContain(String)} false means the id was not admitted in that time (no false negatives);
+ * true means "possibly", to be confirmed against the DB.
+ */
+@Component
+public class RecentTxnIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RecentTxnIdFilter.class);
+
+    @Value("${imps.dedup.window-ms:900000}")
+    private long windowMs;
+
+    @Value("${imps.dedup.expected-per-window:1000000}")
+    private int expectedPerWindow;
+
+    @Value("${imps.dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private int bits;
+    private int hashes;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong rotations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // standard Bloom sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double m = -expectedPerWindow * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.ceil(m));
+        hashes = Math.max(1, (int) Math.round(m / expectedPerWindow * Math.log(2)));
+        current = new Generation(bits);
+        previous = new Generation(bits);
+        log.info("Recent txn_id filter: {} bits x 2 generations, {} hashes, window {} ms", bits, hashes, windowMs);
+    }
+
+    public boolean mightContain(String txnId) {
+        long h = hash(txnId);
+        Generation cur = current;
+        Generation prev = previous;
+        return cur.contains(h, hashes, bits) || prev.contains(h, hashes, bits);
+    }
+
+    public void put(String txnId) {
+        current.add(hash(txnId), hashes, bits);
+    }
+
+    @Scheduled(
+        initialDelayString = "${imps.dedup.window-ms:900000}",
+        fixedDelayString = "${imps.dedup.window-ms:900000}"
+    )
+    public void rotate() {
+        previous = current;
+        current = new Generation(bits);
+        rotations.incrementAndGet();
+    }
+
+    /** 64-bit FNV-1a over the UTF-8 bytes, finished with a murmur3 mix so both halves are usable. */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("windowMs", windowMs);
+        m.put("bitsPerGeneration", bits);
+        m.put("hashes", hashes);
+        m.put("currentInserts", current.inserts.get());
+        m.put("previousInserts", previous.inserts.get());
+        m.put("rotations", rotations.get());
+        return m;
+    }
+
+    /** One bit array; probes are h1 + i*h2 (Kirsch–Mitzenmacher double hashing). */
+    private static final class Generation {
+        final AtomicLongArray words;
+        final AtomicLong inserts = new AtomicLong();
+
+        Generation(int bits) {
+            words = new AtomicLongArray((bits + 63) >>> 6);
+        }
+
+        void add(long h, int k, int bits) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < k; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int idx = bit >>> 6;
+                long w;
+                while (((w = words.get(idx)) & mask) == 0 && !words.compareAndSet(idx, w, w | mask)) {
+                    // lost a race on this word; retry
+                }
+            }
+            inserts.incrementAndGet();
+        }
+
+        boolean contains(long h, int k, int bits) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < k; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) return false;
+            }
+            return true;
+        }
+    }
+}
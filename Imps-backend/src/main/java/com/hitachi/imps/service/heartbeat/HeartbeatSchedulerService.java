@@ -12,8 +12,8 @@ import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.entity.InstitutionMaster;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
 import com.hitachi.imps.service.ImpsIdGeneratorService;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 
 /**
  * Sends outbound ReqHbt (ALIVE) to NPCI on a fixed schedule – one request per enrolled bank.
@@ -36,18 +36,18 @@ public class HeartbeatSchedulerService {
     private ImpsIdGeneratorService idGenerator;
 
     @Autowired
-    private InstitutionMasterRepository institutionMasterRepository;
+    private ReferenceDataCache refData;
 
     /**
      * Send ALIVE heartbeat to NPCI every 3 minutes – one ReqHbt per active bank in institution_master.
-     * Dynamic: new banks get heartbeats automatically on next run.
+     * Dynamic: new banks get heartbeats automatically on the first run after the reference data refresh.
      */
     @Scheduled(
         initialDelayString = "${imps.heartbeat.initial-delay-ms:15000}",
         fixedDelayString = "${imps.heartbeat.interval-ms:180000}"
     )
     public void sendScheduledHeartbeat() {
-        List<InstitutionMaster> banks = institutionMasterRepository.findByActiveTrue();
+        List<InstitutionMaster> banks = refData.activeInstitutions();
         if (banks == null || banks.isEmpty()) {
             log.warn("No active institutions in institution_master – skipping heartbeat run");
             return;
@@ -75,18 +75,14 @@ public class HeartbeatSchedulerService {
                 </upi:ReqHbt>
                 """.formatted(ts, orgIdForBank, msgId, txnId, ts).trim();
 
-            try {
-                log.debug("Sending ReqHbt for bank {} (orgId={}, msgId={})", bankName, orgIdForBank, msgId);
-                String response = npciMockClient.sendReqHbt(reqHbtXml, txnId);
-
+            log.debug("Sending ReqHbt for bank {} (orgId={}, msgId={})", bankName, orgIdForBank, msgId);
+            npciMockClient.sendReqHbtAsync(reqHbtXml, txnId).thenAccept(response -> {
                 if (response == null || response.isBlank()) {
                     log.error("No heartbeat response from NPCI for bank {}. msgId={}", bankName, msgId);
                 } else {
                     log.info("Heartbeat response received for bank {}, msgId={}", bankName, msgId);
                 }
-            } catch (Exception e) {
-                log.error("Heartbeat send failed for bank {}. msgId={}, error={}", bankName, msgId, e.getMessage(), e);
-            }
+            });
         }
     }
 }
@@ -16,6 +16,7 @@ import com.hitachi.imps.entity.TransactionEntity;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
 import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling ReqHbt (Heartbeat) requests from NPCI.
@@ -53,14 +54,29 @@ public class NpciReqHbtService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciReqHbtService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
         process(xml, null);
     }
 
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_REQHBT_XML_IN", xml);
@@ -72,7 +88,7 @@ public class NpciReqHbtService {
         System.out.println("MsgId: " + msgId + ", TxnId: " + txnId);
 
         // 3. Parse heartbeat details
-        Map<String, String> hbt = xmlParsingService.parseReqHbt(xml);
+        Map<String, String> hbt = xmlParsingService.parseReqHbt(msg);
         String note = hbt.get("note");
         String refId = hbt.get("ref_id");
         String txnTs = hbt.get("txn_ts");
@@ -85,20 +101,16 @@ public class NpciReqHbtService {
         System.out.println(respXml);
 
         // Send response to NPCI Mock Client (optional - won't fail if not running)
-        try {
-            String response = npciMockClient.sendRespHbt(respXml);
+        npciMockClient.sendRespHbtAsync(respXml).thenAccept(response -> {
             if (response != null) {
                 System.out.println("=== NPCI MOCK CLIENT ACK Received ===");
             } else {
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
             }
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
 
         // 5. Forward heartbeat to Switch and mark ISO sent
-        ISOMsg iso = xmlToIsoConverter.convertReqHbt(xml);
+        ISOMsg iso = xmlToIsoConverter.convertReqHbt(msg);
         auditService.saveParsed(msgId, "SWITCH_REQHBT_ISO_OUT", iso);
 
         System.out.println("=== ISO Heartbeat Message Built ===");
@@ -106,9 +118,10 @@ public class NpciReqHbtService {
 
         transactionService.markIsoSent(txn);
         System.out.println("reqhbt/" + txnId + " send to switch");
-        byte[] response = switchClient.sendReqHbt(iso, txnId);
-        if (response != null)
-            System.out.println("switch ack receive of reqhbt/" + txnId);
+        switchClient.sendReqHbtAsync(iso, txnId).thenAccept(response -> {
+            if (response != null)
+                System.out.println("switch ack receive of reqhbt/" + txnId);
+        });
     }
 
     private String buildRespHbt(String reqMsgId, String txnId, String note, String refId, String txnTs) {
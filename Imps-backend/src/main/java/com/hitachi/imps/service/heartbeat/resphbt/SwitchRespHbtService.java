@@ -1,8 +1,8 @@
 package com.hitachi.imps.service.heartbeat.resphbt;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
-import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -10,10 +10,10 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.converter.IsoToXmlConverter;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
 
 /**
  * Service for handling RespHbt responses from Switch.
@@ -31,6 +31,7 @@ public class SwitchRespHbtService {
     @Autowired private IsoToXmlConverter isoToXmlConverter;
     @Autowired private NpciMockClient npciMockClient;
     @Autowired private MessageAuditService auditService;
+    @Autowired private IsoCodecService isoCodec;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -58,8 +59,8 @@ public class SwitchRespHbtService {
     }
 
     public void process(byte[] isoBytes, String pathTxnId) {
-        // 1. Unpack ISO to extract DE120 (original txnId), DE39 (response code)
-        ISOMsg iso = IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        // 1. Decode ISO once to extract DE120 (original txnId), DE39 (response code)
+        IsoFieldReader iso = isoCodec.read(isoBytes);
         String origTxnId = null;
         String respCode = null;
         try {
@@ -83,13 +84,13 @@ public class SwitchRespHbtService {
         System.out.println("Response Code (DE39): " + responseCode);
 
         // 3. Convert ISO to XML first (so we can store it in transaction)
-        String xml = isoToXmlConverter.convertRespHbtToXml(isoBytes);
+        String xml = isoToXmlConverter.convertRespHbtToXml(iso);
 
         // 4. Update transaction status (use pathTxnId from callback URL first, then DE120)
         String lookupId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
         try {
             if (lookupId != null && !lookupId.isBlank()) {
-                Optional<TransactionEntity> opt = transactionService.findOptionalByTxnId(lookupId);
+                Optional<TransactionEntity> opt = transactionService.findInFlight(lookupId);
                 opt.ifPresent(txn -> {
                     if ("00".equals(responseCode)) {
                         transactionService.markSuccess(txn, xml, null, null);
@@ -114,19 +115,16 @@ public class SwitchRespHbtService {
 
         // 6. Send XML to NPCI Mock Client (dynamic URL /npci/resphbt/{txnId})
         String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
-        try {
-            if (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("resphbt/" + txnIdForNpci + " send to npci");
-            String response = (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                ? npciMockClient.sendRespHbt(xml, txnIdForNpci)
-                : npciMockClient.sendRespHbt(xml);
+        if (txnIdForNpci != null && !txnIdForNpci.isBlank())
+            System.out.println("resphbt/" + txnIdForNpci + " send to npci");
+        CompletableFuture<String> sent = (txnIdForNpci != null && !txnIdForNpci.isBlank())
+            ? npciMockClient.sendRespHbtAsync(xml, txnIdForNpci)
+            : npciMockClient.sendRespHbtAsync(xml);
+        sent.thenAccept(response -> {
             if (response != null && txnIdForNpci != null && !txnIdForNpci.isBlank())
                 System.out.println("npci ack receive for resphbt/" + txnIdForNpci);
             if (response == null && txnIdForNpci != null)
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 }
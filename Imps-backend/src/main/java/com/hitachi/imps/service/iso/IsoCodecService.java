@@ -0,0 +1,98 @@
+package com.hitachi.imps.service.iso;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.hitachi.imps.iso.ImpsIsoCodec;
+import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.ImpsIsoView;
+import com.hitachi.imps.iso.ImpsIsoWriter;
+import com.hitachi.imps.iso.IsoFieldReader;
+import com.hitachi.imps.util.IsoUtil;
+
+/**
+ * ISO 8583 pack / unpack for the Switch leg, switchable by imps.iso.codec:
+ * <ul>
+ *   <li>jpos (default) – ISOMsg.pack / unpack with ImpsIsoPackager;</li>
+ *   <li>flyweight – {@link ImpsIsoCodec} / {@link ImpsIsoView}, same bytes without the jPOS field tree.</li>
+ * </ul>
+ */
+@Service
+public class IsoCodecService {
+
+    private static final String FLYWEIGHT = "flyweight";
+
+    /** One reusable view per thread; a view is only read while converting the current message. */
+    private static final ThreadLocal<ImpsIsoView> VIEW = ThreadLocal.withInitial(ImpsIsoView::new);
+
+    @Value("${imps.iso.codec:jpos}")
+    private String codec;
+
+    public boolean isFlyweight() {
+        return FLYWEIGHT.equalsIgnoreCase(codec);
+    }
+
+    /* ===============================
+       ISOMsg → byte[]
+       =============================== */
+    public byte[] pack(ISOMsg iso) {
+        if (!isFlyweight()) {
+            return IsoUtil.pack(iso);
+        }
+        try {
+            return ImpsIsoCodec.pack(iso);
+        } catch (Exception e) {
+            throw new RuntimeException("ISO pack failed", e);
+        }
+    }
+
+    /** Converter-filled field table → byte[]; same bytes as packing its ISOMsg in either mode. */
+    public byte[] pack(ImpsIsoWriter iso) {
+        try {
+            return isFlyweight() ? iso.pack() : IsoUtil.pack(iso.toISOMsg());
+        } catch (ISOException e) {
+            throw new RuntimeException("ISO pack failed", e);
+        }
+    }
+
+    /* ===============================
+       byte[] → ISOMsg
+       =============================== */
+    public ISOMsg unpack(byte[] data) {
+        if (!isFlyweight()) {
+            return IsoUtil.unpack(data, ImpsIsoPackager.INSTANCE);
+        }
+        try {
+            return ImpsIsoCodec.unpack(data);
+        } catch (Exception e) {
+            throw new RuntimeException("ISO unpack failed", e);
+        }
+    }
+
+    /**
+     * Flyweight view over {@code data}, valid until the next call on this thread.
+     * Null in jpos mode or when the message uses a field the codec does not model.
+     */
+    public ImpsIsoView view(byte[] data) {
+        if (!isFlyweight()) {
+            return null;
+        }
+        ImpsIsoView view = VIEW.get();
+        try {
+            return view.wrap(data) ? view : null;
+        } catch (Exception e) {
+            throw new RuntimeException("ISO unpack failed", e);
+        }
+    }
+
+    /**
+     * Fields of {@code data}, decoded once: the {@link #view(byte[]) flyweight view} (same lifetime),
+     * or the unpacked ISOMsg in jpos mode / for fields the view does not model.
+     */
+    public IsoFieldReader read(byte[] data) {
+        ImpsIsoView view = view(data);
+        return view != null ? view : IsoFieldReader.of(unpack(data));
+    }
+}
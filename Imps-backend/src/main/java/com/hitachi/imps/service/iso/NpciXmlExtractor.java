@@ -0,0 +1,157 @@
+package com.hitachi.imps.service.iso;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Single-pass StAX extractor for inbound NPCI XML (ReqPay, ReqChkTxn, ReqValAdd, ReqHbt, ReqListAccPvd, Resp*).
+ *
+ * Walks the document once and records every element attribute under the keys described in
+ * {@link NpciXmlFields}, so callers no longer build a DOM and an XPath per field.
+ * Payer, Payee and Device open a scope: attributes of their descendants are also recorded
+ * with the scope prefix (e.g. {@code Payer/Detail[IFSC]@value}).
+ */
+public final class NpciXmlExtractor {
+
+    private static final Set<String> SCOPES = Set.of("Payer", "Payee", "Device");
+
+    /** Configured once; createXMLStreamReader is safe to call concurrently on the JDK factory. */
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private NpciXmlExtractor() {
+    }
+
+    /** True when descendants of this element are also recorded under an "element/" prefix. */
+    static boolean isScope(String element) {
+        return SCOPES.contains(element);
+    }
+
+    /**
+     * Extract all attributes of the document in one pass.
+     * Malformed XML yields {@link NpciXmlFields#EMPTY}, matching the old XPath reader returning "".
+     */
+    public static NpciXmlFields extract(String xml) {
+        if (xml == null || xml.isBlank()) {
+            return NpciXmlFields.EMPTY;
+        }
+
+        NpciXmlFields fields = new NpciXmlFields();
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(new StringReader(xml));
+
+            String[] scopeName = new String[8];     // "Payer/", "Device/" ...
+            String[] scopePrefix = new String[8];   // "Payer/", "Payer/Device/" ...
+            int[] scopeDepth = new int[8];
+            int scopes = 0;
+            int depth = 0;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String element = reader.getLocalName();
+                    collect(reader, element, fields, scopeName, scopePrefix, scopes);
+
+                    if (SCOPES.contains(element)) {
+                        if (scopes == scopePrefix.length) {
+                            scopeName = Arrays.copyOf(scopeName, scopes * 2);
+                            scopePrefix = Arrays.copyOf(scopePrefix, scopes * 2);
+                            scopeDepth = Arrays.copyOf(scopeDepth, scopes * 2);
+                        }
+                        scopeName[scopes] = element + "/";
+                        scopePrefix[scopes] = scopes == 0 ? scopeName[0] : scopePrefix[scopes - 1] + scopeName[scopes];
+                        scopeDepth[scopes] = depth;
+                        scopes++;
+                    }
+
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (scopes > 0 && scopeDepth[scopes - 1] == depth) {
+                        scopes--;
+                    }
+                    depth--;
+                }
+            }
+            return fields;
+
+        } catch (XMLStreamException e) {
+            return NpciXmlFields.EMPTY;
+        } finally {
+            if (reader != null) {
+                try { reader.close(); } catch (XMLStreamException ignored) { }
+            }
+        }
+    }
+
+    /* ===============================
+       RECORD ATTRIBUTES OF ONE ELEMENT
+       =============================== */
+    private static void collect(XMLStreamReader reader, String element, NpciXmlFields fields,
+                                String[] scopeName, String[] scopePrefix, int scopes) {
+        int count = reader.getAttributeCount();
+        if (count == 0) {
+            return;
+        }
+
+        String nameAttr = null;
+        for (int i = 0; i < count; i++) {
+            if ("name".equals(reader.getAttributeLocalName(i)) && isUnqualified(reader, i)) {
+                nameAttr = reader.getAttributeValue(i);
+                break;
+            }
+        }
+        String named = nameAttr != null ? element + "[" + nameAttr + "]" : null;
+
+        for (int i = 0; i < count; i++) {
+            if (!isUnqualified(reader, i)) {
+                continue;   // XPath @attr only matches attributes without a namespace
+            }
+            String suffix = "@" + reader.getAttributeLocalName(i);
+            String value = reader.getAttributeValue(i);
+
+            put(fields, "", element, named, suffix, value);
+            for (int s = 0; s < scopes; s++) {
+                // each enclosing scope on its own ("Device/") plus the full chain ("Payer/Device/")
+                put(fields, scopeName[s], element, named, suffix, value);
+            }
+            if (scopes > 1) {
+                put(fields, scopePrefix[scopes - 1], element, named, suffix, value);
+            }
+        }
+    }
+
+    private static void put(NpciXmlFields fields, String prefix, String element, String named,
+                            String suffix, String value) {
+        fields.putIfAbsent(prefix + element + suffix, value);
+        if (named != null) {
+            fields.putIfAbsent(prefix + named + suffix, value);
+        }
+    }
+
+    private static boolean isUnqualified(XMLStreamReader reader, int index) {
+        String ns = reader.getAttributeNamespace(index);
+        return ns == null || ns.isEmpty();
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        try {
+            factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        } catch (IllegalArgumentException ignored) {
+            // property not supported by this StAX implementation
+        }
+        return factory;
+    }
+}
@@ -0,0 +1,70 @@
+package com.hitachi.imps.service.iso;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Attribute values of one NPCI XML document, collected in a single pass by {@link NpciXmlExtractor}.
+ *
+ * Keys mirror the XPath expressions the converters/validators used before:
+ * <ul>
+ *   <li>{@code Head@msgId}                  = //*[local-name()='Head']/@msgId</li>
+ *   <li>{@code Payer/Amount@value}          = //*[local-name()='Payer']//*[local-name()='Amount']/@value</li>
+ *   <li>{@code Payee/Detail[ACNUM]@value}   = //*[local-name()='Payee']//*[local-name()='Detail'][@name='ACNUM']/@value</li>
+ *   <li>{@code Payer/Device/Tag[TYPE]@value} = //Payer//Device//Tag[@name='TYPE']/@value</li>
+ * </ul>
+ * As with XPath string evaluation, the first match in document order wins and a missing value reads as "".
+ */
+public class NpciXmlFields {
+
+    public static final NpciXmlFields EMPTY = new NpciXmlFields(Collections.emptyMap());
+
+    private final Map<String, String> values;
+
+    NpciXmlFields(Map<String, String> values) {
+        this.values = values;
+    }
+
+    NpciXmlFields() {
+        this(new HashMap<>(64));
+    }
+
+    void putIfAbsent(String key, String value) {
+        values.putIfAbsent(key, value);
+    }
+
+    /** Raw key lookup; "" when absent. */
+    public String get(String key) {
+        String v = values.get(key);
+        return v != null ? v : "";
+    }
+
+    /** First {@code element/@attr} anywhere in the document. */
+    public String attr(String element, String attr) {
+        return get(element + "@" + attr);
+    }
+
+    /** First {@code scope//element/@attr}, e.g. scoped("Payer", "Amount", "value"). */
+    public String scoped(String scope, String element, String attr) {
+        return get(scope + "/" + element + "@" + attr);
+    }
+
+    /** First {@code scope//element[@name=name]/@value}, e.g. named("Payee", "Detail", "IFSC"). */
+    public String named(String scope, String element, String name) {
+        return get(scope + "/" + element + "[" + name + "]@value");
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
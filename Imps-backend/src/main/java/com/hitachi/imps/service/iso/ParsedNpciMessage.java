@@ -0,0 +1,87 @@
+package com.hitachi.imps.service.iso;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Inbound NPCI XML parsed once at the HTTP edge.
+ *
+ * Carries the raw message together with every Head/Txn/Payer/Payee attribute
+ * ({@link NpciXmlFields}) so validators, async services and XmlToIsoConverter
+ * read from here instead of re-parsing the XML.
+ */
+public class ParsedNpciMessage {
+
+    private final String xml;
+    private final NpciXmlFields fields;
+    private byte[] rawBytes;
+
+    private ParsedNpciMessage(String xml, NpciXmlFields fields) {
+        this.xml = xml;
+        this.fields = fields;
+    }
+
+    /** Parse the XML body (single StAX pass). */
+    public static ParsedNpciMessage of(String xml) {
+        return new ParsedNpciMessage(xml, NpciXmlExtractor.extract(xml));
+    }
+
+    /* ===============================
+       RAW MESSAGE
+       =============================== */
+    public String getXml() {
+        return xml;
+    }
+
+    /** UTF-8 bytes of the body, encoded on first use. */
+    public byte[] getRawBytes() {
+        if (rawBytes == null) {
+            rawBytes = xml != null ? xml.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        }
+        return rawBytes;
+    }
+
+    public NpciXmlFields getFields() {
+        return fields;
+    }
+
+    /* ===============================
+       HEAD / TXN
+       =============================== */
+    public String getMsgId() {
+        return fields.attr("Head", "msgId");
+    }
+
+    public String getOrgId() {
+        return fields.attr("Head", "orgId");
+    }
+
+    public String getTxnId() {
+        return fields.attr("Txn", "id");
+    }
+
+    public String getTxnType() {
+        return fields.attr("Txn", "type");
+    }
+
+    /** Path txnId when given, else Txn @id, else Head @msgId (same fallback every service used). */
+    public String resolveTxnId(String pathTxnId) {
+        if (pathTxnId != null && !pathTxnId.isBlank()) return pathTxnId;
+        String txnId = getTxnId();
+        return txnId.isBlank() ? getMsgId() : txnId;
+    }
+
+    /* ===============================
+       GENERIC ACCESSORS
+       =============================== */
+    public String attr(String element, String attr) {
+        return fields.attr(element, attr);
+    }
+
+    public String scoped(String scope, String element, String attr) {
+        return fields.scoped(scope, element, attr);
+    }
+
+    public String named(String scope, String element, String name) {
+        return fields.named(scope, element, name);
+    }
+}
@@ -0,0 +1,225 @@
+package com.hitachi.imps.service.iso;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+
+import com.hitachi.imps.entity.ResponseXpath;
+import com.hitachi.imps.entity.XmlPathReqPay;
+import com.hitachi.imps.repository.ResponseXpathRepository;
+import com.hitachi.imps.repository.XmlPathReqPayRepository;
+
+/**
+ * In-memory copy of the ACTIVE xml_path_req_pay and response_xpath rules.
+ *
+ * Rules are loaded once (first use), then refreshed every imps.xpath-cache.refresh-interval-ms
+ * or on POST /imps/admin/xpath-rules/refresh. Each rule is planned at load time:
+ * <ul>
+ *   <li>simple attribute paths (//Head/@msgId, //Payer//Detail[@name='IFSC']/@value, ...) map to a
+ *       {@link NpciXmlFields} key and cost nothing beyond the single StAX pass;</li>
+ *   <li>anything else is compiled once into an {@link XPathExpression} and evaluated on a DOM
+ *       built at most once per message.</li>
+ * </ul>
+ */
+@Service
+public class XPathRuleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(XPathRuleCache.class);
+
+    private static final String STATUS_ACTIVE = "ACTIVE";
+
+    private static final String NODE = "//\\*\\[local-name\\(\\)=(['\"])(\\w+)\\1\\]";
+    /** //*[local-name()='Head']/@msgId */
+    private static final Pattern ATTR = Pattern.compile("^" + NODE + "/@(\\w+)$");
+    /** //*[local-name()='Payer']//*[local-name()='Amount']/@value */
+    private static final Pattern SCOPED = Pattern.compile("^" + NODE + NODE.replace("\\1", "\\3") + "/@(\\w+)$");
+    /** //*[local-name()='Payee']//*[local-name()='Detail'][@name='IFSC']/@value */
+    private static final Pattern NAMED = Pattern.compile(
+        "^" + NODE + NODE.replace("\\1", "\\3") + "\\[@name=(['\"])(\\w+)\\5\\]/@(\\w+)$");
+
+    @Autowired
+    private XmlPathReqPayRepository reqPayRepo;
+
+    @Autowired
+    private ResponseXpathRepository responseRepo;
+
+    private volatile Snapshot snapshot;
+
+    /* ===============================
+       EVALUATE
+       =============================== */
+    /** Active xml_path_req_pay rules applied to a ReqPay (rule name → value). */
+    public Map<String, String> evaluateReqPay(ParsedNpciMessage msg) {
+        return evaluate(current().reqPay, msg);
+    }
+
+    /** Active response_xpath rules applied to a Resp* message (rule type → value). */
+    public Map<String, String> evaluateResponse(ParsedNpciMessage msg) {
+        return evaluate(current().response, msg);
+    }
+
+    private static Map<String, String> evaluate(List<CompiledRule> rules, ParsedNpciMessage msg) {
+        Map<String, String> data = new LinkedHashMap<>();
+        Document doc = null;
+        boolean docParsed = false;
+        for (CompiledRule rule : rules) {
+            if (rule.fieldKey != null) {
+                data.put(rule.name, msg.getFields().get(rule.fieldKey));
+                continue;
+            }
+            if (!docParsed) {
+                doc = XmlUtil.toDocument(msg.getXml());
+                docParsed = true;
+            }
+            data.put(rule.name, rule.evaluate(doc));
+        }
+        return data;
+    }
+
+    /* ===============================
+       LOAD / REFRESH
+       =============================== */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        return s != null ? s : refresh();
+    }
+
+    @Scheduled(
+        initialDelayString = "${imps.xpath-cache.refresh-interval-ms:300000}",
+        fixedDelayString = "${imps.xpath-cache.refresh-interval-ms:300000}"
+    )
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // keep serving the previous snapshot
+            log.warn("XPath rule refresh failed, keeping previous rules: {}", e.getMessage());
+        }
+    }
+
+    /** Reload both rule tables from the DB and swap the snapshot atomically. */
+    public synchronized Snapshot refresh() {
+        List<CompiledRule> reqPay = new ArrayList<>();
+        for (XmlPathReqPay rule : reqPayRepo.findByStatus(STATUS_ACTIVE)) {
+            reqPay.add(compile(rule.getName(), rule.getxPath()));
+        }
+
+        List<CompiledRule> response = new ArrayList<>();
+        for (ResponseXpath rule : responseRepo.findByStatus(STATUS_ACTIVE)) {
+            response.add(compile(rule.getType(), rule.getXpath()));
+        }
+
+        Snapshot s = new Snapshot(reqPay, response, Instant.now());
+        snapshot = s;
+        log.info("XPath rules loaded: reqPay={}, response={}, precompiled XPath={}",
+            reqPay.size(), response.size(), s.getCompiledXPathCount());
+        return s;
+    }
+
+    static CompiledRule compile(String name, String xpath) {
+        String expr = xpath != null ? xpath.trim() : "";
+
+        String key = toFieldKey(expr);
+        if (key != null) {
+            return new CompiledRule(name, expr, key, null);
+        }
+        try {
+            XPathExpression compiled = XPathFactory.newInstance().newXPath().compile(expr);
+            return new CompiledRule(name, expr, null, compiled);
+        } catch (XPathExpressionException e) {
+            log.warn("Invalid XPath for rule {}: {} ({})", name, expr, e.getMessage());
+            return new CompiledRule(name, expr, null, null);
+        }
+    }
+
+    /** NpciXmlFields key for the simple attribute shapes, or null if the expression needs real XPath. */
+    static String toFieldKey(String expr) {
+        Matcher m = ATTR.matcher(expr);
+        if (m.matches()) {
+            return m.group(2) + "@" + m.group(3);
+        }
+        m = NAMED.matcher(expr);
+        if (m.matches() && NpciXmlExtractor.isScope(m.group(2))) {
+            return m.group(2) + "/" + m.group(4) + "[" + m.group(6) + "]@" + m.group(7);
+        }
+        m = SCOPED.matcher(expr);
+        if (m.matches() && NpciXmlExtractor.isScope(m.group(2))) {
+            return m.group(2) + "/" + m.group(4) + "@" + m.group(5);
+        }
+        return null;
+    }
+
+    /* ===============================
+       RULE / SNAPSHOT
+       =============================== */
+    public static final class CompiledRule {
+        private final String name;
+        private final String xpath;
+        private final String fieldKey;
+        private final XPathExpression compiled;
+
+        CompiledRule(String name, String xpath, String fieldKey, XPathExpression compiled) {
+            this.name = name;
+            this.xpath = xpath;
+            this.fieldKey = fieldKey;
+            this.compiled = compiled;
+        }
+
+        String evaluate(Document doc) {
+            if (compiled == null || doc == null) {
+                return "";
+            }
+            // XPathExpression is not thread-safe; fallback rules are rare so a monitor is enough
+            synchronized (compiled) {
+                try {
+                    return (String) compiled.evaluate(doc, XPathConstants.STRING);
+                } catch (XPathExpressionException e) {
+                    return "";
+                }
+            }
+        }
+
+        public String getName() { return name; }
+        public String getXpath() { return xpath; }
+        public String getFieldKey() { return fieldKey; }
+        public boolean isCompiledXPath() { return compiled != null; }
+    }
+
+    public static final class Snapshot {
+        private final List<CompiledRule> reqPay;
+        private final List<CompiledRule> response;
+        private final Instant loadedAt;
+
+        Snapshot(List<CompiledRule> reqPay, List<CompiledRule> response, Instant loadedAt) {
+            this.reqPay = Collections.unmodifiableList(reqPay);
+            this.response = Collections.unmodifiableList(response);
+            this.loadedAt = loadedAt;
+        }
+
+        public List<CompiledRule> getReqPay() { return reqPay; }
+        public List<CompiledRule> getResponse() { return response; }
+        public Instant getLoadedAt() { return loadedAt; }
+
+        public long getCompiledXPathCount() {
+            return reqPay.stream().filter(CompiledRule::isCompiledXPath).count()
+                + response.stream().filter(CompiledRule::isCompiledXPath).count();
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.hitachi.imps.service.iso;
 import javax.xml.xpath.*;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
 
 import javax.xml.parsers.*;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -12,78 +14,106 @@ import java.util.Random;
 @Component
 public class XmlUtil {
 
-    /* ===============================
-       GENERIC XPATH READER
-       =============================== */
-    public static String read(String xml, String xPathExp) {
+    private static final ThreadLocal<DocumentBuilder> DOC_BUILDER = ThreadLocal.withInitial(() -> {
         try {
             DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
             factory.setNamespaceAware(true);
+            return factory.newDocumentBuilder();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("DocumentBuilder init failed", e);
+        }
+    });
 
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(
-                new java.io.ByteArrayInputStream(xml.getBytes())
-            );
-
-            XPath xpath = XPathFactory.newInstance().newXPath();
-            return xpath.evaluate(xPathExp, doc);
+    private static final ThreadLocal<XPath> XPATH =
+        ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
 
+    /* ===============================
+       GENERIC XPATH READER
+       For ad-hoc expressions only; the parse* methods below use the single-pass extractor.
+       =============================== */
+    public static String read(String xml, String xPathExp) {
+        Document doc = toDocument(xml);
+        if (doc == null) {
+            return "";
+        }
+        try {
+            return XPATH.get().evaluate(xPathExp, doc);
         } catch (Exception e) {
             return "";
         }
     }
 
+    /* ===============================
+       DOM FOR PRECOMPILED XPATH
+       Returns null when the XML cannot be parsed.
+       =============================== */
+    public static Document toDocument(String xml) {
+        try {
+            DocumentBuilder builder = DOC_BUILDER.get();
+            builder.reset();
+            return builder.parse(new InputSource(new StringReader(xml)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /* ===============================
+       SINGLE-PASS EXTRACTION
+       Parse once, then read any Head/Txn/Payer/Payee attribute from the result.
+       =============================== */
+    public static NpciXmlFields extract(String xml) {
+        return NpciXmlExtractor.extract(xml);
+    }
+
     /* ===============================
        PARSE NPCI REQPAY → TAG MAP
        As per IMPS Specification
        =============================== */
     public static Map<String, String> parseReqPay(String xml) {
+        return parseReqPay(extract(xml));
+    }
+
+    public static Map<String, String> parseReqPay(NpciXmlFields f) {
 
         Map<String, String> tags = new HashMap<>();
 
         // Header attributes
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("orgId", read(xml, "//*[local-name()='Head']/@orgId"));
-        tags.put("ts", read(xml, "//*[local-name()='Head']/@ts"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("orgId", f.attr("Head", "orgId"));
+        tags.put("ts", f.attr("Head", "ts"));
 
         // Transaction attributes
-        tags.put("txnId", read(xml, "//*[local-name()='Txn']/@id"));
-        tags.put("txnType", read(xml, "//*[local-name()='Txn']/@type"));
-        tags.put("custRef", read(xml, "//*[local-name()='Txn']/@custRef"));
-        tags.put("note", read(xml, "//*[local-name()='Txn']/@note"));
+        tags.put("txnId", f.attr("Txn", "id"));
+        tags.put("txnType", f.attr("Txn", "type"));
+        tags.put("custRef", f.attr("Txn", "custRef"));
+        tags.put("note", f.attr("Txn", "note"));
 
         // Payer Amount
-        tags.put("amount", read(xml, "//*[local-name()='Payer']//*[local-name()='Amount']/@value"));
+        tags.put("amount", f.scoped("Payer", "Amount", "value"));
 
         // Payer Account from Identity (pipe-separated ACNUM|IFSC)
-        String identityId = read(xml, "//*[local-name()='Payer']//*[local-name()='Identity']/@id");
+        String identityId = f.scoped("Payer", "Identity", "id");
         if (identityId != null && identityId.contains("|")) {
             String[] parts = identityId.split("\\|");
             tags.put("payer_acnum", parts[0]);
             tags.put("payer_ifsc", parts.length > 1 ? parts[1] : "");
         } else {
             // Fallback to Detail tags
-            tags.put("payer_acnum", read(xml, 
-                "//*[local-name()='Payer']//*[local-name()='Detail'][@name='ACNUM']/@value"));
-            tags.put("payer_ifsc", read(xml, 
-                "//*[local-name()='Payer']//*[local-name()='Detail'][@name='IFSC']/@value"));
+            tags.put("payer_acnum", f.named("Payer", "Detail", "ACNUM"));
+            tags.put("payer_ifsc", f.named("Payer", "Detail", "IFSC"));
         }
 
         // Payer Account Type
-        tags.put("payer_actype", read(xml, 
-            "//*[local-name()='Payer']//*[local-name()='Detail'][@name='ACTYPE']/@value"));
+        tags.put("payer_actype", f.named("Payer", "Detail", "ACTYPE"));
 
         // Payee Account
-        tags.put("payee_acnum", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='ACNUM']/@value"));
-        tags.put("payee_ifsc", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='IFSC']/@value"));
-        tags.put("payee_actype", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='ACTYPE']/@value"));
+        tags.put("payee_acnum", f.named("Payee", "Detail", "ACNUM"));
+        tags.put("payee_ifsc", f.named("Payee", "Detail", "IFSC"));
+        tags.put("payee_actype", f.named("Payee", "Detail", "ACTYPE"));
 
         // Payer/Payee names
-        tags.put("payer_name", read(xml, "//*[local-name()='Payer']/@name"));
-        tags.put("payee_name", read(xml, "//*[local-name()='Payee']/@name"));
+        tags.put("payer_name", f.attr("Payer", "name"));
+        tags.put("payee_name", f.attr("Payee", "name"));
 
         return tags;
     }
@@ -92,17 +122,21 @@ public class XmlUtil {
        PARSE NPCI RESPPAY → TAG MAP
        =============================== */
     public static Map<String, String> parseRespPay(String xml) {
+        return parseRespPay(extract(xml));
+    }
+
+    public static Map<String, String> parseRespPay(NpciXmlFields f) {
         Map<String, String> tags = new HashMap<>();
 
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("reqMsgId", read(xml, "//*[local-name()='Resp']/@reqMsgId"));
-        tags.put("result", read(xml, "//*[local-name()='Resp']/@result"));
-        tags.put("respCode", read(xml, "//*[local-name()='Ref']/@respCode"));
-        tags.put("approvalNum", read(xml, "//*[local-name()='Ref']/@approvalNum"));
-        tags.put("settAmount", read(xml, "//*[local-name()='Ref']/@settAmount"));
-        tags.put("acNum", read(xml, "//*[local-name()='Ref']/@acNum"));
-        tags.put("IFSC", read(xml, "//*[local-name()='Ref']/@IFSC"));
-        tags.put("regName", read(xml, "//*[local-name()='Ref']/@regName"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("reqMsgId", f.attr("Resp", "reqMsgId"));
+        tags.put("result", f.attr("Resp", "result"));
+        tags.put("respCode", f.attr("Ref", "respCode"));
+        tags.put("approvalNum", f.attr("Ref", "approvalNum"));
+        tags.put("settAmount", f.attr("Ref", "settAmount"));
+        tags.put("acNum", f.attr("Ref", "acNum"));
+        tags.put("IFSC", f.attr("Ref", "IFSC"));
+        tags.put("regName", f.attr("Ref", "regName"));
 
         return tags;
     }
@@ -111,15 +145,19 @@ public class XmlUtil {
        PARSE NPCI REQCHKTXN → TAG MAP
        =============================== */
     public static Map<String, String> parseReqChkTxn(String xml) {
+        return parseReqChkTxn(extract(xml));
+    }
+
+    public static Map<String, String> parseReqChkTxn(NpciXmlFields f) {
         Map<String, String> tags = new HashMap<>();
 
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("orgId", read(xml, "//*[local-name()='Head']/@orgId"));
-        tags.put("txnId", read(xml, "//*[local-name()='Txn']/@id"));
-        tags.put("orgTxnId", read(xml, "//*[local-name()='Txn']/@orgTxnId"));
-        tags.put("orgRrn", read(xml, "//*[local-name()='Txn']/@orgRrn"));
-        tags.put("orgTxnDate", read(xml, "//*[local-name()='Txn']/@orgTxnDate"));
-        tags.put("amount", read(xml, "//*[local-name()='Amount']/@value"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("orgId", f.attr("Head", "orgId"));
+        tags.put("txnId", f.attr("Txn", "id"));
+        tags.put("orgTxnId", f.attr("Txn", "orgTxnId"));
+        tags.put("orgRrn", f.attr("Txn", "orgRrn"));
+        tags.put("orgTxnDate", f.attr("Txn", "orgTxnDate"));
+        tags.put("amount", f.attr("Amount", "value"));
 
         return tags;
     }
@@ -128,19 +166,20 @@ public class XmlUtil {
        PARSE NPCI REQVALADD → TAG MAP
        =============================== */
     public static Map<String, String> parseReqValAdd(String xml) {
+        return parseReqValAdd(extract(xml));
+    }
+
+    public static Map<String, String> parseReqValAdd(NpciXmlFields f) {
         Map<String, String> tags = new HashMap<>();
 
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("orgId", read(xml, "//*[local-name()='Head']/@orgId"));
-        tags.put("txnId", read(xml, "//*[local-name()='Txn']/@id"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("orgId", f.attr("Head", "orgId"));
+        tags.put("txnId", f.attr("Txn", "id"));
         
         // Payee account details for validation
-        tags.put("payee_acnum", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='ACNUM']/@value"));
-        tags.put("payee_ifsc", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='IFSC']/@value"));
-        tags.put("payee_actype", read(xml, 
-            "//*[local-name()='Payee']//*[local-name()='Detail'][@name='ACTYPE']/@value"));
+        tags.put("payee_acnum", f.named("Payee", "Detail", "ACNUM"));
+        tags.put("payee_ifsc", f.named("Payee", "Detail", "IFSC"));
+        tags.put("payee_actype", f.named("Payee", "Detail", "ACTYPE"));
 
         return tags;
     }
@@ -149,13 +188,17 @@ public class XmlUtil {
        PARSE NPCI REQHBT → TAG MAP
        =============================== */
     public static Map<String, String> parseReqHbt(String xml) {
+        return parseReqHbt(extract(xml));
+    }
+
+    public static Map<String, String> parseReqHbt(NpciXmlFields f) {
         Map<String, String> tags = new HashMap<>();
 
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("orgId", read(xml, "//*[local-name()='Head']/@orgId"));
-        tags.put("txnId", read(xml, "//*[local-name()='Txn']/@id"));
-        tags.put("hbtType", read(xml, "//*[local-name()='HbtMsg']/@type"));
-        tags.put("hbtValue", read(xml, "//*[local-name()='HbtMsg']/@value"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("orgId", f.attr("Head", "orgId"));
+        tags.put("txnId", f.attr("Txn", "id"));
+        tags.put("hbtType", f.attr("HbtMsg", "type"));
+        tags.put("hbtValue", f.attr("HbtMsg", "value"));
 
         return tags;
     }
@@ -164,11 +207,15 @@ public class XmlUtil {
        PARSE NPCI REQLISTACCPVD → TAG MAP
        =============================== */
     public static Map<String, String> parseReqListAccPvd(String xml) {
+        return parseReqListAccPvd(extract(xml));
+    }
+
+    public static Map<String, String> parseReqListAccPvd(NpciXmlFields f) {
         Map<String, String> tags = new HashMap<>();
 
-        tags.put("msgId", read(xml, "//*[local-name()='Head']/@msgId"));
-        tags.put("orgId", read(xml, "//*[local-name()='Head']/@orgId"));
-        tags.put("txnId", read(xml, "//*[local-name()='Txn']/@id"));
+        tags.put("msgId", f.attr("Head", "msgId"));
+        tags.put("orgId", f.attr("Head", "orgId"));
+        tags.put("txnId", f.attr("Txn", "id"));
 
         return tags;
     }
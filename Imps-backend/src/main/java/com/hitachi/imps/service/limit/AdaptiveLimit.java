@@ -0,0 +1,119 @@
+package com.hitachi.imps.service.limit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit for one outbound leg that follows the downstream's latency (gradient, with AIMD backoff).
+ *
+ * Each completed call is a sample. A successful call moves the limit by the gradient longRtt / shortRtt:
+ * while latency stays near its long-run level the limit grows by about sqrt(limit) per adjustment, and when
+ * the downstream slows down (queueing) the gradient drops below 1 and the limit shrinks with it. A timeout
+ * or failure cuts the limit by backoffRatio. The limit stays within [min, max]; a call over the limit is
+ * refused at once instead of waiting, so @Async threads never park behind a slow downstream.
+ */
+final class AdaptiveLimit {
+
+    /** Weight of a new sample in the short-term RTT. */
+    private static final double SHORT_RTT_WEIGHT = 0.1;
+    /** Weight of a new sample in the long-term (no-load) RTT, about the last 600 samples. */
+    private static final double LONG_RTT_WEIGHT = 2.0 / 601;
+
+    private final int min;
+    private final int max;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+
+    private double limit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    AdaptiveLimit(int initial, int min, int max, double smoothing, double rttTolerance, double backoffRatio) {
+        this.max = Math.max(1, max);
+        this.min = Math.max(1, Math.min(min, this.max));
+        this.limit = Math.max(this.min, Math.min(initial, this.max));
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /** Take a slot if fewer than limit calls are in flight. */
+    boolean tryAcquire() {
+        int cap = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Give the slot back without a sample (the call was never made). */
+    void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Release the slot and adjust the limit.
+     * @param rttNanos time the call took
+     * @param dropped  the call timed out or the downstream failed
+     */
+    void release(long rttNanos, boolean dropped) {
+        int wasInFlight = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (dropped) {
+                drops.incrementAndGet();
+                limit = Math.max(min, limit * backoffRatio);
+                return;
+            }
+            if (longRttNanos == 0) {
+                shortRttNanos = rttNanos;
+                longRttNanos = rttNanos;
+                return;
+            }
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_WEIGHT;
+            longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_WEIGHT;
+            // Latency dropped for good (e.g. after a slow spell): let the baseline follow it down
+            if (longRttNanos > 2 * shortRttNanos) {
+                longRttNanos *= 0.95;
+            }
+            // Only a limit that is actually used tells us anything about raising it
+            if (wasInFlight < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = Math.max(min, Math.min(max, limit * (1 - smoothing) + target * smoothing));
+        }
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        synchronized (this) {
+            m.put("limit", (int) limit);
+            m.put("minLimit", min);
+            m.put("maxLimit", max);
+            m.put("rttMs", Math.round(shortRttNanos / 10_000.0) / 100.0);
+            m.put("rttNoLoadMs", Math.round(longRttNanos / 10_000.0) / 100.0);
+        }
+        m.put("inFlight", inFlight.get());
+        m.put("rejected", rejected.get());
+        m.put("drops", drops.get());
+        return m;
+    }
+}
@@ -0,0 +1,124 @@
+package com.hitachi.imps.service.limit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker for one outbound leg, over the outcomes of the last windowCalls calls.
+ *
+ * CLOSED → OPEN when at least minCalls of the window are in and failureRatePercent of them failed.
+ * OPEN refuses every call for openMs, then HALF_OPEN lets halfOpenCalls probes through: all succeed → CLOSED,
+ * any fails → OPEN again.
+ */
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowCalls;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final long openMs;
+    private final int halfOpenCalls;
+
+    /** Ring of recent outcomes, true = failed. */
+    private final boolean[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong shortCircuited = new AtomicLong();
+
+    CircuitBreaker(int windowCalls, int minCalls, int failureRatePercent, long openMs, int halfOpenCalls) {
+        this.windowCalls = Math.max(1, windowCalls);
+        this.minCalls = Math.max(1, Math.min(minCalls, this.windowCalls));
+        this.failureRatePercent = failureRatePercent;
+        this.openMs = openMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.outcomes = new boolean[this.windowCalls];
+    }
+
+    /**
+     * @return 0 if the call may go ahead, otherwise how long (ms) until the breaker lets a probe through
+     */
+    synchronized long tryAcquire() {
+        if (state == State.OPEN) {
+            long waited = System.currentTimeMillis() - openedAt;
+            if (waited < openMs) {
+                shortCircuited.incrementAndGet();
+                return Math.max(1, openMs - waited);
+            }
+            state = State.HALF_OPEN;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesStarted >= halfOpenCalls) {
+                shortCircuited.incrementAndGet();
+                return 1;
+            }
+            probesStarted++;
+        }
+        return 0;
+    }
+
+    synchronized void onResult(boolean failed) {
+        switch (state) {
+            case HALF_OPEN -> {
+                if (failed) {
+                    open();
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    state = State.CLOSED;
+                    next = recorded = failures = 0;
+                }
+            }
+            case CLOSED -> {
+                if (recorded == windowCalls) {
+                    if (outcomes[next]) failures--;
+                } else {
+                    recorded++;
+                }
+                outcomes[next] = failed;
+                if (failed) failures++;
+                next = (next + 1) % windowCalls;
+                if (recorded >= minCalls && failures * 100 >= failureRatePercent * recorded) {
+                    open();
+                }
+            }
+            case OPEN -> {
+                // a call started before the breaker opened; its outcome changes nothing
+            }
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        opened.incrementAndGet();
+        next = recorded = failures = 0;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    synchronized Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("state", state.name());
+        m.put("windowCalls", recorded);
+        m.put("windowFailures", failures);
+        m.put("failureRatePercent", recorded == 0 ? 0 : failures * 100 / recorded);
+        m.put("openedCount", opened.get());
+        m.put("shortCircuited", shortCircuited.get());
+        if (state == State.OPEN) {
+            m.put("nextProbeInMs", Math.max(0, openMs - (System.currentTimeMillis() - openedAt)));
+        }
+        return m;
+    }
+}
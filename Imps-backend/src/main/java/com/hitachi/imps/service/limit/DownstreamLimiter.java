@@ -0,0 +1,268 @@
+package com.hitachi.imps.service.limit;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.exception.CircuitOpenException;
+import com.hitachi.imps.exception.DownstreamBusyException;
+import com.hitachi.imps.exception.OutboundHttpException;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Caps concurrent work against each downstream (DB, Switch, NPCI) with a semaphore.
+ *
+ * With imps.async.executor-mode=virtual the number of @Async workers is no longer the limit, so
+ * these permits are what keeps a burst from opening more DB connections or outbound calls than
+ * the other side can take. A caller that cannot get a permit within imps.async.limits.acquire-timeout-ms
+ * gets {@link DownstreamBusyException} (synchronous calls) or a future failed with it (async calls).
+ *
+ * The Switch and NPCI legs (async calls) are instead guarded by an {@link AdaptiveLimit} that tracks each
+ * leg's round-trip time, capped at the configured permits, and a {@link CircuitBreaker}. Both refuse at once
+ * rather than wait: over the limit the future fails with DownstreamBusyException, with the breaker open with
+ * {@link CircuitOpenException}. Either way nothing was sent and the caller's failure path runs straight away.
+ */
+@Component
+public class DownstreamLimiter {
+
+    public enum Downstream { DB, SWITCH, NPCI }
+
+    @Value("${imps.async.limits.db:10}")
+    private int dbPermits;
+
+    @Value("${imps.async.limits.switch:200}")
+    private int switchPermits;
+
+    @Value("${imps.async.limits.npci:200}")
+    private int npciPermits;
+
+    @Value("${imps.async.limits.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Value("${imps.async.limits.adaptive.enabled:true}")
+    private boolean adaptiveEnabled;
+
+    @Value("${imps.async.limits.adaptive.initial:50}")
+    private int adaptiveInitial;
+
+    @Value("${imps.async.limits.adaptive.min:5}")
+    private int adaptiveMin;
+
+    @Value("${imps.async.limits.adaptive.smoothing:0.2}")
+    private double adaptiveSmoothing;
+
+    @Value("${imps.async.limits.adaptive.rtt-tolerance:1.5}")
+    private double adaptiveRttTolerance;
+
+    @Value("${imps.async.limits.adaptive.backoff-ratio:0.9}")
+    private double adaptiveBackoffRatio;
+
+    @Value("${imps.async.limits.breaker.window-calls:20}")
+    private int breakerWindowCalls;
+
+    @Value("${imps.async.limits.breaker.min-calls:10}")
+    private int breakerMinCalls;
+
+    @Value("${imps.async.limits.breaker.failure-rate-percent:50}")
+    private int breakerFailureRatePercent;
+
+    @Value("${imps.async.limits.breaker.open-ms:10000}")
+    private long breakerOpenMs;
+
+    @Value("${imps.async.limits.breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+
+    private final Map<Downstream, Limit> limits = new EnumMap<>(Downstream.class);
+    private final Map<Downstream, Leg> legs = new EnumMap<>(Downstream.class);
+
+    @PostConstruct
+    public void init() {
+        limits.put(Downstream.DB, new Limit(dbPermits));
+        limits.put(Downstream.SWITCH, new Limit(switchPermits));
+        limits.put(Downstream.NPCI, new Limit(npciPermits));
+        if (adaptiveEnabled) {
+            legs.put(Downstream.SWITCH, leg(switchPermits));
+            legs.put(Downstream.NPCI, leg(npciPermits));
+        }
+    }
+
+    private Leg leg(int maxPermits) {
+        return new Leg(
+            new AdaptiveLimit(adaptiveInitial, adaptiveMin, maxPermits, adaptiveSmoothing, adaptiveRttTolerance, adaptiveBackoffRatio),
+            new CircuitBreaker(breakerWindowCalls, breakerMinCalls, breakerFailureRatePercent, breakerOpenMs, breakerHalfOpenCalls));
+    }
+
+    /* ===============================
+       BLOCKING CALLS (JDBC)
+       =============================== */
+    public <T> T db(Supplier<T> work) {
+        Limit limit = acquire(Downstream.DB);
+        try {
+            return work.get();
+        } finally {
+            limit.permits.release();
+        }
+    }
+
+    public void db(Runnable work) {
+        Limit limit = acquire(Downstream.DB);
+        try {
+            work.run();
+        } finally {
+            limit.permits.release();
+        }
+    }
+
+    /* ===============================
+       ASYNC CALLS (HTTP) – permit held until the future completes
+       =============================== */
+    public <T> CompletableFuture<T> async(Downstream downstream, Supplier<CompletableFuture<T>> call) {
+        Leg leg = legs.get(downstream);
+        if (leg != null) {
+            return leg.call(downstream, call);
+        }
+        Limit limit;
+        try {
+            limit = acquire(downstream);
+        } catch (DownstreamBusyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            limit.permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((r, e) -> limit.permits.release());
+    }
+
+    private Limit acquire(Downstream downstream) {
+        Limit limit = limits.get(downstream);
+        boolean acquired;
+        try {
+            acquired = limit.permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            limit.rejected.incrementAndGet();
+            throw new DownstreamBusyException(downstream.name(), limit.size);
+        }
+        return limit;
+    }
+
+    /**
+     * Whether a failed call says the downstream is unhealthy: timeouts, connection errors and 5xx do;
+     * a 4xx answer (it responded) and a local refusal (no permit, breaker open) do not.
+     */
+    static boolean isDownstreamFailure(Throwable e) {
+        Throwable cause = cause(e);
+        if (cause instanceof OutboundHttpException http) {
+            return http.getStatus() >= 500;
+        }
+        return !isLocalRefusal(cause);
+    }
+
+    /** Refused before anything was sent: no permit or window slot, or a breaker open. */
+    public static boolean isLocalRefusal(Throwable e) {
+        Throwable cause = cause(e);
+        return cause instanceof DownstreamBusyException || cause instanceof CircuitOpenException;
+    }
+
+    private static Throwable cause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+
+    /** Threads currently blocked waiting for a permit of this downstream. */
+    public int waiting(Downstream downstream) {
+        return limits.get(downstream).permits.getQueueLength();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        limits.forEach((d, l) -> {
+            Leg leg = legs.get(d);
+            if (leg != null) {
+                Map<String, Object> m = leg.limit.stats();
+                m.put("breaker", leg.breaker.stats());
+                out.put(d.name(), m);
+                return;
+            }
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("permits", l.size);
+            m.put("inUse", l.size - l.permits.availablePermits());
+            m.put("waiting", l.permits.getQueueLength());
+            m.put("rejected", l.rejected.get());
+            out.put(d.name(), m);
+        });
+        return out;
+    }
+
+    /** Adaptive limit and circuit breaker of one outbound leg. */
+    private static final class Leg {
+        final AdaptiveLimit limit;
+        final CircuitBreaker breaker;
+
+        Leg(AdaptiveLimit limit, CircuitBreaker breaker) {
+            this.limit = limit;
+            this.breaker = breaker;
+        }
+
+        <T> CompletableFuture<T> call(Downstream downstream, Supplier<CompletableFuture<T>> call) {
+            if (!limit.tryAcquire()) {
+                return CompletableFuture.failedFuture(new DownstreamBusyException(downstream.name(), limit.getLimit()));
+            }
+            long retryInMs = breaker.tryAcquire();
+            if (retryInMs > 0) {
+                limit.cancel();
+                return CompletableFuture.failedFuture(new CircuitOpenException(downstream.name(), retryInMs));
+            }
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                limit.cancel();
+                breaker.onResult(false);
+                return CompletableFuture.failedFuture(e);
+            }
+            return future.whenComplete((r, e) -> {
+                if (e != null && isLocalRefusal(e)) {
+                    limit.cancel();
+                    breaker.onResult(false);
+                    return;
+                }
+                boolean failed = e != null && isDownstreamFailure(e);
+                limit.release(System.nanoTime() - start, failed);
+                breaker.onResult(failed);
+            });
+        }
+    }
+
+    private static final class Limit {
+        final int size;
+        final Semaphore permits;
+        final AtomicLong rejected = new AtomicLong();
+
+        Limit(int size) {
+            this.size = size;
+            this.permits = new Semaphore(size, true);
+        }
+    }
+}
@@ -13,10 +13,10 @@ import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.entity.InstitutionMaster;
 import com.hitachi.imps.spec.AccPvdSpec;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 
 /**
  * Service for handling ReqListAccPvd requests from NPCI.
@@ -27,10 +27,9 @@ import com.hitachi.imps.service.XmlParsingService;
 @Service
 public class NpciReqListAccPvdService {
 
-    @Autowired private InstitutionMasterRepository institutionRepo;
+    @Autowired private ReferenceDataCache refData;
     @Autowired private NpciMockClient npciMockClient;
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -53,6 +52,17 @@ public class NpciReqListAccPvdService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciReqListAccPvdService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     @Transactional
     public void process(String xml) {
         process(xml, null);
@@ -60,9 +70,14 @@ public class NpciReqListAccPvdService {
 
     @Transactional
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    @Transactional
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Create transaction record (txn_type = LISTACCPVD, switch_status = INIT)
         TransactionEntity txn = transactionService.createRequest(txnId, xml, "LISTACCPVD");
@@ -75,7 +90,7 @@ public class NpciReqListAccPvdService {
         System.out.println("switch reqlistaccpvd");
 
         // 3. Fetch active institutions from DB
-        List<InstitutionMaster> banks = institutionRepo.findByActiveTrue();
+        List<InstitutionMaster> banks = refData.activeInstitutions();
 
         // 4. Build response XML
         String respXml = buildRespListAccPvd(msgId, banks);
@@ -90,17 +105,13 @@ public class NpciReqListAccPvdService {
         System.out.println(respXml);
 
         // 7. Send response to NPCI Mock: POST /npci/resplistaccpvd/{txnId}
-        try {
-            String response = npciMockClient.sendRespListAccPvd(respXml, txnId);
+        npciMockClient.sendRespListAccPvdAsync(respXml, txnId).thenAccept(response -> {
             if (response != null) {
                 System.out.println("=== NPCI MOCK CLIENT ACK Received ===");
             } else {
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
             }
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 
     /**
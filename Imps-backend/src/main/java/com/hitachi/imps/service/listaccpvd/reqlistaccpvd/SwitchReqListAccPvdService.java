@@ -9,8 +9,8 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.entity.InstitutionMaster;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
 import com.hitachi.imps.service.audit.MessageAuditService;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 import com.hitachi.imps.spec.AccPvdSpec;
 
 /**
@@ -21,7 +21,7 @@ import com.hitachi.imps.spec.AccPvdSpec;
 @Service
 public class SwitchReqListAccPvdService {
 
-    @Autowired private InstitutionMasterRepository institutionRepo;
+    @Autowired private ReferenceDataCache refData;
     @Autowired private MessageAuditService auditService;
 
     @Async
@@ -53,7 +53,7 @@ public class SwitchReqListAccPvdService {
         System.out.println("ISO bytes length: " + isoBytes.length);
 
         // 2. Fetch active institutions from DB
-        List<InstitutionMaster> banks = institutionRepo.findByActiveTrue();
+        List<InstitutionMaster> banks = refData.activeInstitutions();
 
         // 3. Build response XML (intermediate step)
         String respXml = buildRespListAccPvd(txnId, banks);
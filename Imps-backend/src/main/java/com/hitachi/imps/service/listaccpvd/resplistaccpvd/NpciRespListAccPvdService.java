@@ -5,7 +5,7 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling RespListAccPvd responses from NPCI.
@@ -17,7 +17,6 @@ import com.hitachi.imps.service.XmlParsingService;
 public class NpciRespListAccPvdService {
 
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
 
     @Async
     public void processAsync(String xml) {
@@ -39,8 +38,24 @@ public class NpciRespListAccPvdService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg);
+        } catch (Exception e) {
+            System.err.println("NpciRespListAccPvdService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
-        String msgId = xmlParsingService.extractMsgId(xml);
+        process(ParsedNpciMessage.of(xml));
+    }
+
+    public void process(ParsedNpciMessage msg) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_RESPLISTACCPVD_XML_IN", xml);
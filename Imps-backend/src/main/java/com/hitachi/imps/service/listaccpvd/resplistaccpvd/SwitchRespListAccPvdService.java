@@ -1,6 +1,5 @@
 package com.hitachi.imps.service.listaccpvd.resplistaccpvd;
 
-import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -8,12 +7,13 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.converter.IsoToXmlConverter;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for handling RespListAccPvd responses from Switch.
@@ -26,6 +26,7 @@ public class SwitchRespListAccPvdService {
     @Autowired private IsoToXmlConverter isoToXmlConverter;
     @Autowired private NpciMockClient npciMockClient;
     @Autowired private MessageAuditService auditService;
+    @Autowired private IsoCodecService isoCodec;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -57,15 +58,15 @@ public class SwitchRespListAccPvdService {
             ? pathTxnId
             : "SWITCH_LISTACCPVD_RESP_" + System.currentTimeMillis();
 
-        // 1. Unpack ISO and audit in same format as SWITCH_*_ISO_OUT (MTI + DE fields, not Base64)
-        ISOMsg iso = IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        // 1. Decode ISO once and audit in same format as SWITCH_*_ISO_OUT (MTI + DE fields, not Base64)
+        IsoFieldReader iso = isoCodec.read(isoBytes);
         auditService.saveParsed(txnId, "SWITCH_RESPLISTACCPVD_ISO_IN", iso);
 
         System.out.println("=== Processing Switch RespListAccPvd ===");
         System.out.println("ISO bytes length: " + isoBytes.length);
 
         // 2. Convert ISO to XML
-        String xml = isoToXmlConverter.convertRespListAccPvdToXml(isoBytes);
+        String xml = isoToXmlConverter.convertRespListAccPvdToXml(iso);
 
         // 3. Update transaction status when pathTxnId is present (same id used when sending to switch)
         if (pathTxnId != null && !pathTxnId.isBlank()) {
@@ -87,19 +88,16 @@ public class SwitchRespListAccPvdService {
         System.out.println(xml);
 
         // 5. Send XML to NPCI Mock Client (dynamic URL /npci/resplistaccpvd/{txnId})
-        try {
-            if (pathTxnId != null && !pathTxnId.isBlank())
-                System.out.println("resplistaccpvd/" + pathTxnId + " send to npci");
-            String response = (pathTxnId != null && !pathTxnId.isBlank())
-                ? npciMockClient.sendRespListAccPvd(xml, pathTxnId)
-                : npciMockClient.sendRespListAccPvd(xml);
+        if (pathTxnId != null && !pathTxnId.isBlank())
+            System.out.println("resplistaccpvd/" + pathTxnId + " send to npci");
+        CompletableFuture<String> sent = (pathTxnId != null && !pathTxnId.isBlank())
+            ? npciMockClient.sendRespListAccPvdAsync(xml, pathTxnId)
+            : npciMockClient.sendRespListAccPvdAsync(xml);
+        sent.thenAccept(response -> {
             if (response != null && pathTxnId != null && !pathTxnId.isBlank())
                 System.out.println("npci ack receive for resplistaccpvd/" + pathTxnId);
             if (response == null && pathTxnId != null)
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 }
@@ -0,0 +1,380 @@
+package com.hitachi.imps.service.outbox;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hitachi.imps.client.NpciMockClient;
+import com.hitachi.imps.client.OutboundHttpClient;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.payload.PayloadCodec;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Durable delivery of final responses (RespPay, RespChkTxn, RespValAdd) to NPCI through the npci_outbox table.
+ *
+ * The Switch response services write the outbound XML into npci_outbox in the same DB transaction as the
+ * transaction's status update ({@link com.hitachi.imps.service.TransactionService#markSuccess} /
+ * markFailure with a {@link Message}), then call {@link #send}, which makes the first attempt straight away.
+ * When the update was skipped (duplicate or late Switch response, no matching row) nothing is stored:
+ * {@link #sendUnstored} sends it once, or not at all if a response for that transaction is already stored.
+ * A row stays PENDING until NPCI accepts it. Failed attempts are retried by {@link #relay} in batches with
+ * exponential backoff (imps.outbox.*), without any thread waiting between attempts; after max-attempts the
+ * row is DEAD. Delivery results are written by the relay in batches. A row being sent is leased (next_attempt_at moved lease-ms ahead), so a crash mid-send only
+ * delays it. (api_type, txn_id) is unique: one response per transaction is stored (the Head msgId is
+ * new on every render, so it cannot identify a repeat), and every retry carries the same msgId so NPCI
+ * can discard a repeat.
+ */
+@Service
+public class NpciOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(NpciOutbox.class);
+
+    /** msgId attribute of the Head element. */
+    private static final Pattern HEAD_MSG_ID = Pattern.compile("[<:]Head[^>]*\\smsgId\\s*=\\s*[\"']([^\"']+)[\"']");
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private NpciMockClient npciMockClient;
+
+    @Autowired
+    private PayloadCodec payloadCodec;
+
+    @Value("${imps.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${imps.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${imps.outbox.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${imps.outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${imps.outbox.backoff-initial-ms:1000}")
+    private long backoffInitialMs;
+
+    @Value("${imps.outbox.backoff-max-ms:300000}")
+    private long backoffMaxMs;
+
+    @Value("${imps.outbox.max-attempts:15}")
+    private int maxAttempts;
+
+    @Value("${imps.outbox.retention-hours:72}")
+    private int retentionHours;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong sentUnstored = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong dead = new AtomicLong();
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong lastDeliveryLagMs = new AtomicLong();
+
+    private final ConcurrentLinkedQueue<Long> sentIds = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+    private static final class Failure {
+        final Message message;
+        final int attempts;
+        final String error;
+
+        Failure(Message message, int attempts, String error) {
+            this.message = message;
+            this.attempts = attempts;
+            this.error = error;
+        }
+    }
+
+    /** An outbound response: where it goes and the XML, keyed by its msgId. */
+    public static final class Message {
+        final String msgId;
+        final String apiType;
+        final String txnId;
+        final String xml;
+        volatile Long id;
+        volatile long createdAt = System.currentTimeMillis();
+
+        Message(Long id, String msgId, String apiType, String txnId, String xml) {
+            this.id = id;
+            this.msgId = msgId;
+            this.apiType = apiType;
+            this.txnId = txnId;
+            this.xml = xml;
+        }
+
+        public String getMsgId() {
+            return msgId;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Outbound response for /npci/{apiType}/{txnId} (or the configured apiType endpoint when txnId is blank).
+     * Not stored yet: pass it to a TransactionService status update, or straight to {@link #send}.
+     */
+    public Message message(String apiType, String txnId, String xml) {
+        Matcher m = HEAD_MSG_ID.matcher(xml);
+        String msgId = m.find() ? m.group(1) : UUID.randomUUID().toString();
+        return new Message(null, msgId, apiType, txnId != null && !txnId.isBlank() ? txnId : null, xml);
+    }
+
+    /**
+     * Write the row, leased for the first attempt by the {@link #send} that follows. Joins the caller's
+     * DB transaction. A second response for the same (api_type, txn_id) is not written.
+     */
+    public void insert(Message message) {
+        if (!enabled || message.id != null) return;
+        List<Long> ids = jdbcTemplate.queryForList(
+            "INSERT INTO npci_outbox (msg_id, api_type, txn_id, payload, status, attempts, next_attempt_at, created_at)"
+                + " VALUES (?, ?, ?, ?, '" + STATUS_PENDING + "', 0, now() + ? * interval '1 millisecond', now())"
+                + " ON CONFLICT (api_type, txn_id) DO NOTHING RETURNING id",
+            Long.class, message.msgId, message.apiType, message.txnId, payloadCodec.encode(message.xml), leaseMs);
+        if (ids.isEmpty()) {
+            duplicates.incrementAndGet();
+            log.info("Outbox: {} for txn {} already stored, {} not stored", message.apiType, message.txnId, message.msgId);
+            message.id = -1L;
+            return;
+        }
+        message.id = ids.get(0);
+        enqueued.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    // Rolled back with the status update: not stored
+                    if (status != STATUS_COMMITTED) message.id = null;
+                }
+            });
+        }
+    }
+
+    /**
+     * First delivery attempt of a message the status update stored; later attempts come from {@link #relay}.
+     * A message that was not stored is handled as {@link #sendUnstored}. With imps.outbox.enabled=false it
+     * is sent once, as before, with no retry.
+     */
+    public void send(Message message) {
+        if (!enabled || message.id == null) {
+            sendUnstored(message);
+            return;
+        }
+        if (message.id < 0) return;   // duplicate: the stored row is delivered on its own
+        deliver(message, 0);
+    }
+
+    /**
+     * A response whose status update was skipped: sent once, without a row or retry, unless a response
+     * for the same (api_type, txn_id) is already in the outbox (then NPCI gets that one and this is dropped).
+     */
+    public void sendUnstored(Message message) {
+        if (enabled && message.txnId != null) {
+            try {
+                Boolean stored = limiter.db(() -> jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM npci_outbox WHERE api_type = ? AND txn_id = ?)",
+                    Boolean.class, message.apiType, message.txnId));
+                if (Boolean.TRUE.equals(stored)) {
+                    dropped.incrementAndGet();
+                    log.info("Outbox: {} for txn {} already stored, repeat {} dropped", message.apiType, message.txnId, message.msgId);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Outbox: {} for txn {} not checked, sending once: {}", message.apiType, message.txnId, e.getMessage());
+            }
+        }
+        sentUnstored.incrementAndGet();
+        npciMockClient.deliverAsync(message.apiType, message.txnId, message.xml).exceptionally(e -> null);
+    }
+
+    /* ===============================
+       DELIVERY
+       =============================== */
+
+    /** Results are queued here and written in batches by {@link #recordResults}, off the HTTP callback threads. */
+    private void deliver(Message message, int attemptsBefore) {
+        inFlight.incrementAndGet();
+        npciMockClient.deliverAsync(message.apiType, message.txnId, message.xml).whenComplete((response, e) -> {
+            inFlight.decrementAndGet();
+            if (e == null) {
+                delivered.incrementAndGet();
+                lastDeliveryLagMs.set(System.currentTimeMillis() - message.createdAt);
+                sentIds.add(message.id);
+            } else {
+                failedAttempts.incrementAndGet();
+                String error = OutboundHttpClient.describe(e);
+                failures.add(new Failure(message, attemptsBefore + 1,
+                    error != null && error.length() > 1000 ? error.substring(0, 1000) : error));
+            }
+        });
+    }
+
+    /**
+     * SENT for delivered rows; failed rows get their next attempt (or DEAD). A row whose result is lost
+     * (crash, DB error) keeps its lease and is sent again when it expires, with the same msgId.
+     */
+    void recordResults() {
+        List<Object[]> sent = new ArrayList<>();
+        for (Long id; (id = sentIds.poll()) != null; ) sent.add(new Object[] { id });
+        List<Object[]> retry = new ArrayList<>();
+        List<Object[]> gaveUp = new ArrayList<>();
+        for (Failure f; (f = failures.poll()) != null; ) {
+            Message message = f.message;
+            if (f.attempts >= maxAttempts) {
+                gaveUp.add(new Object[] { f.attempts, f.error, message.id });
+                log.error("Outbox: {} {} for txn {} given up after {} attempts: {}",
+                    message.apiType, message.msgId, message.txnId, f.attempts, f.error);
+            } else {
+                long delay = backoffMs(f.attempts);
+                retry.add(new Object[] { f.attempts, f.error, delay, message.id });
+                log.warn("Outbox: {} {} attempt {} failed, retry in {} ms: {}",
+                    message.apiType, message.msgId, f.attempts, delay, f.error);
+            }
+        }
+        try {
+            if (!sent.isEmpty()) {
+                limiter.db(() -> jdbcTemplate.batchUpdate(
+                    "UPDATE npci_outbox SET status = '" + STATUS_SENT + "', attempts = attempts + 1, sent_at = now(),"
+                        + " last_error = NULL WHERE id = ? AND status = '" + STATUS_PENDING + "'", sent));
+            }
+            if (!retry.isEmpty()) {
+                limiter.db(() -> jdbcTemplate.batchUpdate(
+                    "UPDATE npci_outbox SET attempts = ?, last_error = ?, next_attempt_at = now() + ? * interval '1 millisecond'"
+                        + " WHERE id = ? AND status = '" + STATUS_PENDING + "'", retry));
+            }
+            if (!gaveUp.isEmpty()) {
+                limiter.db(() -> jdbcTemplate.batchUpdate(
+                    "UPDATE npci_outbox SET status = '" + STATUS_DEAD + "', attempts = ?, last_error = ?"
+                        + " WHERE id = ? AND status = '" + STATUS_PENDING + "'", gaveUp));
+                dead.addAndGet(gaveUp.size());
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox: {} delivery results not recorded: {}", sent.size() + retry.size() + gaveUp.size(), e.getMessage());
+        }
+    }
+
+    /** backoff-initial-ms doubled per failed attempt, capped at backoff-max-ms. */
+    long backoffMs(int attempts) {
+        long delay = backoffInitialMs << Math.min(attempts - 1, 30);
+        return delay <= 0 || delay > backoffMaxMs ? backoffMaxMs : delay;
+    }
+
+    /**
+     * Record the results since the last run, then claim due rows (FOR UPDATE SKIP LOCKED, so several
+     * instances share the table) by leasing them, and send them.
+     */
+    @Scheduled(fixedDelayString = "${imps.outbox.poll-ms:1000}", initialDelayString = "${imps.outbox.poll-ms:1000}")
+    public void relay() {
+        if (!enabled) return;
+        recordResults();
+        int room = Math.min(batchSize, maxInFlight - inFlight.get());
+        if (room <= 0) return;
+        try {
+            List<Map<String, Object>> due = limiter.db(() -> jdbcTemplate.queryForList(
+                "UPDATE npci_outbox SET next_attempt_at = now() + ? * interval '1 millisecond'"
+                    + " WHERE id IN (SELECT id FROM npci_outbox WHERE status = '" + STATUS_PENDING + "'"
+                    + " AND next_attempt_at <= now() ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED)"
+                    + " RETURNING id, msg_id, api_type, txn_id, payload, attempts, created_at",
+                leaseMs, room));
+            for (Map<String, Object> row : due) {
+                Message message = new Message(((Number) row.get("id")).longValue(), (String) row.get("msg_id"),
+                    (String) row.get("api_type"), (String) row.get("txn_id"), payloadCodec.decode((byte[]) row.get("payload")));
+                message.createdAt = ((Timestamp) row.get("created_at")).getTime();
+                relayed.incrementAndGet();
+                deliver(message, ((Number) row.get("attempts")).intValue());
+            }
+            if (!due.isEmpty()) {
+                log.info("Outbox: relaying {} pending responses", due.size());
+            }
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) recordResults();
+    }
+
+    /** Delivered rows are kept retention-hours for inspection, then deleted. */
+    @Scheduled(fixedDelay = 3_600_000, initialDelay = 600_000)
+    public void purge() {
+        if (!enabled) return;
+        try {
+            int rows = limiter.db(() -> jdbcTemplate.update(
+                "DELETE FROM npci_outbox WHERE status = '" + STATUS_SENT + "' AND sent_at < now() - ? * interval '1 hour'",
+                retentionHours));
+            if (rows > 0) log.info("Outbox: purged {} delivered rows", rows);
+        } catch (RuntimeException e) {
+            log.error("Outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("enqueued", enqueued.get());
+        m.put("duplicates", duplicates.get());
+        m.put("sentUnstored", sentUnstored.get());
+        m.put("droppedRepeats", dropped.get());
+        m.put("delivered", delivered.get());
+        m.put("failedAttempts", failedAttempts.get());
+        m.put("relayed", relayed.get());
+        m.put("dead", dead.get());
+        m.put("inFlight", inFlight.get());
+        m.put("unrecordedResults", sentIds.size() + failures.size());
+        m.put("lastDeliveryLagMs", lastDeliveryLagMs.get());
+        if (enabled) {
+            try {
+                Map<String, Object> lag = limiter.db(() -> jdbcTemplate.queryForMap(
+                    "SELECT count(*) FILTER (WHERE status = '" + STATUS_PENDING + "') AS pending,"
+                        + " count(*) FILTER (WHERE status = '" + STATUS_DEAD + "') AS dead_rows,"
+                        + " (EXTRACT(EPOCH FROM now() - min(created_at) FILTER (WHERE status = '" + STATUS_PENDING + "')) * 1000)::bigint"
+                        + " AS oldest_pending_ms FROM npci_outbox WHERE status <> '" + STATUS_SENT + "'"));
+                m.put("pending", lag.get("pending"));
+                m.put("deadRows", lag.get("dead_rows"));
+                m.put("oldestPendingMs", lag.get("oldest_pending_ms"));
+            } catch (RuntimeException e) {
+                m.put("lagError", e.getMessage());
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,301 @@
+package com.hitachi.imps.service.partition;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the range partitions of transaction (txn_date) and message_audit_log (created_at) in shape.
+ *
+ * On startup and daily (imps.partitions.cron) it creates the partitions for the current period and
+ * the next imps.partitions.*.ahead periods, and retires partitions that ended more than
+ * imps.partitions.*.retention periods ago: detach (table kept, out of every query), archive (detached
+ * and moved to imps.partitions.archive-schema) or drop. Only partitions it names itself
+ * (&lt;table&gt;_pYYYYMM / _pYYYYMMDD) are retired. Tables that are not partitioned (see
+ * imps_partitioning.sql) are left alone. When transaction partitions are retired, the transaction_txn_id
+ * claims older than the same cutoff go too, so txn_id uniqueness spans the retention period.
+ */
+@Component
+public class PartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionManager.class);
+
+    public enum Granularity {
+        DAILY("yyyyMMdd") {
+            @Override LocalDate start(LocalDate day) { return day; }
+            @Override LocalDate plus(LocalDate start, int periods) { return start.plusDays(periods); }
+            @Override LocalDate parse(String suffix) { return LocalDate.parse(suffix, format); }
+        },
+        MONTHLY("yyyyMM") {
+            @Override LocalDate start(LocalDate day) { return day.withDayOfMonth(1); }
+            @Override LocalDate plus(LocalDate start, int periods) { return start.plusMonths(periods); }
+            @Override LocalDate parse(String suffix) { return YearMonth.parse(suffix, format).atDay(1); }
+        };
+
+        final DateTimeFormatter format;
+
+        Granularity(String pattern) {
+            this.format = DateTimeFormatter.ofPattern(pattern);
+        }
+
+        abstract LocalDate start(LocalDate day);
+        abstract LocalDate plus(LocalDate start, int periods);
+        abstract LocalDate parse(String suffix);
+    }
+
+    public enum RetentionAction { DETACH, ARCHIVE, DROP }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${imps.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${imps.partitions.retention-action:detach}")
+    private String retentionAction;
+
+    @Value("${imps.partitions.archive-schema:imps_archive}")
+    private String archiveSchema;
+
+    @Value("${imps.partitions.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    @Value("${imps.partitions.transaction.granularity:monthly}")
+    private String transactionGranularity;
+
+    @Value("${imps.partitions.transaction.ahead:2}")
+    private int transactionAhead;
+
+    @Value("${imps.partitions.transaction.retention:13}")
+    private int transactionRetention;
+
+    @Value("${imps.partitions.audit.granularity:daily}")
+    private String auditGranularity;
+
+    @Value("${imps.partitions.audit.ahead:7}")
+    private int auditAhead;
+
+    @Value("${imps.partitions.audit.retention:90}")
+    private int auditRetention;
+
+    private List<ManagedTable> tables;
+    private RetentionAction action;
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    /* ===== METRICS ===== */
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong retired = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        action = RetentionAction.valueOf(retentionAction.trim().toUpperCase());
+        tables = List.of(
+            new ManagedTable("transaction", Granularity.valueOf(transactionGranularity.trim().toUpperCase()),
+                transactionAhead, transactionRetention),
+            new ManagedTable("message_audit_log", Granularity.valueOf(auditGranularity.trim().toUpperCase()),
+                auditAhead, auditRetention));
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    @Scheduled(cron = "${imps.partitions.cron:0 15 0 * * *}")
+    public void scheduledMaintain() {
+        if (enabled) {
+            maintain();
+        }
+    }
+
+    /** One pass over both tables; also exposed as POST /imps/admin/partitions/run. */
+    public synchronized Map<String, Object> maintain() {
+        runs.incrementAndGet();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("ranAt", Instant.now().toString());
+        for (ManagedTable t : tables) {
+            try {
+                report.put(t.name, jdbcTemplate.execute((ConnectionCallback<Map<String, Object>>) con -> maintain(con, t)));
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                log.error("Partition maintenance of {} failed: {}", t.name, e.getMessage());
+                report.put(t.name, Map.of("error", String.valueOf(e.getMessage())));
+            }
+        }
+        lastRun = report;
+        return report;
+    }
+
+    private Map<String, Object> maintain(Connection con, ManagedTable t) throws SQLException {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (!"p".equals(queryString(con, "SELECT relkind::text FROM pg_class WHERE oid = to_regclass(?)", t.name))) {
+            out.put("partitioned", false);
+            return out;
+        }
+        out.put("partitioned", true);
+        List<String> made = new ArrayList<>();
+        List<String> gone = new ArrayList<>();
+        try (Statement st = con.createStatement()) {
+            // DDL on the parent queues behind long queries and blocks traffic while it waits; give up instead
+            st.execute("SET lock_timeout = " + lockTimeoutMs);
+            try {
+                LocalDate current = t.granularity.start(LocalDate.now());
+                for (int i = 0; i <= t.ahead; i++) {
+                    LocalDate from = t.granularity.plus(current, i);
+                    String partition = t.partitionName(from);
+                    if (queryString(con, "SELECT to_regclass(?)::text", partition) == null) {
+                        st.execute("CREATE TABLE " + partition + " PARTITION OF " + t.name
+                            + " FOR VALUES FROM ('" + from + "') TO ('" + t.granularity.plus(from, 1) + "')");
+                        made.add(partition);
+                        created.incrementAndGet();
+                        log.info("Partition {} created", partition);
+                    }
+                }
+
+                LocalDate cutoff = t.granularity.plus(current, -t.retention);
+                for (String partition : partitionsOf(con, t)) {
+                    LocalDate from = t.periodOf(partition);
+                    if (from != null && from.isBefore(cutoff)) {
+                        retire(st, t, partition);
+                        gone.add(partition);
+                        retired.incrementAndGet();
+                    }
+                }
+                if (!gone.isEmpty() && "transaction".equals(t.name)
+                        && queryString(con, "SELECT to_regclass(?)::text", "transaction_txn_id") != null) {
+                    int ids = st.executeUpdate("DELETE FROM transaction_txn_id WHERE txn_date < '" + cutoff + "'");
+                    out.put("txnIdsReleased", ids);
+                    log.info("{} txn_id claim(s) before {} released with the retired partitions", ids, cutoff);
+                }
+
+                String defaultPartition = t.name + "_default";
+                if (queryString(con, "SELECT to_regclass(?)::text", defaultPartition) != null) {
+                    boolean hasRows = "t".equals(queryString(con, "SELECT (EXISTS (SELECT 1 FROM " + defaultPartition + "))::text"));
+                    out.put("defaultHasRows", hasRows);
+                    if (hasRows) {
+                        log.warn("{} holds rows outside the managed partitions; creating a partition for their range will fail until they are moved",
+                            defaultPartition);
+                    }
+                }
+            } finally {
+                st.execute("RESET lock_timeout");
+            }
+        }
+        out.put("created", made);
+        out.put("retired", gone);
+        return out;
+    }
+
+    private void retire(Statement st, ManagedTable t, String partition) throws SQLException {
+        st.execute("ALTER TABLE " + t.name + " DETACH PARTITION " + partition);
+        switch (action) {
+            case ARCHIVE:
+                st.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+                st.execute("ALTER TABLE " + partition + " SET SCHEMA " + archiveSchema);
+                log.info("Partition {} detached and archived to schema {}", partition, archiveSchema);
+                break;
+            case DROP:
+                st.execute("DROP TABLE " + partition);
+                log.info("Partition {} detached and dropped", partition);
+                break;
+            default:
+                log.info("Partition {} detached", partition);
+        }
+    }
+
+    private List<String> partitionsOf(Connection con, ManagedTable t) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement ps = con.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = to_regclass(?)")) {
+            ps.setString(1, t.name);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    private static String queryString(Connection con, String sql, String... args) throws SQLException {
+        try (PreparedStatement ps = con.prepareStatement(sql)) {
+            for (int i = 0; i < args.length; i++) ps.setString(i + 1, args[i]);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("retentionAction", action.name().toLowerCase());
+        List<Map<String, Object>> config = new ArrayList<>();
+        for (ManagedTable t : tables) {
+            Map<String, Object> c = new LinkedHashMap<>();
+            c.put("table", t.name);
+            c.put("granularity", t.granularity.name().toLowerCase());
+            c.put("ahead", t.ahead);
+            c.put("retention", t.retention);
+            config.add(c);
+        }
+        m.put("tables", config);
+        m.put("runs", runs.get());
+        m.put("created", created.get());
+        m.put("retired", retired.get());
+        m.put("failures", failures.get());
+        m.put("lastRun", lastRun);
+        return m;
+    }
+
+    private static final class ManagedTable {
+        final String name;
+        final Granularity granularity;
+        final int ahead;
+        final int retention;
+        final Pattern ownPartition;
+
+        ManagedTable(String name, Granularity granularity, int ahead, int retention) {
+            this.name = name;
+            this.granularity = granularity;
+            this.ahead = ahead;
+            this.retention = retention;
+            this.ownPartition = Pattern.compile(Pattern.quote(name) + "_p(\\d{" + (granularity == Granularity.DAILY ? 8 : 6) + "})");
+        }
+
+        String partitionName(LocalDate from) {
+            return name + "_p" + from.format(granularity.format);
+        }
+
+        /** Start of the period a partition created by this manager covers; null for any other child table. */
+        LocalDate periodOf(String partition) {
+            Matcher m = ownPartition.matcher(partition);
+            return m.matches() ? granularity.parse(m.group(1)) : null;
+        }
+    }
+}
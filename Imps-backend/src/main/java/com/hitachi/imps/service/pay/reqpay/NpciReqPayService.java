@@ -1,6 +1,5 @@
 package com.hitachi.imps.service.pay.reqpay;
 
-import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -8,9 +7,12 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.client.SwitchClient;
 import com.hitachi.imps.converter.XmlToIsoConverter;
 import com.hitachi.imps.entity.TransactionEntity;
+import com.hitachi.imps.iso.ImpsIsoWriter;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling ReqPay requests from NPCI.
@@ -26,8 +28,8 @@ public class NpciReqPayService {
     @Autowired private XmlToIsoConverter xmlToIsoConverter;
     @Autowired private SwitchClient switchClient;
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
     @Autowired private TransactionService transactionService;
+    @Autowired private IsoCodecService isoCodec;
 
     @Async
     public void processAsync(String xml) {
@@ -49,59 +51,70 @@ public class NpciReqPayService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciReqPayService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
         process(xml, null);
     }
 
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_REQPAY_XML_IN", xml);
 
-        // 2. Create transaction record (use path txnId for whole flow)
-        TransactionEntity txn = transactionService.createRequest(txnId, xml);
-
         System.out.println("=== Processing NPCI ReqPay ===");
         System.out.println("MsgId: " + msgId);
         System.out.println("TxnId: " + txnId);
 
-        // 3. Convert XML to ISO 0200 (pass txnId so DE120 matches stored transaction for response lookup)
-        ISOMsg iso = xmlToIsoConverter.convertReqPay(xml, txnId);
+        // 2. Convert XML to ISO 0200 (pass txnId so DE120 matches stored transaction for response lookup);
+        //    the field table is packed directly, no jPOS ISOMsg is built
+        ImpsIsoWriter iso = new ImpsIsoWriter();
+        xmlToIsoConverter.convertReqPay(msg, txnId, iso);
 
-        // 4. Set DE fields in transaction for tracking
-        try {
-            if (iso.hasField(11)) txn.setDe11(iso.getString(11));
-            if (iso.hasField(37)) txn.setDe37(iso.getString(37));
-            if (iso.hasField(12)) txn.setDe12(iso.getString(12));
-            if (iso.hasField(13)) txn.setDe13(iso.getString(13));
-        } catch (Exception e) {
-            System.err.println("Error setting DE fields: " + e.getMessage());
-        }
+        // 3. Create transaction record (use path txnId for whole flow) with DE11/DE37/DE12/DE13 for tracking
+        TransactionEntity txn = transactionService.createRequest(msg, txnId, "PAY", iso);
 
-        // 5. Audit ISO message
+        // 4. Audit ISO message
         auditService.saveParsed(msgId, "SWITCH_REQPAY_ISO_OUT", iso);
 
         System.out.println("=== ISO Message Built ===");
         printIso(iso);
 
-        // 6. Mark ISO sent and send to Switch: POST /switch/reqpay/{txnId}
+        // 5. Mark ISO sent and send to Switch: POST /switch/reqpay/{txnId}
         transactionService.markIsoSent(txn);
         System.out.println("reqpay/" + txnId + " send to switch");
-        byte[] response = switchClient.sendReqPay(iso, txnId);
-        if (response != null)
-            System.out.println("switch ack receive of reqpay/" + txnId);
-
-        if (response == null) {
-            System.out.println("=== No Response from Switch ===");
-            transactionService.markFailure(txn, null);
-        }
+        switchClient.sendReqPayOrFailAsync(isoCodec.pack(iso), txnId).whenComplete((response, e) -> {
+            if (response != null)
+                System.out.println("switch ack receive of reqpay/" + txnId);
+
+            if (e != null && !SwitchClient.isDefiniteFailure(e)) {
+                // May have reached the Switch: leave ISO_SENT for ChkTxn to settle rather than fail it
+                System.out.println("=== ReqPay outcome unknown, left " + TransactionService.STATUS_ISO_SENT + " for ChkTxn ===");
+            } else if (response == null) {
+                System.out.println("=== No Response from Switch ===");
+                transactionService.markFailure(txn, null);
+            }
+        });
         // Audit: only 4 entries per flow. SWITCH_RESPPAY_ISO_IN and NPCI_RESPPAY_XML_OUT are logged in SwitchRespPayService when Switch posts response to /resppay
     }
 
-    private void printIso(ISOMsg iso) {
+    private void printIso(IsoFieldReader iso) {
         try {
             System.out.println("MTI: " + iso.getMTI());
             for (int i = 0; i <= 128; i++) {
@@ -8,6 +8,8 @@ import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.exception.CommonCodeValidationException;
 import com.hitachi.imps.exception.ReqPayValidationException;
+import com.hitachi.imps.service.iso.NpciXmlFields;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 import com.hitachi.imps.service.iso.XmlUtil;
 import com.hitachi.imps.service.validation.CommonCodeValidationService;
 import com.hitachi.imps.spec.NpciReqPayRules;
@@ -33,11 +35,22 @@ public class ReqPayValidationService {
      * @throws ReqPayValidationException if any rule fails
      */
     public void validate(String xml) throws ReqPayValidationException {
+        validate(ParsedNpciMessage.of(xml));
+    }
+
+    /**
+     * Validate a ReqPay already parsed at the HTTP edge (no re-read of the XML).
+     *
+     * @param msg parsed ReqPay request
+     * @throws ReqPayValidationException if any rule fails
+     */
+    public void validate(ParsedNpciMessage msg) throws ReqPayValidationException {
         ReqPayValidationException errors = new ReqPayValidationException();
+        NpciXmlFields fields = msg.getFields();
 
         // Apply common Head/Txn rules (019, 020, 021, 022) – same as for all request types
         try {
-            commonCodeValidationService.validateCommonHeadTxn(xml);
+            commonCodeValidationService.validateCommonHeadTxn(fields);
         } catch (CommonCodeValidationException e) {
             for (int i = 0; i < e.getRuleIds().size(); i++) {
                 errors.addError(
@@ -47,46 +60,46 @@ public class ReqPayValidationService {
             }
         }
 
-        Map<String, String> tags = XmlUtil.parseReqPay(xml);
+        Map<String, String> tags = XmlUtil.parseReqPay(fields);
 
         // Rule 029 – Payer @type PERSON | ENTITY
-        String payerType = XmlUtil.read(xml, "//*[local-name()='Payer']/@type");
+        String payerType = fields.attr("Payer", "type");
         if (payerType != null && !payerType.isBlank() && !NpciReqPayRules.isPayerPayeeTypeAllowed(payerType)) {
             errors.addError("029_Payer/Payee_Type", "Payer type must be PERSON or ENTITY; got: " + payerType);
         }
 
         // Rule 024 – Payer @code: 0000 for PERSON, 4-digit for ENTITY
-        String payerCode = XmlUtil.read(xml, "//*[local-name()='Payer']/@code");
+        String payerCode = fields.attr("Payer", "code");
         if (payerType != null && payerCode != null && !payerCode.isBlank() && !NpciReqPayRules.isPayerPayeeCodeValid(payerType, payerCode)) {
             errors.addError("024_Txn_code", "Payer code must be 0000 for PERSON or 4-digit MCC for ENTITY; got: " + payerCode);
         }
 
         // Rule 026 – Payer Info/Rating verifiedAddress TRUE | FALSE
-        String payerRating = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Rating']/@verifiedAddress");
+        String payerRating = fields.scoped("Payer", "Rating", "verifiedAddress");
         if (payerRating != null && !payerRating.isBlank() && !NpciReqPayRules.isInfoRatingAllowed(payerRating)) {
             errors.addError("026_Payer/Payee_InfoRating", "Rating verifiedAddress must be TRUE or FALSE; got: " + payerRating);
         }
 
         // Rule 029 – Payee @type
-        String payeeType = XmlUtil.read(xml, "//*[local-name()='Payee']/@type");
+        String payeeType = fields.attr("Payee", "type");
         if (payeeType != null && !payeeType.isBlank() && !NpciReqPayRules.isPayerPayeeTypeAllowed(payeeType)) {
             errors.addError("029_Payer/Payee_Type", "Payee type must be PERSON or ENTITY; got: " + payeeType);
         }
 
         // Rule 024 – Payee @code
-        String payeeCode = XmlUtil.read(xml, "//*[local-name()='Payee']/@code");
+        String payeeCode = fields.attr("Payee", "code");
         if (payeeType != null && payeeCode != null && !payeeCode.isBlank() && !NpciReqPayRules.isPayerPayeeCodeValid(payeeType, payeeCode)) {
             errors.addError("024_Txn_code", "Payee code must be 0000 for PERSON or 4-digit MCC for ENTITY; got: " + payeeCode);
         }
 
         // Rule 035 – Device Tag name=TYPE: allowed enum, length 1–20
-        String deviceType = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Device']//*[local-name()='Tag'][@name='TYPE']/@value");
+        String deviceType = fields.named("Payer/Device", "Tag", "TYPE");
         if (deviceType != null && !deviceType.isBlank() && !NpciReqPayRules.isDeviceTypeAllowed(deviceType.trim())) {
             errors.addError("035_ReqPay_DeviceDetails_type", "Device TYPE must be one of MOB, INET, WAP, IVR, ATM, BRC, MAT, SMS (length 1–20); got: " + deviceType);
         }
 
         // Rule 034 – Device Tag ID length 1–35 when present
-        String deviceId = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Device']//*[local-name()='Tag'][@name='cardAccIdCode']/@value");
+        String deviceId = fields.named("Payer/Device", "Tag", "cardAccIdCode");
         if (deviceId != null && !deviceId.isBlank()) {
             int len = deviceId.length();
             if (len < NpciReqPayRules.DEVICE_ID_MIN_LEN || len > NpciReqPayRules.DEVICE_ID_MAX_LEN) {
@@ -95,14 +108,14 @@ public class ReqPayValidationService {
         }
 
         // 8.2 – Head.prodType: UPI | IMPS | AEPS
-        String prodType = XmlUtil.read(xml, "//*[local-name()='Head']/@prodType");
+        String prodType = fields.attr("Head", "prodType");
         if (prodType != null && !prodType.isBlank() && !NpciReqPayRules.isProdTypeAllowed(prodType)) {
             errors.addError("8.2_prodType", "prodType must be one of: UPI, IMPS, AEPS; got: " + prodType);
         }
 
         // 8.1 Rule 052 – refCategory 00–09 when txnType is PAY or CREDIT
         String txnType = tags.get("txnType");
-        String refCategory = XmlUtil.read(xml, "//*[local-name()='Txn']/@refCategory");
+        String refCategory = fields.attr("Txn", "refCategory");
         if (refCategory != null && !refCategory.isBlank()
             && ("PAY".equals(txnType) || "CREDIT".equals(txnType))
             && !NpciReqPayRules.isRefCategoryAllowed(refCategory)) {
@@ -118,7 +131,7 @@ public class ReqPayValidationService {
         }
 
         // addrType: ACCOUNT → Rule 048 (IFSC 11-char, ACNUM max 30); MOBILE → Rule 049 (MOBNUM 12, MMID 7)
-        String payerAddrType = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Ac']/@addrType");
+        String payerAddrType = fields.scoped("Payer", "Ac", "addrType");
         if (payerAddrType == null || payerAddrType.isBlank()) {
             payerAddrType = "ACCOUNT"; // default when Ac present
         }
@@ -139,21 +152,21 @@ public class ReqPayValidationService {
                 }
             }
         } else if ("MOBILE".equalsIgnoreCase(payerAddrType)) {
-            String mobNum = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Detail'][@name='MOBNUM']/@value");
+            String mobNum = fields.named("Payer", "Detail", "MOBNUM");
             if (mobNum != null && !mobNum.isBlank()) {
                 String digits = mobNum.replaceAll("\\D", "");
                 if (digits.length() != NpciReqPayRules.MOBNUM_LENGTH) {
                     errors.addError("049_ReqPay_Ac_Name_Mobile", "MOBNUM must be +91 + 10 digits (12 digits); got: " + digits.length());
                 }
             }
-            String mmid = XmlUtil.read(xml, "//*[local-name()='Payer']//*[local-name()='Detail'][@name='MMID']/@value");
+            String mmid = fields.named("Payer", "Detail", "MMID");
             if (mmid != null && !mmid.isBlank() && (!DIGITS_ONLY.matcher(mmid).matches() || mmid.length() != NpciReqPayRules.MMID_LENGTH)) {
                 errors.addError("049_ReqPay_Ac_Name_Mobile", "MMID must be 7-digit numeric");
             }
         }
 
         // Payee addrType (same rules)
-        String payeeAddrType = XmlUtil.read(xml, "//*[local-name()='Payee']//*[local-name()='Ac']/@addrType");
+        String payeeAddrType = fields.scoped("Payee", "Ac", "addrType");
         if (payeeAddrType == null || payeeAddrType.isBlank()) payeeAddrType = "ACCOUNT";
         if ("ACCOUNT".equalsIgnoreCase(payeeAddrType)) {
             String ifsc = tags.get("payee_ifsc");
@@ -174,13 +187,13 @@ public class ReqPayValidationService {
         }
 
         // 8.1 Rule 042 – initiationMode "12" → Institution block mandatory (we only check type/route if present)
-        String initiationMode = XmlUtil.read(xml, "//*[local-name()='Txn']/@initiationMode");
+        String initiationMode = fields.attr("Txn", "initiationMode");
         if (NpciReqPayRules.INITIATION_MODE_FIR.equals(initiationMode)) {
-            String instType = XmlUtil.read(xml, "//*[local-name()='Institution']/@type");
+            String instType = fields.attr("Institution", "type");
             if (instType != null && !instType.isBlank() && !NpciReqPayRules.isInstitutionTypeAllowed(instType)) {
                 errors.addError("043_ReqPay_Institution_Type", "Institution type must be MTO or BANK; got: " + instType);
             }
-            String route = XmlUtil.read(xml, "//*[local-name()='Institution']/@route");
+            String route = fields.attr("Institution", "route");
             if (route != null && !route.isBlank() && !NpciReqPayRules.isRouteAllowed(route)) {
                 errors.addError("044_ReqPay_Institution_Route", "Institution route must be MTSS or RDA; got: " + route);
             }
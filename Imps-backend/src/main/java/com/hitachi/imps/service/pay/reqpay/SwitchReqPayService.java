@@ -1,5 +1,7 @@
 package com.hitachi.imps.service.pay.reqpay;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
@@ -61,17 +63,14 @@ public class SwitchReqPayService {
         System.out.println(xml);
 
         // 4. Send XML to NPCI Mock Client (dynamic URL /imps/reqpay/{txnId})
-        try {
-            String response = (txnId != null && !txnId.isBlank()) ? npciMockClient.sendReqPay(xml, txnId) : npciMockClient.sendReqPay(xml);
+        CompletableFuture<String> sent = (txnId != null && !txnId.isBlank()) ? npciMockClient.sendReqPayAsync(xml, txnId) : npciMockClient.sendReqPayAsync(xml);
+        sent.thenAccept(response -> {
             if (response != null) {
                 System.out.println("=== NPCI MOCK CLIENT ACK Received ===");
                 System.out.println(response);
             } else {
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
             }
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 }
@@ -1,17 +1,19 @@
 package com.hitachi.imps.service.pay.resppay;
 
-import org.jpos.iso.ISOMsg;
+import java.util.Optional;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.converter.IsoToXmlConverter;
-import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.entity.TransactionEntity;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.TransactionValidationService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.outbox.NpciOutbox;
 
 /**
  * Service for handling RespPay responses from Switch.
@@ -27,8 +29,9 @@ import com.hitachi.imps.util.IsoUtil;
 public class SwitchRespPayService {
 
     @Autowired private IsoToXmlConverter isoToXmlConverter;
-    @Autowired private NpciMockClient npciMockClient;
+    @Autowired private NpciOutbox outbox;
     @Autowired private MessageAuditService auditService;
+    @Autowired private IsoCodecService isoCodec;
     @Autowired private TransactionService transactionService;
     @Autowired private TransactionValidationService validationService;
 
@@ -57,8 +60,8 @@ public class SwitchRespPayService {
     }
 
     public void process(byte[] isoBytes, String pathTxnId) {
-        // 1. Unpack ISO to extract fields
-        ISOMsg iso = IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        // 1. Decode ISO once; the same fields feed the audit, validation and XML below
+        IsoFieldReader iso = isoCodec.read(isoBytes);
         
         String origTxnId = null;
         String respCode = null;
@@ -92,33 +95,45 @@ public class SwitchRespPayService {
         System.out.println("RRN (DE37): " + rrn);
 
         // 3. Convert ISO to XML first (so we can store it in transaction)
-        String xml = isoToXmlConverter.convertRespPayToXml(isoBytes);
+        String xml = isoToXmlConverter.convertRespPayToXml(iso);
+
+        // Outbound message for NPCI, stored in npci_outbox with the status update below
+        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
+        NpciOutbox.Message npciResponse = outbox.message("resppay", txnIdForNpci, xml);
 
         // 4. Update transaction status in database (with resp_xml and resp_out_date_time)
         // Use pathTxnId from callback URL first (same id IMPS used when sending to switch); fallback to DE120
         String lookupId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
+        boolean stored = false;
         try {
+            Optional<TransactionEntity> match;
             if (lookupId != null && !lookupId.isBlank()) {
-                transactionService.findOptionalByTxnId(lookupId).ifPresent(txn -> {
-                    // Perform transaction validation
-                    TransactionValidationService.ValidationResult validationResult =
-                        validationService.validateTransaction(iso, txn);
-                    if (!validationResult.isValid()) {
-                        System.out.println("=== VALIDATION WARNINGS ===");
-                        validationResult.getValidations().forEach((k, v) ->
-                            System.out.println("  " + k + ": " + v));
-                    }
-                    // Update transaction status and save response XML
-                    if ("00".equals(responseCode)) {
-                        transactionService.markSuccess(txn, xml, approvalNumber, null);
-                        System.out.println("=== Transaction marked SUCCESS ===");
-                    } else {
-                        transactionService.markFailure(txn, xml);
-                        System.out.println("=== Transaction marked FAILED (code: " + responseCode + ") ===");
-                    }
-                });
+                match = transactionService.findInFlight(lookupId);
+            } else if (iso.hasField(11) && iso.hasField(37) && iso.hasField(13)) {
+                System.out.println("=== No txnId (path or DE120), matching by DE11/DE37/DE13 ===");
+                match = transactionService.findInFlightByDe(iso.getString(11), iso.getString(37), iso.getString(13));
             } else {
-                System.out.println("=== WARNING: No txnId (path or DE120), cannot update transaction ===");
+                System.out.println("=== WARNING: No txnId (path or DE120) or DE11/DE37/DE13, cannot update transaction ===");
+                match = Optional.empty();
+            }
+            if (match.isPresent()) {
+                TransactionEntity txn = match.get();
+                // Perform transaction validation
+                TransactionValidationService.ValidationResult validationResult =
+                    validationService.validateTransaction(iso, txn);
+                if (!validationResult.isValid()) {
+                    System.out.println("=== VALIDATION WARNINGS ===");
+                    validationResult.getValidations().forEach((k, v) ->
+                        System.out.println("  " + k + ": " + v));
+                }
+                // Update transaction status and save response XML
+                if ("00".equals(responseCode)) {
+                    stored = transactionService.markSuccess(txn, xml, approvalNumber, null, npciResponse);
+                    System.out.println("=== Transaction marked SUCCESS ===");
+                } else {
+                    stored = transactionService.markFailure(txn, xml, npciResponse);
+                    System.out.println("=== Transaction marked FAILED (code: " + responseCode + ") ===");
+                }
             }
         } catch (Exception e) {
             System.err.println("Error updating transaction status: " + e.getMessage());
@@ -131,21 +146,11 @@ public class SwitchRespPayService {
         System.out.println("=== XML Response Message Built ===");
         System.out.println(xml);
 
-        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/resppay/{txnId})
-        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
-        try {
-            if (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("resppay/" + txnIdForNpci + " send to npci");
-            String response = (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                ? npciMockClient.sendRespPay(xml, txnIdForNpci)
-                : npciMockClient.sendRespPay(xml);
-            if (response != null && txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("npci ack receive for resppay/" + txnIdForNpci);
-            if (response == null && txnIdForNpci != null)
-                System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/resppay/{txnId}); retried from npci_outbox until
+        //    delivered, or sent once unstored when the status update was skipped (duplicate / late response)
+        if (txnIdForNpci != null && !txnIdForNpci.isBlank())
+            System.out.println("resppay/" + txnIdForNpci + " send to npci");
+        if (stored) outbox.send(npciResponse);
+        else outbox.sendUnstored(npciResponse);
     }
 }
@@ -0,0 +1,248 @@
+package com.hitachi.imps.service.payload;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Storage format of the payload columns (transaction.req_xml / resp_xml, message_audit_log.raw_message /
+ * parsed_message, all BYTEA). The first byte tells how the rest is stored:
+ * - 0x00 – UTF-8 text
+ * - 0x01 – UTF-8 text, raw deflate; next byte is the preset dictionary id (0 = none)
+ * - 0x02 – binary: a "BASE64:..." audit value stored as its decoded bytes
+ * - 0x03 – binary, raw deflate; next byte is the dictionary id
+ * - anything else – UTF-8 text with no header (rows converted from TEXT by imps_payload_compression.sql)
+ *
+ * Values shorter than imps.payload.compression.min-bytes, or that do not shrink, are stored uncompressed.
+ * Dictionaries are read from classpath payload/npci-dict-v&lt;id&gt;.txt; rows keep the id they were written
+ * with, so a dictionary file must never change once used - a new one gets the next id.
+ */
+@Component
+public class PayloadCodec {
+
+    static final byte TEXT = 0x00;
+    static final byte TEXT_DEFLATED = 0x01;
+    static final byte BINARY = 0x02;
+    static final byte BINARY_DEFLATED = 0x03;
+
+    private static final String BASE64_PREFIX = "BASE64:";
+
+    @Value("${imps.payload.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${imps.payload.compression.level:6}")
+    private int level;
+
+    @Value("${imps.payload.compression.min-bytes:128}")
+    private int minBytes;
+
+    @Value("${imps.payload.compression.dictionary:1}")
+    private int dictionaryId;
+
+    @Value("${imps.payload.compression.pool-size:16}")
+    private int poolSize;
+
+    private final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    // zlib streams are native and costly to create: up to pool-size of each are kept and reset between
+    // uses (not per thread: with virtual threads every task is a new thread); extras are end()ed
+    private ArrayBlockingQueue<Deflater> deflaters;
+    private ArrayBlockingQueue<Inflater> inflaters;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong encoded = new AtomicLong();
+    private final AtomicLong compressed = new AtomicLong();
+    private final AtomicLong decoded = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        if (dictionaryId < 0 || dictionaryId > 255) {
+            throw new IllegalStateException("imps.payload.compression.dictionary must be 0-255: " + dictionaryId);
+        }
+        // fail at startup, not on the first write, if the configured dictionary is missing
+        dictionary(dictionaryId);
+        deflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        inflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        System.out.println("=== Payload Codec: compression " + (enabled ? "on" : "off") + ", level " + level
+            + ", min " + minBytes + " bytes, dictionary " + dictionaryId + " ===");
+    }
+
+    /* ===============================
+       ENCODE (String → column bytes)
+       =============================== */
+    public byte[] encode(String value) {
+        if (value == null) return null;
+        byte tag = TEXT;
+        byte[] body = null;
+        if (value.startsWith(BASE64_PREFIX)) {
+            body = decodeBase64(value);
+            if (body != null) tag = BINARY;
+        }
+        if (body == null) {
+            body = value.getBytes(StandardCharsets.UTF_8);
+        }
+        encoded.incrementAndGet();
+        bytesIn.addAndGet(value.length());
+
+        byte[] out = null;
+        if (enabled && body.length >= minBytes) {
+            out = deflate(body, (byte) (tag | TEXT_DEFLATED));
+        }
+        if (out == null) {
+            out = new byte[body.length + 1];
+            out[0] = tag;
+            System.arraycopy(body, 0, out, 1, body.length);
+        } else {
+            compressed.incrementAndGet();
+        }
+        bytesOut.addAndGet(out.length);
+        return out;
+    }
+
+    /** Tag + dictionary id + deflated body, or null when that is not smaller than storing the body as is. */
+    private byte[] deflate(byte[] body, byte tag) {
+        Deflater d = deflaters.poll();
+        if (d == null) d = new Deflater(level, true);
+        try {
+            byte[] dict = dictionary(dictionaryId);
+            if (dict != null) d.setDictionary(dict);
+            d.setInput(body);
+            d.finish();
+            byte[] out = new byte[body.length + 1];
+            out[0] = tag;
+            out[1] = (byte) dictionaryId;
+            int n = 2;
+            while (!d.finished()) {
+                if (n == out.length) return null;
+                n += d.deflate(out, n, out.length - n);
+            }
+            return Arrays.copyOf(out, n);
+        } finally {
+            d.reset();
+            if (!deflaters.offer(d)) d.end();
+        }
+    }
+
+    /** The bytes behind a "BASE64:" value, or null if it would not come back identical. */
+    private static byte[] decodeBase64(String value) {
+        try {
+            byte[] bytes = Base64.getDecoder().decode(value.substring(BASE64_PREFIX.length()));
+            return Base64.getEncoder().encodeToString(bytes).length() == value.length() - BASE64_PREFIX.length() ? bytes : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /* ===============================
+       DECODE (column bytes → String)
+       =============================== */
+    public String decode(byte[] stored) {
+        if (stored == null) return null;
+        if (stored.length == 0) return "";
+        decoded.incrementAndGet();
+        switch (stored[0]) {
+            case TEXT:
+                return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+            case TEXT_DEFLATED:
+                return new String(inflate(stored), StandardCharsets.UTF_8);
+            case BINARY:
+                return BASE64_PREFIX + Base64.getEncoder().encodeToString(Arrays.copyOfRange(stored, 1, stored.length));
+            case BINARY_DEFLATED:
+                return BASE64_PREFIX + Base64.getEncoder().encodeToString(inflate(stored));
+            default:
+                return new String(stored, StandardCharsets.UTF_8);
+        }
+    }
+
+    /** True when the value is stored deflated (nothing left for the migration to gain). */
+    public boolean isCompressed(byte[] stored) {
+        return stored != null && stored.length > 1 && (stored[0] == TEXT_DEFLATED || stored[0] == BINARY_DEFLATED);
+    }
+
+    private byte[] inflate(byte[] stored) {
+        Inflater inf = inflaters.poll();
+        if (inf == null) inf = new Inflater(true);
+        try {
+            byte[] dict = dictionary(stored[1] & 0xff);
+            if (dict != null) inf.setDictionary(dict);
+            inf.setInput(stored, 2, stored.length - 2);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 4);
+            byte[] buf = new byte[Math.max(512, stored.length * 4)];
+            while (!inf.finished()) {
+                int n = inf.inflate(buf);
+                if (n == 0 && (inf.needsInput() || inf.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed payload");
+                }
+                out.write(buf, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed payload: " + e.getMessage(), e);
+        } finally {
+            inf.reset();
+            if (!inflaters.offer(inf)) inf.end();
+        }
+    }
+
+    /* ===============================
+       PRESET DICTIONARIES
+       =============================== */
+    private byte[] dictionary(int id) {
+        if (id == 0) return null;
+        return dictionaries.computeIfAbsent(id, PayloadCodec::loadDictionary);
+    }
+
+    private static byte[] loadDictionary(int id) {
+        ClassPathResource res = new ClassPathResource("payload/npci-dict-v" + id + ".txt");
+        try (InputStream in = res.getInputStream()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // a CRLF checkout must not change the dictionary rows were written with
+            byte[] dict = text.replace("\r", "").getBytes(StandardCharsets.UTF_8);
+            // deflate only looks back 32 KB; keep the tail, where the most common shapes are
+            return dict.length > 32768 ? Arrays.copyOfRange(dict, dict.length - 32768, dict.length) : dict;
+        } catch (IOException e) {
+            throw new IllegalStateException("Payload dictionary " + res.getPath() + " not found", e);
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        long in = bytesIn.get();
+        long out = bytesOut.get();
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", enabled);
+        m.put("level", level);
+        m.put("minBytes", minBytes);
+        m.put("dictionary", dictionaryId);
+        m.put("pooledDeflaters", deflaters.size());
+        m.put("pooledInflaters", inflaters.size());
+        m.put("encoded", encoded.get());
+        m.put("compressed", compressed.get());
+        m.put("decoded", decoded.get());
+        m.put("charsIn", in);
+        m.put("bytesStored", out);
+        m.put("ratio", out == 0 ? 0.0 : (double) in / out);
+        return m;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hitachi.imps.service.payload;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps a payload attribute (String in the entity) to its BYTEA column through {@link PayloadCodec}.
+ * Created by Hibernate through Spring's bean container, so the codec is injected.
+ */
+@Converter
+public class PayloadConverter implements AttributeConverter<String, byte[]> {
+
+    @Autowired
+    private PayloadCodec codec;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String attribute) {
+        return codec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] dbData) {
+        return codec.decode(dbData);
+    }
+}
@@ -0,0 +1,175 @@
+package com.hitachi.imps.service.payload;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Rewrites payload columns that are not yet compressed (rows converted from TEXT by
+ * imps_payload_compression.sql, or written with compression off) in the {@link PayloadCodec} format.
+ *
+ * Works in id order from a cursor, a page at a time, so it can be run in slices against a live table
+ * (POST /imps/admin/payload/migrate). A row is only rewritten if its payloads are still the bytes that
+ * were read, so a concurrent status update (resp_xml) is never overwritten.
+ */
+@Component
+public class PayloadMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(PayloadMigrator.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    /** Payload table → partition key and payload columns. */
+    private static final Map<String, String[]> TABLES = Map.of(
+        "transaction", new String[] { "txn_date", "req_xml", "resp_xml" },
+        "message_audit_log", new String[] { "created_at", "raw_message", "parsed_message" });
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private PayloadCodec codec;
+
+    private volatile Map<String, String> columnTypes = Map.of();
+
+    /* ===== METRICS ===== */
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong rewritten = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong bytesBefore = new AtomicLong();
+    private final AtomicLong bytesAfter = new AtomicLong();
+
+    /** The entities map these columns as BYTEA; a database still on TEXT fails every insert, so say so early. */
+    @PostConstruct
+    public void checkColumns() {
+        try {
+            Map<String, String> types = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT table_name, column_name, data_type FROM information_schema.columns"
+                    + " WHERE table_schema = current_schema() AND (table_name, column_name) IN"
+                    + " (('transaction', 'req_xml'), ('transaction', 'resp_xml'),"
+                    + " ('message_audit_log', 'raw_message'), ('message_audit_log', 'parsed_message'))",
+                rs -> { types.put(rs.getString(1) + "." + rs.getString(2), rs.getString(3)); });
+            columnTypes = types;
+            types.forEach((column, type) -> {
+                if (!"bytea".equals(type)) {
+                    log.error("{} is {}, not bytea: run imps_payload_compression.sql before writing payloads", column, type);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Payload column check skipped: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Migrate up to {@code limit} rows of {@code table} with id &gt; {@code afterId}.
+     * The result's nextAfterId is the cursor for the next call; done = true once the table end is reached.
+     */
+    public Map<String, Object> migrate(String table, long afterId, int limit) {
+        String[] cols = TABLES.get(table);
+        if (cols == null) {
+            throw new IllegalArgumentException("Unknown payload table: " + table + " (expected one of " + TABLES.keySet() + ")");
+        }
+        String select = "SELECT id, " + cols[0] + ", " + cols[1] + ", " + cols[2] + " FROM " + table
+            + " WHERE id > ? ORDER BY id LIMIT ?";
+        String update = "UPDATE " + table + " SET " + cols[1] + " = ?, " + cols[2] + " = ?"
+            + " WHERE id = ? AND " + cols[0] + " = ?"
+            + " AND " + cols[1] + " IS NOT DISTINCT FROM ? AND " + cols[2] + " IS NOT DISTINCT FROM ?";
+
+        limit = Math.max(1, limit);
+        long cursor = afterId;
+        int rows = 0;
+        int changed = 0;
+        long before = 0;
+        long after = 0;
+        boolean done = false;
+        while (rows < limit) {
+            int page = Math.min(PAGE_SIZE, limit - rows);
+            long from = cursor;
+            List<Object[]> read = limiter.db(() -> jdbcTemplate.query(select,
+                (rs, i) -> new Object[] { rs.getLong(1), rs.getObject(2), rs.getBytes(3), rs.getBytes(4) }, from, page));
+            List<Object[]> updates = new ArrayList<>();
+            for (Object[] r : read) {
+                byte[] a = (byte[]) r[2];
+                byte[] b = (byte[]) r[3];
+                byte[] a2 = recode(a);
+                byte[] b2 = recode(b);
+                if (a2 != a || b2 != b) {
+                    updates.add(new Object[] { a2, b2, r[0], r[1], a, b });
+                    before += length(a) + length(b);
+                    after += length(a2) + length(b2);
+                }
+            }
+            if (!updates.isEmpty()) {
+                int[] counts = limiter.db(() -> jdbcTemplate.batchUpdate(update, updates));
+                int applied = (int) Arrays.stream(counts).filter(c -> c != 0).count();
+                changed += applied;
+                conflicts.addAndGet(updates.size() - applied);
+            }
+            rows += read.size();
+            if (!read.isEmpty()) {
+                cursor = (Long) read.get(read.size() - 1)[0];
+            }
+            if (read.size() < page) {
+                done = true;
+                break;
+            }
+        }
+        scanned.addAndGet(rows);
+        rewritten.addAndGet(changed);
+        bytesBefore.addAndGet(before);
+        bytesAfter.addAndGet(after);
+        log.info("Payload migration {}: ids {}..{}, {} row(s) scanned, {} rewritten, {} -> {} bytes{}",
+            table, afterId + 1, cursor, rows, changed, before, after, done ? " (done)" : "");
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("table", table);
+        out.put("scanned", rows);
+        out.put("rewritten", changed);
+        out.put("bytesBefore", before);
+        out.put("bytesAfter", after);
+        out.put("nextAfterId", cursor);
+        out.put("done", done);
+        return out;
+    }
+
+    /** The compressed form of a stored value, or the same array when there is nothing to gain. */
+    private byte[] recode(byte[] stored) {
+        if (stored == null || codec.isCompressed(stored)) return stored;
+        byte[] recoded = codec.encode(codec.decode(stored));
+        return recoded.length < stored.length ? recoded : stored;
+    }
+
+    private static int length(byte[] b) {
+        return b == null ? 0 : b.length;
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("columnTypes", columnTypes);
+        m.put("scanned", scanned.get());
+        m.put("rewritten", rewritten.get());
+        m.put("conflicts", conflicts.get());
+        m.put("bytesBefore", bytesBefore.get());
+        m.put("bytesAfter", bytesAfter.get());
+        return m;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hitachi.imps.service.query;
+
+import java.time.LocalDate;
+
+/**
+ * Filters of a transaction query. Null / blank = not filtered; txn_date is always bounded
+ * (see {@link TransactionQueryService}) so only the partitions in range are read.
+ */
+public class TransactionFilter {
+
+    private final String status;
+    private final String txnType;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String de37;
+    private final String de11;
+
+    public TransactionFilter(String status, String txnType, LocalDate from, LocalDate to, String de37, String de11) {
+        this.status = blankToNull(status);
+        this.txnType = blankToNull(txnType);
+        this.from = from;
+        this.to = to;
+        this.de37 = blankToNull(de37);
+        this.de11 = blankToNull(de11);
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+
+    public String getStatus() { return status; }
+    public String getTxnType() { return txnType; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public String getDe37() { return de37; }
+    public String getDe11() { return de11; }
+}
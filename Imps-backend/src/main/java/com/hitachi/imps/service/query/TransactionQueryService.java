@@ -0,0 +1,168 @@
+package com.hitachi.imps.service.query;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Read-only browsing of the transaction table for ops (GET /imps/admin/transactions).
+ *
+ * Rows come back newest first as {@link TransactionSummary} (no XML columns) and are paged by keyset:
+ * each page ends with a cursor &lt;txn_date&gt;:&lt;id&gt; and the next page continues strictly after it,
+ * so a page costs the same wherever it is in the range and rows inserted meanwhile do not shift pages.
+ * txn_date is always bounded (imps.txn-query.default-days back from today when not given) so only
+ * the partitions in range are scanned. Indexes: idx_transaction_browse (txn_date, id, covering the
+ * summary columns), idx_transaction_status_date, idx_transaction_type_date, idx_transaction_de37_date
+ * and idx_transaction_de11_de37_de13.
+ */
+@Service
+public class TransactionQueryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionQueryService.class);
+
+    /** Rows per query while exporting. */
+    private static final int EXPORT_PAGE_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Value("${imps.txn-query.default-days:7}")
+    private int defaultDays;
+
+    @Value("${imps.txn-query.max-limit:500}")
+    private int maxLimit;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * One page of matching rows after {@code cursor} (null = from the newest).
+     * nextCursor is null on the last page.
+     */
+    public Map<String, Object> page(TransactionFilter filter, String cursor, int limit) {
+        LocalDate[] range = range(filter);
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        List<TransactionSummary> rows = fetch(filter, range, parseCursor(cursor), size + 1);
+        boolean more = rows.size() > size;
+        if (more) {
+            rows = rows.subList(0, size);
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("from", range[0].toString());
+        out.put("to", range[1].toString());
+        out.put("count", rows.size());
+        out.put("nextCursor", more ? rows.get(rows.size() - 1).cursor() : null);
+        out.put("items", rows);
+        return out;
+    }
+
+    /**
+     * Write every matching row to {@code out} as NDJSON (one JSON object per line), newest first.
+     * Reads page by page with the same keyset as {@link #page}, so memory stays flat for any range.
+     * @return rows written
+     */
+    public long export(TransactionFilter filter, OutputStream out) throws IOException {
+        LocalDate[] range = range(filter);
+        long written = 0;
+        Object[] after = null;
+        while (true) {
+            List<TransactionSummary> rows = fetch(filter, range, after, EXPORT_PAGE_SIZE);
+            for (TransactionSummary row : rows) {
+                out.write(mapper.writeValueAsBytes(row));
+                out.write('\n');
+            }
+            out.flush();
+            written += rows.size();
+            if (rows.size() < EXPORT_PAGE_SIZE) {
+                break;
+            }
+            TransactionSummary last = rows.get(rows.size() - 1);
+            after = new Object[] { LocalDate.parse(last.getTxnDate()), last.getId() };
+        }
+        log.info("Transaction export {}..{}: {} row(s)", range[0], range[1], written);
+        return written;
+    }
+
+    /* ===============================
+       QUERY
+       =============================== */
+
+    private List<TransactionSummary> fetch(TransactionFilter f, LocalDate[] range, Object[] after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(TransactionSummary.COLUMNS)
+            .append(" FROM transaction WHERE txn_date BETWEEN ? AND ?");
+        List<Object> args = new ArrayList<>();
+        args.add(range[0]);
+        args.add(range[1]);
+        if (f.getStatus() != null) {
+            sql.append(" AND switch_status = ?");
+            args.add(f.getStatus());
+        }
+        if (f.getTxnType() != null) {
+            sql.append(" AND txn_type = ?");
+            args.add(f.getTxnType());
+        }
+        if (f.getDe37() != null) {
+            sql.append(" AND de37 = ?");
+            args.add(f.getDe37());
+        }
+        if (f.getDe11() != null) {
+            sql.append(" AND de11 = ?");
+            args.add(f.getDe11());
+        }
+        if (after != null) {
+            sql.append(" AND (txn_date, id) < (?, ?)");
+            args.add(after[0]);
+            args.add(after[1]);
+        }
+        sql.append(" ORDER BY txn_date DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return limiter.db(() -> jdbcTemplate.query(sql.toString(), (rs, i) -> new TransactionSummary(rs), args.toArray()));
+    }
+
+    /**
+     * The filter with its txn_date range filled in (the last imps.txn-query.default-days days by default).
+     * @throws IllegalArgumentException if from is after to
+     */
+    public TransactionFilter resolve(TransactionFilter f) {
+        LocalDate[] range = range(f);
+        return new TransactionFilter(f.getStatus(), f.getTxnType(), range[0], range[1], f.getDe37(), f.getDe11());
+    }
+
+    private LocalDate[] range(TransactionFilter f) {
+        LocalDate to = f.getTo() != null ? f.getTo() : LocalDate.now();
+        LocalDate from = f.getFrom() != null ? f.getFrom() : to.minusDays(Math.max(1, defaultDays) - 1);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from (" + from + ") is after to (" + to + ")");
+        }
+        return new LocalDate[] { from, to };
+    }
+
+    /** &lt;txn_date&gt;:&lt;id&gt; → { LocalDate, Integer }, or null for the first page. */
+    private static Object[] parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int sep = cursor.lastIndexOf(':');
+        try {
+            return new Object[] { LocalDate.parse(cursor.substring(0, sep)), Integer.valueOf(cursor.substring(sep + 1)) };
+        } catch (DateTimeParseException | IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
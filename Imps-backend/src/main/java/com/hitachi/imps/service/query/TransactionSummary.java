@@ -0,0 +1,62 @@
+package com.hitachi.imps.service.query;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One transaction row without req_xml / resp_xml, as returned by {@link TransactionQueryService}.
+ * Every column is in idx_transaction_browse, so a date-range browse is answered from the index.
+ */
+public class TransactionSummary {
+
+    /** Columns read, in this order. */
+    static final String COLUMNS = "id, txn_date, txn_id, txn_type, switch_status, npci_txn_id,"
+        + " de11, de37, de13, approval_number, req_in_date_time, resp_in_date_time";
+
+    private final Integer id;
+    private final String txnDate;
+    private final String txnId;
+    private final String txnType;
+    private final String switchStatus;
+    private final String npciTxnId;
+    private final String de11;
+    private final String de37;
+    private final String de13;
+    private final String approvalNumber;
+    private final String reqInDateTime;
+    private final String respInDateTime;
+
+    TransactionSummary(ResultSet rs) throws SQLException {
+        this.id = rs.getInt(1);
+        this.txnDate = rs.getDate(2).toLocalDate().toString();
+        this.txnId = rs.getString(3);
+        this.txnType = rs.getString(4);
+        this.switchStatus = rs.getString(5);
+        this.npciTxnId = rs.getString(6);
+        this.de11 = rs.getString(7);
+        this.de37 = rs.getString(8);
+        this.de13 = rs.getString(9);
+        this.approvalNumber = rs.getString(10);
+        this.reqInDateTime = rs.getString(11);
+        this.respInDateTime = rs.getString(12);
+    }
+
+    /** Keyset position of this row: &lt;txn_date&gt;:&lt;id&gt;. */
+    public String cursor() {
+        return txnDate + ":" + id;
+    }
+
+    /* ===== GETTERS ===== */
+    public Integer getId() { return id; }
+    public String getTxnDate() { return txnDate; }
+    public String getTxnId() { return txnId; }
+    public String getTxnType() { return txnType; }
+    public String getSwitchStatus() { return switchStatus; }
+    public String getNpciTxnId() { return npciTxnId; }
+    public String getDe11() { return de11; }
+    public String getDe37() { return de37; }
+    public String getDe13() { return de13; }
+    public String getApprovalNumber() { return approvalNumber; }
+    public String getReqInDateTime() { return reqInDateTime; }
+    public String getRespInDateTime() { return respInDateTime; }
+}
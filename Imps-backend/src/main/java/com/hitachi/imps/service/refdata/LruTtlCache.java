@@ -0,0 +1,114 @@
+package com.hitachi.imps.service.refdata;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Size-bounded read-through cache: least recently used entries are evicted beyond maxEntries and
+ * entries expire after a TTL. An absent value ({@code Optional.empty()}) is cached too, with its own
+ * (normally shorter) TTL, so repeated lookups of an unknown key do not each reach the DB.
+ *
+ * The loader runs outside the lock; two threads missing the same key may both load it.
+ */
+public class LruTtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Map<K, Entry<V>> map;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    public LruTtlCache(int maxEntries, long ttlMs, long negativeTtlMs) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruTtlCache.this.maxEntries) {
+                    evicted.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /** Cached value for key, or loader's result (cached) on a miss or after expiry. */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long now = System.nanoTime();
+        synchronized (map) {
+            Entry<V> e = map.get(key);
+            if (e != null) {
+                if (now - e.expiresAtNanos < 0) {
+                    hits.incrementAndGet();
+                    return e.value;
+                }
+                map.remove(key);
+                expired.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        Optional<V> value = loader.apply(key);
+        long ttl = value.isPresent() ? ttlNanos : negativeTtlNanos;
+        if (ttl > 0) {
+            synchronized (map) {
+                map.put(key, new Entry<>(value, System.nanoTime() + ttl));
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("maxEntries", maxEntries);
+        m.put("ttlMs", TimeUnit.NANOSECONDS.toMillis(ttlNanos));
+        m.put("negativeTtlMs", TimeUnit.NANOSECONDS.toMillis(negativeTtlNanos));
+        m.put("size", size());
+        m.put("hits", hits.get());
+        m.put("misses", misses.get());
+        m.put("expired", expired.get());
+        m.put("evicted", evicted.get());
+        return m;
+    }
+
+    private static final class Entry<V> {
+        final Optional<V> value;
+        final long expiresAtNanos;
+
+        Entry(Optional<V> value, long expiresAtNanos) {
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.hitachi.imps.service.refdata;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.entity.AccountMaster;
+import com.hitachi.imps.entity.InstitutionMaster;
+import com.hitachi.imps.repository.AccountMasterRepository;
+import com.hitachi.imps.repository.InstitutionMasterRepository;
+import com.hitachi.imps.spec.NpciReqPayRules;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory copy of the reference data read on every message, so steady-state traffic does not query it:
+ * - institution_master: loaded whole into an immutable snapshot (IFSC → institution, active list, BPC set)
+ *   and reloaded every imps.refdata.refresh-ms, or at once through POST /imps/admin/refdata/refresh;
+ * - account_master: too large to load, so payee lookups go through a bounded LRU with a TTL
+ *   (not-found results are kept for a shorter TTL).
+ *
+ * Returned entities are shared between threads and must not be modified.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    private static final String ACTIVE = "ACTIVE";
+    private static final String IMPS_Y = "Y";
+
+    @Autowired
+    private InstitutionMasterRepository institutionRepo;
+
+    @Autowired
+    private AccountMasterRepository accountRepo;
+
+    @Value("${imps.refdata.account-cache.max-entries:50000}")
+    private int accountMaxEntries;
+
+    @Value("${imps.refdata.account-cache.ttl-ms:300000}")
+    private long accountTtlMs;
+
+    @Value("${imps.refdata.account-cache.negative-ttl-ms:30000}")
+    private long accountNegativeTtlMs;
+
+    private volatile Snapshot snapshot;
+    private LruTtlCache<String, AccountMaster> accounts;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private volatile LocalDateTime lastRefresh;
+    private volatile String lastError;
+
+    @PostConstruct
+    public void init() {
+        accounts = new LruTtlCache<>(accountMaxEntries, accountTtlMs, accountNegativeTtlMs);
+        try {
+            refresh();
+        } catch (Exception e) {
+            // first lookup loads it instead
+            log.warn("Reference data not loaded at startup: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(
+        initialDelayString = "${imps.refdata.refresh-ms:60000}",
+        fixedDelayString = "${imps.refdata.refresh-ms:60000}"
+    )
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            // keep serving the previous snapshot
+            log.warn("Reference data refresh failed, keeping snapshot from {}: {}", lastRefresh, e.getMessage());
+        }
+    }
+
+    /* ===============================
+       REFRESH
+       =============================== */
+
+    /** Reload institution_master and drop cached accounts. */
+    public synchronized Map<String, Object> refresh() {
+        try {
+            Snapshot s = new Snapshot(institutionRepo.findAll());
+            snapshot = s;
+            accounts.clear();
+            refreshes.incrementAndGet();
+            lastRefresh = LocalDateTime.now();
+            lastError = null;
+            log.debug("Reference data loaded: {} institution(s), {} active", s.byIfsc.size(), s.active.size());
+        } catch (RuntimeException e) {
+            refreshFailures.incrementAndGet();
+            lastError = e.getMessage();
+            throw e;
+        }
+        return stats();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    refresh();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    /* ===============================
+       INSTITUTIONS
+       =============================== */
+
+    /** Institution with this IFSC, active or not (as findByIfscCode). */
+    public Optional<InstitutionMaster> institutionByIfsc(String ifsc) {
+        if (ifsc == null) return Optional.empty();
+        return Optional.ofNullable(snapshot().byIfsc.get(ifsc));
+    }
+
+    /** Active institutions in id order. */
+    public List<InstitutionMaster> activeInstitutions() {
+        return snapshot().active;
+    }
+
+    /** First active institution for a request_org_id (as findFirstByRequestOrgIdAndActiveTrueOrderByIdAsc). */
+    public Optional<InstitutionMaster> firstActiveForOrg(String requestOrgId) {
+        if (requestOrgId == null) return Optional.empty();
+        return Optional.ofNullable(snapshot().firstActiveByOrg.get(requestOrgId));
+    }
+
+    /** True if bpc is the first 3 chars of an active bank_code (as existsByBpc). */
+    public boolean isActiveBpc(String bpc) {
+        return bpc != null && snapshot().bpcs.contains(bpc);
+    }
+
+    /* ===============================
+       ACCOUNTS
+       =============================== */
+
+    /** ACTIVE, IMPS-enabled account (as findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled). */
+    public Optional<AccountMaster> activeAccount(String accountNumber, String ifsc) {
+        if (accountNumber == null || ifsc == null) return Optional.empty();
+        return accounts.get(accountNumber + "|" + ifsc,
+            k -> accountRepo.findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled(accountNumber, ifsc, ACTIVE, IMPS_Y));
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        Snapshot s = snapshot;
+        m.put("institutions", s != null ? s.byIfsc.size() : 0);
+        m.put("activeInstitutions", s != null ? s.active.size() : 0);
+        m.put("bpcs", s != null ? s.bpcs.size() : 0);
+        m.put("refreshes", refreshes.get());
+        m.put("refreshFailures", refreshFailures.get());
+        m.put("lastRefresh", lastRefresh);
+        m.put("lastError", lastError);
+        m.put("accounts", accounts.stats());
+        return m;
+    }
+
+    /** One load of institution_master, indexed the way it is looked up. Never modified after construction. */
+    private static final class Snapshot {
+        final Map<String, InstitutionMaster> byIfsc = new HashMap<>();
+        final Map<String, InstitutionMaster> firstActiveByOrg = new HashMap<>();
+        final Set<String> bpcs = new HashSet<>();
+        final List<InstitutionMaster> active;
+
+        Snapshot(List<InstitutionMaster> all) {
+            List<InstitutionMaster> rows = new ArrayList<>(all);
+            rows.sort(Comparator.comparing(InstitutionMaster::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+            List<InstitutionMaster> act = new ArrayList<>();
+            for (InstitutionMaster inst : rows) {
+                if (inst.getIfscCode() != null) {
+                    byIfsc.putIfAbsent(inst.getIfscCode(), inst);
+                }
+                if (!Boolean.TRUE.equals(inst.getActive())) continue;
+                act.add(inst);
+                if (inst.getRequestOrgId() != null) {
+                    firstActiveByOrg.putIfAbsent(inst.getRequestOrgId(), inst);
+                }
+                String bankCode = inst.getBankCode();
+                if (bankCode != null && bankCode.length() >= NpciReqPayRules.BPC_LENGTH) {
+                    bpcs.add(bankCode.substring(0, NpciReqPayRules.BPC_LENGTH));
+                }
+            }
+            active = Collections.unmodifiableList(act);
+        }
+    }
+}
@@ -1,19 +1,20 @@
 package com.hitachi.imps.service.routing;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import com.hitachi.imps.client.OutboundHttpClient;
 import com.hitachi.imps.config.RoutingConfig;
 import com.hitachi.imps.entity.InstitutionMaster;
-import com.hitachi.imps.repository.InstitutionMasterRepository;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.limit.DownstreamLimiter.Downstream;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
+import com.hitachi.imps.socket.SocketTransport;
 
 /**
  * Service for routing messages between NPCI and Switch.
@@ -26,65 +27,65 @@ public class RoutingService {
     private RoutingConfig routingConfig;
 
     @Autowired
-    private InstitutionMasterRepository institutionRepo;
+    private ReferenceDataCache refData;
 
-    private final RestTemplate rest = new RestTemplate();
+    @Autowired
+    private IsoCodecService isoCodec;
+
+    @Autowired
+    private OutboundHttpClient http;
+
+    @Autowired
+    private DownstreamLimiter limiter;
+
+    @Autowired
+    private SocketTransport sockets;
 
     /**
      * Send ISO message to Switch
      */
     public byte[] sendToSwitch(String endpointKey, ISOMsg iso) {
-        String url = routingConfig.getSwitch().getFullUrl(endpointKey);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-
-        HttpEntity<byte[]> request = new HttpEntity<>(IsoUtil.pack(iso), headers);
-
-        try {
-            return rest.postForObject(url, request, byte[].class);
-        } catch (Exception e) {
-            System.err.println("Switch send failed [" + endpointKey + "]: " + e.getMessage());
-            return null;
-        }
+        return sendToSwitchAsync(endpointKey, isoCodec.pack(iso)).join();
     }
 
     /**
      * Send ISO bytes to Switch
      */
     public byte[] sendToSwitch(String endpointKey, byte[] isoBytes) {
-        String url = routingConfig.getSwitch().getFullUrl(endpointKey);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-
-        HttpEntity<byte[]> request = new HttpEntity<>(isoBytes, headers);
+        return sendToSwitchAsync(endpointKey, isoBytes).join();
+    }
 
-        try {
-            return rest.postForObject(url, request, byte[].class);
-        } catch (Exception e) {
-            System.err.println("Switch send failed [" + endpointKey + "]: " + e.getMessage());
-            return null;
-        }
+    /**
+     * Send ISO bytes to Switch without waiting; completes with null on failure.
+     */
+    public CompletableFuture<byte[]> sendToSwitchAsync(String endpointKey, byte[] isoBytes) {
+        String url = routingConfig.getSwitch().getFullUrl(endpointKey);
+        return limiter.async(Downstream.SWITCH, () -> sockets.isEnabled()
+                ? sockets.sendToSwitch(url, isoBytes)
+                : http.post(url, OutboundHttpClient.APPLICATION_OCTET_STREAM, isoBytes))
+            .exceptionally(e -> {
+                System.err.println("Switch send failed [" + endpointKey + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
     }
 
     /**
      * Send XML to NPCI
      */
     public String sendToNpci(String endpointKey, String xml) {
-        String url = routingConfig.getNpci().getFullUrl(endpointKey);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_XML);
-
-        HttpEntity<String> request = new HttpEntity<>(xml, headers);
+        return sendToNpciAsync(endpointKey, xml).join();
+    }
 
-        try {
-            return rest.postForObject(url, request, String.class);
-        } catch (Exception e) {
-            System.err.println("NPCI send failed [" + endpointKey + "]: " + e.getMessage());
-            return null;
-        }
+    /**
+     * Send XML to NPCI without waiting; completes with null on failure.
+     */
+    public CompletableFuture<String> sendToNpciAsync(String endpointKey, String xml) {
+        String url = routingConfig.getNpci().getFullUrl(endpointKey);
+        return limiter.async(Downstream.NPCI, () -> sockets.isEnabled() ? sockets.sendToNpci(url, xml) : http.postXml(url, xml))
+            .exceptionally(e -> {
+                System.err.println("NPCI send failed [" + endpointKey + "]: " + OutboundHttpClient.describe(e));
+                return null;
+            });
     }
 
     /**
@@ -98,7 +99,7 @@ public class RoutingService {
         // Extract first 4 characters for bank identification
         String bankPrefix = payeeIfsc.length() >= 4 ? payeeIfsc.substring(0, 4) : payeeIfsc;
 
-        Optional<InstitutionMaster> institution = institutionRepo.findByIfscCode(payeeIfsc);
+        Optional<InstitutionMaster> institution = refData.institutionByIfsc(payeeIfsc);
 
         return institution.orElse(null);
     }
@@ -15,10 +15,11 @@ import com.hitachi.imps.client.SwitchClient;
 import com.hitachi.imps.converter.XmlToIsoConverter;
 import com.hitachi.imps.entity.AccountMaster;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.repository.AccountMasterRepository;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
 import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.service.refdata.ReferenceDataCache;
 
 /**
  * Service for handling ReqValAdd (Name Enquiry) requests from NPCI.
@@ -31,7 +32,7 @@ public class NpciReqValAddService {
     @Autowired private XmlToIsoConverter xmlToIsoConverter;
     @Autowired private SwitchClient switchClient;
     @Autowired private NpciMockClient npciMockClient;
-    @Autowired private AccountMasterRepository accountRepo;
+    @Autowired private ReferenceDataCache refData;
     @Autowired private MessageAuditService auditService;
     @Autowired private XmlParsingService xmlParsingService;
     @Autowired private TransactionService transactionService;
@@ -56,6 +57,17 @@ public class NpciReqValAddService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciReqValAddService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     @Transactional
     public void process(String xml) {
         process(xml, null);
@@ -63,9 +75,14 @@ public class NpciReqValAddService {
 
     @Transactional
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    @Transactional
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_REQVALADD_XML_IN", xml);
@@ -74,7 +91,7 @@ public class NpciReqValAddService {
         System.out.println("MsgId: " + msgId);
 
         // 2. Parse request
-        Map<String, String> parsed = xmlParsingService.parseReqValAdd(xml);
+        Map<String, String> parsed = xmlParsingService.parseReqValAdd(msg);
         String acNum = parsed.get("ACNUM");
         String ifsc = parsed.get("IFSC");
 
@@ -83,38 +100,35 @@ public class NpciReqValAddService {
         // 3. Try to validate locally first
         String respXml;
         if (acNum != null && ifsc != null) {
-            AccountMaster acc = accountRepo
-                .findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled(
-                    acNum.trim(),
-                    ifsc.trim().toUpperCase(),
-                    "ACTIVE",
-                    "Y"
-                )
+            AccountMaster acc = refData
+                .activeAccount(acNum.trim(), ifsc.trim().toUpperCase())
                 .orElse(null);
 
             if (acc != null) {
                 // Found locally - create txn row and mark SUCCESS so transaction table is updated
-                TransactionEntity txn = transactionService.createRequest(txnId, xml, "VALADD");
+                TransactionEntity txn = transactionService.createRequest(msg, txnId, "VALADD", null);
                 respXml = buildSuccessResponse(msgId, acc.getAccountHolderName(), acNum, ifsc);
                 transactionService.markSuccess(txn, respXml, null, null);
                 System.out.println("=== Account Found Locally (txn updated) ===");
             } else {
                 // Not found locally - forward to Switch
                 System.out.println("=== Account Not Found Locally - Forwarding to Switch ===");
-                TransactionEntity txn = transactionService.createRequest(txnId, xml, "VALADD");
-                ISOMsg iso = xmlToIsoConverter.convertReqValAdd(xml);
+                TransactionEntity txn = transactionService.createRequest(msg, txnId, "VALADD", null);
+                ISOMsg iso = xmlToIsoConverter.convertReqValAdd(msg);
                 auditService.saveParsed(msgId, "SWITCH_REQVALADD_ISO_OUT", iso);
                 printIso(iso);
-                System.out.println("reqvaladd/" + txnId + " send to switch");
-                byte[] switchResp = switchClient.sendReqValAdd(iso, txnId);
-                if (switchResp != null)
-                    System.out.println("switch ack receive of reqvaladd/" + txnId);
+                // Mark before sending so a fast Switch RespValAdd cannot be overwritten by ISO_SENT
                 transactionService.markIsoSent(txn);
+                System.out.println("reqvaladd/" + txnId + " send to switch");
+                switchClient.sendReqValAddAsync(iso, txnId).thenAccept(switchResp -> {
+                    if (switchResp != null)
+                        System.out.println("switch ack receive of reqvaladd/" + txnId);
+                });
                 return; // Response will come from Switch
             }
         } else {
             // Invalid request - create txn and mark FAILED so transaction table is updated
-            TransactionEntity txn = transactionService.createRequest(txnId, xml, "VALADD");
+            TransactionEntity txn = transactionService.createRequest(msg, txnId, "VALADD", null);
             respXml = buildFailureResponse(msgId, "14", "Invalid Account Details");
             transactionService.markFailure(txn, respXml);
         }
@@ -124,17 +138,13 @@ public class NpciReqValAddService {
         System.out.println("=== RespValAdd XML ===");
         System.out.println(respXml);
 
-        try {
-            String response = npciMockClient.sendRespValAdd(respXml);
+        npciMockClient.sendRespValAddAsync(respXml).thenAccept(response -> {
             if (response != null) {
                 System.out.println("=== NPCI MOCK CLIENT ACK Received ===");
             } else {
                 System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
             }
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        });
     }
 
     private String buildSuccessResponse(String reqMsgId, String name, String acNum, String ifsc) {
@@ -8,7 +8,7 @@ import org.springframework.stereotype.Service;
 import com.hitachi.imps.client.SwitchClient;
 import com.hitachi.imps.converter.XmlToIsoConverter;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.service.XmlParsingService;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 
 /**
  * Service for handling RespValAdd responses from NPCI.
@@ -21,7 +21,6 @@ public class NpciRespValAddService {
     @Autowired private XmlToIsoConverter xmlToIsoConverter;
     @Autowired private SwitchClient switchClient;
     @Autowired private MessageAuditService auditService;
-    @Autowired private XmlParsingService xmlParsingService;
 
     @Async
     public void processAsync(String xml) {
@@ -43,14 +42,29 @@ public class NpciRespValAddService {
         }
     }
 
+    /** Same as {@link #processAsync(String, String)} for a message already parsed at the HTTP edge. */
+    @Async
+    public void processAsync(ParsedNpciMessage msg, String pathTxnId) {
+        try {
+            process(msg, pathTxnId);
+        } catch (Exception e) {
+            System.err.println("NpciRespValAddService ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void process(String xml) {
         process(xml, null);
     }
 
     public void process(String xml, String pathTxnId) {
-        String msgId = xmlParsingService.extractMsgId(xml);
-        String txnId = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : xmlParsingService.extractTxnId(xml);
-        if (txnId == null || txnId.isBlank()) txnId = msgId;
+        process(ParsedNpciMessage.of(xml), pathTxnId);
+    }
+
+    public void process(ParsedNpciMessage msg, String pathTxnId) {
+        String xml = msg.getXml();
+        String msgId = msg.getMsgId();
+        String txnId = msg.resolveTxnId(pathTxnId);
 
         // 1. Audit incoming XML
         auditService.saveRaw(msgId, "NPCI_RESPVALADD_XML_IN", xml);
@@ -59,7 +73,7 @@ public class NpciRespValAddService {
         System.out.println("MsgId: " + msgId + ", TxnId: " + txnId);
 
         // 2. Convert XML to ISO 0210
-        ISOMsg iso = xmlToIsoConverter.convertRespValAdd(xml);
+        ISOMsg iso = xmlToIsoConverter.convertRespValAdd(msg);
 
         // 3. Audit ISO message
         auditService.saveParsed(msgId, "SWITCH_RESPVALADD_ISO_OUT", iso);
@@ -68,13 +82,13 @@ public class NpciRespValAddService {
         printIso(iso);
 
         // 4. Send ISO to Switch: POST /switch/respvaladd/{txnId}
-        byte[] response = switchClient.sendRespValAdd(iso, txnId);
-
-        if (response != null) {
-            System.out.println("=== Switch ACK Received ===");
-        } else {
-            System.out.println("=== No ACK from Switch ===");
-        }
+        switchClient.sendRespValAddAsync(iso, txnId).thenAccept(response -> {
+            if (response != null) {
+                System.out.println("=== Switch ACK Received ===");
+            } else {
+                System.out.println("=== No ACK from Switch ===");
+            }
+        });
     }
 
     private void printIso(ISOMsg iso) {
@@ -2,18 +2,17 @@ package com.hitachi.imps.service.valadd.respvaladd;
 
 import java.util.Optional;
 
-import org.jpos.iso.ISOMsg;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.hitachi.imps.client.NpciMockClient;
 import com.hitachi.imps.converter.IsoToXmlConverter;
 import com.hitachi.imps.entity.TransactionEntity;
-import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoFieldReader;
 import com.hitachi.imps.service.TransactionService;
 import com.hitachi.imps.service.audit.MessageAuditService;
-import com.hitachi.imps.util.IsoUtil;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.outbox.NpciOutbox;
 
 /**
  * Service for handling RespValAdd responses from Switch.
@@ -24,8 +23,9 @@ import com.hitachi.imps.util.IsoUtil;
 public class SwitchRespValAddService {
 
     @Autowired private IsoToXmlConverter isoToXmlConverter;
-    @Autowired private NpciMockClient npciMockClient;
+    @Autowired private NpciOutbox outbox;
     @Autowired private MessageAuditService auditService;
+    @Autowired private IsoCodecService isoCodec;
     @Autowired private TransactionService transactionService;
 
     @Async
@@ -53,8 +53,8 @@ public class SwitchRespValAddService {
     }
 
     public void process(byte[] isoBytes, String pathTxnId) {
-        // 1. Unpack ISO to extract DE120 (original txnId), DE39 (response code), DE38 (approval)
-        ISOMsg iso = IsoUtil.unpack(isoBytes, new ImpsIsoPackager());
+        // 1. Decode ISO once to extract DE120 (original txnId), DE39 (response code), DE38 (approval)
+        IsoFieldReader iso = isoCodec.read(isoBytes);
         String origTxnId = null;
         String respCode = null;
         String approvalNum = null;
@@ -90,30 +90,35 @@ public class SwitchRespValAddService {
         }
 
         // 3. Convert ISO to XML first (so we can store it in transaction)
-        String xml = isoToXmlConverter.convertRespValAddToXml(isoBytes);
+        String xml = isoToXmlConverter.convertRespValAddToXml(iso);
 
-        // 4. Update transaction status (use pathTxnId first, then DE120; fallback: ValAdd legacy by Txn id in req_xml)
+        // Outbound message for NPCI, stored in npci_outbox with the status update below
+        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
+        NpciOutbox.Message npciResponse = outbox.message("respvaladd", txnIdForNpci, xml);
+
+        // 4. Update transaction status (use pathTxnId first, then DE120; fallback: ValAdd legacy by npci_txn_id)
+        boolean stored = false;
         try {
             if (lookupId != null && !lookupId.isBlank()) {
-                Optional<TransactionEntity> opt = transactionService.findOptionalByTxnId(lookupId);
+                Optional<TransactionEntity> opt = transactionService.findInFlight(lookupId);
                 if (opt.isEmpty()) {
-                    opt = transactionService.findOptionalValAddIsoSentByTxnIdInReqXml(lookupId);
+                    opt = transactionService.findOptionalValAddIsoSentByNpciTxnId(lookupId);
                     if (opt.isPresent()) {
-                        System.out.println("=== ValAdd transaction found by Txn id in req_xml (fallback for legacy row) ===");
+                        System.out.println("=== ValAdd transaction found by npci_txn_id (fallback for legacy row) ===");
                     }
                 }
                 if (opt.isPresent()) {
                     TransactionEntity txn = opt.get();
                     System.out.println("=== Updating transaction id=" + txn.getId() + " txn_id=" + txn.getTxnId() + " to SUCCESS/FAILED ===");
                     if ("00".equals(responseCode)) {
-                        transactionService.markSuccess(txn, xml, approvalNumber, null);
+                        stored = transactionService.markSuccess(txn, xml, approvalNumber, null, npciResponse);
                         System.out.println("=== ValAdd transaction marked SUCCESS ===");
                     } else {
-                        transactionService.markFailure(txn, xml);
+                        stored = transactionService.markFailure(txn, xml, npciResponse);
                         System.out.println("=== ValAdd transaction marked FAILED (code: " + responseCode + ") ===");
                     }
                 } else {
-                    System.err.println("=== WARNING: ValAdd response lookupId=" + lookupId + " — no matching transaction (by txn_id or req_xml). Is Mock Switch sending responses to this IMPS backend? ===");
+                    System.err.println("=== WARNING: ValAdd response lookupId=" + lookupId + " — no matching transaction (by txn_id or npci_txn_id). Is Mock Switch sending responses to this IMPS backend? ===");
                 }
             }
         } catch (Exception e) {
@@ -127,21 +132,11 @@ public class SwitchRespValAddService {
         System.out.println("=== XML Response Message Built ===");
         System.out.println(xml);
 
-        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/respvaladd/{txnId})
-        String txnIdForNpci = (pathTxnId != null && !pathTxnId.isBlank()) ? pathTxnId : originalTxnId;
-        try {
-            if (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("respvaladd/" + txnIdForNpci + " send to npci");
-            String response = (txnIdForNpci != null && !txnIdForNpci.isBlank())
-                ? npciMockClient.sendRespValAdd(xml, txnIdForNpci)
-                : npciMockClient.sendRespValAdd(xml);
-            if (response != null && txnIdForNpci != null && !txnIdForNpci.isBlank())
-                System.out.println("npci ack receive for respvaladd/" + txnIdForNpci);
-            if (response == null && txnIdForNpci != null)
-                System.out.println("=== WARNING: NPCI Mock Client not available (port 8083) - Continuing without ACK ===");
-        } catch (Exception e) {
-            System.out.println("=== WARNING: NPCI Mock Client not available - Continuing without ACK ===");
-            System.out.println("   Error: " + e.getMessage());
-        }
+        // 6. Send XML to NPCI Mock Client (dynamic URL /npci/respvaladd/{txnId}); retried from npci_outbox until delivered,
+        //    or sent once unstored when the status update was skipped
+        if (txnIdForNpci != null && !txnIdForNpci.isBlank())
+            System.out.println("respvaladd/" + txnIdForNpci + " send to npci");
+        if (stored) outbox.send(npciResponse);
+        else outbox.sendUnstored(npciResponse);
     }
 }
@@ -3,6 +3,8 @@ package com.hitachi.imps.service.validation;
 import org.springframework.stereotype.Service;
 
 import com.hitachi.imps.exception.CommonCodeValidationException;
+import com.hitachi.imps.service.iso.NpciXmlFields;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
 import com.hitachi.imps.service.iso.XmlUtil;
 import com.hitachi.imps.spec.NpciReqPayRules;
 
@@ -27,22 +29,36 @@ public class CommonCodeValidationService {
      * @throws CommonCodeValidationException if any rule fails
      */
     public void validateCommonHeadTxn(String xml) throws CommonCodeValidationException {
+        validateCommonHeadTxn(XmlUtil.extract(xml));
+    }
+
+    /**
+     * Same as {@link #validateCommonHeadTxn(String)} on a message parsed at the HTTP edge.
+     */
+    public void validateCommonHeadTxn(ParsedNpciMessage msg) throws CommonCodeValidationException {
+        validateCommonHeadTxn(msg.getFields());
+    }
+
+    /**
+     * Same as {@link #validateCommonHeadTxn(String)} on an already extracted document.
+     */
+    public void validateCommonHeadTxn(NpciXmlFields fields) throws CommonCodeValidationException {
         CommonCodeValidationException errors = new CommonCodeValidationException();
 
         // Rule 019 – Head @ver must be 1.0 or 2.0
-        String headVer = XmlUtil.read(xml, "//*[local-name()='Head']/@ver");
+        String headVer = fields.attr("Head", "ver");
         if (headVer != null && !headVer.isBlank() && !NpciReqPayRules.isHeadVersionAllowed(headVer)) {
             errors.addError("019_Head_Version", "Head ver must be 1.0 or 2.0; got: " + headVer);
         }
 
         // Rule 020 – Head @ts ISO format (no AM/PM)
-        String headTs = XmlUtil.read(xml, "//*[local-name()='Head']/@ts");
+        String headTs = fields.attr("Head", "ts");
         if (headTs != null && !headTs.isBlank() && !NpciReqPayRules.isHeadTsValid(headTs)) {
             errors.addError("020_Head_ts", "Head ts must be ISO format YYYY-MM-DDTHH:mm:ss.sssZ or with ±hh:mm; got: " + headTs);
         }
 
         // Rule 021 – Head @msgId 35 chars (3 BPC + 32 UUID). Format only; any BPC accepted (existing or new bank).
-        String msgId = XmlUtil.read(xml, "//*[local-name()='Head']/@msgId");
+        String msgId = fields.attr("Head", "msgId");
         if (msgId != null && !msgId.isBlank()) {
             if (msgId.length() != NpciReqPayRules.MSG_ID_TOTAL_LENGTH) {
                 errors.addError("021_Head_MsgId", "Head msgId must be 35 characters (3 BPC + 32 UUID); got length: " + msgId.length());
@@ -52,7 +68,7 @@ public class CommonCodeValidationService {
         }
 
         // Rule 022 – Txn @id 35 chars when present. Format only; any BPC accepted (existing or new bank).
-        String txnIdBody = XmlUtil.read(xml, "//*[local-name()='Txn']/@id");
+        String txnIdBody = fields.attr("Txn", "id");
         if (txnIdBody != null && !txnIdBody.isBlank()) {
             if (txnIdBody.length() != NpciReqPayRules.TXN_ID_TOTAL_LENGTH) {
                 errors.addError("022_Txn_UUID", "Txn id must be 35 characters (3 BPC + 32 UUID); got length: " + txnIdBody.length());
@@ -0,0 +1,109 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.hitachi.imps.config.SocketConfig;
+
+/**
+ * Length-prefixed framing (socket.framing):
+ *
+ *   [length: 2 or 4 bytes, big-endian][head line in socket.framing.encoding]\n[payload]
+ *
+ * length counts everything after the prefix. The head line is "&lt;id&gt; &lt;path&gt;" for a request
+ * and "&lt;id&gt; &lt;status&gt;" for a response; the payload is the XML or ISO 8583 bytes unchanged.
+ *
+ * A {@link #raw} codec leaves out the head line ([length][ISO 8583 message]), as a switch link expects;
+ * its frames have id 0 and an empty head and are correlated by ISO fields instead (see {@link SwitchIsoChannel}).
+ */
+public final class FrameCodec {
+
+    private final int prefixBytes;
+    private final Charset charset;
+    private final int maxFrameBytes;
+    private final boolean headed;
+
+    public FrameCodec(int prefixBytes, Charset charset, int maxFrameBytes) {
+        this(prefixBytes, charset, maxFrameBytes, true);
+    }
+
+    private FrameCodec(int prefixBytes, Charset charset, int maxFrameBytes, boolean headed) {
+        if (prefixBytes != 2 && prefixBytes != 4) {
+            throw new IllegalArgumentException("socket.framing.length-prefix-bytes must be 2 or 4, was " + prefixBytes);
+        }
+        this.prefixBytes = prefixBytes;
+        this.charset = charset;
+        this.maxFrameBytes = prefixBytes == 2 ? Math.min(maxFrameBytes, 0xFFFF) : maxFrameBytes;
+        this.headed = headed;
+    }
+
+    /** Length prefix and payload only, no head line. */
+    public static FrameCodec raw(int prefixBytes, int maxFrameBytes) {
+        return new FrameCodec(prefixBytes, StandardCharsets.ISO_8859_1, maxFrameBytes, false);
+    }
+
+    public static FrameCodec from(SocketConfig.Framing framing) {
+        return new FrameCodec(framing.getLengthPrefixBytes(), Charset.forName(framing.getEncoding()),
+            framing.getMaxFrameBytes());
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /** Frame ready to write (position 0, limit at the end). */
+    public ByteBuffer encode(SocketFrame frame) {
+        byte[] head = headed ? (frame.getId() + " " + frame.getHead() + "\n").getBytes(charset) : new byte[0];
+        byte[] payload = frame.getPayload();
+        int length = head.length + payload.length;
+        if (length > maxFrameBytes) {
+            throw new IllegalArgumentException("Frame of " + length + " bytes exceeds the " + maxFrameBytes + " byte limit");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(prefixBytes + length);
+        if (prefixBytes == 2) {
+            buf.putShort((short) length);
+        } else {
+            buf.putInt(length);
+        }
+        buf.put(head).put(payload).flip();
+        return buf;
+    }
+
+    /**
+     * Next complete frame in {@code buf} (read mode), advancing past it; null if more bytes are needed.
+     * @throws IOException on a corrupt frame; the connection cannot be resynchronised and must be closed
+     */
+    public SocketFrame decode(ByteBuffer buf) throws IOException {
+        if (buf.remaining() < prefixBytes) return null;
+        int start = buf.position();
+        int length = prefixBytes == 2 ? buf.getShort(start) & 0xFFFF : buf.getInt(start);
+        if (length < 0 || length > maxFrameBytes) {
+            throw new IOException("Invalid frame length " + length + " (limit " + maxFrameBytes + ")");
+        }
+        if (buf.remaining() < prefixBytes + length) return null;
+
+        byte[] body = new byte[length];
+        buf.position(start + prefixBytes);
+        buf.get(body);
+        if (!headed) {
+            return new SocketFrame(0, "", body);
+        }
+
+        int eol = 0;
+        while (eol < length && body[eol] != '\n') eol++;
+        String head = new String(body, 0, eol, charset);
+        int sp = head.indexOf(' ');
+        if (eol == length || sp < 0) {
+            throw new IOException("Frame without an '<id> <head>' line");
+        }
+        try {
+            long id = Long.parseLong(head.substring(0, sp));
+            return new SocketFrame(id, head.substring(sp + 1), Arrays.copyOfRange(body, eol + 1, length));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid frame id in '" + head + "'");
+        }
+    }
+}
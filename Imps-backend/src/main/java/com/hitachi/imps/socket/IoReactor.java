@@ -0,0 +1,83 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * One selector thread serving many {@link NioConnection}s. All channel reads, writes and interest changes
+ * for a connection happen on its reactor's thread; other threads hand work over with {@link #execute}.
+ */
+final class IoReactor implements Runnable {
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    IoReactor(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    /** Run {@code task} on the reactor thread (at once if already on it). */
+    void execute(Runnable task) {
+        if (Thread.currentThread() == thread) {
+            task.run();
+            return;
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    NioConnection conn = (NioConnection) key.attachment();
+                    try {
+                        conn.handle(key);
+                    } catch (IOException | RuntimeException e) {
+                        conn.close(e);
+                    }
+                }
+            } catch (Exception e) {
+                if (running) {
+                    System.err.println("Socket reactor " + thread.getName() + " error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+            for (SelectionKey key : selector.keys()) {
+                ((NioConnection) key.attachment()).close(null);
+            }
+            selector.close();
+        } catch (IOException | InterruptedException e) {
+            // shutting down
+        }
+    }
+}
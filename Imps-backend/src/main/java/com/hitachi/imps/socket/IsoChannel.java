@@ -0,0 +1,267 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.hitachi.imps.exception.DownstreamBusyException;
+import com.hitachi.imps.iso.IsoFieldReader;
+
+/**
+ * Pipelined ISO 8583 link: raw length-prefixed messages over a few persistent connections, with any
+ * number of requests outstanding and replies matched by ISO fields, as a switch is driven at volume.
+ *
+ * Each request is entered in the in-flight table under DE120 (txn id), DE11+DE37 and DE37, each key taken
+ * only if no other request holds it (a ChkTxn reuses the original RRN, for example). A reply is matched on
+ * the first of those keys it carries that is in the table, whichever connection it comes back on.
+ * At most maxInFlight requests are outstanding (more fail at once with {@link DownstreamBusyException});
+ * each fails with a TimeoutException after timeoutMs, and requests on a connection that drops fail at once.
+ * Replies that match nothing (late or unsolicited) go to the unmatched handler.
+ */
+public final class IsoChannel {
+
+    private static final long RECONNECT_BACKOFF_MS = 1000;
+
+    private final String host;
+    private final int port;
+    private final long connectTimeoutMs;
+    private final long timeoutMs;
+    private final int maxInFlight;
+    private final FrameCodec codec;
+    private final IoReactor reactor;
+    private final Executor callbacks;
+    private final Function<byte[], IsoFieldReader> fields;
+    private final Consumer<byte[]> unmatched;
+
+    private final Link[] links;
+    private final AtomicInteger nextLink = new AtomicInteger();
+    private final Semaphore window;
+    private final Map<String, Pending> inFlight = new ConcurrentHashMap<>();
+
+    /* ===== METRICS ===== */
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong unmatchedReplies = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile String lastError;
+
+    /**
+     * @param fields    reads DE11 / DE37 / DE120 from packed ISO bytes
+     * @param unmatched receives replies with no request in flight; runs on {@code callbacks}
+     */
+    IsoChannel(String host, int port, int connections, int maxInFlight, long connectTimeoutMs, long timeoutMs,
+               FrameCodec codec, IoReactor reactor, Executor callbacks,
+               Function<byte[], IsoFieldReader> fields, Consumer<byte[]> unmatched) {
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.timeoutMs = timeoutMs;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.codec = codec;
+        this.reactor = reactor;
+        this.callbacks = callbacks;
+        this.fields = fields;
+        this.unmatched = unmatched;
+        this.window = new Semaphore(this.maxInFlight);
+        this.links = new Link[Math.max(1, connections)];
+        for (int i = 0; i < links.length; i++) {
+            links[i] = new Link();
+        }
+    }
+
+    /** Send a packed ISO request; completes with the packed reply. */
+    public CompletableFuture<byte[]> send(byte[] iso) {
+        List<String> keys = keys(fields.apply(iso));
+        if (keys.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                new IllegalArgumentException("ISO request has none of DE11+DE37, DE37 or DE120 to match its reply by"));
+        }
+        if (!window.tryAcquire()) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new DownstreamBusyException("SWITCH_CHANNEL", maxInFlight));
+        }
+        Pending p = new Pending();
+        for (String key : keys) {
+            if (inFlight.putIfAbsent(key, p) == null) {
+                p.keys.add(key);
+            }
+        }
+        if (p.keys.isEmpty()) {
+            window.release();
+            failed.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("A request with " + keys + " is already in flight"));
+        }
+        p.future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((r, e) -> {
+            for (String key : p.keys) {
+                inFlight.remove(key, p);
+            }
+            if (p.link != null) {
+                p.link.pending.remove(p);
+            }
+            window.release();
+            if (e instanceof TimeoutException) {
+                timeouts.incrementAndGet();
+            } else if (e != null) {
+                failed.incrementAndGet();
+            }
+        });
+        try {
+            Link link = link();
+            p.link = link;
+            link.pending.add(p);
+            if (link.conn.isClosed()) {
+                throw new IOException("Connection to " + address() + " is closed");
+            }
+            link.conn.send(new SocketFrame(0, "", iso));
+            sent.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            p.future.completeExceptionally(e);
+        }
+        return p.future;
+    }
+
+    /** Correlation keys of a request or reply, most specific first. */
+    static List<String> keys(IsoFieldReader iso) {
+        List<String> keys = new ArrayList<>(3);
+        String stan = iso.getString(11);
+        String rrn = iso.getString(37);
+        String txnId = iso.getString(120);
+        if (txnId != null && !txnId.isBlank()) keys.add("120:" + txnId);
+        if (stan != null && rrn != null) keys.add("11+37:" + stan + "|" + rrn);
+        if (rrn != null) keys.add("37:" + rrn);
+        return keys;
+    }
+
+    private void onReply(byte[] reply) {
+        for (String key : keys(fields.apply(reply))) {
+            Pending p = inFlight.get(key);
+            if (p == null) continue;
+            matched.incrementAndGet();
+            if (p.future.complete(reply)) {
+                return;
+            }
+            matched.decrementAndGet();
+        }
+        unmatchedReplies.incrementAndGet();
+        unmatched.accept(reply);
+    }
+
+    private String address() {
+        return host + ":" + port;
+    }
+
+    /* ===============================
+       CONNECTIONS
+       =============================== */
+
+    /** Next connection round-robin, (re)connecting it if needed. */
+    private Link link() throws IOException {
+        Link link = links[Math.floorMod(nextLink.getAndIncrement(), links.length)];
+        link.connect();
+        return link;
+    }
+
+    void close() {
+        for (Link link : links) {
+            if (link.conn != null) link.conn.close(null);
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        int connected = 0;
+        for (Link link : links) {
+            if (link.conn != null && !link.conn.isClosed()) connected++;
+        }
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("address", address());
+        m.put("connections", links.length);
+        m.put("connected", connected);
+        m.put("inFlight", maxInFlight - window.availablePermits());
+        m.put("maxInFlight", maxInFlight);
+        m.put("timeoutMs", timeoutMs);
+        m.put("connects", connects.get());
+        m.put("sent", sent.get());
+        m.put("matched", matched.get());
+        m.put("unmatched", unmatchedReplies.get());
+        m.put("timeouts", timeouts.get());
+        m.put("rejected", rejected.get());
+        m.put("failed", failed.get());
+        m.put("lastError", lastError);
+        return m;
+    }
+
+    /** A request waiting for its reply. */
+    private static final class Pending {
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+        final List<String> keys = new ArrayList<>(3);
+        volatile Link link;
+    }
+
+    /** One of the channel's connections and the requests sent on it. */
+    private final class Link implements NioConnection.Listener {
+        volatile NioConnection conn;
+        final Set<Pending> pending = ConcurrentHashMap.newKeySet();
+        private volatile long connectFailedAt;
+
+        synchronized void connect() throws IOException {
+            if (conn != null && !conn.isClosed()) return;
+            if (System.currentTimeMillis() - connectFailedAt < RECONNECT_BACKOFF_MS) {
+                throw new IOException("Not connected to Switch at " + address() + ": " + lastError);
+            }
+            SocketChannel ch = SocketChannel.open();
+            try {
+                ch.socket().connect(new InetSocketAddress(host, port), (int) connectTimeoutMs);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                NioConnection c = new NioConnection(ch, reactor, codec, this);
+                c.register();
+                conn = c;
+                connects.incrementAndGet();
+                System.out.println("=== Switch ISO channel connected to " + address() + " ===");
+            } catch (IOException e) {
+                ch.close();
+                connectFailedAt = System.currentTimeMillis();
+                lastError = e.getMessage();
+                throw new IOException("Connect to Switch at " + address() + " failed: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void onFrame(NioConnection c, SocketFrame frame) {
+            byte[] reply = frame.getPayload();
+            callbacks.execute(() -> onReply(reply));
+        }
+
+        @Override
+        public void onClose(NioConnection c, Exception cause) {
+            lastError = cause != null ? cause.getMessage() : "closed by peer";
+            IOException closed = new IOException("Switch connection " + address() + " closed: " + lastError);
+            for (Pending p : pending) {
+                if (p.link == this) {
+                    callbacks.execute(() -> p.future.completeExceptionally(closed));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A non-blocking, persistent connection carrying {@link SocketFrame}s in both directions.
+ *
+ * Frames can be sent from any thread: they are queued and written by the reactor thread, which asks for
+ * OP_WRITE only while a write is incomplete. Incoming frames are passed to the listener on the reactor
+ * thread, so the listener must hand real work to another pool.
+ */
+final class NioConnection {
+
+    private static final int INITIAL_READ_BUFFER = 16 * 1024;
+
+    interface Listener {
+        void onFrame(NioConnection conn, SocketFrame frame);
+
+        void onClose(NioConnection conn, Exception cause);
+    }
+
+    private final SocketChannel channel;
+    private final IoReactor reactor;
+    private final FrameCodec codec;
+    private final Listener listener;
+    private final String remote;
+
+    private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /* ===== reactor thread only ===== */
+    private SelectionKey key;
+    private ByteBuffer readBuf = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+
+    NioConnection(SocketChannel channel, IoReactor reactor, FrameCodec codec, Listener listener) throws IOException {
+        this.channel = channel;
+        this.reactor = reactor;
+        this.codec = codec;
+        this.listener = listener;
+        SocketAddress addr = channel.getRemoteAddress();
+        this.remote = addr != null ? addr.toString() : "?";
+        channel.configureBlocking(false);
+    }
+
+    /** Start reading; the channel must already be connected. */
+    void register() {
+        reactor.execute(() -> {
+            try {
+                key = channel.register(reactor.selector(), SelectionKey.OP_READ, this);
+                if (!writes.isEmpty()) {
+                    flush();
+                }
+            } catch (IOException e) {
+                close(e);
+            }
+        });
+    }
+
+    String remote() {
+        return remote;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /** Queue a frame; written in order by the reactor thread. */
+    void send(SocketFrame frame) throws IOException {
+        if (closed.get()) {
+            throw new IOException("Connection to " + remote + " is closed");
+        }
+        writes.add(codec.encode(frame));
+        if (flushScheduled.compareAndSet(false, true)) {
+            reactor.execute(this::flushSafely);
+        }
+    }
+
+    /* ===============================
+       REACTOR THREAD
+       =============================== */
+
+    void handle(SelectionKey k) throws IOException {
+        if (k.isValid() && k.isReadable()) {
+            read();
+        }
+        if (k.isValid() && k.isWritable()) {
+            flush();
+        }
+    }
+
+    private void read() throws IOException {
+        if (!readBuf.hasRemaining()) {
+            // a frame larger than the buffer; the codec rejects lengths over the frame limit
+            ByteBuffer bigger = ByteBuffer.allocate(readBuf.capacity() * 2);
+            readBuf.flip();
+            bigger.put(readBuf);
+            readBuf = bigger;
+        }
+        int n = channel.read(readBuf);
+        if (n < 0) {
+            close(null);
+            return;
+        }
+        readBuf.flip();
+        SocketFrame frame;
+        while ((frame = codec.decode(readBuf)) != null) {
+            listener.onFrame(this, frame);
+        }
+        readBuf.compact();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void flush() throws IOException {
+        flushScheduled.set(false);
+        if (key == null || !key.isValid()) {
+            return; // not registered yet (register() flushes) or closed
+        }
+        ByteBuffer buf;
+        while ((buf = writes.peek()) != null) {
+            channel.write(buf);
+            if (buf.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            writes.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /** Close once (any thread); the listener's onClose gets {@code cause}, null for a normal close. */
+    void close(Exception cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        writes.clear();
+        listener.onClose(this, cause);
+    }
+}
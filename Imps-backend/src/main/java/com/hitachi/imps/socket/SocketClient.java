@@ -0,0 +1,187 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hitachi.imps.exception.OutboundHttpException;
+
+/**
+ * Outbound leg to one peer (NPCI or Switch) over a single persistent connection.
+ *
+ * Every request gets an id; its future waits in the connection's pending map until the response with
+ * that id arrives, so any number of requests share the connection and may be answered in any order.
+ * The connection is opened on first use and again after it drops; requests pending on a dropped
+ * connection fail at once. A non-2xx status fails with {@link OutboundHttpException} as on HTTP.
+ * Futures are completed on the {@code callbacks} executor, never on the selector thread.
+ */
+public final class SocketClient {
+
+    /** After a failed connect, fail fast for this long instead of reconnecting on every send. */
+    private static final long RECONNECT_BACKOFF_MS = 1000;
+
+    private final String name;
+    private final String host;
+    private final int port;
+    private final long connectTimeoutMs;
+    private final long readTimeoutMs;
+    private final FrameCodec codec;
+    private final IoReactor reactor;
+    private final Executor callbacks;
+
+    private final AtomicLong ids = new AtomicLong();
+    private volatile Link link;
+    private volatile long connectFailedAt;
+    private volatile String lastError;
+
+    /* ===== METRICS ===== */
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    SocketClient(String name, String host, int port, long connectTimeoutMs, long readTimeoutMs,
+                 FrameCodec codec, IoReactor reactor, Executor callbacks) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.codec = codec;
+        this.reactor = reactor;
+        this.callbacks = callbacks;
+    }
+
+    /** Send {@code payload} to {@code path} (e.g. /switch/reqpay/TXN1); completes with the response payload. */
+    public CompletableFuture<byte[]> send(String path, byte[] payload) {
+        Link l;
+        try {
+            l = connection();
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+        long id = ids.incrementAndGet();
+        CompletableFuture<SocketFrame> response = new CompletableFuture<>();
+        l.pending.put(id, response);
+        response.orTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+            .whenComplete((r, e) -> l.pending.remove(id));
+        try {
+            if (l.conn.isClosed()) {
+                throw new IOException("Connection to " + address() + " is closed");
+            }
+            l.conn.send(SocketFrame.request(id, path, payload));
+            sent.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response.thenApply(frame -> {
+            int status = frame.status();
+            if (status < 200 || status >= 300) {
+                throw new OutboundHttpException(url(path), status, new String(frame.getPayload(), codec.charset()));
+            }
+            return frame.getPayload();
+        }).whenComplete((r, e) -> {
+            if (e != null) failed.incrementAndGet();
+        });
+    }
+
+    /** tcp://host:port + path, the "URL" reported in errors. */
+    public String url(String path) {
+        return "tcp://" + address() + path;
+    }
+
+    private String address() {
+        return host + ":" + port;
+    }
+
+    private Link connection() throws IOException {
+        Link l = link;
+        if (l != null && !l.conn.isClosed()) {
+            return l;
+        }
+        synchronized (this) {
+            l = link;
+            if (l != null && !l.conn.isClosed()) {
+                return l;
+            }
+            if (System.currentTimeMillis() - connectFailedAt < RECONNECT_BACKOFF_MS) {
+                throw new IOException("Not connected to " + name + " at " + address() + ": " + lastError);
+            }
+            SocketChannel ch = SocketChannel.open();
+            try {
+                ch.socket().connect(new InetSocketAddress(host, port), (int) connectTimeoutMs);
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                Link fresh = new Link();
+                fresh.conn = new NioConnection(ch, reactor, codec, fresh);
+                fresh.conn.register();
+                link = fresh;
+                connects.incrementAndGet();
+                lastError = null;
+                System.out.println("=== Socket client " + name + " connected to " + address() + " ===");
+                return fresh;
+            } catch (IOException e) {
+                ch.close();
+                connectFailedAt = System.currentTimeMillis();
+                lastError = e.getMessage();
+                throw new IOException("Connect to " + name + " at " + address() + " failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    void close() {
+        Link l = link;
+        if (l != null) {
+            l.conn.close(null);
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Link l = link;
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("address", address());
+        m.put("connected", l != null && !l.conn.isClosed());
+        m.put("pending", l != null ? l.pending.size() : 0);
+        m.put("connects", connects.get());
+        m.put("sent", sent.get());
+        m.put("failed", failed.get());
+        m.put("lastError", lastError);
+        return m;
+    }
+
+    /** One connection and the requests waiting on it. */
+    private final class Link implements NioConnection.Listener {
+        NioConnection conn;
+        final Map<Long, CompletableFuture<SocketFrame>> pending = new ConcurrentHashMap<>();
+
+        @Override
+        public void onFrame(NioConnection c, SocketFrame frame) {
+            CompletableFuture<SocketFrame> f = pending.remove(frame.getId());
+            if (f != null) {
+                callbacks.execute(() -> f.complete(frame));
+            }
+        }
+
+        @Override
+        public void onClose(NioConnection c, Exception cause) {
+            lastError = cause != null ? cause.getMessage() : "closed by peer";
+            IOException closed = new IOException("Connection to " + name + " at " + address() + " closed: " + lastError);
+            for (Long id : pending.keySet()) {
+                CompletableFuture<SocketFrame> f = pending.remove(id);
+                if (f != null) {
+                    callbacks.execute(() -> f.completeExceptionally(closed));
+                }
+            }
+        }
+    }
+}
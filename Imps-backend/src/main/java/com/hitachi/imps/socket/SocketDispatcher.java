@@ -0,0 +1,170 @@
+package com.hitachi.imps.socket;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.annotation.ExceptionHandlerMethodResolver;
+
+/**
+ * Serves socket request frames with the same controller methods as the HTTP endpoints, so a message
+ * is processed identically whichever transport it came in on.
+ *
+ * Every POST /prefix/op/{txnId} mapping of the given controllers is registered under "/prefix/op";
+ * a frame for /prefix/op/TXN1 calls it with txnId = TXN1 and the payload as the @RequestBody
+ * (String in the framing encoding, or byte[]). Exceptions go through the @ExceptionHandler methods
+ * of the given advice (GlobalExceptionHandler), so error bodies and statuses match HTTP as well.
+ */
+public final class SocketDispatcher implements Function<SocketFrame, SocketFrame> {
+
+    private static final String TXN_ID_SUFFIX = "/{txnId}";
+
+    private final Map<String, Route> routes = new HashMap<>();
+    private final List<String> prefixes;
+    private final Charset charset;
+    private final Object advice;
+    private final ExceptionHandlerMethodResolver resolver;
+
+    /**
+     * @param prefixes path prefixes this listener accepts (e.g. "/switch/"); others get 404
+     * @param advice   @ExceptionHandler bean, or null to answer every exception with 500
+     */
+    public SocketDispatcher(List<String> prefixes, Charset charset, Object advice, Object... controllers) {
+        this.prefixes = prefixes;
+        this.charset = charset;
+        this.advice = advice;
+        this.resolver = advice != null ? new ExceptionHandlerMethodResolver(AopUtils.getTargetClass(advice)) : null;
+        for (Object controller : controllers) {
+            register(controller);
+        }
+    }
+
+    private void register(Object controller) {
+        Class<?> type = AopUtils.getTargetClass(controller);
+        RequestMapping base = AnnotatedElementUtils.findMergedAnnotation(type, RequestMapping.class);
+        String prefix = base != null && base.path().length > 0 ? base.path()[0] : "";
+        for (Method m : type.getMethods()) {
+            PostMapping post = AnnotatedElementUtils.findMergedAnnotation(m, PostMapping.class);
+            if (post == null) continue;
+            for (String path : post.path()) {
+                if (path.endsWith(TXN_ID_SUFFIX)) {
+                    String key = prefix + path.substring(0, path.length() - TXN_ID_SUFFIX.length());
+                    if (accepts(key + "/")) {
+                        routes.put(key, new Route(controller, m));
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean accepts(String path) {
+        for (String p : prefixes) {
+            if (path.startsWith(p)) return true;
+        }
+        return false;
+    }
+
+    /** Registered "/prefix/op" keys, for stats. */
+    public int routeCount() {
+        return routes.size();
+    }
+
+    @Override
+    public SocketFrame apply(SocketFrame request) {
+        String path = request.getHead().trim();
+        int slash = path.lastIndexOf('/');
+        Route route = slash > 0 && accepts(path) ? routes.get(path.substring(0, slash)) : null;
+        if (route == null) {
+            return text(request, 404, "No socket route for " + path);
+        }
+        String txnId = path.substring(slash + 1);
+        try {
+            return toFrame(request, route.invoke(txnId, request.getPayload(), charset));
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return handleException(request, cause);
+        } catch (IllegalAccessException e) {
+            return text(request, 500, e.getMessage());
+        }
+    }
+
+    private SocketFrame handleException(SocketFrame request, Throwable ex) {
+        Method handler = resolver != null && ex instanceof Exception ? resolver.resolveMethodByExceptionType(ex.getClass()) : null;
+        if (handler == null) {
+            return text(request, 500, ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName());
+        }
+        try {
+            return toFrame(request, handler.invoke(advice, ex));
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            return text(request, 500, ex.getMessage());
+        }
+    }
+
+    private SocketFrame toFrame(SocketFrame request, Object result) {
+        int status = 200;
+        Object body = result;
+        if (result instanceof ResponseEntity<?> entity) {
+            status = entity.getStatusCode().value();
+            body = entity.getBody();
+        }
+        byte[] bytes;
+        if (body == null) {
+            bytes = new byte[0];
+        } else if (body instanceof byte[] b) {
+            bytes = b;
+        } else {
+            bytes = body.toString().getBytes(charset);
+        }
+        return SocketFrame.response(request.getId(), status, bytes);
+    }
+
+    private SocketFrame text(SocketFrame request, int status, String message) {
+        return SocketFrame.response(request.getId(), status, (message != null ? message : "").getBytes(charset));
+    }
+
+    /** A controller method and where its txnId and body go. */
+    private static final class Route {
+        final Object target;
+        final Method method;
+        final int txnIdIndex;
+        final int bodyIndex;
+        final boolean stringBody;
+        final int arity;
+
+        Route(Object target, Method method) {
+            this.target = target;
+            this.method = method;
+            int txn = -1;
+            int body = -1;
+            Parameter[] params = method.getParameters();
+            for (int i = 0; i < params.length; i++) {
+                if (params[i].isAnnotationPresent(PathVariable.class)) txn = i;
+                if (params[i].isAnnotationPresent(RequestBody.class)) body = i;
+            }
+            this.txnIdIndex = txn;
+            this.bodyIndex = body;
+            this.stringBody = body >= 0 && params[body].getType() == String.class;
+            this.arity = params.length;
+        }
+
+        Object invoke(String txnId, byte[] payload, Charset charset)
+                throws InvocationTargetException, IllegalAccessException {
+            Object[] args = new Object[arity];
+            if (txnIdIndex >= 0) args[txnIdIndex] = txnId;
+            if (bodyIndex >= 0) args[bodyIndex] = stringBody ? new String(payload, charset) : payload;
+            return method.invoke(target, args);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.hitachi.imps.socket;
+
+/**
+ * One message on a socket connection.
+ *
+ * A request carries the same path the HTTP endpoint would have (e.g. /switch/reqpay/TXN1) in {@code head};
+ * its response carries the same id and the status code (200, 400, 503 ...) in {@code head}.
+ * Ids are chosen by the client and let many requests share one connection and be answered out of order.
+ */
+public final class SocketFrame {
+
+    private final long id;
+    private final String head;
+    private final byte[] payload;
+
+    public SocketFrame(long id, String head, byte[] payload) {
+        this.id = id;
+        this.head = head;
+        this.payload = payload != null ? payload : new byte[0];
+    }
+
+    public static SocketFrame request(long id, String path, byte[] payload) {
+        return new SocketFrame(id, path, payload);
+    }
+
+    public static SocketFrame response(long id, int status, byte[] payload) {
+        return new SocketFrame(id, String.valueOf(status), payload);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getHead() {
+        return head;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    /** Status of a response frame; 502 if the head is not a number. */
+    public int status() {
+        try {
+            return Integer.parseInt(head.trim());
+        } catch (NumberFormatException e) {
+            return 502;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import com.hitachi.imps.config.SocketConfig;
+
+/**
+ * Listener for one inbound leg (NPCI or Switch).
+ *
+ * socket.threading.acceptor-threads accept connections; each connection is pinned to one of
+ * io-pool-size selector threads, which only read and write frames. Requests run on a pool of
+ * processing-pool-size threads and their response goes back on the connection they came in on,
+ * tagged with the request id, so one connection carries any number of requests at once.
+ * When the processing queue is full the request is answered with 503 straight away.
+ */
+public final class SocketServer {
+
+    private final String name;
+    private final String bindHost;
+    private final int port;
+    private final SocketConfig.Threading threading;
+    private final FrameCodec codec;
+    private final Function<SocketFrame, SocketFrame> handler;
+
+    private ServerSocketChannel serverChannel;
+    private IoReactor[] reactors;
+    private Thread[] acceptors;
+    private ThreadPoolExecutor processing;
+    private volatile boolean running;
+
+    private final Set<NioConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextReactor = new AtomicInteger();
+
+    /* ===== METRICS ===== */
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @param handler turns a request frame into its response frame; runs on the processing pool
+     */
+    public SocketServer(String name, String bindHost, int port, SocketConfig.Threading threading,
+                        FrameCodec codec, Function<SocketFrame, SocketFrame> handler) {
+        this.name = name;
+        this.bindHost = bindHost;
+        this.port = port;
+        this.threading = threading;
+        this.codec = codec;
+        this.handler = handler;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(bindHost, port));
+
+        reactors = new IoReactor[Math.max(1, threading.getIoPoolSize())];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new IoReactor(name + "-io-" + (i + 1));
+        }
+        int workers = Math.max(1, threading.getProcessingPoolSize());
+        AtomicInteger seq = new AtomicInteger();
+        processing = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, threading.getQueueCapacity())), r -> {
+                Thread t = new Thread(r, name + "-worker-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+
+        running = true;
+        acceptors = new Thread[Math.max(1, threading.getAcceptorThreads())];
+        for (int i = 0; i < acceptors.length; i++) {
+            acceptors[i] = new Thread(this::acceptLoop, name + "-acceptor-" + (i + 1));
+            acceptors[i].setDaemon(true);
+            acceptors[i].start();
+        }
+        System.out.println("=== Socket listener " + name + " on " + bindHost + ":" + getPort()
+            + " (io " + reactors.length + ", workers " + workers + ") ===");
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            // closing
+        }
+        for (NioConnection conn : connections) {
+            conn.close(null);
+        }
+        for (IoReactor reactor : reactors) {
+            reactor.shutdown();
+        }
+        processing.shutdown();
+    }
+
+    /** Bound port (the configured one, or the one picked by the OS for port 0). */
+    public int getPort() {
+        try {
+            return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        } catch (Exception e) {
+            return port;
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel ch = serverChannel.accept();
+                ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                IoReactor reactor = reactors[Math.floorMod(nextReactor.getAndIncrement(), reactors.length)];
+                NioConnection conn = new NioConnection(ch, reactor, codec, listener);
+                connections.add(conn);
+                accepted.incrementAndGet();
+                conn.register();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Socket listener " + name + " accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private final NioConnection.Listener listener = new NioConnection.Listener() {
+        @Override
+        public void onFrame(NioConnection conn, SocketFrame request) {
+            frames.incrementAndGet();
+            try {
+                processing.execute(() -> reply(conn, request, process(request)));
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                reply(conn, request, SocketFrame.response(request.getId(), 503,
+                    "Busy".getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        @Override
+        public void onClose(NioConnection conn, Exception cause) {
+            connections.remove(conn);
+            if (cause != null && running) {
+                System.err.println("Socket listener " + name + ": connection " + conn.remote() + " closed: " + cause.getMessage());
+            }
+        }
+    };
+
+    private SocketFrame process(SocketFrame request) {
+        try {
+            return handler.apply(request);
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            String msg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            return SocketFrame.response(request.getId(), 500, msg.getBytes(codec.charset()));
+        }
+    }
+
+    private void reply(NioConnection conn, SocketFrame request, SocketFrame response) {
+        try {
+            conn.send(response);
+        } catch (IOException | RuntimeException e) {
+            errors.incrementAndGet();
+            System.err.println("Socket listener " + name + ": reply " + request.getId() + " to " + conn.remote()
+                + " not sent: " + e.getMessage());
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("port", running ? getPort() : port);
+        m.put("running", running);
+        m.put("connections", connections.size());
+        m.put("accepted", accepted.get());
+        m.put("frames", frames.get());
+        m.put("rejected", rejected.get());
+        m.put("errors", errors.get());
+        m.put("queued", processing != null ? processing.getQueue().size() : 0);
+        return m;
+    }
+}
@@ -0,0 +1,163 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.config.SocketConfig;
+import com.hitachi.imps.controller.ImpsController;
+import com.hitachi.imps.controller.ImpsSwitchController;
+import com.hitachi.imps.controller.npci.NpciController;
+import com.hitachi.imps.controller.switchctrl.SwitchController;
+import com.hitachi.imps.exception.GlobalExceptionHandler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * TCP socket transport for the NPCI and Switch legs (application.yml 'socket', off by default).
+ *
+ * Inbound: two listeners on socket.server.{npci,switch}.port serve the same paths as the HTTP controllers
+ * (/imps/*, /npci/* and /switch/*) through {@link SocketDispatcher}; each response (the ACK) goes back on the
+ * connection the request came in on. They start once the application is ready.
+ * Outbound: when enabled, SwitchClient, NpciMockClient and RoutingService send through
+ * {@link #sendToSwitch} / {@link #sendToNpci} instead of HTTP, over one persistent connection per peer
+ * (socket.client.*), keeping the URL path of the HTTP call as the frame's route.
+ */
+@Component
+public class SocketTransport {
+
+    private static final int CALLBACK_THREADS = 4;
+
+    @Autowired
+    private SocketConfig config;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private FrameCodec codec;
+    private IoReactor clientReactor;
+    private ExecutorService callbacks;
+    private SocketClient npciClient;
+    private SocketClient switchClient;
+    private final List<SocketServer> servers = new ArrayList<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!config.isEnabled()) return;
+        codec = FrameCodec.from(config.getFraming());
+        clientReactor = new IoReactor("imps-socket-client-io");
+        AtomicInteger seq = new AtomicInteger();
+        callbacks = Executors.newFixedThreadPool(CALLBACK_THREADS, r -> {
+            Thread t = new Thread(r, "imps-socket-cb-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        SocketConfig.Client c = config.getClient();
+        npciClient = new SocketClient("NPCI", c.getNpci().getHost(), c.getNpci().getPort(),
+            c.getConnectTimeoutMs(), c.getReadTimeoutMs(), codec, clientReactor, callbacks);
+        switchClient = new SocketClient("SWITCH", c.getSwitch().getHost(), c.getSwitch().getPort(),
+            c.getConnectTimeoutMs(), c.getReadTimeoutMs(), codec, clientReactor, callbacks);
+
+        System.out.println("=== Socket transport enabled ===");
+        System.out.println("Client NPCI: " + c.getNpci().getHost() + ":" + c.getNpci().getPort()
+            + ", SWITCH: " + c.getSwitch().getHost() + ":" + c.getSwitch().getPort());
+        System.out.println("Framing: " + config.getFraming().getLengthPrefixBytes() + "-byte length prefix, "
+            + config.getFraming().getEncoding());
+        System.out.println("================================");
+    }
+
+    /** Listeners start only after every controller and service is up. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startListeners() throws IOException {
+        if (!config.isEnabled()) return;
+        Object advice = context.getBean(GlobalExceptionHandler.class);
+        SocketConfig.Server s = config.getServer();
+        servers.add(new SocketServer("imps-socket-npci", s.getBindHost(), s.getNpci().getPort(), config.getThreading(), codec,
+            new SocketDispatcher(List.of("/imps/", "/npci/"), codec.charset(), advice,
+                context.getBean(ImpsController.class), context.getBean(NpciController.class))));
+        servers.add(new SocketServer("imps-socket-switch", s.getBindHost(), s.getSwitch().getPort(), config.getThreading(), codec,
+            new SocketDispatcher(List.of("/switch/"), codec.charset(), advice,
+                context.getBean(ImpsSwitchController.class), context.getBean(SwitchController.class))));
+        for (SocketServer server : servers) {
+            server.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (SocketServer server : servers) {
+            server.stop();
+        }
+        if (npciClient != null) npciClient.close();
+        if (switchClient != null) switchClient.close();
+        if (clientReactor != null) clientReactor.shutdown();
+        if (callbacks != null) callbacks.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled() && codec != null;
+    }
+
+    /* ===============================
+       OUTBOUND
+       =============================== */
+
+    /** Send ISO bytes to the Switch; {@code url} is the HTTP URL the message would have gone to. */
+    public CompletableFuture<byte[]> sendToSwitch(String url, byte[] isoBytes) {
+        return send(switchClient, url, isoBytes);
+    }
+
+    /** Send XML to NPCI; completes with the response XML. */
+    public CompletableFuture<String> sendToNpci(String url, String xml) {
+        return sendToNpci(url, xml != null ? xml.getBytes(codec.charset()) : null);
+    }
+
+    public CompletableFuture<String> sendToNpci(String url, byte[] xml) {
+        return send(npciClient, url, xml).thenApply(b -> new String(b, codec.charset()));
+    }
+
+    private CompletableFuture<byte[]> send(SocketClient client, String url, byte[] body) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Socket transport is disabled"));
+        }
+        String path;
+        try {
+            path = URI.create(url).getRawPath();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return client.send(path, body);
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", isEnabled());
+        if (!isEnabled()) return m;
+        m.put("lengthPrefixBytes", config.getFraming().getLengthPrefixBytes());
+        m.put("encoding", config.getFraming().getEncoding());
+        Map<String, Object> listeners = new LinkedHashMap<>();
+        for (int i = 0; i < servers.size(); i++) {
+            listeners.put(i == 0 ? "npci" : "switch", servers.get(i).stats());
+        }
+        m.put("servers", listeners);
+        m.put("clients", Map.of("npci", npciClient.stats(), "switch", switchClient.stats()));
+        return m;
+    }
+}
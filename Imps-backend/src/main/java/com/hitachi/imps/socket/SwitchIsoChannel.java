@@ -0,0 +1,151 @@
+package com.hitachi.imps.socket;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.hitachi.imps.config.SocketConfig;
+import com.hitachi.imps.iso.ImpsIsoView;
+import com.hitachi.imps.iso.IsoFieldReader;
+import com.hitachi.imps.service.chktxn.respchktxn.SwitchRespChkTxnService;
+import com.hitachi.imps.service.heartbeat.resphbt.SwitchRespHbtService;
+import com.hitachi.imps.service.iso.IsoCodecService;
+import com.hitachi.imps.service.listaccpvd.resplistaccpvd.SwitchRespListAccPvdService;
+import com.hitachi.imps.service.pay.resppay.SwitchRespPayService;
+import com.hitachi.imps.service.valadd.respvaladd.SwitchRespValAddService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pipelined ISO 8583 channel to the Switch (application.yml 'socket.switch-channel', off by default).
+ *
+ * When enabled, SwitchClient sends requests (reqpay, reqchktxn, reqhbt, reqlistaccpvd, reqvaladd) as raw
+ * length-prefixed ISO over {@link IsoChannel} instead of one HTTP POST per message with the response
+ * called back later. The Switch answers on the same connection; the reply is matched to its request by
+ * DE120 / DE11+DE37 / DE37 and handed to the same SwitchResp*Service the /switch/resp* endpoints use.
+ * Replies that arrive after their request timed out are routed by DE3 instead.
+ */
+@Component
+public class SwitchIsoChannel {
+
+    private static final int CALLBACK_THREADS = 4;
+
+    @Autowired
+    private SocketConfig config;
+
+    @Autowired
+    private IsoCodecService isoCodec;
+
+    @Autowired
+    private ApplicationContext context;
+
+    private IoReactor reactor;
+    private ExecutorService callbacks;
+    private IsoChannel channel;
+
+    @PostConstruct
+    public void init() throws IOException {
+        SocketConfig.SwitchChannel c = config.getSwitchChannel();
+        if (!c.isEnabled()) return;
+        reactor = new IoReactor("imps-iso-channel-io");
+        AtomicInteger seq = new AtomicInteger();
+        callbacks = Executors.newFixedThreadPool(CALLBACK_THREADS, r -> {
+            Thread t = new Thread(r, "imps-iso-channel-cb-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        FrameCodec codec = FrameCodec.raw(config.getFraming().getLengthPrefixBytes(), config.getFraming().getMaxFrameBytes());
+        channel = new IsoChannel(c.getHost(), c.getPort(), c.getConnections(), c.getMaxInFlight(),
+            config.getClient().getConnectTimeoutMs(), c.getTimeoutMs(), codec, reactor, callbacks,
+            this::fields, this::dispatchUnmatched);
+
+        System.out.println("=== Switch ISO channel enabled ===");
+        System.out.println("Switch: " + c.getHost() + ":" + c.getPort() + ", connections: " + c.getConnections()
+            + ", max in flight: " + c.getMaxInFlight() + ", timeout: " + c.getTimeoutMs() + " ms");
+        System.out.println("==================================");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (channel != null) channel.close();
+        if (reactor != null) reactor.shutdown();
+        if (callbacks != null) callbacks.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return channel != null;
+    }
+
+    /**
+     * Send a request and process the Switch's reply as its /switch/resp* callback would be.
+     * Completes with the reply bytes once they are handed over; fails on timeout, a full window or a lost connection.
+     */
+    public CompletableFuture<byte[]> send(String apiType, String txnId, byte[] isoBytes) {
+        if (!isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Switch ISO channel is disabled"));
+        }
+        return channel.send(isoBytes).thenApply(reply -> {
+            dispatch(apiType.replaceFirst("^req", ""), reply, txnId);
+            return reply;
+        });
+    }
+
+    private IsoFieldReader fields(byte[] isoBytes) {
+        ImpsIsoView view = isoCodec.view(isoBytes);
+        return view != null ? view : IsoFieldReader.of(isoCodec.unpack(isoBytes));
+    }
+
+    /* ===============================
+       RESPONSE ROUTING
+       =============================== */
+
+    /** Late or unsolicited reply: route by processing code (DE3), txnId from DE120. */
+    private void dispatchUnmatched(byte[] reply) {
+        IsoFieldReader iso = fields(reply);
+        String de3 = iso.getString(3);
+        String txnId = iso.getString(120);
+        String op = de3 == null || de3.length() < 2 ? null : switch (de3.substring(0, 2)) {
+            case "40" -> "pay";
+            case "38" -> "chktxn";
+            case "99" -> "hbt";
+            case "31" -> "valadd";
+            case "32" -> "listaccpvd";
+            default -> null;
+        };
+        System.out.println("Switch ISO channel: unmatched reply DE3=" + de3 + " DE120=" + txnId
+            + (op != null ? " -> resp" + op : " dropped"));
+        if (op != null) {
+            dispatch(op, reply, txnId);
+        }
+    }
+
+    private void dispatch(String op, byte[] reply, String txnId) {
+        switch (op) {
+            case "pay" -> context.getBean(SwitchRespPayService.class).processAsync(reply, txnId);
+            case "chktxn" -> context.getBean(SwitchRespChkTxnService.class).processAsync(reply, txnId);
+            case "hbt" -> context.getBean(SwitchRespHbtService.class).processAsync(reply, txnId);
+            case "listaccpvd" -> context.getBean(SwitchRespListAccPvdService.class).processAsync(reply, txnId);
+            case "valadd" -> context.getBean(SwitchRespValAddService.class).processAsync(reply, txnId);
+            default -> System.err.println("Switch ISO channel: no response handler for " + op);
+        }
+    }
+
+    /* ===============================
+       METRICS
+       =============================== */
+    public Map<String, Object> stats() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("enabled", isEnabled());
+        if (isEnabled()) m.putAll(channel.stats());
+        return m;
+    }
+}
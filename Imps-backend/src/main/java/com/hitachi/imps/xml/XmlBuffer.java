@@ -0,0 +1,208 @@
+package com.hitachi.imps.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Growable UTF-8 byte buffer for rendering outbound XML.
+ *
+ * Buffers come from a small shared pool ({@link #acquire()} / {@link #release()}) rather than one per
+ * thread, so virtual threads (one per task) reuse them too; rendering a response does not allocate
+ * beyond the final String / byte[] the caller asks for.
+ * Attribute values are XML-escaped while they are encoded; timestamps are written digit by digit.
+ */
+public final class XmlBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    /** A buffer grown past this by an unusually large message is not returned to the pool. */
+    private static final int RETAIN_CAPACITY = 64 * 1024;
+    /** Buffers kept for reuse; more may be in use at once, the extra ones are left to the GC. */
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final ArrayBlockingQueue<XmlBuffer> POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUOT = "&quot;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APOS = "&apos;".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf;
+    private int count;
+
+    /* Timestamp cache: "yyyy-MM-ddTHH:mm:ss" and the zone offset of the last second written. */
+    private long cachedSecond = Long.MIN_VALUE;
+    private final byte[] cachedDateTime = new byte[19];
+    private byte[] cachedOffset;
+
+    public XmlBuffer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public XmlBuffer(int capacity) {
+        buf = new byte[capacity];
+    }
+
+    /** An empty buffer from the pool (or a new one); hand it back with {@link #release()} when done. */
+    public static XmlBuffer acquire() {
+        XmlBuffer b = POOL.poll();
+        if (b == null) {
+            return new XmlBuffer();
+        }
+        b.reset();
+        return b;
+    }
+
+    /** Return this buffer to the pool. It must not be used afterwards. */
+    public void release() {
+        if (buf.length <= RETAIN_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    public int length() {
+        return count;
+    }
+
+    /* ===============================
+       APPEND
+       =============================== */
+    public XmlBuffer append(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, count, bytes.length);
+        count += bytes.length;
+        return this;
+    }
+
+    /** Append {@code value} as UTF-8, escaping &amp; &lt; &gt; &quot; &apos;. Null appends nothing. */
+    public XmlBuffer appendEscaped(CharSequence value) {
+        if (value == null) {
+            return this;
+        }
+        int len = value.length();
+        ensure(len);
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&': append(AMP); break;
+                case '<': append(LT); break;
+                case '>': append(GT); break;
+                case '"': append(QUOT); break;
+                case '\'': append(APOS); break;
+                default:
+                    if (c < 0x80) {
+                        ensure(1);
+                        buf[count++] = (byte) c;
+                    } else {
+                        i = appendNonAscii(value, i);
+                    }
+            }
+        }
+        return this;
+    }
+
+    private int appendNonAscii(CharSequence value, int i) {
+        char c = value.charAt(i);
+        ensure(4);
+        if (c < 0x800) {
+            buf[count++] = (byte) (0xC0 | c >> 6);
+            buf[count++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int cp = Character.toCodePoint(c, value.charAt(++i));
+            buf[count++] = (byte) (0xF0 | cp >> 18);
+            buf[count++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            buf[count++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            buf[count++] = (byte) (0x80 | cp & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            buf[count++] = '?'; // unpaired surrogate, as String.getBytes(UTF_8) does
+        } else {
+            buf[count++] = (byte) (0xE0 | c >> 12);
+            buf[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+            buf[count++] = (byte) (0x80 | c & 0x3F);
+        }
+        return i;
+    }
+
+    /**
+     * Append {@code epochMillis} in the system zone as yyyy-MM-dd'T'HH:mm:ss.SSSXXX
+     * (e.g. 2026-01-15T10:30:00.123+05:30), without going through DateTimeFormatter.
+     */
+    public XmlBuffer appendTimestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        if (second != cachedSecond) {
+            cacheSecond(second);
+        }
+        ensure(cachedDateTime.length + 4 + cachedOffset.length);
+        System.arraycopy(cachedDateTime, 0, buf, count, cachedDateTime.length);
+        count += cachedDateTime.length;
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        buf[count++] = '.';
+        buf[count++] = (byte) ('0' + millis / 100);
+        buf[count++] = (byte) ('0' + millis / 10 % 10);
+        buf[count++] = (byte) ('0' + millis % 10);
+        System.arraycopy(cachedOffset, 0, buf, count, cachedOffset.length);
+        count += cachedOffset.length;
+        return this;
+    }
+
+    private void cacheSecond(long second) {
+        ZoneOffset offset = ZoneId.systemDefault().getRules().getOffset(Instant.ofEpochSecond(second));
+        LocalDateTime t = LocalDateTime.ofEpochSecond(second, 0, offset);
+        byte[] d = cachedDateTime;
+        digits(d, 0, t.getYear(), 4);
+        d[4] = '-';
+        digits(d, 5, t.getMonthValue(), 2);
+        d[7] = '-';
+        digits(d, 8, t.getDayOfMonth(), 2);
+        d[10] = 'T';
+        digits(d, 11, t.getHour(), 2);
+        d[13] = ':';
+        digits(d, 14, t.getMinute(), 2);
+        d[16] = ':';
+        digits(d, 17, t.getSecond(), 2);
+        // XXX: "Z" for UTC, else +HH:MM (seconds of the offset are not printed)
+        String id = offset.getId();
+        cachedOffset = (id.length() > 6 ? id.substring(0, 6) : id).getBytes(StandardCharsets.US_ASCII);
+        cachedSecond = second;
+    }
+
+    private static void digits(byte[] d, int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            d[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void ensure(int extra) {
+        if (count + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + extra));
+        }
+    }
+
+    /* ===============================
+       OUTPUT
+       =============================== */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, count, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+package com.hitachi.imps.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * XML message shape precompiled into static UTF-8 byte segments and value slots.
+ *
+ * Template syntax:
+ * <ul>
+ *   <li>{@code ${name}} – value slot, XML-escaped; values are passed in order of each name's first
+ *       appearance, and a name used twice renders the same value;</li>
+ *   <li>{@code #{name}} – timestamp slot, every one filled with the render time
+ *       (yyyy-MM-dd'T'HH:mm:ss.SSSXXX).</li>
+ * </ul>
+ * Slots named in the {@code constants} map are resolved at compile time and become part of the
+ * static bytes. Compile once (static final) and render per message.
+ */
+public final class XmlTemplate {
+
+    private final byte[][] segments;
+    /** Per slot: index into the render values, or -1 for a timestamp slot. */
+    private final int[] slots;
+    private final List<String> valueNames;
+
+    private XmlTemplate(byte[][] segments, int[] slots, List<String> valueNames) {
+        this.segments = segments;
+        this.slots = slots;
+        this.valueNames = valueNames;
+    }
+
+    /* ===============================
+       COMPILE
+       =============================== */
+    public static XmlTemplate compile(String template) {
+        return compile(template, Map.of());
+    }
+
+    public static XmlTemplate compile(String template, Map<String, String> constants) {
+        List<byte[]> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        Map<String, Integer> values = new LinkedHashMap<>();
+        XmlBuffer text = new XmlBuffer(template.length());
+        int p = 0;
+        while (true) {
+            int open = nextSlot(template, p);
+            if (open < 0) {
+                text.append(template.substring(p).getBytes(StandardCharsets.UTF_8));
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed slot at " + open + " in XML template");
+            }
+            text.append(template.substring(p, open).getBytes(StandardCharsets.UTF_8));
+            String name = template.substring(open + 2, close);
+            boolean timestamp = template.charAt(open) == '#';
+            if (!timestamp && constants.containsKey(name)) {
+                text.appendEscaped(constants.get(name));
+            } else {
+                segments.add(text.toByteArray());
+                text.reset();
+                slots.add(timestamp ? -1 : values.computeIfAbsent(name, n -> values.size()));
+            }
+            p = close + 1;
+        }
+        segments.add(text.toByteArray());
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new XmlTemplate(segments.toArray(new byte[0][]), slotArray, List.copyOf(values.keySet()));
+    }
+
+    private static int nextSlot(String template, int from) {
+        int value = template.indexOf("${", from);
+        int ts = template.indexOf("#{", from);
+        if (value < 0) return ts;
+        if (ts < 0) return value;
+        return Math.min(value, ts);
+    }
+
+    /** Value slot names in the order {@link #render} expects them. */
+    public List<String> valueNames() {
+        return valueNames;
+    }
+
+    /* ===============================
+       RENDER
+       =============================== */
+    /** Render into {@code out}; null values render as empty attributes. */
+    public XmlBuffer render(XmlBuffer out, long epochMillis, String... values) {
+        if (values.length != valueNames.size()) {
+            throw new IllegalArgumentException("XML template expects " + valueNames.size() + " values " + valueNames
+                + ", got " + values.length);
+        }
+        out.append(segments[0]);
+        for (int i = 0; i < slots.length; i++) {
+            int slot = slots[i];
+            if (slot < 0) {
+                out.appendTimestamp(epochMillis);
+            } else {
+                out.appendEscaped(values[slot]);
+            }
+            out.append(segments[i + 1]);
+        }
+        return out;
+    }
+
+    /** Render with the current time into a pooled {@link XmlBuffer}, released once the output is taken. */
+    public String renderToString(String... values) {
+        XmlBuffer b = XmlBuffer.acquire();
+        try {
+            return render(b, System.currentTimeMillis(), values).toString();
+        } finally {
+            b.release();
+        }
+    }
+
+    public byte[] renderToBytes(String... values) {
+        XmlBuffer b = XmlBuffer.acquire();
+        try {
+            return render(b, System.currentTimeMillis(), values).toByteArray();
+        } finally {
+            b.release();
+        }
+    }
+
+    public void renderTo(OutputStream out, String... values) throws IOException {
+        XmlBuffer b = XmlBuffer.acquire();
+        try {
+            render(b, System.currentTimeMillis(), values).writeTo(out);
+        } finally {
+            b.release();
+        }
+    }
+}
@@ -8,40 +8,69 @@
 -- ============================================
 -- 1. TRANSACTION TABLE
 -- ============================================
+-- Range-partitioned by txn_date (monthly); PartitionManager creates and retires the partitions.
+-- Existing unpartitioned tables: see imps_partitioning.sql in the repository root.
 CREATE TABLE IF NOT EXISTS transaction (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     txn_id VARCHAR(255),
     txn_type VARCHAR(255),
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    npci_txn_id VARCHAR(255),
     req_in_date_time VARCHAR(255),
     req_out_date_time VARCHAR(255),
     resp_in_date_time VARCHAR(255),
     resp_out_date_time TIMESTAMP,
-    req_xml TEXT,
-    resp_xml TEXT,
+    req_xml BYTEA,
+    resp_xml BYTEA,
     switch_status VARCHAR(255),
     de11 VARCHAR(255),
     de37 VARCHAR(255),
     de12 VARCHAR(255),
     de13 VARCHAR(255),
-    approval_number VARCHAR(255)
-);
+    approval_number VARCHAR(255),
+    PRIMARY KEY (id, txn_date)
+) PARTITION BY RANGE (txn_date);
+CREATE TABLE IF NOT EXISTS transaction_default PARTITION OF transaction DEFAULT;
+-- pooled-lo ids: each nextval covers TransactionEntity.ID_ALLOCATION_SIZE ids
+ALTER SEQUENCE transaction_id_seq INCREMENT BY 50;
 
 -- Indexes for transaction table
-CREATE INDEX IF NOT EXISTS idx_transaction_txn_id ON transaction(txn_id);
-CREATE INDEX IF NOT EXISTS idx_transaction_status ON transaction(switch_status);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transaction_txn_id ON transaction(txn_id, txn_date);
+CREATE INDEX IF NOT EXISTS idx_transaction_npci_txn_id ON transaction(npci_txn_id);
 CREATE INDEX IF NOT EXISTS idx_transaction_de11_de37_de13 ON transaction(de11, de37, de13);
+-- keyset browsing for /imps/admin/transactions (TransactionQueryService); idx_transaction_browse covers
+-- every summary column so a date-range page is an index-only scan that never touches the XML
+CREATE INDEX IF NOT EXISTS idx_transaction_browse ON transaction(txn_date, id)
+    INCLUDE (txn_id, txn_type, switch_status, npci_txn_id, de11, de37, de13, approval_number,
+             req_in_date_time, resp_in_date_time);
+CREATE INDEX IF NOT EXISTS idx_transaction_status_date ON transaction(switch_status, txn_date, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_type_date ON transaction(txn_type, txn_date, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_de37_date ON transaction(de37, txn_date);
+
+-- uk_transaction_txn_id has to include the partition key, so it only stops a repeat on the same day.
+-- Every txn_id is also claimed here, in the same DB transaction as its transaction row, which makes
+-- it unique across days (back to imps.partitions.transaction.retention; see imps_transaction_txn_id.sql).
+CREATE TABLE IF NOT EXISTS transaction_txn_id (
+    txn_id VARCHAR(255) NOT NULL,
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    CONSTRAINT transaction_txn_id_pkey PRIMARY KEY (txn_id)
+);
 
 -- ============================================
 -- 2. MESSAGE_AUDIT_LOG TABLE
 -- ============================================
+-- Range-partitioned by created_at (daily); PartitionManager creates and retires the partitions.
 CREATE TABLE IF NOT EXISTS message_audit_log (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     txn_id VARCHAR(255),
     stage VARCHAR(255),
-    raw_message TEXT,
-    parsed_message TEXT,
-    created_at TIMESTAMP
-);
+    raw_message BYTEA,
+    parsed_message BYTEA,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+CREATE TABLE IF NOT EXISTS message_audit_log_default PARTITION OF message_audit_log DEFAULT;
+ALTER SEQUENCE message_audit_log_id_seq INCREMENT BY 50;
 
 -- Indexes for message_audit_log table
 CREATE INDEX IF NOT EXISTS idx_audit_txn_id ON message_audit_log(txn_id);
@@ -128,16 +157,39 @@ CREATE TABLE IF NOT EXISTS response_xpath (
     xpath VARCHAR(255)
 );
 
+-- ============================================
+-- 8. NPCI_OUTBOX TABLE (RespPay / RespChkTxn / RespValAdd to NPCI until delivered)
+-- ============================================
+-- Written in the same DB transaction as the transaction status update; NpciOutbox relays PENDING rows.
+CREATE TABLE IF NOT EXISTS npci_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    msg_id VARCHAR(64) NOT NULL,
+    api_type VARCHAR(32) NOT NULL,
+    txn_id VARCHAR(255),
+    payload BYTEA NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    last_error TEXT,
+    CONSTRAINT uk_npci_outbox_api_txn UNIQUE (api_type, txn_id)
+);
+CREATE INDEX IF NOT EXISTS idx_npci_outbox_due ON npci_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_npci_outbox_sent_at ON npci_outbox(sent_at) WHERE status = 'SENT';
+
 -- ============================================
 -- TABLE COMMENTS
 -- ============================================
 COMMENT ON TABLE transaction IS 'Stores all IMPS transaction details';
+COMMENT ON TABLE transaction_txn_id IS 'One row per txn_id ever stored in transaction (global uniqueness)';
 COMMENT ON TABLE message_audit_log IS 'IMPS-only: Audit trail (exactly 4 stages per flow: npci_xml_in, switch_iso_out, switch_iso_in, npci_xml_out)';
 COMMENT ON TABLE account_master IS 'Shared for Switch/NPCI validation only; IMPS uses institution_master';
 COMMENT ON TABLE institution_master IS 'IMPS-only: used by IMPS for validation (IFSC, bank routing)';
 COMMENT ON TABLE account_type_mapping IS 'Maps account types to ISO codes';
 COMMENT ON TABLE xml_path_req_pay IS 'XPath configurations for XML parsing';
 COMMENT ON TABLE response_xpath IS 'XPath configurations for response parsing';
+COMMENT ON TABLE npci_outbox IS 'Responses to NPCI pending delivery (PENDING → SENT | DEAD), retried with backoff';
 
 -- ============================================
 -- SAMPLE DATA (IMPS-only: institution_master, account_master for validation)
@@ -212,5 +264,6 @@ COMMENT ON COLUMN transaction.de12 IS 'ISO DE12 - Local Transaction Time';
 COMMENT ON COLUMN transaction.de13 IS 'ISO DE13 - Local Transaction Date';
 
 COMMENT ON COLUMN message_audit_log.stage IS 'Stage: only 4 per flow - NPCI_*_XML_IN, SWITCH_*_ISO_OUT, SWITCH_*_ISO_IN, NPCI_*_XML_OUT';
-COMMENT ON COLUMN message_audit_log.raw_message IS 'Raw XML or Base64 encoded ISO bytes';
-COMMENT ON COLUMN message_audit_log.parsed_message IS 'Parsed fields as text';
+COMMENT ON COLUMN message_audit_log.raw_message IS 'Raw XML or ISO bytes (PayloadCodec format, usually deflated)';
+COMMENT ON COLUMN message_audit_log.parsed_message IS 'Parsed fields as text (PayloadCodec format, usually deflated)';
+COMMENT ON COLUMN npci_outbox.payload IS 'Response XML (PayloadCodec format, usually deflated)';
@@ -0,0 +1,56 @@
+package com.hitachi.imps.config;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Startup check for the native tables, over a mocked JdbcTemplate (no DB).
+ */
+class SchemaGuardTest {
+
+    /** A guard over a database that has exactly {@code present} (tables and constraints). */
+    private static SchemaGuard guard(boolean outboxEnabled, Set<String> present) {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), anyString()))
+            .thenAnswer(i -> present.contains((String) i.getArgument(2)));
+        SchemaGuard g = new SchemaGuard();
+        ReflectionTestUtils.setField(g, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(g, "outboxEnabled", outboxEnabled);
+        return g;
+    }
+
+    @Test
+    void upToDateSchemaPasses() {
+        assertDoesNotThrow(() -> guard(true, Set.of("transaction_txn_id", "npci_outbox", "uk_npci_outbox_api_txn")).check());
+        assertDoesNotThrow(() -> guard(false, Set.of("transaction_txn_id")).check());
+    }
+
+    @Test
+    void missingTablesNameTheirMigration() {
+        String msg = assertThrows(IllegalStateException.class, () -> guard(true, Set.of()).check()).getMessage();
+        assertTrue(msg.contains("imps_transaction_txn_id.sql"), msg);
+        assertTrue(msg.contains("imps_npci_outbox.sql"), msg);
+
+        msg = assertThrows(IllegalStateException.class, () -> guard(false, Set.of()).check()).getMessage();
+        assertFalse(msg.contains("npci_outbox"), msg);
+    }
+
+    @Test
+    void outboxWithTheOldMsgIdKeyIsRejected() {
+        String msg = assertThrows(IllegalStateException.class,
+            () -> guard(true, Set.of("transaction_txn_id", "npci_outbox")).check()).getMessage();
+        assertTrue(msg.contains("(api_type, txn_id)"), msg);
+    }
+}
@@ -0,0 +1,436 @@
+package com.hitachi.imps.iso;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import org.jpos.iso.IFA_LLCHAR;
+import org.jpos.iso.IFA_LLLCHAR;
+import org.jpos.iso.IFA_NUMERIC;
+import org.jpos.iso.IFB_AMOUNT;
+import org.jpos.iso.IFB_BINARY;
+import org.jpos.iso.IFB_LLNUM;
+import org.jpos.iso.IFB_NUMERIC;
+import org.jpos.iso.IF_CHAR;
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOFieldPackager;
+import org.jpos.iso.ISOMsg;
+import org.junit.jupiter.api.Test;
+
+import com.hitachi.imps.iso.ImpsIsoCodec.Kind;
+
+/**
+ * Differential tests: ImpsIsoCodec / ImpsIsoView against jPOS with ImpsIsoPackager.
+ * Every message must pack to the same bytes and unpack to the same field values,
+ * and inputs jPOS rejects must be rejected too.
+ */
+class ImpsIsoCodecTest {
+
+    private static final int ROUNDS = 5000;
+
+    /* ===============================
+       LAYOUT
+       =============================== */
+    @Test
+    void layoutMirrorsImpsIsoPackager() {
+        for (int field = 0; field <= ImpsIsoCodec.MAX_FIELD; field++) {
+            ISOFieldPackager fp = field == 1 ? null : ImpsIsoPackager.INSTANCE.getFieldPackager(field);
+            Kind kind = ImpsIsoCodec.kind(field);
+            if (fp == null) {
+                assertEquals(Kind.NONE, kind, "DE" + field);
+                continue;
+            }
+            Class<?> expected = switch (kind) {
+                case A_NUMERIC -> IFA_NUMERIC.class;
+                case B_NUMERIC -> IFB_NUMERIC.class;
+                case B_LLNUM -> IFB_LLNUM.class;
+                case A_LLCHAR -> IFA_LLCHAR.class;
+                case A_LLLCHAR -> IFA_LLLCHAR.class;
+                case CHAR -> IF_CHAR.class;
+                case BINARY -> IFB_BINARY.class;
+                case OTHER -> IFB_AMOUNT.class;
+                default -> null;
+            };
+            assertEquals(expected, fp.getClass(), "DE" + field);
+            assertEquals(fp.getLength(), ImpsIsoCodec.length(field), "DE" + field);
+        }
+    }
+
+    /* ===============================
+       ROUND TRIP
+       =============================== */
+    @Test
+    void randomMessagesPackAndUnpackLikeJpos() throws Exception {
+        Random rnd = new Random(8583);
+        for (int n = 0; n < ROUNDS; n++) {
+            ISOMsg iso = randomMessage(rnd);
+            assertRoundTrip(iso, "round " + n);
+        }
+    }
+
+    @Test
+    void imps0200And0210MatchJpos() throws Exception {
+        ISOMsg req = new ISOMsg();
+        req.setMTI("0200");
+        req.set(3, "400000");
+        req.set(4, "000000010000");
+        req.set(11, "123456");
+        req.set(12, "101530");
+        req.set(13, "1017");
+        req.set(32, "HDFC");
+        req.set(33, "ICIC0001234");
+        req.set(37, "629012345678");
+        req.set(41, "IMPSTERM");
+        req.set(49, "356");
+        req.set(102, "1234567890123");
+        req.set(103, "9876543210987");
+        req.set(120, "TXN0123456789abcdef0123456789abcdef");
+        assertRoundTrip(req, "0200");
+
+        ISOMsg resp = new ISOMsg();
+        resp.setMTI("0210");
+        resp.set(11, "123456");
+        resp.set(37, "629012345678");
+        resp.set(38, "AB12");
+        resp.set(39, "00");
+        resp.set(120, "TXN0123456789abcdef0123456789abcdef");
+        assertRoundTrip(resp, "0210");
+    }
+
+    @Test
+    void primaryBitmapOnlyWhenNoFieldAbove64() throws Exception {
+        ISOMsg iso = new ISOMsg();
+        iso.setMTI("0800");
+        iso.set(11, "1");
+        iso.set(64, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        byte[] packed = assertRoundTrip(iso, "0800");
+        assertEquals(4 + 16 + 3 + 8, packed.length);
+
+        ISOMsg mtiOnly = new ISOMsg();
+        mtiOnly.setMTI("0800");
+        assertArrayEquals(jposPack(mtiOnly), ImpsIsoCodec.pack(mtiOnly), "MTI only: no bitmap");
+    }
+
+    @Test
+    void oddLengthAndNonDigitBcdEncodeLikeJpos() throws Exception {
+        ISOMsg iso = new ISOMsg();
+        iso.setMTI("200");
+        iso.set(2, "12345");
+        iso.set(3, "12a");
+        iso.set(22, "51");
+        iso.set(24, "7");
+        assertRoundTrip(iso, "bcd");
+    }
+
+    @Test
+    void binaryValuesOnStringFieldsEncodeLikeJpos() throws Exception {
+        ISOMsg iso = new ISOMsg();
+        iso.setMTI("0200");
+        iso.set(37, new byte[] {'A', 'B', (byte) 0xE9});
+        iso.set(120, new byte[] {'x', 'y'});
+        assertRoundTrip(iso, "byte[] values");
+    }
+
+    /* ===============================
+       JPOS FALLBACK
+       =============================== */
+    @Test
+    void unmodelledFieldsFallBackToJpos() throws Exception {
+        ISOMsg noMti = new ISOMsg();
+        noMti.set(11, "1");
+        assertSameOutcome(() -> jposPack(noMti), () -> ImpsIsoCodec.pack(noMti), "no MTI");
+
+        ISOMsg wide = new ISOMsg();
+        wide.setMTI("0200");
+        wide.set(43, "Café €");
+        assertSameOutcome(() -> jposPack(wide), () -> ImpsIsoCodec.pack(wide), "non Latin-1");
+
+        ISOMsg noPackager = new ISOMsg();
+        noPackager.setMTI("0200");
+        noPackager.set(8, "12");
+        assertSameOutcome(() -> jposPack(noPackager), () -> ImpsIsoCodec.pack(noPackager), "field without packager");
+
+        ISOMsg amount = new ISOMsg();
+        amount.setMTI("0200");
+        amount.set(28, "C00000100");
+        assertSameOutcome(() -> jposPack(amount), () -> ImpsIsoCodec.pack(amount), "DE28");
+    }
+
+    /* ===============================
+       REJECTED INPUT
+       =============================== */
+    @Test
+    void oversizedValuesAreRejectedLikeJpos() throws Exception {
+        Random rnd = new Random(42);
+        for (int field = 0; field <= ImpsIsoCodec.MAX_FIELD; field++) {
+            Kind kind = ImpsIsoCodec.kind(field);
+            if (kind == Kind.NONE || kind == Kind.OTHER) {
+                continue;
+            }
+            int max = ImpsIsoCodec.length(field);
+            ISOMsg iso = new ISOMsg();
+            iso.setMTI("0200");
+            if (kind == Kind.BINARY) {
+                iso.set(field, randomBytes(rnd, max - 1));
+            } else {
+                iso.set(field, digits(rnd, max + 1));
+            }
+            String what = "oversized DE" + field;
+            assertSameOutcome(() -> jposPack(iso), () -> ImpsIsoCodec.pack(iso), what);
+        }
+    }
+
+    @Test
+    void truncatedAndCorruptedMessagesUnpackLikeJpos() throws Exception {
+        Random rnd = new Random(1024);
+        for (int n = 0; n < 300; n++) {
+            byte[] packed = jposPack(randomMessage(rnd));
+
+            int cut = rnd.nextInt(packed.length);
+            byte[] truncated = Arrays.copyOf(packed, cut);
+            assertSameUnpack(truncated, "truncated " + n + " at " + cut);
+
+            byte[] corrupted = packed.clone();
+            for (int k = 0; k < 3; k++) {
+                corrupted[rnd.nextInt(corrupted.length)] = (byte) rnd.nextInt(256);
+            }
+            assertSameUnpack(corrupted, "corrupted " + n);
+
+            byte[] trailing = Arrays.copyOf(packed, packed.length + 5);
+            assertSameUnpack(trailing, "trailing " + n);
+        }
+    }
+
+    /* ===============================
+       VIEW
+       =============================== */
+    @Test
+    void viewReadsFromDirectBufferAtOffsetAndCanBeReused() throws Exception {
+        Random rnd = new Random(7);
+        ImpsIsoView view = new ImpsIsoView();
+        for (int n = 0; n < 200; n++) {
+            ISOMsg iso = randomMessage(rnd);
+            byte[] expected = jposPack(iso);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(expected.length + 11);
+            direct.position(11);
+            assertEquals(expected.length, ImpsIsoCodec.pack(iso, direct));
+            direct.flip().position(11);
+
+            assertTrue(view.wrap(direct));
+            assertEquals(11, direct.position());
+            assertEquals(expected.length, view.getConsumed());
+            ISOMsg reference = jposUnpack(expected);
+            for (int i = 0; i <= ImpsIsoCodec.MAX_FIELD; i++) {
+                assertEquals(reference.getString(i), view.getString(i), "DE" + i + " round " + n);
+                assertEquals(reference.hasField(i), view.hasField(i), "DE" + i + " round " + n);
+            }
+        }
+    }
+
+    @Test
+    void viewDeclinesUnmodelledField() throws Exception {
+        byte[] packed = new byte[4 + 16];
+        System.arraycopy("0200".getBytes(), 0, packed, 0, 4);
+        System.arraycopy("0000000800000000".getBytes(), 0, packed, 4, 16);   // DE29 only
+        assertFalse(new ImpsIsoView().wrap(packed));
+        assertNull(ImpsIsoCodec.view(packed));
+    }
+
+    /* ===============================
+       WRITER
+       =============================== */
+    @Test
+    void writerPacksLikeJposWithoutAnIsoMsg() throws Exception {
+        ImpsIsoWriter w = new ImpsIsoWriter();
+        w.setMTI("0200");
+        w.set(3, "400000");
+        w.set(4, "000000010000");
+        w.set(11, "123456");
+        w.set(13, "1017");
+        w.set(33, "ICIC0001234");
+        w.set(37, "629012345678");
+        w.set(41, "IMPSTERM");
+        w.set(103, "9876543210987");
+        w.set(120, "TXN0123456789abcdef0123456789abcdef");
+        w.set(41, null);
+
+        byte[] expected = jposPack(w.toISOMsg());
+        assertArrayEquals(expected, w.pack(), "writer pack");
+        assertFalse(w.hasField(41));
+        assertEquals("123456", w.getString(11));
+
+        ByteBuffer out = ByteBuffer.allocateDirect(expected.length + 3);
+        out.position(3);
+        assertEquals(expected.length, w.pack(out));
+        byte[] written = new byte[expected.length];
+        out.get(3, written);
+        assertArrayEquals(expected, written, "writer pack into buffer");
+
+        w.clear();
+        w.setMTI("0800");
+        w.set(11, "1");
+        assertArrayEquals(jposPack(w.toISOMsg()), w.pack(), "after clear");
+    }
+
+    @Test
+    void writerFallsBackToJposForUnmodelledFields() throws Exception {
+        ImpsIsoWriter amount = new ImpsIsoWriter();
+        amount.setMTI("0200");
+        amount.set(28, "C00000100");
+        assertSameOutcome(() -> jposPack(amount.toISOMsg()), amount::pack, "DE28");
+
+        ImpsIsoWriter wide = new ImpsIsoWriter();
+        wide.setMTI("0200");
+        wide.set(43, "Café €");
+        assertSameOutcome(() -> jposPack(wide.toISOMsg()), wide::pack, "non Latin-1");
+
+        ImpsIsoWriter tooLong = new ImpsIsoWriter();
+        tooLong.setMTI("0210");
+        tooLong.set(39, "000");
+        assertSameOutcome(() -> jposPack(tooLong.toISOMsg()), tooLong::pack, "oversized DE39");
+    }
+
+    /* ===============================
+       HELPERS
+       =============================== */
+    private static byte[] assertRoundTrip(ISOMsg iso, String what) throws Exception {
+        byte[] actual = ImpsIsoCodec.pack(iso);
+        byte[] expected = jposPack(iso);
+        assertArrayEquals(expected, actual, what + ": packed bytes differ");
+
+        ISOMsg reference = jposUnpack(expected);
+        ISOMsg decoded = ImpsIsoCodec.unpack(expected);
+        ImpsIsoView view = ImpsIsoCodec.view(expected);
+        assertNotNull(view, what);
+        for (int i = -1; i <= ImpsIsoCodec.MAX_FIELD; i++) {
+            assertEquals(reference.hasField(i), decoded.hasField(i), what + ": DE" + i + " presence");
+            if (!reference.hasField(i)) {
+                continue;
+            }
+            Object want = reference.getValue(i);
+            Object got = decoded.getValue(i);
+            if (want instanceof byte[] b) {
+                assertArrayEquals(b, (byte[]) got, what + ": DE" + i);
+            } else {
+                assertEquals(want, got, what + ": DE" + i);
+            }
+            if (i >= 0) {
+                assertEquals(reference.getString(i), view.getString(i), what + ": view DE" + i);
+            }
+        }
+        assertArrayEquals(expected, jposPack(decoded), what + ": repack of codec unpack");
+        return expected;
+    }
+
+    private static void assertSameUnpack(byte[] data, String what) throws Exception {
+        assertSameOutcome(() -> describe(jposUnpack(data)), () -> describe(ImpsIsoCodec.unpack(data)), what);
+    }
+
+    private static <T> void assertSameOutcome(Callable<T> jpos, Callable<T> codec, String what) throws Exception {
+        T expected;
+        try {
+            expected = jpos.call();
+        } catch (ISOException e) {
+            try {
+                codec.call();
+            } catch (ISOException ignored) {
+                return;
+            }
+            fail(what + ": jPOS rejected (" + e.getMessage() + ") but codec accepted");
+            return;
+        }
+        T actual = codec.call();
+        if (expected instanceof byte[] b) {
+            assertArrayEquals(b, (byte[]) actual, what);
+        } else {
+            assertEquals(expected, actual, what);
+        }
+    }
+
+    private static String describe(ISOMsg iso) throws ISOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = -1; i <= ImpsIsoCodec.MAX_FIELD; i++) {
+            if (iso.hasField(i)) {
+                Object v = iso.getValue(i);
+                sb.append(i).append('=').append(v instanceof byte[] b ? Arrays.toString(b) : v).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static byte[] jposPack(ISOMsg iso) throws ISOException {
+        ISOMsg copy = (ISOMsg) iso.clone();
+        copy.setPackager(ImpsIsoPackager.INSTANCE);
+        return copy.pack();
+    }
+
+    private static ISOMsg jposUnpack(byte[] data) throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        iso.unpack(data);
+        return iso;
+    }
+
+    /** Random message over the modelled fields, values within the packager limits. */
+    private static ISOMsg randomMessage(Random rnd) throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setMTI(digits(rnd, 1 + rnd.nextInt(4)));
+        int density = 1 + rnd.nextInt(4);
+        for (int field = 2; field <= ImpsIsoCodec.MAX_FIELD; field++) {
+            Kind kind = ImpsIsoCodec.kind(field);
+            if (kind == Kind.NONE || kind == Kind.OTHER || rnd.nextInt(density + 1) != 0) {
+                continue;
+            }
+            int max = ImpsIsoCodec.length(field);
+            switch (kind) {
+                case B_NUMERIC:
+                case B_LLNUM:
+                case A_NUMERIC:
+                    iso.set(field, digits(rnd, rnd.nextInt(max + 1)));
+                    break;
+                case BINARY:
+                    iso.set(field, randomBytes(rnd, max));
+                    break;
+                default:
+                    iso.set(field, latin1(rnd, rnd.nextInt(Math.min(max, 120) + 1)));
+                    break;
+            }
+        }
+        if (iso.getMaxField() < 2) {
+            iso.set(11, digits(rnd, 6));
+        }
+        return iso;
+    }
+
+    private static String digits(Random rnd, int len) {
+        char[] c = new char[len];
+        for (int i = 0; i < len; i++) {
+            c[i] = (char) ('0' + rnd.nextInt(10));
+        }
+        return new String(c);
+    }
+
+    private static String latin1(Random rnd, int len) {
+        char[] c = new char[len];
+        for (int i = 0; i < len; i++) {
+            c[i] = rnd.nextInt(10) == 0 ? (char) (0xA0 + rnd.nextInt(0x60)) : (char) (0x20 + rnd.nextInt(0x5F));
+        }
+        return new String(c);
+    }
+
+    private static byte[] randomBytes(Random rnd, int len) {
+        byte[] b = new byte[len];
+        rnd.nextBytes(b);
+        return b;
+    }
+}
@@ -0,0 +1,156 @@
+package com.hitachi.imps.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hitachi.imps.entity.TransactionEntity;
+import com.hitachi.imps.repository.TransactionRepository;
+import com.hitachi.imps.service.correlation.InFlightRegistry;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.service.outbox.NpciOutbox;
+
+/**
+ * Guarded status updates over a mocked repository whose UPDATEs apply only when the row still has the
+ * expected status, as the WHERE switch_status = :from clause does (no DB).
+ */
+class TransactionServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 11);
+
+    /** switch_status of the single row (id 7) in the mocked table. */
+    private String row = TransactionService.STATUS_INIT;
+
+    private final TransactionRepository repo = mock(TransactionRepository.class);
+    private final InFlightRegistry inFlight = mock(InFlightRegistry.class);
+    private final NpciOutbox outbox = mock(NpciOutbox.class);
+
+    @SuppressWarnings("unchecked")
+    private TransactionService service() {
+        when(repo.updateRequestSent(eq(7), eq(DAY), anyString(), anyString(), anyString()))
+            .thenAnswer(i -> guarded(i.getArgument(2), i.getArgument(3)));
+        when(repo.updateResponse(eq(7), eq(DAY), anyString(), anyString(), any(), any(), any(), any(LocalDateTime.class)))
+            .thenAnswer(i -> guarded(i.getArgument(2), i.getArgument(3)));
+        DownstreamLimiter limiter = mock(DownstreamLimiter.class);
+        when(limiter.db(any(Supplier.class))).thenAnswer(i -> ((Supplier<Object>) i.getArgument(0)).get());
+        when(outbox.isEnabled()).thenReturn(true);
+
+        TransactionService s = new TransactionService();
+        ReflectionTestUtils.setField(s, "repo", repo);
+        ReflectionTestUtils.setField(s, "limiter", limiter);
+        ReflectionTestUtils.setField(s, "inFlight", inFlight);
+        ReflectionTestUtils.setField(s, "outbox", outbox);
+        ReflectionTestUtils.setField(s, "tx", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        return s;
+    }
+
+    /** UPDATE ... SET switch_status = :to WHERE id = 7 AND switch_status = :from */
+    private synchronized int guarded(String from, String to) {
+        if (!row.equals(from)) return 0;
+        row = to;
+        return 1;
+    }
+
+    /** The row as a handler reads it. */
+    private static TransactionEntity read(String status) {
+        TransactionEntity t = new TransactionEntity();
+        t.setId(7);
+        t.setTxnDate(DAY);
+        t.setTxnId("TXN7");
+        t.setSwitchStatus(status);
+        return t;
+    }
+
+    private static NpciOutbox.Message response() {
+        return new NpciOutbox().message("RespPay", "TXN7", "<ns2:RespPay><Head msgId=\"M7\"/></ns2:RespPay>");
+    }
+
+    @Test
+    void initToIsoSentIsAppliedOnce() {
+        TransactionService s = service();
+        TransactionEntity t = read(TransactionService.STATUS_INIT);
+
+        assertTrue(s.markIsoSent(t));
+        assertEquals(TransactionService.STATUS_ISO_SENT, row);
+        assertEquals(TransactionService.STATUS_ISO_SENT, t.getSwitchStatus());
+        verify(inFlight).register(t);
+
+        // a second send of the same INIT copy finds the row moved on
+        assertFalse(s.markIsoSent(read(TransactionService.STATUS_INIT)));
+        assertEquals(TransactionService.STATUS_ISO_SENT, row);
+        verify(inFlight, times(1)).register(any());
+    }
+
+    @Test
+    void secondResponseForAFinalRowIsSkippedWithoutAnOutboxRow() {
+        row = TransactionService.STATUS_ISO_SENT;
+        TransactionService s = service();
+
+        assertTrue(s.markSuccess(read(TransactionService.STATUS_ISO_SENT), "<resp/>", "123456", null, response()));
+        assertEquals(TransactionService.STATUS_SUCCESS, row);
+        verify(outbox, times(1)).insert(any());
+
+        // duplicate Switch response, reading the row after it went final: no UPDATE at all
+        TransactionEntity dup = read(TransactionService.STATUS_SUCCESS);
+        assertFalse(s.markSuccess(dup, "<resp/>", "123456", null, response()));
+        // duplicate read before the first one landed: the guarded UPDATE matches nothing
+        assertFalse(s.markFailure(read(TransactionService.STATUS_ISO_SENT), "<resp/>", response()));
+
+        assertEquals(TransactionService.STATUS_SUCCESS, row);
+        assertEquals(TransactionService.STATUS_SUCCESS, dup.getSwitchStatus());
+        verify(repo, times(2)).updateResponse(anyInt(), any(), anyString(), anyString(), any(), any(), any(), any());
+        verify(outbox, times(1)).insert(any());
+    }
+
+    @Test
+    void noResponseFailureLosesToARealResponse() {
+        row = TransactionService.STATUS_ISO_SENT;
+        TransactionService s = service();
+        // both read the row while it was in flight
+        TransactionEntity timeoutCopy = read(TransactionService.STATUS_ISO_SENT);
+        TransactionEntity responseCopy = read(TransactionService.STATUS_ISO_SENT);
+
+        assertTrue(s.markSuccess(responseCopy, "<resp/>", "654321", null, response()));
+        assertFalse(s.markFailure(timeoutCopy, null, response()));
+
+        assertEquals(TransactionService.STATUS_SUCCESS, row);
+        assertEquals(TransactionService.STATUS_ISO_SENT, timeoutCopy.getSwitchStatus());
+        verify(outbox, times(1)).insert(any());
+        verify(inFlight, times(2)).remove(any());
+    }
+
+    @Test
+    void realResponseLosesToTheNoResponseFailure() {
+        row = TransactionService.STATUS_ISO_SENT;
+        TransactionService s = service();
+        TransactionEntity timeoutCopy = read(TransactionService.STATUS_ISO_SENT);
+        TransactionEntity responseCopy = read(TransactionService.STATUS_ISO_SENT);
+
+        assertTrue(s.markFailure(timeoutCopy, null, response()));
+        assertFalse(s.markSuccess(responseCopy, "<resp/>", "654321", null, response()));
+
+        assertEquals(TransactionService.STATUS_FAILED, row);
+        // NPCI rule: a failure still carries an approval number
+        assertFalse(timeoutCopy.getApprovalNumber() == null || timeoutCopy.getApprovalNumber().isBlank());
+        verify(outbox, times(1)).insert(any());
+        verify(outbox, never()).send(any());
+    }
+}
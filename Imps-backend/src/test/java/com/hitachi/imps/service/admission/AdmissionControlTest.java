@@ -0,0 +1,87 @@
+package com.hitachi.imps.service.admission;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hitachi.imps.config.AdmissionConfig;
+import com.hitachi.imps.exception.OverloadedException;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Per-API shedding order and executor refusals (no DB, no Spring context).
+ */
+class AdmissionControlTest {
+
+    private static AdmissionControl admission(int maxInFlight) {
+        DownstreamLimiter limiter = new DownstreamLimiter();
+        ReflectionTestUtils.setField(limiter, "dbPermits", 10);
+        ReflectionTestUtils.setField(limiter, "switchPermits", 10);
+        ReflectionTestUtils.setField(limiter, "npciPermits", 10);
+        limiter.init();
+        AdmissionConfig config = new AdmissionConfig();
+        config.setMaxInFlight(maxInFlight);
+        AdmissionControl a = new AdmissionControl();
+        ReflectionTestUtils.setField(a, "config", config);
+        ReflectionTestUtils.setField(a, "limiter", limiter);
+        ReflectionTestUtils.setField(a, "dataSource", new DriverManagerDataSource());
+        return a;
+    }
+
+    /** Submit n tasks that have not run yet. */
+    private static void busy(AdmissionControl a, int n) {
+        for (int i = 0; i < n; i++) a.track(() -> { });
+    }
+
+    @Test
+    void listAccPvdIsShedFirstAndReqPayLast() {
+        AdmissionControl a = admission(100);
+        AtomicInteger ran = new AtomicInteger();
+        busy(a, 60);
+        assertThrows(OverloadedException.class, () -> a.handOff("ReqListAccPvd", "M1", ran::incrementAndGet));
+        a.handOff("ReqValAdd", "M2", ran::incrementAndGet);
+        a.handOff("ReqPay", "M3", ran::incrementAndGet);
+
+        busy(a, 30);
+        assertThrows(OverloadedException.class, () -> a.handOff("ReqValAdd", "M4", ran::incrementAndGet));
+        assertThrows(OverloadedException.class, () -> a.handOff("ReqChkTxn", "M5", ran::incrementAndGet));
+        a.handOff("ReqPay", "M6", ran::incrementAndGet);
+
+        busy(a, 10);
+        OverloadedException e = assertThrows(OverloadedException.class, () -> a.handOff("ReqPay", "M7", ran::incrementAndGet));
+        assertEquals("91", e.getErrCode());
+        assertEquals("M7", e.getReqMsgId());
+        assertEquals(3, ran.get());
+    }
+
+    @Test
+    void executorRefusalIsRejectedAndNotCounted() {
+        AdmissionControl a = admission(100);
+        assertThrows(OverloadedException.class, () -> a.handOff("ReqPay", "M1", () -> {
+            a.track(() -> { });   // decorated, then refused by the pool
+            throw new TaskRejectedException("queue full");
+        }));
+        assertEquals(0, a.stats().get("asyncInFlight"));
+        assertEquals(1L, a.stats().get("rejectedByExecutor"));
+    }
+
+    @Test
+    void finishedTasksFreeCapacity() {
+        AdmissionControl a = admission(10);
+        Runnable task = a.track(() -> { });
+        busy(a, 4);
+        assertThrows(OverloadedException.class, () -> a.handOff("ReqListAccPvd", "M1", () -> { }));
+        task.run();
+        a.handOff("ReqListAccPvd", "M2", () -> { });
+        @SuppressWarnings("unchecked")
+        Map<String, Long> admitted = (Map<String, Long>) a.stats().get("admitted");
+        assertEquals(1L, admitted.get("reqlistaccpvd"));
+    }
+}
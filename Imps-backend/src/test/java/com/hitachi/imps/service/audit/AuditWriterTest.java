@@ -0,0 +1,258 @@
+package com.hitachi.imps.service.audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hitachi.imps.entity.MessageAuditLog;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Batching, overflow policies and spill replay over a mocked JdbcTemplate (no DB).
+ */
+class AuditWriterTest {
+
+    @TempDir
+    Path dir;
+
+    /** Stages of the rows in each batchUpdate that went through, in order. */
+    private final List<List<String>> inserted = new CopyOnWriteArrayList<>();
+
+    /** Runs before each batchUpdate; throw to fail it. */
+    private volatile Consumer<List<MessageAuditLog>> db = rows -> { };
+
+    private AuditWriter writer;
+
+    @AfterEach
+    void stopWriter() {
+        if (writer != null) writer.stop();
+    }
+
+    @SuppressWarnings("unchecked")
+    private AuditWriter writer(int capacity, int batchSize, String overflow) {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        AtomicInteger seq = new AtomicInteger(1);
+        when(jdbc.queryForList(anyString(), eq(Integer.class), any())).thenAnswer(i -> {
+            int blocks = i.getArgument(2);
+            List<Integer> values = new ArrayList<>();
+            for (int b = 0; b < blocks; b++) values.add(seq.getAndAdd(MessageAuditLog.ID_ALLOCATION_SIZE));
+            return values;
+        });
+        doAnswer(i -> {
+            List<MessageAuditLog> rows = new ArrayList<>((Collection<MessageAuditLog>) i.getArgument(1));
+            db.accept(rows);
+            inserted.add(rows.stream().map(MessageAuditLog::getStage).toList());
+            return new int[][] { new int[rows.size()] };
+        }).when(jdbc).batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+
+        DownstreamLimiter limiter = mock(DownstreamLimiter.class);
+        when(limiter.db(any(Supplier.class))).thenAnswer(i -> ((Supplier<Object>) i.getArgument(0)).get());
+
+        AuditWriter w = new AuditWriter();
+        ReflectionTestUtils.setField(w, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(w, "limiter", limiter);
+        ReflectionTestUtils.setField(w, "capacity", capacity);
+        ReflectionTestUtils.setField(w, "batchSize", batchSize);
+        ReflectionTestUtils.setField(w, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(w, "overflowPolicy", overflow);
+        ReflectionTestUtils.setField(w, "spillFile", spill().toString());
+        ReflectionTestUtils.setField(w, "replayBatches", 10);
+        ReflectionTestUtils.setField(w, "replayIntervalMs", 50L);
+        writer = w;
+        return w;
+    }
+
+    private Path spill() {
+        return dir.resolve("audit-spill.ndjson");
+    }
+
+    private static MessageAuditLog row(String stage) {
+        MessageAuditLog log = new MessageAuditLog();
+        log.setTxnId("TXN-" + stage);
+        log.setStage(stage);
+        log.setRawMessage("<ReqPay/>");
+        return log;
+    }
+
+    private static String line(String stage) {
+        return "{\"txnId\":\"TXN-" + stage + "\",\"stage\":\"" + stage
+            + "\",\"rawMessage\":\"<ReqPay/>\",\"parsedMessage\":null,\"createdAt\":\"2026-03-11T09:12:45\"}";
+    }
+
+    private List<String> insertedStages() {
+        return inserted.stream().flatMap(List::stream).toList();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    /** Holds the flusher inside its first batchUpdate until released. */
+    private CountDownLatch[] holdFirstBatch() {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        db = rows -> {
+            if (entered.getCount() == 0) return;
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        return new CountDownLatch[] { entered, release };
+    }
+
+    @Test
+    void rowsAreWrittenInBatchesOfAtMostBatchSize() {
+        AuditWriter w = writer(100, 3, "spill");
+        w.start();
+        for (int i = 0; i < 7; i++) w.submit(row("S" + i));
+        w.stop();
+        writer = null;
+
+        assertEquals(List.of("S0", "S1", "S2", "S3", "S4", "S5", "S6"), insertedStages());
+        assertTrue(inserted.stream().allMatch(b -> b.size() <= 3), inserted.toString());
+        assertEquals(7L, w.stats().get("written"));
+    }
+
+    @Test
+    void blockWaitsForSpace() throws Exception {
+        CountDownLatch[] hold = holdFirstBatch();
+        AuditWriter w = writer(1, 1, "block");
+        w.start();
+        w.submit(row("A"));
+        assertTrue(hold[0].await(5, TimeUnit.SECONDS));
+        w.submit(row("B"));                     // fills the buffer
+        Thread caller = new Thread(() -> w.submit(row("C")));
+        caller.start();
+        caller.join(200);
+        assertTrue(caller.isAlive(), "caller should wait while the buffer is full");
+        assertEquals(1L, w.stats().get("blocked"));
+
+        hold[1].countDown();
+        caller.join(5000);
+        assertFalse(caller.isAlive());
+        w.stop();
+        writer = null;
+        assertEquals(List.of("A", "B", "C"), insertedStages());
+        assertEquals(0L, w.stats().get("spilled"));
+    }
+
+    @Test
+    void spillAppendsToTheSpillFileWhenFull() throws Exception {
+        CountDownLatch[] hold = holdFirstBatch();
+        AuditWriter w = writer(1, 1, "spill");
+        w.start();
+        w.submit(row("A"));
+        assertTrue(hold[0].await(5, TimeUnit.SECONDS));
+        w.submit(row("B"));
+        w.submit(row("C"));                     // returns straight away
+
+        assertEquals(1L, w.stats().get("spilled"));
+        List<String> lines = Files.readAllLines(spill(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"stage\":\"C\""), lines.get(0));
+        hold[1].countDown();
+    }
+
+    @Test
+    void dropDiscardsWhenFull() throws Exception {
+        CountDownLatch[] hold = holdFirstBatch();
+        AuditWriter w = writer(1, 1, "drop");
+        w.start();
+        w.submit(row("A"));
+        assertTrue(hold[0].await(5, TimeUnit.SECONDS));
+        w.submit(row("B"));
+        w.submit(row("C"));
+
+        assertEquals(1L, w.stats().get("dropped"));
+        assertEquals(0L, w.stats().get("spilled"));
+        assertFalse(Files.exists(spill()));
+        hold[1].countDown();
+    }
+
+    @Test
+    void spillIsReplayedAndBadLinesAreSetAside() throws Exception {
+        Files.write(spill(), List.of(line("R1"), "{not json", line("REFUSED"), line("R3"), line("R4")), StandardCharsets.UTF_8);
+        // e.g. no partition for created_at: the table refuses the row, and with it the whole batch
+        db = rows -> {
+            if (rows.stream().anyMatch(r -> "REFUSED".equals(r.getStage()))) {
+                throw new DataIntegrityViolationException("no partition of relation found for row");
+            }
+        };
+        AuditWriter w = writer(100, 2, "spill");
+        w.start();
+        await(() -> !(Boolean) w.stats().get("replayPending"));
+
+        assertEquals(List.of("R1", "R3", "R4"), insertedStages());
+        assertEquals(3L, w.stats().get("replayed"));
+        assertEquals(2L, w.stats().get("rejected"));
+        List<String> rejected = Files.readAllLines(dir.resolve("audit-spill.ndjson.rejected"), StandardCharsets.UTF_8);
+        assertEquals(List.of("{not json", line("REFUSED")), rejected);
+        assertFalse(Files.exists(spill()));
+        assertFalse(Files.exists(dir.resolve("audit-spill.ndjson.replay")));
+    }
+
+    @Test
+    void replayResumesAfterTheLastCommittedBatch() throws Exception {
+        Files.write(spill(), List.of(line("R1"), line("R2"), line("R3"), line("R4"), line("R5")), StandardCharsets.UTF_8);
+        AtomicInteger calls = new AtomicInteger();
+        db = rows -> {
+            if (calls.incrementAndGet() > 1) throw new CannotGetJdbcConnectionException("Connection refused");
+        };
+        AuditWriter w = writer(100, 2, "spill");
+        w.start();
+        await(() -> (Long) w.stats().get("replayFailures") > 0);
+
+        Path replaying = dir.resolve("audit-spill.ndjson.replay");
+        assertTrue(Files.exists(replaying));
+        assertEquals("2", Files.readString(dir.resolve("audit-spill.ndjson.replay.offset")));
+
+        w.submit(row("LIVE"));                  // fails too: spilled to a fresh file behind the .replay
+        await(() -> (Long) w.stats().get("spilled") > 0);
+        db = rows -> { };
+        await(() -> !(Boolean) w.stats().get("replayPending"));
+
+        List<String> stages = insertedStages();
+        assertEquals(List.of("R1", "R2", "R3", "R4", "R5"), stages.stream().filter(s -> s.startsWith("R")).toList());
+        assertTrue(stages.contains("LIVE"));
+        assertFalse(Files.exists(replaying));
+        assertFalse(Files.exists(dir.resolve("audit-spill.ndjson.replay.offset")));
+    }
+}
@@ -0,0 +1,93 @@
+package com.hitachi.imps.service.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hitachi.imps.entity.TransactionEntity;
+
+/**
+ * In-flight registry: what it keeps per transaction, removal, and the size cap.
+ */
+class InFlightRegistryTest {
+
+    private InFlightRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InFlightRegistry();
+        ReflectionTestUtils.setField(registry, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "maxEntries", 2);
+    }
+
+    private static TransactionEntity txn(int id, String txnId, String de11) {
+        TransactionEntity txn = new TransactionEntity();
+        txn.setId(id);
+        txn.setTxnId(txnId);
+        txn.setTxnType("VALADD");
+        txn.setTxnDate(LocalDate.of(2026, 10, 18));
+        txn.setNpciTxnId("NPCI" + txnId);
+        txn.setSwitchStatus("ISO_SENT");
+        txn.setDe11(de11);
+        txn.setDe37("629012345678");
+        txn.setDe13("1018");
+        txn.setReqXml("<ReqValAdd>" + "x".repeat(4096) + "</ReqValAdd>");
+        return txn;
+    }
+
+    @Test
+    void hitCarriesTheCorrelationFieldsButNotThePayload() {
+        TransactionEntity sent = txn(7, "TXN1", "000001");
+        registry.register(sent);
+
+        TransactionEntity hit = registry.byDe("000001", "629012345678", "1018").orElseThrow();
+        assertNotSame(sent, hit);
+        assertEquals(7, hit.getId());
+        assertEquals(sent.getTxnDate(), hit.getTxnDate());
+        assertEquals("TXN1", hit.getTxnId());
+        assertEquals("ISO_SENT", hit.getSwitchStatus());
+        assertEquals("NPCITXN1", hit.getNpciTxnId());
+        assertNull(hit.getReqXml());
+        assertTrue(registry.byNpciTxnId("NPCITXN1").isPresent());
+    }
+
+    @Test
+    void removeMatchesByRowIdNotInstance() {
+        registry.register(txn(7, "TXN1", "000001"));
+        registry.remove(registry.byTxnId("TXN1").orElseThrow());
+
+        assertFalse(registry.byTxnId("TXN1").isPresent());
+        assertFalse(registry.byDe("000001", "629012345678", "1018").isPresent());
+        assertFalse(registry.byNpciTxnId("NPCITXN1").isPresent());
+    }
+
+    @Test
+    void newerRowKeepsItsSlotWhenAnOlderOneCompletes() {
+        TransactionEntity older = txn(7, "TXN1", "000001");
+        registry.register(older);
+        registry.register(txn(8, "TXN1", "000002"));
+        registry.remove(older);
+
+        assertEquals(8, registry.byTxnId("TXN1").orElseThrow().getId());
+    }
+
+    @Test
+    void registrationsBeyondTheCapAreCountedAndSkipped() {
+        registry.register(txn(1, "TXN1", "000001"));
+        registry.register(txn(2, "TXN2", "000002"));
+        registry.register(txn(3, "TXN3", "000003"));
+        registry.register(txn(4, "TXN4", "000004"));
+
+        assertFalse(registry.byTxnId("TXN3").isPresent());
+        assertEquals(2L, registry.stats().get("overflow"));
+        assertEquals(2, registry.stats().get("inFlight"));
+    }
+}
@@ -0,0 +1,42 @@
+package com.hitachi.imps.service.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.hitachi.imps.exception.DuplicateTxnIdException;
+
+/**
+ * Mapping of insert failures: a txn_id repeat on any day is a DuplicateTxnIdException.
+ */
+class DuplicateTxnIdDetectorTest {
+
+    private final DuplicateTxnIdDetector detector = new DuplicateTxnIdDetector();
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+            new SQLException("ERROR: duplicate key value violates unique constraint \"" + constraint + "\"", "23505"));
+    }
+
+    @Test
+    void repeatOnALaterDayFailsTheTxnIdClaim() {
+        assertInstanceOf(DuplicateTxnIdException.class,
+            detector.onInsertFailure("TXN1", violation(DuplicateTxnIdDetector.TXN_ID_KEY)));
+    }
+
+    @Test
+    void repeatOnTheSameDayFailsTheUniqueIndex() {
+        assertInstanceOf(DuplicateTxnIdException.class,
+            detector.onInsertFailure("TXN1", violation(DuplicateTxnIdDetector.TXN_ID_UNIQUE_INDEX)));
+    }
+
+    @Test
+    void otherViolationsAreRethrownAsIs() {
+        DataIntegrityViolationException e = violation("transaction_pkey");
+        assertSame(e, detector.onInsertFailure("TXN1", e));
+    }
+}
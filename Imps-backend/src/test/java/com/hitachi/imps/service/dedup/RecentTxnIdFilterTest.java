@@ -0,0 +1,80 @@
+package com.hitachi.imps.service.dedup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Two-generation Bloom filter: remembered window, no false negatives, false-positive bound.
+ */
+class RecentTxnIdFilterTest {
+
+    private static final int EXPECTED = 20_000;
+    private static final double RATE = 0.001;
+    private static final int PROBES = 500_000;
+
+    private RecentTxnIdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RecentTxnIdFilter();
+        ReflectionTestUtils.setField(filter, "windowMs", 900_000L);
+        ReflectionTestUtils.setField(filter, "expectedPerWindow", EXPECTED);
+        ReflectionTestUtils.setField(filter, "falsePositiveRate", RATE);
+        filter.init();
+    }
+
+    private static String id(String prefix, int i) {
+        return prefix + String.format("%032d", i);
+    }
+
+    private void fill(String prefix) {
+        for (int i = 0; i < EXPECTED; i++) {
+            filter.put(id(prefix, i));
+        }
+    }
+
+    private double falsePositiveRate() {
+        int hits = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain(id("NEW", i))) hits++;
+        }
+        return (double) hits / PROBES;
+    }
+
+    @Test
+    void everyAdmittedIdIsFoundForOneToTwoWindows() {
+        fill("TXN");
+        for (int i = 0; i < EXPECTED; i++) {
+            assertTrue(filter.mightContain(id("TXN", i)), "false negative at " + i);
+        }
+
+        filter.rotate();
+        for (int i = 0; i < EXPECTED; i++) {
+            assertTrue(filter.mightContain(id("TXN", i)), "false negative after one rotation at " + i);
+        }
+
+        filter.rotate();
+        for (int i = 0; i < EXPECTED; i++) {
+            assertFalse(filter.mightContain(id("TXN", i)), "still remembered after two rotations at " + i);
+        }
+        assertEquals(2L, filter.stats().get("rotations"));
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        fill("TXN");
+        double oneGeneration = falsePositiveRate();
+        assertTrue(oneGeneration <= RATE * 1.5, "one full generation: " + oneGeneration);
+
+        // right before a rotation both generations are full: up to about twice the configured rate
+        filter.rotate();
+        fill("REQ");
+        double twoGenerations = falsePositiveRate();
+        assertTrue(twoGenerations <= 2 * RATE * 1.5, "two full generations: " + twoGenerations);
+    }
+}
@@ -0,0 +1,107 @@
+package com.hitachi.imps.service.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Adaptive limit and circuit breaker of the Switch / NPCI legs.
+ */
+class AdaptiveLimitTest {
+
+    private static final long MS = 1_000_000;
+
+    /** Run {@code calls} calls, keeping the limit busy, each taking {@code rttMs}. */
+    private static void run(AdaptiveLimit limit, int calls, long rttMs) {
+        for (int i = 0; i < calls; i++) {
+            int busy = limit.getLimit();
+            int taken = 0;
+            while (taken < busy && limit.tryAcquire()) taken++;
+            for (int j = 0; j < taken; j++) {
+                limit.release(rttMs * MS, false);
+            }
+        }
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveLimit limit = new AdaptiveLimit(20, 5, 200, 0.2, 1.5, 0.9);
+        run(limit, 50, 10);
+        int grown = limit.getLimit();
+        assertTrue(grown > 20, "limit should grow at steady latency, was " + grown);
+
+        run(limit, 1, 60);
+        assertTrue(limit.getLimit() < grown, "limit should shrink when latency rises, was " + limit.getLimit());
+    }
+
+    @Test
+    void staysWithinBoundsAndBacksOffOnDrops() {
+        AdaptiveLimit limit = new AdaptiveLimit(50, 5, 60, 0.2, 1.5, 0.5);
+        run(limit, 200, 10);
+        assertEquals(60, limit.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(5000 * MS, true);
+        }
+        assertEquals(5, limit.getLimit());
+    }
+
+    @Test
+    void refusesOverTheLimitWithoutWaiting() {
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, 0.2, 1.5, 0.9);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        limit.cancel();
+        assertTrue(limit.tryAcquire());
+        assertEquals(1L, limit.stats().get("rejected"));
+    }
+
+    @Test
+    void breakerOpensOnFailuresAndClosesAfterProbes() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, 50, 2);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, breaker.tryAcquire());
+            breaker.onResult(i % 2 == 0);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire() > 0);
+
+        Thread.sleep(60);
+        assertEquals(0, breaker.tryAcquire());
+        assertEquals(0, breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire() > 0, "only half-open-calls probes go through");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(false);
+        breaker.onResult(false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(5, 5, 100, 50, 1);
+        for (int i = 0; i < 5; i++) {
+            breaker.tryAcquire();
+            breaker.onResult(true);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(60);
+        assertEquals(0, breaker.tryAcquire());
+        breaker.onResult(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.stats().get("openedCount"));
+    }
+
+    @Test
+    void successesKeepTheBreakerClosed() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 50, 10_000, 1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, breaker.tryAcquire());
+            breaker.onResult(i % 3 == 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
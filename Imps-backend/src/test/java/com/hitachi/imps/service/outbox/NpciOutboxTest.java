@@ -0,0 +1,152 @@
+package com.hitachi.imps.service.outbox;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hitachi.imps.client.NpciMockClient;
+import com.hitachi.imps.entity.TransactionEntity;
+import com.hitachi.imps.repository.TransactionRepository;
+import com.hitachi.imps.service.TransactionService;
+import com.hitachi.imps.service.correlation.InFlightRegistry;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Outbox message keys, retry schedule and what is stored when a status update is skipped (no DB).
+ */
+class NpciOutboxTest {
+
+    private static NpciOutbox outbox() {
+        NpciOutbox o = new NpciOutbox();
+        ReflectionTestUtils.setField(o, "backoffInitialMs", 1000L);
+        ReflectionTestUtils.setField(o, "backoffMaxMs", 300_000L);
+        return o;
+    }
+
+    /** Outbox over a mocked JdbcTemplate / NpciMockClient, with the limiter running work inline. */
+    private static NpciOutbox outbox(JdbcTemplate jdbc, NpciMockClient npci, DownstreamLimiter limiter) {
+        NpciOutbox o = outbox();
+        ReflectionTestUtils.setField(o, "enabled", true);
+        ReflectionTestUtils.setField(o, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(o, "npciMockClient", npci);
+        ReflectionTestUtils.setField(o, "limiter", limiter);
+        when(npci.deliverAsync(anyString(), any(), anyString())).thenReturn(CompletableFuture.completedFuture("ACK"));
+        return o;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DownstreamLimiter inlineLimiter() {
+        DownstreamLimiter limiter = mock(DownstreamLimiter.class);
+        when(limiter.db(any(Supplier.class))).thenAnswer(i -> ((Supplier<Object>) i.getArgument(0)).get());
+        return limiter;
+    }
+
+    private static boolean anyInsert(JdbcTemplate jdbc) {
+        return mockingDetails(jdbc).getInvocations().stream()
+            .flatMap(i -> java.util.Arrays.stream(i.getArguments()))
+            .anyMatch(a -> a instanceof String sql && sql.contains("INSERT INTO npci_outbox"));
+    }
+
+    @Test
+    void updateSkippedStoresNoOutboxRowAndSendsOnce() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        NpciMockClient npci = mock(NpciMockClient.class);
+        DownstreamLimiter limiter = inlineLimiter();
+        NpciOutbox o = outbox(jdbc, npci, limiter);
+
+        TransactionRepository repo = mock(TransactionRepository.class);
+        // Another response already moved the row on: the guarded UPDATE matches nothing
+        when(repo.updateResponse(any(), any(), anyString(), anyString(), any(), any(), any(), any())).thenReturn(0);
+        TransactionService service = new TransactionService();
+        ReflectionTestUtils.setField(service, "repo", repo);
+        ReflectionTestUtils.setField(service, "limiter", limiter);
+        ReflectionTestUtils.setField(service, "inFlight", mock(InFlightRegistry.class));
+        ReflectionTestUtils.setField(service, "outbox", o);
+        ReflectionTestUtils.setField(service, "tx", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        TransactionEntity txn = new TransactionEntity();
+        txn.setId(7);
+        txn.setTxnId("TXN7");
+        txn.setTxnDate(LocalDate.of(2026, 3, 11));
+        txn.setSwitchStatus("ISO_SENT");
+        NpciOutbox.Message m = o.message("resppay", "TXN7", "<RespPay><Head msgId=\"MSG1\"/></RespPay>");
+
+        assertFalse(service.markSuccess(txn, "<resp/>", "123456", null, m));
+        assertNull(m.id);
+        assertFalse(anyInsert(jdbc), "skipped update must not store the response");
+
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(false);
+        o.sendUnstored(m);
+        verify(npci, times(1)).deliverAsync("resppay", "TXN7", m.xml);
+        assertFalse(anyInsert(jdbc));
+        assertEquals(1L, o.stats().get("sentUnstored"));
+        assertEquals(0L, o.stats().get("enqueued"));
+    }
+
+    @Test
+    void unstoredRepeatOfAStoredResponseIsDropped() {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        NpciMockClient npci = mock(NpciMockClient.class);
+        NpciOutbox o = outbox(jdbc, npci, inlineLimiter());
+        when(jdbc.queryForObject(anyString(), eq(Boolean.class), any(), any())).thenReturn(true);
+
+        NpciOutbox.Message m = o.message("respchktxn", "TXN8", "<RespChkTxn><Head msgId=\"MSG2\"/></RespChkTxn>");
+        o.send(m);   // never stored: treated as unstored
+
+        verify(npci, never()).deliverAsync(anyString(), any(), anyString());
+        assertFalse(anyInsert(jdbc));
+        assertEquals(1L, o.stats().get("droppedRepeats"));
+    }
+
+    @Test
+    void messageIsKeyedByHeadMsgId() {
+        String xml = """
+            <ns2:RespPay xmlns:ns2="http://npci.org/upi/schema/">
+                <Head ver="2.0" ts="2026-03-11T09:12:45.120+05:30" orgId="BANK01" msgId="MSG0123456789abcdef0123456789abcdef" prodType="IMPS"/>
+                <Txn id="NPCI000000007QpLm29XWZB" type="PAY"/>
+            </ns2:RespPay>
+            """;
+        NpciOutbox.Message m = outbox().message("resppay", "TXN1", xml);
+        assertEquals("MSG0123456789abcdef0123456789abcdef", m.getMsgId());
+        assertEquals("TXN1", m.txnId);
+        assertNull(m.id, "not stored until a status update stores it");
+    }
+
+    @Test
+    void messageWithoutMsgIdGetsOneAndBlankTxnIdIsDropped() {
+        NpciOutbox.Message m = outbox().message("respvaladd", " ", "<RespValAdd><Head ver=\"2.0\"/></RespValAdd>");
+        assertNotNull(m.getMsgId());
+        assertEquals(36, m.getMsgId().length());
+        assertNull(m.txnId);
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        NpciOutbox o = outbox();
+        assertEquals(1000, o.backoffMs(1));
+        assertEquals(2000, o.backoffMs(2));
+        assertEquals(8000, o.backoffMs(4));
+        assertEquals(300_000, o.backoffMs(10));
+        assertEquals(300_000, o.backoffMs(100));
+    }
+}
@@ -0,0 +1,114 @@
+package com.hitachi.imps.service.payload;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Round trips through the stored payload format, including rows converted from TEXT without a header.
+ */
+class PayloadCodecTest {
+
+    private static final String REQ_PAY = """
+        <ns2:ReqPay xmlns:ns2="http://npci.org/upi/schema/" xmlns:ns3="http://npci.org/cm/schema/">
+            <Head ver="2.0" ts="2026-03-11T09:12:45.120+05:30" orgId="BANK07" msgId="7QpLm29XWZA" prodType="IMPS"/>
+            <Txn note="P2A Fund Transfer" custRef="307009123456" refId="123456" refUrl="https://www.npci.org.in/"
+                 ts="2026-03-11T09:12:45.120+05:30" refCategory="00" type="PAY" purpose="00" initiationMode="00"
+                 id="NPCI000000007QpLm29XWZB"/>
+            <Payer addr="BANK07@psp" name="A Customer" seqNum="1" type="ENTITY" code="4814">
+                <Ac addrType="ACCOUNT">
+                    <Detail name="ACNUM" value="50100012345678"/>
+                    <Detail name="IFSC" value="BANK0000007"/>
+                    <Detail name="ACTYPE" value="SAVINGS"/>
+                </Ac>
+                <Amount value="2750.00" curr="INR"/>
+            </Payer>
+        </ns2:ReqPay>
+        """;
+
+    private static PayloadCodec codec(boolean enabled, int dictionary) {
+        PayloadCodec c = new PayloadCodec();
+        ReflectionTestUtils.setField(c, "enabled", enabled);
+        ReflectionTestUtils.setField(c, "level", 6);
+        ReflectionTestUtils.setField(c, "minBytes", 128);
+        ReflectionTestUtils.setField(c, "dictionaryId", dictionary);
+        c.init();
+        return c;
+    }
+
+    @Test
+    void xmlIsCompressedAndRestored() {
+        PayloadCodec c = codec(true, 1);
+        byte[] stored = c.encode(REQ_PAY);
+        assertTrue(c.isCompressed(stored));
+        assertTrue(stored.length * 4 < REQ_PAY.length(), "stored " + stored.length + " bytes");
+        assertEquals(REQ_PAY, c.decode(stored));
+    }
+
+    @Test
+    void base64AuditValueIsStoredAsBytes() {
+        byte[] iso = new byte[400];
+        new Random(7).nextBytes(iso);
+        String value = "BASE64:" + Base64.getEncoder().encodeToString(iso);
+        PayloadCodec c = codec(true, 1);
+        byte[] stored = c.encode(value);
+        assertTrue(stored.length <= iso.length + 1);
+        assertEquals(value, c.decode(stored));
+        // not canonical Base64: kept as text
+        assertEquals("BASE64:not base64!", c.decode(c.encode("BASE64:not base64!")));
+    }
+
+    @Test
+    void everyFormatReadsBack() {
+        PayloadCodec off = codec(false, 0);
+        PayloadCodec on = codec(true, 1);
+        for (String s : new String[] { "", "MTI=0200\nDE11=000123\n", "\u0001starts with a tag byte", "héllo ✓ ".repeat(40), REQ_PAY }) {
+            assertEquals(s, on.decode(off.encode(s)));
+            assertEquals(s, off.decode(on.encode(s)));
+        }
+        assertFalse(on.isCompressed(off.encode(REQ_PAY)));
+        assertNull(on.encode(null));
+        assertNull(on.decode(null));
+    }
+
+    @Test
+    void legacyTextBytesReadAsIs() {
+        PayloadCodec c = codec(true, 1);
+        assertEquals(REQ_PAY, c.decode(REQ_PAY.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("{\"k\":\"v\"}", c.decode("{\"k\":\"v\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void zlibStreamsAreSharedThroughABoundedPool() throws Exception {
+        PayloadCodec c = codec(true, 1);
+        ReflectionTestUtils.setField(c, "poolSize", 2);
+        c.init();
+        // more threads than pooled streams: extras are created and end()ed, at most pool-size are kept
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(threads.submit(() -> c.decode(c.encode(REQ_PAY))));
+            }
+            for (Future<String> r : results) assertEquals(REQ_PAY, r.get());
+        } finally {
+            threads.shutdown();
+        }
+        assertTrue((Integer) c.stats().get("pooledDeflaters") <= 2);
+        assertTrue((Integer) c.stats().get("pooledInflaters") <= 2);
+        assertTrue((Integer) c.stats().get("pooledDeflaters") > 0);
+    }
+}
@@ -0,0 +1,181 @@
+package com.hitachi.imps.service.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hitachi.imps.controller.admin.TransactionQueryAdminController;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+
+/**
+ * Keyset paging over a mocked JdbcTemplate that applies the generated predicate to rows held in memory
+ * (no DB): cursor round trip, malformed cursors, ties on txn_date, and how filters are bound.
+ */
+class TransactionQueryServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 11);
+
+    /** (txn_date, id) rows the mocked query answers from. */
+    private final List<Object[]> table = new ArrayList<>();
+
+    /** SQL and arguments of the last query. */
+    private String lastSql;
+    private List<Object> lastArgs;
+
+    @SuppressWarnings("unchecked")
+    private TransactionQueryService service() throws Exception {
+        JdbcTemplate jdbc = mock(JdbcTemplate.class);
+        when(jdbc.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(i -> {
+            lastSql = i.getArgument(0);
+            RowMapper<TransactionSummary> mapper = i.getArgument(1);
+            Object[] args = (Object[]) i.getRawArguments()[2];
+            lastArgs = Arrays.asList(args);
+            return select(lastSql, args, mapper);
+        });
+        DownstreamLimiter limiter = mock(DownstreamLimiter.class);
+        when(limiter.db(any(Supplier.class))).thenAnswer(i -> ((Supplier<Object>) i.getArgument(0)).get());
+
+        TransactionQueryService s = new TransactionQueryService();
+        ReflectionTestUtils.setField(s, "jdbcTemplate", jdbc);
+        ReflectionTestUtils.setField(s, "limiter", limiter);
+        ReflectionTestUtils.setField(s, "defaultDays", 7);
+        ReflectionTestUtils.setField(s, "maxLimit", 500);
+        return s;
+    }
+
+    /** What Postgres would return for the date range, the keyset predicate, the order and the limit. */
+    private List<TransactionSummary> select(String sql, Object[] args, RowMapper<TransactionSummary> mapper) throws Exception {
+        LocalDate from = (LocalDate) args[0];
+        LocalDate to = (LocalDate) args[1];
+        boolean keyset = sql.contains("(txn_date, id) < (?, ?)");
+        LocalDate afterDate = keyset ? (LocalDate) args[args.length - 3] : null;
+        Integer afterId = keyset ? (Integer) args[args.length - 2] : null;
+        int limit = (Integer) args[args.length - 1];
+
+        Comparator<Object[]> key = Comparator.<Object[], LocalDate>comparing(r -> (LocalDate) r[0])
+            .thenComparing(r -> (Integer) r[1]);
+        Object[] after = keyset ? new Object[] { afterDate, afterId } : null;
+        List<TransactionSummary> out = new ArrayList<>();
+        for (Object[] row : table.stream().sorted(key.reversed()).toList()) {
+            LocalDate d = (LocalDate) row[0];
+            if (d.isBefore(from) || d.isAfter(to)) continue;
+            if (after != null && key.compare(row, after) >= 0) continue;
+            if (out.size() == limit) break;
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getInt(1)).thenReturn((Integer) row[1]);
+            when(rs.getDate(2)).thenReturn(Date.valueOf(d));
+            out.add(mapper.mapRow(rs, out.size()));
+        }
+        return out;
+    }
+
+    private void rows(LocalDate day, int... ids) {
+        for (int id : ids) table.add(new Object[] { day, id });
+    }
+
+    private static TransactionFilter range(LocalDate from, LocalDate to) {
+        return new TransactionFilter(null, null, from, to, null, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> cursors(Map<String, Object> page) {
+        return ((List<TransactionSummary>) page.get("items")).stream().map(TransactionSummary::cursor).toList();
+    }
+
+    @Test
+    void pagesWalkTiesOnTheSameDateWithoutGapsOrRepeats() throws Exception {
+        rows(DAY, 10, 11, 12, 13, 14);
+        rows(DAY.minusDays(1), 9, 15);          // a later id on an earlier day still sorts after DAY
+        TransactionQueryService s = service();
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = s.page(range(DAY.minusDays(1), DAY), cursor, 2);
+            seen.addAll(cursors(page));
+            cursor = (String) page.get("nextCursor");
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of("2026-03-11:14", "2026-03-11:13", "2026-03-11:12", "2026-03-11:11", "2026-03-11:10",
+            "2026-03-10:15", "2026-03-10:9"), seen);
+        assertEquals(4, pages);
+    }
+
+    @Test
+    void cursorRoundTripsIntoTheKeysetArguments() throws Exception {
+        rows(DAY, 1, 2, 3);
+        TransactionQueryService s = service();
+
+        Map<String, Object> first = s.page(range(DAY, DAY), null, 2);
+        assertEquals("2026-03-11:2", first.get("nextCursor"));
+        assertFalse(lastSql.contains("(txn_date, id) <"), lastSql);
+
+        Map<String, Object> second = s.page(range(DAY, DAY), (String) first.get("nextCursor"), 2);
+        assertEquals(List.of(DAY, DAY, DAY, 2, 3), lastArgs);
+        assertEquals(List.of("2026-03-11:1"), cursors(second));
+        assertNull(second.get("nextCursor"));
+    }
+
+    @Test
+    void malformedCursorsAreRejected() throws Exception {
+        TransactionQueryService s = service();
+        for (String bad : List.of("2026-03-11", "2026-03-11:", ":5", "2026-02-30:5", "2026-03-11:x",
+                "2026-03-11:5:6", "MjAyNi0wMy0xMTo1", "2026-03-11:99999999999")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> s.page(range(DAY, DAY), bad, 10), bad);
+            assertTrue(e.getMessage().startsWith("Invalid cursor"), e.getMessage());
+        }
+        assertEquals(HttpStatus.BAD_REQUEST,
+            new TransactionQueryAdminController().badRequest(new IllegalArgumentException("Invalid cursor: x")).getStatusCode());
+    }
+
+    @Test
+    void filtersAreBoundInOrderAfterTheDateRange() throws Exception {
+        TransactionQueryService s = service();
+        TransactionFilter f = new TransactionFilter("SUCCESS", "PAY", DAY.minusDays(2), DAY, "607012345678", "123456");
+
+        s.page(f, "2026-03-10:42", 1000);
+
+        assertEquals("SELECT " + TransactionSummary.COLUMNS + " FROM transaction WHERE txn_date BETWEEN ? AND ?"
+            + " AND switch_status = ? AND txn_type = ? AND de37 = ? AND de11 = ?"
+            + " AND (txn_date, id) < (?, ?) ORDER BY txn_date DESC, id DESC LIMIT ?", lastSql);
+        // limit is capped at imps.txn-query.max-limit, plus one row to tell whether a next page exists
+        assertEquals(List.of(DAY.minusDays(2), DAY, "SUCCESS", "PAY", "607012345678", "123456",
+            LocalDate.of(2026, 3, 10), 42, 501), lastArgs);
+
+        s.page(new TransactionFilter(null, "VALADD", null, DAY, null, null), null, 0);
+        assertEquals("SELECT " + TransactionSummary.COLUMNS + " FROM transaction WHERE txn_date BETWEEN ? AND ?"
+            + " AND txn_type = ? ORDER BY txn_date DESC, id DESC LIMIT ?", lastSql);
+        assertEquals(List.of(DAY.minusDays(6), DAY, "VALADD", 2), lastArgs);
+    }
+
+    @Test
+    void fromAfterToIsRejected() throws Exception {
+        TransactionQueryService s = service();
+        assertThrows(IllegalArgumentException.class, () -> s.page(range(DAY, DAY.minusDays(1)), null, 10));
+    }
+}
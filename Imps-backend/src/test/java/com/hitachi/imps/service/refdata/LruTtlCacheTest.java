@@ -0,0 +1,70 @@
+package com.hitachi.imps.service.refdata;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Read-through, LRU eviction and expiry of the account lookup cache.
+ */
+class LruTtlCacheTest {
+
+    @Test
+    void loadsOncePerKey() {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(10, 60_000, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.of("v"), cache.get("k", k -> { loads.incrementAndGet(); return Optional.of("v"); }));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(4L, cache.stats().get("hits"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(2, 60_000, 60_000);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", k -> { loads.incrementAndGet(); return Optional.of(k); });
+        cache.get("b", k -> { loads.incrementAndGet(); return Optional.of(k); });
+        cache.get("a", k -> { loads.incrementAndGet(); return Optional.of(k); });   // a is now the most recent
+        cache.get("c", k -> { loads.incrementAndGet(); return Optional.of(k); });   // evicts b
+        assertEquals(3, loads.get());
+        assertEquals(2, cache.size());
+
+        cache.get("a", k -> { loads.incrementAndGet(); return Optional.of(k); });
+        assertEquals(3, loads.get());
+        cache.get("b", k -> { loads.incrementAndGet(); return Optional.of(k); });
+        assertEquals(4, loads.get());
+        assertEquals(2L, cache.stats().get("evicted"));
+    }
+
+    @Test
+    void notFoundUsesItsOwnTtl() throws Exception {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(10, 60_000, 1);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("missing", k -> { loads.incrementAndGet(); return Optional.empty(); });
+        Thread.sleep(5);
+        assertTrue(cache.get("missing", k -> { loads.incrementAndGet(); return Optional.empty(); }).isEmpty());
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.stats().get("expired"));
+
+        LruTtlCache<String, String> noNegative = new LruTtlCache<>(10, 60_000, 0);
+        noNegative.get("missing", k -> Optional.empty());
+        assertEquals(0, noNegative.size());
+    }
+
+    @Test
+    void invalidateAndClear() {
+        LruTtlCache<String, String> cache = new LruTtlCache<>(10, 60_000, 60_000);
+        cache.get("a", k -> Optional.of(k));
+        cache.get("b", k -> Optional.of(k));
+        cache.invalidate("a");
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,172 @@
+package com.hitachi.imps.socket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.hitachi.imps.config.SocketConfig;
+import com.hitachi.imps.exception.DownstreamBusyException;
+import com.hitachi.imps.iso.IsoFieldReader;
+
+/**
+ * IsoChannel against a raw-framed server. Messages stand in for ISO as "11=..;37=..;120=.." text;
+ * the server answers with a new DE11, as the Switch does, so replies match on DE120 or DE37.
+ */
+class IsoChannelTest {
+
+    private SocketServer server;
+    private IoReactor reactor;
+    private ExecutorService callbacks;
+    private IsoChannel channel;
+    private final List<String> unmatched = new CopyOnWriteArrayList<>();
+
+    private static IsoFieldReader fields(byte[] msg) {
+        Map<Integer, String> f = new HashMap<>();
+        for (String kv : new String(msg, StandardCharsets.ISO_8859_1).split(";")) {
+            int eq = kv.indexOf('=');
+            if (eq > 0) f.put(Integer.parseInt(kv.substring(0, eq)), kv.substring(eq + 1));
+        }
+        return f::get;
+    }
+
+    private static byte[] msg(String text) {
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /** Replies out of order from a pool; "slow" requests take a second. */
+    private static SocketFrame answer(SocketFrame request) {
+        String text = new String(request.getPayload(), StandardCharsets.ISO_8859_1);
+        if (text.contains("slow")) {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new SocketFrame(0, "", msg(text.replaceFirst("11=[^;]*", "11=999999") + ";39=00"));
+    }
+
+    private void start(int maxInFlight, long timeoutMs) throws Exception {
+        FrameCodec codec = FrameCodec.raw(2, 8192);
+        SocketConfig.Threading threading = new SocketConfig.Threading();
+        threading.setIoPoolSize(1);
+        threading.setProcessingPoolSize(8);
+        server = new SocketServer("test-switch", "127.0.0.1", 0, threading, codec, IsoChannelTest::answer);
+        server.start();
+        reactor = new IoReactor("test-iso-io");
+        callbacks = Executors.newFixedThreadPool(2);
+        channel = new IsoChannel("127.0.0.1", server.getPort(), 2, maxInFlight, 1000, timeoutMs, codec, reactor,
+            callbacks, IsoChannelTest::fields, reply -> unmatched.add(new String(reply, StandardCharsets.ISO_8859_1)));
+    }
+
+    /** Counters are updated as a future completes, possibly just after join() returns. */
+    private void awaitStat(String name, Object expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!expected.equals(channel.stats().get(name)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, channel.stats().get(name));
+    }
+
+    @AfterEach
+    void stop() {
+        if (channel != null) channel.close();
+        if (server != null) server.stop();
+        if (reactor != null) reactor.shutdown();
+        if (callbacks != null) callbacks.shutdown();
+    }
+
+    @Test
+    void pipelinedRepliesMatchTheirRequests() throws Exception {
+        start(1000, 5000);
+        List<CompletableFuture<byte[]>> replies = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            replies.add(channel.send(msg("11=" + i + ";37=RRN" + i + ";120=T" + i)));
+        }
+        for (int i = 0; i < 300; i++) {
+            assertEquals("11=999999;37=RRN" + i + ";120=T" + i + ";39=00",
+                new String(replies.get(i).join(), StandardCharsets.ISO_8859_1));
+        }
+        assertEquals(300L, channel.stats().get("matched"));
+        awaitStat("inFlight", 0);
+        assertTrue(unmatched.isEmpty());
+    }
+
+    @Test
+    void replyWithoutTxnIdMatchesOnRrn() throws Exception {
+        start(10, 5000);
+        byte[] reply = channel.send(msg("11=000001;37=RRN42")).join();
+        assertEquals("11=999999;37=RRN42;39=00", new String(reply, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void sharedKeysAreLeftToTheFirstRequest() throws Exception {
+        start(10, 5000);
+        CompletableFuture<byte[]> first = channel.send(msg("11=1;37=RRN7;120=PAY;slow"));
+        CompletableFuture<byte[]> check = channel.send(msg("11=2;37=RRN7;120=CHK"));
+        assertTrue(new String(check.join(), StandardCharsets.ISO_8859_1).contains("120=CHK"));
+        assertTrue(new String(first.join(), StandardCharsets.ISO_8859_1).contains("120=PAY"));
+
+        CompletableFuture<byte[]> slow = channel.send(msg("11=3;37=RRN8;120=DUP;slow"));
+        CompletionException dup = assertThrows(CompletionException.class,
+            () -> channel.send(msg("11=3;37=RRN8;120=DUP")).join());
+        assertInstanceOf(IllegalStateException.class, dup.getCause());
+        slow.join();
+    }
+
+    @Test
+    void fullWindowFailsFast() throws Exception {
+        start(2, 5000);
+        CompletableFuture<byte[]> a = channel.send(msg("11=1;37=R1;120=A;slow"));
+        CompletableFuture<byte[]> b = channel.send(msg("11=2;37=R2;120=B;slow"));
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> channel.send(msg("11=3;37=R3;120=C")).join());
+        assertInstanceOf(DownstreamBusyException.class, e.getCause());
+        a.join();
+        b.join();
+        assertEquals(1L, channel.stats().get("rejected"));
+        assertEquals("11=999999;37=R4;120=D;39=00",
+            new String(channel.send(msg("11=4;37=R4;120=D")).join(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void timedOutRequestFreesItsSlotAndLateReplyIsUnmatched() throws Exception {
+        start(1, 200);
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> channel.send(msg("11=1;37=R1;120=LATE;slow")).join());
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        awaitStat("timeouts", 1L);
+
+        long deadline = System.currentTimeMillis() + 3000;
+        while (unmatched.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("11=999999;37=R1;120=LATE;slow;39=00"), unmatched);
+        assertNotNull(channel.send(msg("11=2;37=R2;120=NEXT")).join());
+    }
+
+    @Test
+    void requestsFailWhenTheSwitchIsDown() throws Exception {
+        start(10, 5000);
+        server.stop();
+        server = null;
+        Thread.sleep(100);
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> channel.send(msg("11=1;37=R1;120=DOWN")).join());
+        assertNotNull(e.getCause());
+        assertEquals(0, channel.stats().get("inFlight"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.hitachi.imps.socket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import com.hitachi.imps.config.SocketConfig;
+import com.hitachi.imps.exception.OutboundHttpException;
+
+class SocketRoundTripTest {
+
+    private SocketServer server;
+    private IoReactor reactor;
+    private ExecutorService callbacks;
+
+    @RequestMapping("/switch")
+    public static class EchoController {
+        @PostMapping("/reqpay/{txnId}")
+        public byte[] reqpay(@PathVariable String txnId, @RequestBody byte[] isoBytes) {
+            byte[] out = Arrays.copyOf(isoBytes, isoBytes.length + txnId.length());
+            System.arraycopy(txnId.getBytes(StandardCharsets.UTF_8), 0, out, isoBytes.length, txnId.length());
+            return out;
+        }
+
+        @PostMapping("/reqchktxn/{txnId}")
+        public byte[] reqchktxn(@PathVariable String txnId, @RequestBody String xml) {
+            throw new IllegalStateException("rejected " + txnId);
+        }
+    }
+
+    public static class Advice {
+        @ExceptionHandler(IllegalStateException.class)
+        public ResponseEntity<String> handle(IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("<Error>" + ex.getMessage() + "</Error>");
+        }
+    }
+
+    private SocketClient start(int prefixBytes) throws Exception {
+        FrameCodec codec = new FrameCodec(prefixBytes, StandardCharsets.UTF_8, 4 * 1024 * 1024);
+        SocketConfig.Threading threading = new SocketConfig.Threading();
+        threading.setIoPoolSize(2);
+        threading.setProcessingPoolSize(4);
+        server = new SocketServer("test", "127.0.0.1", 0, threading, codec,
+            new SocketDispatcher(List.of("/switch/"), StandardCharsets.UTF_8, new Advice(), new EchoController()));
+        server.start();
+        reactor = new IoReactor("test-client-io");
+        callbacks = Executors.newFixedThreadPool(2);
+        return new SocketClient("TEST", "127.0.0.1", server.getPort(), 1000, 5000, codec, reactor, callbacks);
+    }
+
+    @AfterEach
+    void stop() {
+        if (server != null) server.stop();
+        if (reactor != null) reactor.shutdown();
+        if (callbacks != null) callbacks.shutdown();
+    }
+
+    @Test
+    void concurrentRequestsShareOneConnection() throws Exception {
+        SocketClient client = start(4);
+        List<CompletableFuture<byte[]>> replies = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            replies.add(client.send("/switch/reqpay/T" + i, ("ISO" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        for (int i = 0; i < 200; i++) {
+            assertEquals("ISO" + i + "T" + i, new String(replies.get(i).join(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1L, client.stats().get("connects"));
+        assertEquals(1, server.stats().get("connections"));
+    }
+
+    @Test
+    void frameLargerThanReadBuffer() throws Exception {
+        SocketClient client = start(4);
+        byte[] big = new byte[200_000];
+        Arrays.fill(big, (byte) 'x');
+        byte[] reply = client.send("/switch/reqpay/BIG", big).join();
+        assertEquals(big.length + 3, reply.length);
+    }
+
+    @Test
+    void twoBytePrefix() throws Exception {
+        SocketClient client = start(2);
+        assertEquals("abcT1", new String(client.send("/switch/reqpay/T1", "abc".getBytes()).join(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void errorsKeepStatusAndBody() throws Exception {
+        SocketClient client = start(4);
+        CompletionException e = assertThrows(CompletionException.class,
+            () -> client.send("/switch/reqchktxn/T9", "<x/>".getBytes()).join());
+        OutboundHttpException http = (OutboundHttpException) e.getCause();
+        assertEquals(400, http.getStatus());
+        assertEquals("<Error>rejected T9</Error>", http.getBody());
+
+        e = assertThrows(CompletionException.class, () -> client.send("/imps/reqpay/T9", new byte[0]).join());
+        assertEquals(404, ((OutboundHttpException) e.getCause()).getStatus());
+    }
+
+    @Test
+    void pendingFailWhenServerGoesAway() throws Exception {
+        SocketClient client = start(4);
+        client.send("/switch/reqpay/T1", new byte[0]).join();
+        server.stop();
+        server = null;
+        assertThrows(CompletionException.class, () -> client.send("/switch/reqpay/T2", new byte[0]).join());
+    }
+}
@@ -0,0 +1,244 @@
+package com.hitachi.imps.xml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hitachi.imps.converter.IsoToXmlConverter;
+import com.hitachi.imps.service.ack.AckService;
+
+/**
+ * Differential test: every outbound template renders exactly what the String.formatted / concatenation
+ * code it replaced produced, given the same values. Values carry XML specials and non-ASCII text, so the
+ * reference escapes them the way AckService did (the converters did not escape before; that is the
+ * intended change). Timestamps use the ACK format, which the converters adopted with the templates.
+ */
+class XmlTemplateTest {
+
+    private static final String NAMESPACE = "http://npci.org/upi/schema/";
+    private static final String API_VERSION = "2.0";
+    private static final String PROD_TYPE = "IMPS";
+
+    /** 2026-03-11T09:12:45.120 in UTC. */
+    private static final long NOW = 1773220365120L;
+    private static final String TS = OffsetDateTime.ofInstant(Instant.ofEpochMilli(NOW), ZoneId.systemDefault())
+        .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX"));
+
+    /** Every value gets these so escaping and UTF-8 encoding are checked in every slot. */
+    private static final String SPECIALS = " &<>\"' Zoë ₹ 𝄞";
+
+    /** The old AckService.escapeXmlAttr. */
+    private static String esc(String s) {
+        if (s == null) return "";
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;").replace("'", "&apos;");
+    }
+
+    private static XmlTemplate template(Class<?> owner, String field) {
+        return (XmlTemplate) ReflectionTestUtils.getField(owner, field);
+    }
+
+    /** Values v0.. for each slot of {@code t}. */
+    private static String[] values(XmlTemplate t) {
+        return IntStream.range(0, t.valueNames().size()).mapToObj(i -> "v" + i + SPECIALS).toArray(String[]::new);
+    }
+
+    /** Escaped value i, as the reference substitutes it. */
+    private static String e(int i) {
+        return esc("v" + i + SPECIALS);
+    }
+
+    private static void assertRenders(String expected, XmlTemplate t) {
+        String[] v = values(t);
+        XmlBuffer out = t.render(new XmlBuffer(), NOW, v);
+        assertEquals(expected, out.toString());
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    }
+
+    @Test
+    void ack() {
+        // old AckService.buildAck
+        String expected = "<ns2:Ack xmlns:ns2=\"" + NAMESPACE + "\" xmlns:ns3=\"http://npci.org/cm/schema/\" api=\"" + e(0)
+            + "\" reqMsgId=\"" + e(1) + "\" ts=\"" + TS + "\"></ns2:Ack>";
+        assertRenders(expected, template(AckService.class, "ACK"));
+    }
+
+    @Test
+    void reqPay() {
+        String expected = """
+            <ns2:ReqPay xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Switch Request" custRef="%s" type="PAY" ts="%s"/>
+                <Payer addr="switch@bank" name="SWITCH_PAYER" seqNum="1" type="ENTITY" code="0000">
+                    <Ac addrType="ACCOUNT">
+                        <Detail name="ACNUM" value="%s"/>
+                        <Detail name="ACTYPE" value="SAVINGS"/>
+                    </Ac>
+                    <Amount value="%s" curr="INR"/>
+                </Payer>
+                <Payees>
+                    <Payee seqNum="1" type="PERSON" code="0000">
+                        <Ac addrType="ACCOUNT">
+                            <Detail name="IFSC" value="%s"/>
+                            <Detail name="ACNUM" value="%s"/>
+                            <Detail name="ACTYPE" value="SAVINGS"/>
+                        </Ac>
+                        <Amount value="%s" curr="INR"/>
+                    </Payee>
+                </Payees>
+            </ns2:ReqPay>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1), e(2), TS, e(3), e(4), e(5), e(6), e(4));
+        assertRenders(expected, template(IsoToXmlConverter.class, "REQ_PAY"));
+    }
+
+    @Test
+    void respPay() {
+        String expected = """
+            <ns2:RespPay xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="%s" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Response" refId="" refUrl="" ts="%s" type="CREDIT" subType="PAY" initiationMode="API" refCategory="00"/>
+                <Resp reqMsgId="%s" result="%s">
+                    <Ref type="PAYEE" seqNum="1"
+                         addr="%s"
+                         settAmount="%s"
+                         orgAmount="%s"
+                         settCurrency="INR"
+                         approvalNum="%s"
+                         respCode="%s"
+                         regName="%s"
+                         reversalRespCode=""
+                         acNum="%s"
+                         code="0000"
+                         IFSC="%s"
+                         accType="SAVINGS"/>
+                </Resp>
+            </ns2:RespPay>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), e(1), PROD_TYPE, e(2), TS, e(3), e(4), e(5), e(6), e(7),
+                e(8), e(9), e(10), e(11), e(12));
+        assertRenders(expected, template(IsoToXmlConverter.class, "RESP_PAY"));
+    }
+
+    @Test
+    void reqChkTxn() {
+        String expected = """
+            <ns2:ReqChkTxn xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Status Check" custRef="%s" orgTxnId="%s" orgRrn="%s" type="VR" ts="%s"/>
+                <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000">
+                    <Amount value="%s" curr="INR"/>
+                </Payer>
+            </ns2:ReqChkTxn>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1), e(2), e(3), e(4), TS, e(5));
+        assertRenders(expected, template(IsoToXmlConverter.class, "REQ_CHK_TXN"));
+    }
+
+    @Test
+    void respChkTxn() {
+        String expected = """
+            <ns2:RespChkTxn xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Status Response" type="ChkBankStatus" ts="%s"/>
+                <Resp reqMsgId="%s" result="%s">
+                    <Ref type="PAYEE" seqNum="1"
+                         settAmount="%s"
+                         orgAmount="%s"
+                         settCurrency="INR"
+                         approvalNum="%s"
+                         respCode="%s"/>
+                </Resp>
+            </ns2:RespChkTxn>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1), TS, e(2), e(3), e(4), e(5), e(6), e(7));
+        assertRenders(expected, template(IsoToXmlConverter.class, "RESP_CHK_TXN"));
+    }
+
+    @Test
+    void reqHbtAndRespHbt() {
+        String req = """
+            <upi:ReqHbt xmlns:upi="%s">
+                <Head ver="1.0" ts="%s" orgId="SWITCH" msgId="%s"/>
+                <Txn id="%s" note="Heartbeat" refId="" refUrl="" ts="%s" type="Hbt"/>
+                <HbtMsg type="%s" value="NA"/>
+            </upi:ReqHbt>
+            """.formatted(NAMESPACE, TS, e(0), e(1), TS, e(2));
+        assertRenders(req, template(IsoToXmlConverter.class, "REQ_HBT"));
+
+        String resp = """
+            <upi:RespHbt xmlns:upi="%s">
+                <Head ver="1.0" ts="%s" orgId="SWITCH" msgId="%s"/>
+                <Txn id="%s" note="Heartbeat Response" refId="" refUrl="" ts="%s" type="Hbt"/>
+                <Resp reqMsgId="%s" result="%s"/>
+            </upi:RespHbt>
+            """.formatted(NAMESPACE, TS, e(0), e(1), TS, e(2), e(3));
+        assertRenders(resp, template(IsoToXmlConverter.class, "RESP_HBT"));
+    }
+
+    @Test
+    void reqValAdd() {
+        String expected = """
+            <ns2:ReqValAdd xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Name Enquiry" type="NameEnq" ts="%s"/>
+                <Payer addr="switch@bank" name="SWITCH" seqNum="1" type="ENTITY" code="0000"/>
+                <Payee seqNum="1" type="PERSON" code="0000">
+                    <Ac addrType="ACCOUNT">
+                        <Detail name="IFSC" value="%s"/>
+                        <Detail name="ACNUM" value="%s"/>
+                        <Detail name="ACTYPE" value="DEFAULT"/>
+                    </Ac>
+                </Payee>
+            </ns2:ReqValAdd>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1), TS, e(2), e(3));
+        assertRenders(expected, template(IsoToXmlConverter.class, "REQ_VAL_ADD"));
+    }
+
+    @Test
+    void respValAdd() {
+        String expected = """
+            <ns2:RespValAdd xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn id="%s" note="Name Enquiry Response" type="NameEnq" ts="%s"/>
+                <Resp reqMsgId="%s" result="%s"
+                      IFSC="%s" acNum="%s" accType="DEFAULT"
+                      approvalNum="%s" code="0000" type="PERSON"/>
+            </ns2:RespValAdd>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1), TS, e(2), e(3), e(4), e(5), e(6));
+        assertRenders(expected, template(IsoToXmlConverter.class, "RESP_VAL_ADD"));
+    }
+
+    @Test
+    void respListAccPvd() {
+        String expected = """
+            <ns2:RespListAccPvd xmlns:ns2="%s">
+                <Head ver="%s" ts="%s" orgId="SWITCH" msgId="%s" prodType="%s"/>
+                <Txn type="ListAccPvd"/>
+                <Resp reqMsgId="%s" result="SUCCESS"/>
+                <AccPvdList/>
+            </ns2:RespListAccPvd>
+            """.formatted(NAMESPACE, API_VERSION, TS, e(0), PROD_TYPE, e(1));
+        assertRenders(expected, template(IsoToXmlConverter.class, "RESP_LIST_ACC_PVD"));
+    }
+
+    @Test
+    void nullRendersEmptyAndTimestampFollowsTheClock() {
+        XmlTemplate ack = template(AckService.class, "ACK");
+        String a = ack.render(new XmlBuffer(), NOW, null, "M1").toString();
+        assertTrue(a.contains(" api=\"\" reqMsgId=\"M1\""), a);
+        // same buffer, a later second and millisecond: the cached date/time prefix must move on
+        XmlBuffer b = new XmlBuffer();
+        ack.render(b, NOW, "ReqPay", "M1");
+        b.reset();
+        String later = ack.render(b, NOW + 61_001, "ReqPay", "M1").toString();
+        String expectedTs = OffsetDateTime.ofInstant(Instant.ofEpochMilli(NOW + 61_001), ZoneId.systemDefault())
+            .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX"));
+        assertTrue(later.endsWith("ts=\"" + expectedTs + "\"></ns2:Ack>"), later);
+    }
+}
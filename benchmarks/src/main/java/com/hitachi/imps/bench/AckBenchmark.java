@@ -0,0 +1,68 @@
+package com.hitachi.imps.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.service.ack.AckService;
+
+/**
+ * ACK XML: string concatenation + DateTimeFormatter (legacy AckService) vs the precompiled
+ * XmlTemplate, returned as a String, as bytes, or written to a stream.
+ *
+ * java -jar target/benchmarks.jar AckBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AckBenchmark {
+
+    private static final String REQ_MSG_ID = "MSG0123456789abcdef0123456789abcdef";
+    private static final DateTimeFormatter TS_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private final AckService ackService = new AckService();
+
+    /** Stands in for the servlet OutputStream. */
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+
+    @Benchmark
+    public String legacyConcat() {
+        String ts = OffsetDateTime.now().format(TS_FORMAT);
+        String reqMsgId = REQ_MSG_ID.trim().replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+            .replace("\"", "&quot;").replace("'", "&apos;");
+        return "<ns2:Ack xmlns:ns2=\"http://npci.org/upi/schema/\" xmlns:ns3=\"http://npci.org/cm/schema/\" api=\""
+            + "ReqPay" + "\" reqMsgId=\"" + reqMsgId + "\" ts=\"" + ts + "\"></ns2:Ack>";
+    }
+
+    @Benchmark
+    public String buildAck() {
+        return ackService.buildAck("ReqPay", REQ_MSG_ID);
+    }
+
+    @Benchmark
+    public byte[] buildAckBytes() {
+        return ackService.buildAckBytes("ReqPay", REQ_MSG_ID);
+    }
+
+    @Benchmark
+    public int writeAck() throws IOException {
+        out.reset();
+        ackService.writeAck("ReqPay", REQ_MSG_ID, out);
+        return out.size();
+    }
+}
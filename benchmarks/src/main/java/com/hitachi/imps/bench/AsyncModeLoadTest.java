@@ -0,0 +1,180 @@
+package com.hitachi.imps.bench;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.hitachi.imps.client.OutboundHttpClient;
+import com.hitachi.imps.client.SwitchClient;
+import com.hitachi.imps.config.AsyncConfig;
+import com.hitachi.imps.config.RoutingConfig;
+import com.hitachi.imps.service.limit.DownstreamLimiter;
+import com.hitachi.imps.util.IsoUtil;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Open-loop load test of the @Async pipeline: imps.async.executor-mode pool vs virtual.
+ *
+ * Each transaction mirrors NpciReqPayService.process: four JDBC round trips (audit, create, audit,
+ * markIsoSent; simulated as a sleep under the DB permit) and the Switch send through SwitchClient
+ * to an in-process HTTP server that answers after -Dswitch.ms. -Dblocking=true waits for the Switch
+ * response on the worker, as the RestTemplate flow did. Arrivals are paced at -Drate per second
+ * for -Dseconds (after a -Dwarmup.seconds pass that is not reported); latency is measured from the
+ * scheduled arrival, so queueing delay is included.
+ *
+ * java -cp target/benchmarks.jar com.hitachi.imps.bench.AsyncModeLoadTest            (both modes)
+ * java -Dmode=virtual -Drate=2000 -Ddb.ms=3 -cp target/benchmarks.jar com.hitachi.imps.bench.AsyncModeLoadTest
+ * Virtual mode needs Java 21+; on older runtimes AsyncConfig falls back to the pool.
+ */
+public class AsyncModeLoadTest {
+
+    private static final int RATE = Integer.getInteger("rate", 1000);
+    private static final int SECONDS = Integer.getInteger("seconds", 20);
+    private static final int WARMUP_SECONDS = Integer.getInteger("warmup.seconds", 5);
+    private static final int DB_MS = Integer.getInteger("db.ms", 2);
+    private static final int DB_PERMITS = Integer.getInteger("db.permits", 40);
+    private static final int SWITCH_MS = Integer.getInteger("switch.ms", 20);
+    private static final boolean BLOCKING = Boolean.getBoolean("blocking");
+
+    public static void main(String[] args) throws Exception {
+        // the Switch is Tomcat (TCP_NODELAY); without this the simulator adds Nagle delays to every response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        // and it closes pooled keep-alive connections beyond 200 idle ones, which fails in-flight POSTs
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "2000");
+        ExecutorService switchThreads = Executors.newFixedThreadPool(400);
+        HttpServer switchSim = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        switchSim.setExecutor(switchThreads);
+        switchSim.createContext("/switch", ex -> {
+            byte[] body = ex.getRequestBody().readAllBytes();
+            sleep(SWITCH_MS);
+            ex.sendResponseHeaders(200, body.length);
+            ex.getResponseBody().write(body);
+            ex.close();
+        });
+        switchSim.start();
+
+        byte[] iso = IsoUtil.pack(Fixtures.isoRequest(Fixtures.REQPAY));
+        String modes = System.getProperty("mode", "pool,virtual");
+        System.out.printf("rate=%d/s seconds=%d db.ms=%d x4 db.permits=%d switch.ms=%d blocking=%s java=%s%n",
+            RATE, SECONDS, DB_MS, DB_PERMITS, SWITCH_MS, BLOCKING, Runtime.version());
+        System.out.printf("%-8s %10s %10s %10s %10s %10s%n", "mode", "completed", "rejected", "tps", "p50 ms", "p99 ms");
+        try {
+            String switchUrl = "http://127.0.0.1:" + switchSim.getAddress().getPort();
+            for (String mode : modes.split(",")) {
+                run(mode.trim(), switchUrl, iso, WARMUP_SECONDS, false);
+                run(mode.trim(), switchUrl, iso, SECONDS, true);
+            }
+        } finally {
+            switchSim.stop(0);
+            switchThreads.shutdownNow();
+        }
+        System.exit(0);
+    }
+
+    private static void run(String mode, String switchBaseUrl, byte[] iso, int seconds, boolean report) throws Exception {
+        Executor executor = Fixtures.inject(new AsyncConfig(), "executorMode", mode).taskExecutor();
+
+        DownstreamLimiter limiter = new DownstreamLimiter();
+        Fixtures.inject(limiter, "dbPermits", DB_PERMITS);
+        Fixtures.inject(limiter, "switchPermits", 400);
+        Fixtures.inject(limiter, "npciPermits", 200);
+        Fixtures.inject(limiter, "acquireTimeoutMs", 5000L);
+        limiter.init();
+
+        OutboundHttpClient http = new OutboundHttpClient();
+        Fixtures.inject(http, "connectTimeoutMs", 2000L);
+        Fixtures.inject(http, "readTimeoutMs", 10000L);
+        Fixtures.inject(http, "keepAliveSeconds", 30);
+        Fixtures.inject(http, "maxConnectionsPerDestination", 400);
+        Fixtures.inject(http, "maxPendingPerDestination", 100_000);
+        Fixtures.inject(http, "callbackThreads", 8);
+        http.init();
+
+        RoutingConfig routing = new RoutingConfig();
+        routing.getSwitch().setBaseUrl(switchBaseUrl);
+        SwitchClient switchClient = new SwitchClient();
+        Fixtures.inject(switchClient, "routingConfig", routing);
+        Fixtures.inject(switchClient, "http", http);
+        Fixtures.inject(switchClient, "limiter", limiter);
+
+        int total = RATE * seconds;
+        long[] latencyNanos = new long[total];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicLong lastDone = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        for (int i = 0; i < total; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            int n = i;
+            Runnable txn = () -> {
+                try {
+                    for (int step = 0; step < 3; step++) {
+                        limiter.db(() -> sleep(DB_MS));
+                    }
+                    var sent = switchClient.sendReqPayAsync(iso, "TXN" + n);
+                    limiter.db(() -> sleep(DB_MS));
+                    if (BLOCKING) sent.join();
+                    sent.whenComplete((r, e) -> {
+                        if (r != null) {
+                            long now = System.nanoTime();
+                            latencyNanos[completed.getAndIncrement()] = now - due;
+                            lastDone.accumulateAndGet(now, Math::max);
+                        } else {
+                            rejected.incrementAndGet();
+                        }
+                        done.countDown();
+                    });
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                    done.countDown();
+                }
+            };
+            try {
+                executor.execute(txn);
+            } catch (RuntimeException e) {
+                rejected.incrementAndGet();
+                done.countDown();
+            }
+        }
+        done.await(60, TimeUnit.SECONDS);
+
+        if (report) {
+            int ok = completed.get();
+            long[] sorted = Arrays.copyOf(latencyNanos, ok);
+            Arrays.sort(sorted);
+            double elapsed = (lastDone.get() - start) / 1e9;
+            System.out.printf("%-8s %10d %10d %10.0f %10.1f %10.1f%n", mode, ok, rejected.get(),
+                ok / elapsed, percentile(sorted, 0.50), percentile(sorted, 0.99));
+        }
+
+        http.shutdown();
+        if (executor instanceof DisposableBean d) d.destroy();
+        else if (executor instanceof AutoCloseable c) c.close();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+    }
+
+    private static void sleep(int ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hitachi.imps.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+
+import com.hitachi.imps.converter.XmlToIsoConverter;
+
+/**
+ * NPCI request bodies taken from IMPS_Req_API_Bodies.md ({{orgId}} replaced with BANK01),
+ * and the ISO 8583 messages IMPS exchanges with the Switch for them.
+ */
+public final class Fixtures {
+
+    public static final String REQPAY = "reqpay_p2a";
+    public static final String REQCHKTXN = "reqchktxn";
+    public static final String REQVALADD = "reqvaladd";
+    public static final String REQHBT = "reqhbt";
+    public static final String REQLISTACCPVD = "reqlistaccpvd";
+
+    /* Switch → IMPS response messages (see isoResponse) */
+    public static final String RESPPAY = "RespPay";
+    public static final String RESPCHKTXN = "RespChkTxn";
+    public static final String RESPHBT = "RespHbt";
+    public static final String RESPVALADD = "RespValAdd";
+    public static final String RESPLISTACCPVD = "RespListAccPvd";
+
+    private Fixtures() {
+    }
+
+    public static String load(String name) {
+        String path = "/fixtures/" + name + ".xml";
+        try (InputStream in = Fixtures.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Fixture not found: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fixture read failed: " + path, e);
+        }
+    }
+
+    /* ===============================
+       ISO 8583
+       =============================== */
+    /** The request ISO message XmlToIsoConverter builds from a fixture (ReqPay, ReqChkTxn, ReqValAdd, ReqHbt). */
+    public static ISOMsg isoRequest(String fixture) {
+        XmlToIsoConverter converter = new XmlToIsoConverter();
+        String xml = load(fixture);
+        switch (fixture) {
+            case REQPAY:     return converter.convertReqPay(xml, "TXN0123456789abcdef0123456789abcdef");
+            case REQCHKTXN:  return converter.convertReqChkTxn(xml);
+            case REQVALADD:  return converter.convertReqValAdd(xml);
+            case REQHBT:     return converter.convertReqHbt(xml);
+            default:         return converter.convertReqListAccPvd(xml);
+        }
+    }
+
+    /**
+     * Packed Switch response for an API: the matching request with the response MTI,
+     * DE38 approval number and DE39 response code set, as imps_mock_switch answers.
+     */
+    public static byte[] isoResponse(String api) {
+        try {
+            ISOMsg iso;
+            switch (api) {
+                case RESPPAY:     iso = isoRequest(REQPAY); break;
+                case RESPCHKTXN:  iso = isoRequest(REQCHKTXN); break;
+                case RESPVALADD:  iso = isoRequest(REQVALADD); break;
+                case RESPHBT:     iso = isoRequest(REQHBT); break;
+                default:          iso = isoRequest(REQLISTACCPVD); break;
+            }
+            iso.setResponseMTI();
+            iso.set(38, "654321");
+            iso.set(39, "00");
+            return iso.pack();
+        } catch (ISOException e) {
+            throw new IllegalStateException("ISO fixture pack failed: " + api, e);
+        }
+    }
+
+    /* ===============================
+       WIRING (no Spring context)
+       =============================== */
+    /** Set an @Autowired / @Value field the way Spring would. */
+    public static <T> T inject(T target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + field + " into " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
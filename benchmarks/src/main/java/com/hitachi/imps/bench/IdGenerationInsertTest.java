@@ -0,0 +1,148 @@
+package com.hitachi.imps.bench;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+/**
+ * Inserts/sec through Hibernate with IDENTITY ids (before) and pooled-lo sequence ids (after), on the
+ * two write shapes of Imps-backend:
+ * - transaction: one row per DB transaction (TransactionService.createRequest, saveAndFlush)
+ * - audit: -Dbatch rows per DB transaction (a flush of several audit rows, as AuditWriter batches)
+ * IDENTITY needs the generated id back from every INSERT, so Hibernate sends them one by one;
+ * with sequence ids they go out as JDBC batches and one nextval serves 50 rows.
+ *
+ * Needs a PostgreSQL database; the scratch tables bench_id_identity / bench_id_sequence are created
+ * and dropped by the test.
+ *
+ * java -Djdbc.url=jdbc:postgresql://localhost:5432/imps_db?reWriteBatchedInserts=true -Djdbc.user=postgres \
+ *      -Djdbc.password=root -cp target/benchmarks.jar com.hitachi.imps.bench.IdGenerationInsertTest
+ * -Drows (per run, default 20000), -Dthreads (default 8), -Dbatch (audit rows per flush, default 50)
+ */
+public class IdGenerationInsertTest {
+
+    private static final String URL = System.getProperty("jdbc.url",
+        "jdbc:postgresql://localhost:5432/imps_db?reWriteBatchedInserts=true");
+    private static final String USER = System.getProperty("jdbc.user", "postgres");
+    private static final String PASSWORD = System.getProperty("jdbc.password", "root");
+    private static final int ROWS = Integer.getInteger("rows", 20000);
+    private static final int THREADS = Integer.getInteger("threads", 8);
+    private static final int BATCH = Integer.getInteger("batch", 50);
+
+    @Entity
+    @Table(name = "bench_id_identity")
+    public static class IdentityRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Integer id;
+        @Column(name = "txn_id") String txnId;
+        @Column(name = "stage") String stage;
+        @Column(name = "payload", columnDefinition = "TEXT") String payload;
+        @Column(name = "created_at") LocalDateTime createdAt;
+    }
+
+    @Entity
+    @Table(name = "bench_id_sequence")
+    public static class SequenceRow {
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bench_id_sequence_seq")
+        @SequenceGenerator(name = "bench_id_sequence_seq", sequenceName = "bench_id_sequence_seq", allocationSize = 50)
+        Integer id;
+        @Column(name = "txn_id") String txnId;
+        @Column(name = "stage") String stage;
+        @Column(name = "payload", columnDefinition = "TEXT") String payload;
+        @Column(name = "created_at") LocalDateTime createdAt;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String payload = Fixtures.load(Fixtures.REQPAY);
+        System.out.printf("rows=%d threads=%d batch=%d url=%s%n", ROWS, THREADS, BATCH, URL);
+        System.out.printf("%-12s %-10s %12s %10s%n", "path", "ids", "inserts/s", "ms");
+        try (SessionFactory sf = sessionFactory()) {
+            for (String path : new String[] { "transaction", "audit" }) {
+                int perTx = path.equals("audit") ? BATCH : 1;
+                for (boolean sequence : new boolean[] { false, true }) {
+                    run(sf, payload, perTx, sequence, ROWS / 5);   // warm-up, not reported
+                    long t0 = System.nanoTime();
+                    run(sf, payload, perTx, sequence, ROWS);
+                    double ms = (System.nanoTime() - t0) / 1e6;
+                    System.out.printf("%-12s %-10s %12.0f %10.0f%n", path, sequence ? "sequence" : "identity",
+                        ROWS / (ms / 1000), ms);
+                }
+            }
+        }
+    }
+
+    private static SessionFactory sessionFactory() {
+        Configuration cfg = new Configuration()
+            .addAnnotatedClass(IdentityRow.class)
+            .addAnnotatedClass(SequenceRow.class)
+            .setProperty("hibernate.connection.url", URL)
+            .setProperty("hibernate.connection.username", USER)
+            .setProperty("hibernate.connection.password", PASSWORD)
+            .setProperty("hibernate.connection.pool_size", String.valueOf(THREADS))
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            // the settings Imps-backend's application.yml uses
+            .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+            .setProperty("hibernate.jdbc.batch_size", "50")
+            .setProperty("hibernate.order_inserts", "true")
+            .setProperty("hibernate.order_updates", "true");
+        return cfg.buildSessionFactory();
+    }
+
+    private static void run(SessionFactory sf, String payload, int perTx, boolean sequence, int rows) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger remaining = new AtomicInteger(rows);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                int n;
+                while ((n = Math.min(perTx, remaining.getAndAdd(-perTx))) > 0) {
+                    int count = n;
+                    sf.inTransaction(s -> {
+                        for (int i = 0; i < count; i++) {
+                            s.persist(sequence ? sequenceRow(payload) : identityRow(payload));
+                        }
+                    });
+                }
+            }));
+        }
+        for (Future<?> w : workers) {
+            w.get();
+        }
+        pool.shutdown();
+    }
+
+    private static IdentityRow identityRow(String payload) {
+        IdentityRow r = new IdentityRow();
+        r.txnId = "BENCH" + System.nanoTime();
+        r.stage = "NPCI_REQPAY_XML_IN";
+        r.payload = payload;
+        r.createdAt = LocalDateTime.now();
+        return r;
+    }
+
+    private static SequenceRow sequenceRow(String payload) {
+        SequenceRow r = new SequenceRow();
+        r.txnId = "BENCH" + System.nanoTime();
+        r.stage = "NPCI_REQPAY_XML_IN";
+        r.payload = payload;
+        r.createdAt = LocalDateTime.now();
+        return r;
+    }
+}
@@ -0,0 +1,89 @@
+package com.hitachi.imps.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.iso.ImpsIsoCodec;
+import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.ImpsIsoView;
+import com.hitachi.imps.iso.IsoFieldReader;
+import com.hitachi.imps.util.IsoUtil;
+
+/**
+ * ISO 8583 pack / unpack with ImpsIsoPackager across the IMPS message shapes:
+ * jPOS (IsoUtil) vs ImpsIsoCodec, and field reads through a reused ImpsIsoView.
+ *
+ * java -jar target/benchmarks.jar IsoCodecBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoCodecBenchmark {
+
+    /** Request fixtures: ReqPay / ReqChkTxn / ReqValAdd are 0200, ReqHbt is 0800. */
+    @Param({Fixtures.REQPAY, Fixtures.REQCHKTXN, Fixtures.REQVALADD, Fixtures.REQHBT})
+    public String fixture;
+
+    private ISOMsg iso;
+    private byte[] packed;
+    private final ImpsIsoView view = new ImpsIsoView();
+
+    @Setup(Level.Trial)
+    public void setup() throws ISOException {
+        iso = Fixtures.isoRequest(fixture);
+        packed = IsoUtil.pack(iso);
+    }
+
+    /* ===============================
+       PACK
+       =============================== */
+    @Benchmark
+    public byte[] packJpos() {
+        return IsoUtil.pack(iso);
+    }
+
+    @Benchmark
+    public byte[] packCodec() throws ISOException {
+        return ImpsIsoCodec.pack(iso);
+    }
+
+    /* ===============================
+       UNPACK (+ read the fields the converters use)
+       =============================== */
+    @Benchmark
+    public String unpackJpos() {
+        return read(IsoFieldReader.of(IsoUtil.unpack(packed, ImpsIsoPackager.INSTANCE)));
+    }
+
+    @Benchmark
+    public String unpackCodec() throws ISOException {
+        return read(IsoFieldReader.of(ImpsIsoCodec.unpack(packed)));
+    }
+
+    @Benchmark
+    public String unpackView() throws ISOException {
+        view.wrap(packed);
+        return read(view);
+    }
+
+    private static String read(IsoFieldReader iso) {
+        return iso.getString(4) + iso.getString(11) + iso.getString(33) + iso.getString(37) + iso.getString(102);
+    }
+}
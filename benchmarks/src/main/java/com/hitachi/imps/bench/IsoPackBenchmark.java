@@ -0,0 +1,125 @@
+package com.hitachi.imps.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.jpos.iso.ISOPackager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.iso.ImpsIsoPackager;
+import com.hitachi.imps.iso.IsoMsgPool;
+
+/**
+ * ISO 8583 pack/unpack of a ReqPay 0200: new packager per message (legacy) vs the shared
+ * ImpsIsoPackager.INSTANCE, with and without the ISOMsg pool.
+ *
+ * java -jar target/benchmarks.jar IsoPackBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoPackBenchmark {
+
+    private byte[] packed;
+
+    private IsoMsgPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws ISOException {
+        packed = reqPay(new ISOMsg(), ImpsIsoPackager.INSTANCE).pack();
+        pool = new IsoMsgPool(true, 64);
+    }
+
+    /* ===============================
+       PACK
+       =============================== */
+    @Benchmark
+    public byte[] packLegacy() throws ISOException {
+        return reqPay(new ISOMsg(), new LegacyImpsIsoPackager()).pack();
+    }
+
+    @Benchmark
+    public byte[] packShared() throws ISOException {
+        return reqPay(new ISOMsg(), ImpsIsoPackager.INSTANCE).pack();
+    }
+
+    @Benchmark
+    public byte[] packSharedPooled() throws ISOException {
+        ISOMsg iso = pool.borrow(ImpsIsoPackager.INSTANCE);
+        try {
+            return reqPay(iso, ImpsIsoPackager.INSTANCE).pack();
+        } finally {
+            pool.release(iso);
+        }
+    }
+
+    /* ===============================
+       UNPACK
+       =============================== */
+    @Benchmark
+    public String unpackLegacy() throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(new LegacyImpsIsoPackager());
+        iso.unpack(packed);
+        return read(iso);
+    }
+
+    @Benchmark
+    public String unpackShared() throws ISOException {
+        ISOMsg iso = new ISOMsg();
+        iso.setPackager(ImpsIsoPackager.INSTANCE);
+        iso.unpack(packed);
+        return read(iso);
+    }
+
+    @Benchmark
+    public String unpackSharedPooled() throws ISOException {
+        ISOMsg iso = pool.borrow(ImpsIsoPackager.INSTANCE);
+        try {
+            iso.unpack(packed);
+            return read(iso);
+        } finally {
+            pool.release(iso);
+        }
+    }
+
+    /* ===============================
+       SAMPLE MESSAGE (XmlToIsoConverter.convertReqPay shape)
+       =============================== */
+    private static ISOMsg reqPay(ISOMsg iso, ISOPackager packager) throws ISOException {
+        iso.setPackager(packager);
+        iso.setMTI("0200");
+        iso.set(3, "400000");
+        iso.set(4, "000000010000");
+        iso.set(11, "123456");
+        iso.set(12, "101530");
+        iso.set(13, "1017");
+        iso.set(32, "HDFC");
+        iso.set(33, "ICIC0001234");
+        iso.set(37, "629012345678");
+        iso.set(41, "IMPSTERM");
+        iso.set(49, "356");
+        iso.set(102, "1234567890123");
+        iso.set(103, "9876543210987");
+        iso.set(120, "TXN0123456789abcdef0123456789abcdef");
+        return iso;
+    }
+
+    private static String read(ISOMsg iso) {
+        return iso.getString(4) + iso.getString(102) + iso.getString(103) + iso.getString(120);
+    }
+}
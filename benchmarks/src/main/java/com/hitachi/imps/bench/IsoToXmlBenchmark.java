@@ -0,0 +1,66 @@
+package com.hitachi.imps.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.converter.IsoToXmlConverter;
+import com.hitachi.imps.iso.IsoMsgPool;
+import com.hitachi.imps.service.iso.IsoCodecService;
+
+/**
+ * Switch ISO 8583 response bytes → NPCI response XML (IsoToXmlConverter), per imps.iso.codec
+ * (jpos ISOMsg unpack vs flyweight view) and with the ISOMsg pool off / on.
+ *
+ * java -jar target/benchmarks.jar IsoToXmlBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoToXmlBenchmark {
+
+    @Param({Fixtures.RESPPAY, Fixtures.RESPCHKTXN, Fixtures.RESPHBT, Fixtures.RESPVALADD, Fixtures.RESPLISTACCPVD})
+    public String api;
+
+    @Param({"jpos", "flyweight"})
+    public String codec;
+
+    @Param({"false", "true"})
+    public boolean pooled;
+
+    private IsoToXmlConverter converter;
+    private byte[] isoBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        converter = new IsoToXmlConverter();
+        Fixtures.inject(converter, "msgPool", new IsoMsgPool(pooled, 64));
+        Fixtures.inject(converter, "isoCodec", Fixtures.inject(new IsoCodecService(), "codec", codec));
+        isoBytes = Fixtures.isoResponse(api);
+    }
+
+    @Benchmark
+    public String convert() {
+        switch (api) {
+            case Fixtures.RESPPAY:     return converter.convertRespPayToXml(isoBytes);
+            case Fixtures.RESPCHKTXN:  return converter.convertRespChkTxnToXml(isoBytes);
+            case Fixtures.RESPHBT:     return converter.convertRespHbtToXml(isoBytes);
+            case Fixtures.RESPVALADD:  return converter.convertRespValAddToXml(isoBytes);
+            default:                   return converter.convertRespListAccPvdToXml(isoBytes);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.hitachi.imps.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.exception.ReqPayValidationException;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.service.pay.reqpay.ReqPayValidationService;
+import com.hitachi.imps.service.validation.CommonCodeValidationService;
+
+/**
+ * ReqPay validation (common Head/Txn rules + ReqPay rules) on a valid P2A ReqPay:
+ * from the raw body vs on the message already parsed at the HTTP edge.
+ *
+ * java -jar target/benchmarks.jar ReqPayValidationBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReqPayValidationBenchmark {
+
+    private ReqPayValidationService validationService;
+    private String xml;
+    private ParsedNpciMessage parsed;
+
+    @Setup(Level.Trial)
+    public void setup() throws ReqPayValidationException {
+        validationService = Fixtures.inject(new ReqPayValidationService(),
+            "commonCodeValidationService", new CommonCodeValidationService());
+        // IMPS_Req_API_Bodies.md uses short ids; rules 021/022 want 35 chars (3 BPC + 32)
+        xml = Fixtures.load(Fixtures.REQPAY)
+            .replace("msgId=\"5t2Dk18UFMIMFENLBga\"", "msgId=\"BNK0123456789abcdef0123456789abcdef\"")
+            .replace("id=\"NPCI000000005t2Dk18UFMIMFENLBgb\"", "id=\"BNK456789abcdef0123456789abcdef0123\"");
+        parsed = ParsedNpciMessage.of(xml);
+        validationService.validate(parsed); // the fixture must pass, or we would be timing the exception path
+    }
+
+    @Benchmark
+    public ParsedNpciMessage validateXml() throws ReqPayValidationException {
+        validationService.validate(xml);
+        return parsed;
+    }
+
+    @Benchmark
+    public ParsedNpciMessage validateParsed() throws ReqPayValidationException {
+        validationService.validate(parsed);
+        return parsed;
+    }
+}
@@ -0,0 +1,65 @@
+package com.hitachi.imps.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.service.iso.XmlUtil;
+
+/**
+ * Inbound NPCI XML → tag map: per-field DOM + XPath (legacy) vs single-pass StAX (XmlUtil).
+ *
+ * java -jar target/benchmarks.jar XmlParseBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParseBenchmark {
+
+    @Param({Fixtures.REQPAY, Fixtures.REQCHKTXN, Fixtures.REQVALADD, Fixtures.REQHBT, Fixtures.REQLISTACCPVD})
+    public String fixture;
+
+    private String xml;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        xml = Fixtures.load(fixture);
+    }
+
+    @Benchmark
+    public Map<String, String> legacyDomXPath() {
+        switch (fixture) {
+            case Fixtures.REQPAY:        return LegacyXmlUtil.parseReqPay(xml);
+            case Fixtures.REQCHKTXN:     return LegacyXmlUtil.parseReqChkTxn(xml);
+            case Fixtures.REQVALADD:     return LegacyXmlUtil.parseReqValAdd(xml);
+            case Fixtures.REQHBT:        return LegacyXmlUtil.parseReqHbt(xml);
+            default:                     return LegacyXmlUtil.parseReqListAccPvd(xml);
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> staxSinglePass() {
+        switch (fixture) {
+            case Fixtures.REQPAY:        return XmlUtil.parseReqPay(xml);
+            case Fixtures.REQCHKTXN:     return XmlUtil.parseReqChkTxn(xml);
+            case Fixtures.REQVALADD:     return XmlUtil.parseReqValAdd(xml);
+            case Fixtures.REQHBT:        return XmlUtil.parseReqHbt(xml);
+            default:                     return XmlUtil.parseReqListAccPvd(xml);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.hitachi.imps.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jpos.iso.ISOMsg;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hitachi.imps.converter.XmlToIsoConverter;
+import com.hitachi.imps.service.iso.ParsedNpciMessage;
+import com.hitachi.imps.util.IsoUtil;
+
+/**
+ * NPCI request XML → ISO 8583 (XmlToIsoConverter): from the raw body, from a body already
+ * parsed at the HTTP edge, and through to the packed bytes sent to the Switch.
+ *
+ * java -jar target/benchmarks.jar XmlToIsoBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlToIsoBenchmark {
+
+    @Param({Fixtures.REQPAY, Fixtures.REQCHKTXN, Fixtures.REQVALADD})
+    public String fixture;
+
+    private final XmlToIsoConverter converter = new XmlToIsoConverter();
+
+    private String xml;
+    private ParsedNpciMessage parsed;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        xml = Fixtures.load(fixture);
+        parsed = ParsedNpciMessage.of(xml);
+    }
+
+    @Benchmark
+    public ISOMsg convertXml() {
+        switch (fixture) {
+            case Fixtures.REQPAY:     return converter.convertReqPay(xml);
+            case Fixtures.REQCHKTXN:  return converter.convertReqChkTxn(xml);
+            default:                  return converter.convertReqValAdd(xml);
+        }
+    }
+
+    @Benchmark
+    public ISOMsg convertParsed() {
+        return convert(parsed);
+    }
+
+    @Benchmark
+    public byte[] convertParsedAndPack() {
+        return IsoUtil.pack(convert(parsed));
+    }
+
+    private ISOMsg convert(ParsedNpciMessage msg) {
+        switch (fixture) {
+            case Fixtures.REQPAY:     return converter.convertReqPay(msg, null);
+            case Fixtures.REQCHKTXN:  return converter.convertReqChkTxn(msg);
+            default:                  return converter.convertReqValAdd(msg);
+        }
+    }
+}
@@ -14,10 +14,12 @@
 -- ============================================
 -- PART 1: DROP ALL TABLES (reverse order of creation)
 -- ============================================
+DROP TABLE IF EXISTS npci_outbox CASCADE;
 DROP TABLE IF EXISTS response_xpath CASCADE;
 DROP TABLE IF EXISTS xml_path_req_pay CASCADE;
 DROP TABLE IF EXISTS account_type_mapping CASCADE;
 DROP TABLE IF EXISTS message_audit_log CASCADE;
+DROP TABLE IF EXISTS transaction_txn_id CASCADE;
 DROP TABLE IF EXISTS transaction CASCADE;
 DROP TABLE IF EXISTS account_master CASCADE;
 DROP TABLE IF EXISTS institution_master CASCADE;
@@ -28,36 +30,64 @@ DROP TABLE IF EXISTS audit_log CASCADE;
 -- ============================================
 
 -- 1. TRANSACTION
+-- Range-partitioned by txn_date (monthly). Imps-backend's PartitionManager creates the monthly
+-- partitions ahead of time and retires old ones; transaction_default only catches rows outside them.
 CREATE TABLE transaction (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     txn_id VARCHAR(255),
     txn_type VARCHAR(255),
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    npci_txn_id VARCHAR(255),
     req_in_date_time VARCHAR(255),
     req_out_date_time VARCHAR(255),
     resp_in_date_time VARCHAR(255),
     resp_out_date_time TIMESTAMP,
-    req_xml TEXT,
-    resp_xml TEXT,
+    req_xml BYTEA,
+    resp_xml BYTEA,
     switch_status VARCHAR(255),
     de11 VARCHAR(255),
     de37 VARCHAR(255),
     de12 VARCHAR(255),
     de13 VARCHAR(255),
-    approval_number VARCHAR(255)
-);
-CREATE INDEX idx_transaction_txn_id ON transaction(txn_id);
-CREATE INDEX idx_transaction_status ON transaction(switch_status);
+    approval_number VARCHAR(255),
+    PRIMARY KEY (id, txn_date)
+) PARTITION BY RANGE (txn_date);
+CREATE TABLE transaction_default PARTITION OF transaction DEFAULT;
+-- pooled-lo ids: each nextval covers TransactionEntity.ID_ALLOCATION_SIZE ids
+ALTER SEQUENCE transaction_id_seq INCREMENT BY 50;
+CREATE UNIQUE INDEX uk_transaction_txn_id ON transaction(txn_id, txn_date);
+CREATE INDEX idx_transaction_npci_txn_id ON transaction(npci_txn_id);
 CREATE INDEX idx_transaction_de11_de37_de13 ON transaction(de11, de37, de13);
+-- keyset browsing for /imps/admin/transactions (TransactionQueryService); idx_transaction_browse covers
+-- every summary column so a date-range page is an index-only scan that never touches the XML
+CREATE INDEX idx_transaction_browse ON transaction(txn_date, id)
+    INCLUDE (txn_id, txn_type, switch_status, npci_txn_id, de11, de37, de13, approval_number,
+             req_in_date_time, resp_in_date_time);
+CREATE INDEX idx_transaction_status_date ON transaction(switch_status, txn_date, id);
+CREATE INDEX idx_transaction_type_date ON transaction(txn_type, txn_date, id);
+CREATE INDEX idx_transaction_de37_date ON transaction(de37, txn_date);
+
+-- uk_transaction_txn_id includes the partition key, so it only stops a same-day repeat. Each txn_id is
+-- also claimed here in the DB transaction that inserts its row: unique across days.
+CREATE TABLE transaction_txn_id (
+    txn_id VARCHAR(255) NOT NULL,
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    CONSTRAINT transaction_txn_id_pkey PRIMARY KEY (txn_id)
+);
 
 -- 2. MESSAGE_AUDIT_LOG
+-- Range-partitioned by created_at (daily), managed the same way.
 CREATE TABLE message_audit_log (
-    id SERIAL PRIMARY KEY,
+    id SERIAL,
     txn_id VARCHAR(255),
     stage VARCHAR(255),
-    raw_message TEXT,
-    parsed_message TEXT,
-    created_at TIMESTAMP
-);
+    raw_message BYTEA,
+    parsed_message BYTEA,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+CREATE TABLE message_audit_log_default PARTITION OF message_audit_log DEFAULT;
+ALTER SEQUENCE message_audit_log_id_seq INCREMENT BY 50;
 CREATE INDEX idx_message_audit_txn_id ON message_audit_log(txn_id);
 CREATE INDEX idx_message_audit_stage ON message_audit_log(stage);
 CREATE INDEX idx_message_audit_created_at ON message_audit_log(created_at);
@@ -156,12 +186,31 @@ CREATE TABLE audit_log (
     timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     notes TEXT
 );
+ALTER SEQUENCE audit_log_id_seq INCREMENT BY 50;
 CREATE INDEX idx_audit_log_txn_id ON audit_log(transaction_id);
 CREATE INDEX idx_audit_log_rrn ON audit_log(rrn);
 CREATE INDEX idx_audit_log_timestamp ON audit_log(timestamp);
 CREATE INDEX idx_audit_log_api_type ON audit_log(api_type);
 CREATE INDEX idx_audit_log_direction ON audit_log(direction);
 
+-- 9. NPCI_OUTBOX (RespPay / RespChkTxn / RespValAdd to NPCI until delivered)
+CREATE TABLE npci_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    msg_id VARCHAR(64) NOT NULL,
+    api_type VARCHAR(32) NOT NULL,
+    txn_id VARCHAR(255),
+    payload BYTEA NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    last_error TEXT,
+    CONSTRAINT uk_npci_outbox_api_txn UNIQUE (api_type, txn_id)
+);
+CREATE INDEX idx_npci_outbox_due ON npci_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX idx_npci_outbox_sent_at ON npci_outbox(sent_at) WHERE status = 'SENT';
+
 -- ============================================
 -- PART 3: INSERT DATA (required for APIs to work)
 -- ============================================
@@ -238,6 +287,7 @@ VALUES
 -- PART 4: COMMENTS
 -- ============================================
 COMMENT ON TABLE transaction IS 'Stores all IMPS transaction details';
+COMMENT ON TABLE transaction_txn_id IS 'One row per txn_id ever stored in transaction (global uniqueness)';
 COMMENT ON TABLE message_audit_log IS 'Audit trail (4 stages per flow: npci_xml_in, switch_iso_out, switch_iso_in, npci_xml_out)';
 COMMENT ON TABLE account_master IS 'Shared for Switch/NPCI validation; IMPS uses institution_master';
 COMMENT ON TABLE institution_master IS 'IMPS validation (IFSC, bank routing, ListAccPvd)';
@@ -245,13 +295,17 @@ COMMENT ON TABLE account_type_mapping IS 'Maps account types to ISO codes';
 COMMENT ON TABLE xml_path_req_pay IS 'XPath config for ReqPay XML parsing';
 COMMENT ON TABLE response_xpath IS 'XPath config for response parsing';
 COMMENT ON TABLE audit_log IS 'Mock Switch: ISO 8583 message audit trail';
+COMMENT ON TABLE npci_outbox IS 'Responses to NPCI pending delivery (PENDING → SENT | DEAD), retried with backoff';
 
 COMMENT ON COLUMN transaction.txn_id IS 'Unique transaction identifier';
 COMMENT ON COLUMN transaction.switch_status IS 'INIT | ISO_SENT | SUCCESS | FAILED';
+COMMENT ON COLUMN transaction.req_xml IS 'Request XML (PayloadCodec format, usually deflated)';
+COMMENT ON COLUMN transaction.resp_xml IS 'Response XML (PayloadCodec format, usually deflated)';
 COMMENT ON COLUMN message_audit_log.stage IS 'NPCI_*_XML_IN, SWITCH_*_ISO_OUT, SWITCH_*_ISO_IN, NPCI_*_XML_OUT';
+COMMENT ON COLUMN npci_outbox.payload IS 'Response XML (PayloadCodec format, usually deflated)';
 
 -- ============================================
 -- VERIFICATION
 -- ============================================
-SELECT 'imps_full_schema completed successfully (8 tables)' AS status;
+SELECT 'imps_full_schema completed successfully (10 tables)' AS status;
 SELECT relname AS table_name FROM pg_class WHERE relkind = 'r' AND relnamespace = (SELECT oid FROM pg_namespace WHERE nspname = 'public') AND relname NOT LIKE 'pg_%' ORDER BY relname;
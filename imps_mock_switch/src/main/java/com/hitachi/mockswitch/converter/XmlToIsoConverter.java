@@ -22,7 +22,7 @@ public class XmlToIsoConverter {
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HHmmss");
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMdd");
     private static final Random RANDOM = new Random();
-    private static final MockIsoPackager PACKAGER = new MockIsoPackager();
+    private static final MockIsoPackager PACKAGER = MockIsoPackager.INSTANCE;
 
     public byte[] convertReqPay(String xml) throws ISOException {
         ISOMsg iso = buildReqPayIso(xml);
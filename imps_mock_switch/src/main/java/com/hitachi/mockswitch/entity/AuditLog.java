@@ -19,8 +19,12 @@ import java.time.LocalDateTime;
 })
 public class AuditLog {
 
+    /** Ids handed out per nextval('audit_log_id_seq'); the sequence increments by this much (pooled-lo). */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_id_seq")
+    @SequenceGenerator(name = "audit_log_id_seq", sequenceName = "audit_log_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "direction", nullable = false, length = 20)
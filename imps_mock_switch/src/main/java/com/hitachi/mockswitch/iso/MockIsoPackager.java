@@ -5,14 +5,17 @@ import org.jpos.iso.*;
 /**
  * ISO 8583 Packager for IMPS Mock Switch.
  * Must match EXACTLY with ImpsIsoPackager in IMPS Backend.
+ * Shared, immutable instance: {@link #INSTANCE}.
  */
-public class MockIsoPackager extends ISOBasePackager {
+public final class MockIsoPackager extends ISOBasePackager {
 
-    protected ISOFieldPackager[] fld = new ISOFieldPackager[129];
+    public static final MockIsoPackager INSTANCE = new MockIsoPackager();
 
-    public MockIsoPackager() {
+    private final boolean frozen;
+
+    private MockIsoPackager() {
         super();
-        setFieldPackager(fld);
+        ISOFieldPackager[] fld = new ISOFieldPackager[129];
 
         // -------------------------------------------------
         // MTI & BITMAPS (handled by ISOBasePackager)
@@ -94,5 +97,47 @@ public class MockIsoPackager extends ISOBasePackager {
         fld[126] = new IFA_LLLCHAR(999, "IMPS Specific Data");      // DE-126
 
         fld[128]= new IFB_BINARY(8, "Secondary MAC");               // DE-128
+
+        super.setFieldPackager(fld);
+        frozen = true;
+    }
+
+    /* ===============================
+       IMMUTABLE (shared instance)
+       =============================== */
+    @Override
+    public void setFieldPackager(ISOFieldPackager[] fld) {
+        checkNotFrozen();
+        super.setFieldPackager(fld);
+    }
+
+    @Override
+    public void setFieldPackager(int fldNumber, ISOFieldPackager fieldPackager) {
+        checkNotFrozen();
+        super.setFieldPackager(fldNumber, fieldPackager);
+    }
+
+    @Override
+    public void setThirdBitmapField(int f) throws ISOException {
+        checkNotFrozen();
+        super.setThirdBitmapField(f);
+    }
+
+    @Override
+    public void setHeaderLength(int len) {
+        checkNotFrozen();
+        super.setHeaderLength(len);
+    }
+
+    @Override
+    public void setLogger(org.jpos.util.Logger logger, String realm) {
+        checkNotFrozen();
+        super.setLogger(logger, realm);
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("MockIsoPackager is shared and immutable");
+        }
     }
 }
@@ -37,6 +37,9 @@ public class AccountLedgerService {
     @Autowired
     private AccountMasterRepository accountMasterRepository;
 
+    @Autowired
+    private ReferenceDataCache refData;
+
     /**
      * Perform debit (payer) and credit (payee) and update account_master.
      * ReqPay ISO: DE4=amount (paise), DE32=payer IFSC first 4, DE33=payee IFSC, DE102=payer ac, DE103=payee ac, DE37=RRN.
@@ -104,6 +107,8 @@ public class AccountLedgerService {
             payee.setLastTxnRrn(rrn);
             payee.setLastUpdatedTime(now);
             accountMasterRepository.save(payee);
+            refData.invalidateAccount(payer.getAccountNumber(), payer.getIfscCode());
+            refData.invalidateAccount(payee.getAccountNumber(), payee.getIfscCode());
 
             System.out.println("AccountLedger: DEBIT " + amountRupees + " from " + payer.getAccountNumber() + "@" + payer.getIfscCode() + " -> CREDIT to " + payee.getAccountNumber() + "@" + payee.getIfscCode() + " RRN=" + rrn);
             return RC_SUCCESS;
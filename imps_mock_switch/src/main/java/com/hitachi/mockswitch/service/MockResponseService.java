@@ -12,6 +12,8 @@ import org.springframework.web.client.RestTemplate;
 import com.hitachi.mockswitch.entity.AuditLog.ProcessingStatus;
 import com.hitachi.mockswitch.iso.MockIsoPackager;
 import com.hitachi.mockswitch.service.AccountLedgerService;
+import com.hitachi.mockswitch.socket.ImpsBackendSocketClient;
+import com.hitachi.mockswitch.socket.IsoChannelServer;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -20,7 +22,8 @@ import java.util.Random;
 /**
  * Mock Response Service
  * 
- * Generates mock ISO 8583 responses and sends them back to IMPS Backend.
+ * Generates mock ISO 8583 responses and sends them back to IMPS Backend
+ * (HTTP, or the IMPS switch socket when mock.socket.enabled).
  */
 @Service
 public class MockResponseService {
@@ -40,8 +43,14 @@ public class MockResponseService {
     @Autowired
     private AccountLedgerService accountLedgerService;
 
+    @Autowired
+    private ImpsBackendSocketClient backendSocket;
+
+    @Autowired
+    private IsoChannelServer isoChannel;
+
     private final RestTemplate restTemplate = new RestTemplate();
-    private final MockIsoPackager packager = new MockIsoPackager();
+    private final MockIsoPackager packager = MockIsoPackager.INSTANCE;
     private final Random random = new Random();
 
     private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HHmmss");
@@ -332,7 +341,7 @@ public class MockResponseService {
 
             System.out.println("\n===========================================");
             System.out.println("  MOCK SWITCH: SENDING " + type);
-            System.out.println("  To: " + impsBackendUrl + endpoint);
+            System.out.println("  To: " + backendUrl(endpoint));
             System.out.println("  ISO Length: " + packed.length + " bytes");
             System.out.println("===========================================");
             System.out.println("--- Response ISO ---");
@@ -344,17 +353,17 @@ public class MockResponseService {
             }
             System.out.println("--- End ISO ---");
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-
-            HttpEntity<byte[]> request = new HttpEntity<>(packed, headers);
+            // Request came in on the ISO channel: answer on the same connection
+            if (isoChannel.reply(iso, packed)) {
+                System.out.println("=== Sent on ISO channel ===\n");
+                auditService.logOutboundResponse(packed, iso, type, "iso-channel", null, ProcessingStatus.SENT, null);
+                if (inboundAuditId != null) {
+                    auditService.updateStatus(inboundAuditId, ProcessingStatus.SUCCESS, null);
+                }
+                return;
+            }
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                impsBackendUrl + endpoint,
-                HttpMethod.POST,
-                request,
-                String.class
-            );
+            ResponseEntity<String> response = postToBackend(endpoint, packed);
 
             System.out.println("=== IMPS Backend Response ===");
             System.out.println("Status: " + response.getStatusCode());
@@ -363,7 +372,7 @@ public class MockResponseService {
 
             // Audit log - outbound response
             auditService.logOutboundResponse(packed, iso, type, 
-                    impsBackendUrl + endpoint, 
+                    backendUrl(endpoint), 
                     response.getStatusCode().value(),
                     ProcessingStatus.SENT, null);
 
@@ -377,7 +386,7 @@ public class MockResponseService {
             
             // Audit log - send failed
             auditService.logOutboundResponse(packed, iso, type,
-                    impsBackendUrl + endpoint, null,
+                    backendUrl(endpoint), null,
                     ProcessingStatus.SEND_FAILED, e.getMessage());
 
             // Update inbound audit status to FAILED
@@ -388,6 +397,21 @@ public class MockResponseService {
         }
     }
 
+    /** POST ISO bytes to IMPS Backend; over the socket connection instead when mock.socket.enabled. */
+    private ResponseEntity<String> postToBackend(String endpoint, byte[] isoBytes) throws Exception {
+        if (backendSocket.isEnabled()) {
+            return backendSocket.post(endpoint, isoBytes);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        HttpEntity<byte[]> request = new HttpEntity<>(isoBytes, headers);
+        return restTemplate.exchange(backendUrl(endpoint), HttpMethod.POST, request, String.class);
+    }
+
+    private String backendUrl(String endpoint) {
+        return backendSocket.isEnabled() ? backendSocket.url(endpoint) : impsBackendUrl + endpoint;
+    }
+
     private String generateStan() {
         return String.format("%06d", random.nextInt(1_000_000));
     }
@@ -402,23 +426,15 @@ public class MockResponseService {
     public void forwardIsoToBackend(byte[] isoBytes, String endpoint, String type) {
         ISOMsg iso = unpack(isoBytes);
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-            HttpEntity<byte[]> request = new HttpEntity<>(isoBytes, headers);
-            ResponseEntity<String> response = restTemplate.exchange(
-                impsBackendUrl + endpoint,
-                HttpMethod.POST,
-                request,
-                String.class
-            );
+            ResponseEntity<String> response = postToBackend(endpoint, isoBytes);
             System.out.println("=== MOCK SWITCH: FORWARDED " + type + " TO IMPS BACKEND ===");
             System.out.println("Status: " + response.getStatusCode());
             auditService.logOutboundResponse(isoBytes, iso, type,
-                impsBackendUrl + endpoint, response.getStatusCode().value(), ProcessingStatus.SENT, null);
+                backendUrl(endpoint), response.getStatusCode().value(), ProcessingStatus.SENT, null);
         } catch (Exception e) {
             System.err.println("Forward to IMPS Backend failed: " + e.getMessage());
             auditService.logOutboundResponse(isoBytes, iso, type,
-                impsBackendUrl + endpoint, null, ProcessingStatus.SEND_FAILED, e.getMessage());
+                backendUrl(endpoint), null, ProcessingStatus.SEND_FAILED, e.getMessage());
         }
     }
 }
@@ -0,0 +1,167 @@
+package com.hitachi.mockswitch.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.hitachi.mockswitch.entity.AccountMaster;
+import com.hitachi.mockswitch.entity.AccountTypeMapping;
+import com.hitachi.mockswitch.entity.InstitutionMaster;
+import com.hitachi.mockswitch.repository.AccountMasterRepository;
+import com.hitachi.mockswitch.repository.AccountTypeMappingRepository;
+import com.hitachi.mockswitch.repository.InstitutionMasterRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory reference data for request validation, so messages do not query static tables:
+ * - institution_master and account_type_mapping are loaded whole and reloaded every mock.refdata.refresh-ms;
+ * - account_master lookups go through a bounded LRU with a TTL. AccountLedgerService still reads and
+ *   updates balances from the DB and invalidates the accounts it changes.
+ *
+ * Returned entities are shared between threads and must not be modified.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private static final String ACTIVE = "ACTIVE";
+    private static final String IMPS_Y = "Y";
+
+    @Autowired
+    private InstitutionMasterRepository institutionMasterRepository;
+
+    @Autowired
+    private AccountTypeMappingRepository accountTypeMappingRepository;
+
+    @Autowired
+    private AccountMasterRepository accountMasterRepository;
+
+    @Value("${mock.refdata.account-cache.max-entries:50000}")
+    private int accountMaxEntries;
+
+    @Value("${mock.refdata.account-cache.ttl-ms:300000}")
+    private long accountTtlMs;
+
+    /** Active institutions by IFSC, account types by acc_type and by ISO code. Replaced whole on refresh. */
+    private volatile Map<String, InstitutionMaster> institutions;
+    private volatile Map<String, AccountTypeMapping> accountTypes = Map.of();
+    private volatile Map<String, AccountTypeMapping> accountTypesByIso = Map.of();
+
+    private Map<String, AccountEntry> accounts;
+
+    @PostConstruct
+    public void init() {
+        accounts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AccountEntry> eldest) {
+                return size() > accountMaxEntries;
+            }
+        };
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Reference data not loaded at startup: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(
+        initialDelayString = "${mock.refdata.refresh-ms:60000}",
+        fixedDelayString = "${mock.refdata.refresh-ms:60000}"
+    )
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Reference data refresh failed, keeping previous copy: " + e.getMessage());
+        }
+    }
+
+    /** Reload institution_master and account_type_mapping. */
+    public synchronized void refresh() {
+        Map<String, InstitutionMaster> inst = new HashMap<>();
+        List<InstitutionMaster> rows = institutionMasterRepository.findAll();
+        rows.sort(Comparator.comparing(InstitutionMaster::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        for (InstitutionMaster i : rows) {
+            if (i.getIfscCode() != null && Boolean.TRUE.equals(i.getActive())) {
+                inst.putIfAbsent(i.getIfscCode(), i);
+            }
+        }
+        Map<String, AccountTypeMapping> types = new HashMap<>();
+        Map<String, AccountTypeMapping> typesByIso = new HashMap<>();
+        for (AccountTypeMapping m : accountTypeMappingRepository.findAll()) {
+            if (m.getAccType() != null) types.putIfAbsent(m.getAccType(), m);
+            if (m.getAccTypeIsoCode() != null) typesByIso.putIfAbsent(m.getAccTypeIsoCode(), m);
+        }
+        institutions = inst;
+        accountTypes = types;
+        accountTypesByIso = typesByIso;
+    }
+
+    /** Active institution for an IFSC (as findByIfscCodeAndActive(ifsc, true)). */
+    public Optional<InstitutionMaster> activeInstitution(String ifsc) {
+        if (ifsc == null) return Optional.empty();
+        Map<String, InstitutionMaster> inst = institutions;
+        if (inst == null) {
+            refresh();
+            inst = institutions;
+        }
+        return Optional.ofNullable(inst.get(ifsc));
+    }
+
+    public Optional<AccountTypeMapping> accountType(String accType) {
+        return accType == null ? Optional.empty() : Optional.ofNullable(accountTypes.get(accType));
+    }
+
+    public Optional<AccountTypeMapping> accountTypeByIsoCode(String isoCode) {
+        return isoCode == null ? Optional.empty() : Optional.ofNullable(accountTypesByIso.get(isoCode));
+    }
+
+    /** ACTIVE, IMPS-enabled account (as findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled). */
+    public Optional<AccountMaster> activeAccount(String accountNumber, String ifsc) {
+        if (accountNumber == null || ifsc == null) return Optional.empty();
+        String key = accountNumber + "|" + ifsc;
+        long now = System.nanoTime();
+        synchronized (accounts) {
+            AccountEntry e = accounts.get(key);
+            if (e != null && now - e.expiresAtNanos < 0) {
+                return Optional.of(e.account);
+            }
+        }
+        Optional<AccountMaster> account = accountMasterRepository
+            .findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled(accountNumber, ifsc, ACTIVE, IMPS_Y);
+        synchronized (accounts) {
+            if (account.isPresent()) {
+                accounts.put(key, new AccountEntry(account.get(), now + TimeUnit.MILLISECONDS.toNanos(accountTtlMs)));
+            } else {
+                accounts.remove(key);
+            }
+        }
+        return account;
+    }
+
+    /** Drop a cached account after it was changed. */
+    public void invalidateAccount(String accountNumber, String ifsc) {
+        synchronized (accounts) {
+            accounts.remove(accountNumber + "|" + ifsc);
+        }
+    }
+
+    private static final class AccountEntry {
+        final AccountMaster account;
+        final long expiresAtNanos;
+
+        AccountEntry(AccountMaster account, long expiresAtNanos) {
+            this.account = account;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
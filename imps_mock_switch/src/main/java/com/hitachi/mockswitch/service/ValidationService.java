@@ -7,27 +7,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.hitachi.mockswitch.entity.AccountMaster;
-import com.hitachi.mockswitch.entity.AccountTypeMapping;
 import com.hitachi.mockswitch.entity.InstitutionMaster;
-import com.hitachi.mockswitch.repository.AccountMasterRepository;
-import com.hitachi.mockswitch.repository.AccountTypeMappingRepository;
-import com.hitachi.mockswitch.repository.InstitutionMasterRepository;
 
 /**
  * Validation Service for Mock Switch
- * Performs validation using the top 4 tables from imps_db
+ * Performs validation using the top 4 tables from imps_db, read through {@link ReferenceDataCache}
  */
 @Service
 public class ValidationService {
 
     @Autowired
-    private AccountMasterRepository accountMasterRepository;
-
-    @Autowired
-    private InstitutionMasterRepository institutionMasterRepository;
-
-    @Autowired
-    private AccountTypeMappingRepository accountTypeMappingRepository;
+    private ReferenceDataCache refData;
 
     /**
      * Validate ReqPay transaction
@@ -53,8 +43,7 @@ public class ValidationService {
 
             // 1. Validate Payee Account (Account Master)
             if (payeeAccount != null && payeeIfsc != null) {
-                Optional<AccountMaster> payeeAccountOpt = accountMasterRepository
-                    .findByAccountNumberAndIfscCodeAndAccountStatusAndImpsEnabled(payeeAccount, payeeIfsc, "ACTIVE", "Y");
+                Optional<AccountMaster> payeeAccountOpt = refData.activeAccount(payeeAccount, payeeIfsc);
                 
                 if (payeeAccountOpt.isPresent()) {
                     AccountMaster account = payeeAccountOpt.get();
@@ -69,8 +58,7 @@ public class ValidationService {
 
             // 2. Validate Institution (Institution Master)
             if (payeeIfsc != null) {
-                Optional<InstitutionMaster> institutionOpt = institutionMasterRepository
-                    .findByIfscCodeAndActive(payeeIfsc, true);
+                Optional<InstitutionMaster> institutionOpt = refData.activeInstitution(payeeIfsc);
                 
                 if (institutionOpt.isPresent()) {
                     InstitutionMaster institution = institutionOpt.get();
@@ -0,0 +1,147 @@
+package com.hitachi.mockswitch.socket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends Switch responses to IMPS Backend's switch socket listener (socket.server.switch.port) over one
+ * persistent connection when mock.socket.enabled. Requests are matched to replies by frame id, so
+ * concurrent sends share the connection.
+ */
+@Component
+public class ImpsBackendSocketClient {
+
+    @Value("${mock.socket.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mock.socket.backend-host:localhost}")
+    private String host;
+
+    @Value("${mock.socket.backend-port:9082}")
+    private int port;
+
+    @Value("${mock.socket.length-prefix-bytes:4}")
+    private int lengthPrefixBytes;
+
+    @Value("${mock.socket.encoding:UTF-8}")
+    private String encoding;
+
+    @Value("${mock.socket.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, CompletableFuture<SocketFrameIO.Frame>> pending = new ConcurrentHashMap<>();
+    private SocketFrameIO io;
+    private Socket socket;
+    private OutputStream out;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** tcp://host:port + path, for logs and audit rows. */
+    public String url(String path) {
+        return "tcp://" + host + ":" + port + path;
+    }
+
+    /**
+     * Send {@code body} to {@code path} (e.g. /switch/resppay/TXN1) and wait for IMPS' reply.
+     * @throws IOException if not connected, on timeout, or when IMPS answers with a non-2xx status
+     */
+    public ResponseEntity<String> post(String path, byte[] body) throws IOException {
+        long id = ids.incrementAndGet();
+        CompletableFuture<SocketFrameIO.Frame> reply = new CompletableFuture<>();
+        pending.put(id, reply);
+        try {
+            OutputStream o = connection();
+            synchronized (o) {
+                io.write(o, new SocketFrameIO.Frame(id, path, body));
+            }
+            SocketFrameIO.Frame frame = reply.get(readTimeoutMs, TimeUnit.MILLISECONDS);
+            int status = Integer.parseInt(frame.head.trim());
+            String text = new String(frame.payload, io.charset());
+            if (status < 200 || status >= 300) {
+                throw new IOException(status + " from " + url(path) + ": " + text);
+            }
+            return ResponseEntity.status(HttpStatusCode.valueOf(status)).body(text);
+        } catch (TimeoutException e) {
+            throw new IOException("No reply from " + url(path) + " in " + readTimeoutMs + " ms");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + url(path));
+        } finally {
+            pending.remove(id);
+        }
+    }
+
+    private synchronized OutputStream connection() throws IOException {
+        if (socket != null && !socket.isClosed()) {
+            return out;
+        }
+        if (io == null) {
+            io = new SocketFrameIO(lengthPrefixBytes, encoding);
+        }
+        Socket s = new Socket();
+        s.connect(new InetSocketAddress(host, port), 2000);
+        s.setTcpNoDelay(true);
+        socket = s;
+        out = new BufferedOutputStream(s.getOutputStream());
+        Thread reader = new Thread(() -> readLoop(s), "mock-socket-backend-reader");
+        reader.setDaemon(true);
+        reader.start();
+        System.out.println("=== MOCK SWITCH: socket connected to IMPS Backend " + host + ":" + port + " ===");
+        return out;
+    }
+
+    private void readLoop(Socket s) {
+        IOException failure = null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            SocketFrameIO.Frame frame;
+            while ((frame = io.read(in)) != null) {
+                CompletableFuture<SocketFrameIO.Frame> f = pending.remove(frame.id);
+                if (f != null) f.complete(frame);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        try {
+            s.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        IOException closed = new IOException("Connection to IMPS Backend closed"
+            + (failure != null ? ": " + failure.getMessage() : ""));
+        pending.values().forEach(f -> f.completeExceptionally(closed));
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            // closing
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.hitachi.mockswitch.socket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.jpos.iso.ISOException;
+import org.jpos.iso.ISOMsg;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import com.hitachi.mockswitch.iso.MockIsoPackager;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ISO channel listener for IMPS Backend's socket.switch-channel (mock.iso-channel.enabled).
+ *
+ * IMPS keeps a few connections open and pipelines raw length-prefixed ISO requests on them. Each request is
+ * relayed to this mock's own /switch/req* endpoint (chosen by MTI / DE3), so the usual handling runs; when
+ * MockResponseService builds the response it calls {@link #reply}, which writes it back on the connection
+ * the request came in on instead of calling IMPS' /switch/resp* endpoint.
+ */
+@Component
+public class IsoChannelServer {
+
+    @Value("${mock.iso-channel.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mock.iso-channel.port:9282}")
+    private int port;
+
+    @Value("${mock.iso-channel.length-prefix-bytes:4}")
+    private int lengthPrefixBytes;
+
+    @Value("${mock.iso-channel.worker-threads:20}")
+    private int workerThreads;
+
+    @Value("${mock.iso-channel.reply-wait-ms:120000}")
+    private long replyWaitMs;
+
+    @Value("${server.port:8082}")
+    private int httpPort;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockIsoPackager packager = MockIsoPackager.INSTANCE;
+    /** Connection each pending request came in on, by "120:" + txnId and "37:" + RRN. */
+    private final Map<String, Sink> sinks = new ConcurrentHashMap<>();
+    private SocketFrameIO io;
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    /** Where to write a request's response. */
+    private static final class Sink {
+        final OutputStream out;
+        final List<String> keys;
+        final long createdAt = System.currentTimeMillis();
+
+        Sink(OutputStream out, List<String> keys) {
+            this.out = out;
+            this.keys = keys;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) return;
+        io = new SocketFrameIO(lengthPrefixBytes, "ISO-8859-1");
+        workers = Executors.newFixedThreadPool(workerThreads);
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "mock-iso-channel-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("=== MOCK SWITCH: ISO channel listener on port " + port
+            + " (" + lengthPrefixBytes + "-byte length prefix) ===");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException e) {
+            // closing
+        }
+        if (workers != null) workers.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * Write {@code packed} back to the connection its request came in on, matched by DE120 or DE37.
+     * @return false if no channel request is waiting for it (send it over HTTP / socket instead)
+     */
+    public boolean reply(ISOMsg response, byte[] packed) throws IOException {
+        if (!running) return false;
+        Sink sink = null;
+        for (String key : keys(response)) {
+            sink = sinks.get(key);
+            if (sink != null) break;
+        }
+        if (sink == null) return false;
+        for (String key : sink.keys) {
+            sinks.remove(key, sink);
+        }
+        synchronized (sink.out) {
+            io.writeRaw(sink.out, packed);
+        }
+        return true;
+    }
+
+    /** Drop requests whose response never came (e.g. relay failed after the connection closed). */
+    @Scheduled(fixedDelay = 60000)
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - replyWaitMs;
+        sinks.values().removeIf(s -> s.createdAt < cutoff);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread reader = new Thread(() -> serve(socket), "mock-iso-channel-" + socket.getPort());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) System.err.println("MOCK SWITCH ISO channel accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        System.out.println("=== MOCK SWITCH: ISO channel connection from " + socket.getRemoteSocketAddress() + " ===");
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            byte[] iso;
+            while ((iso = io.readRaw(in)) != null) {
+                byte[] request = iso;
+                try {
+                    workers.execute(() -> relay(request, out));
+                } catch (RejectedExecutionException e) {
+                    System.err.println("MOCK SWITCH ISO channel busy, request dropped");
+                }
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("MOCK SWITCH ISO channel connection closed: " + e.getMessage());
+        }
+    }
+
+    /** Register where the response goes, then POST the request to this mock's /switch/req* endpoint. */
+    private void relay(byte[] isoBytes, OutputStream out) {
+        List<String> keys = List.of();
+        Sink sink = null;
+        try {
+            ISOMsg iso = new ISOMsg();
+            iso.setPackager(packager);
+            iso.unpack(isoBytes);
+            String op = operation(iso);
+            if (op == null) {
+                System.err.println("MOCK SWITCH ISO channel: no endpoint for MTI " + iso.getMTI() + " DE3=" + iso.getString(3));
+                return;
+            }
+            keys = keys(iso);
+            sink = new Sink(out, keys);
+            for (String key : keys) {
+                sinks.put(key, sink);
+            }
+            String txnId = iso.hasField(120) ? iso.getString(120) : iso.getString(37);
+            String url = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpPort
+                + "/switch/req" + op + "/" + txnId;
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            restTemplate.exchange(url, HttpMethod.POST, new HttpEntity<>(isoBytes, headers), String.class);
+        } catch (Exception e) {
+            System.err.println("MOCK SWITCH ISO channel relay failed: " + e.getMessage());
+            for (String key : keys) {
+                sinks.remove(key, sink);
+            }
+        }
+    }
+
+    private static List<String> keys(ISOMsg iso) {
+        List<String> keys = new ArrayList<>(2);
+        if (iso.hasField(120)) keys.add("120:" + iso.getString(120));
+        if (iso.hasField(37)) keys.add("37:" + iso.getString(37));
+        return keys;
+    }
+
+    /** Request endpoint for the message: heartbeat by MTI, the rest by processing code (DE3). */
+    private static String operation(ISOMsg iso) throws ISOException {
+        if ("0800".equals(iso.getMTI())) return "hbt";
+        String de3 = iso.getString(3);
+        if (de3 == null || de3.length() < 2) return null;
+        return switch (de3.substring(0, 2)) {
+            case "40" -> "pay";
+            case "38" -> "chktxn";
+            case "99" -> "hbt";
+            case "31" -> "valadd";
+            case "32" -> "listaccpvd";
+            default -> null;
+        };
+    }
+}
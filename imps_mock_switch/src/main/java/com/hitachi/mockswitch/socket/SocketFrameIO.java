@@ -0,0 +1,107 @@
+package com.hitachi.mockswitch.socket;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * IMPS socket framing, same as the backend's com.hitachi.imps.socket.FrameCodec:
+ *
+ *   [length: 2 or 4 bytes, big-endian][&lt;id&gt; &lt;path|status&gt;]\n[payload]
+ *
+ * Blocking stream version for the mock's thread-per-connection socket handling.
+ * {@link #readRaw} / {@link #writeRaw} leave out the head line, as on the ISO channel ([length][ISO 8583]).
+ */
+public class SocketFrameIO {
+
+    /** One frame: request (head = path) or response (head = status). */
+    public static class Frame {
+        public final long id;
+        public final String head;
+        public final byte[] payload;
+
+        public Frame(long id, String head, byte[] payload) {
+            this.id = id;
+            this.head = head;
+            this.payload = payload != null ? payload : new byte[0];
+        }
+    }
+
+    private final int prefixBytes;
+    private final Charset charset;
+
+    public SocketFrameIO(int prefixBytes, String encoding) {
+        if (prefixBytes != 2 && prefixBytes != 4) {
+            throw new IllegalArgumentException("length-prefix-bytes must be 2 or 4, was " + prefixBytes);
+        }
+        this.prefixBytes = prefixBytes;
+        this.charset = Charset.forName(encoding);
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    /** Next frame, or null when the peer closed the connection between frames. */
+    public Frame read(InputStream in) throws IOException {
+        byte[] body = readRaw(in);
+        if (body == null) return null;
+        int length = body.length;
+
+        int eol = 0;
+        while (eol < length && body[eol] != '\n') eol++;
+        String head = new String(body, 0, eol, charset);
+        int sp = head.indexOf(' ');
+        if (eol == length || sp < 0) {
+            throw new IOException("Frame without an '<id> <head>' line");
+        }
+        return new Frame(Long.parseLong(head.substring(0, sp)), head.substring(sp + 1),
+            Arrays.copyOfRange(body, eol + 1, length));
+    }
+
+    /** Next frame body after the length prefix, or null when the peer closed the connection between frames. */
+    public byte[] readRaw(InputStream in) throws IOException {
+        DataInputStream data = in instanceof DataInputStream d ? d : new DataInputStream(in);
+        int length;
+        try {
+            length = prefixBytes == 2 ? data.readUnsignedShort() : data.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] body = new byte[length];
+        data.readFully(body);
+        return body;
+    }
+
+    /** Write one frame; callers sharing a stream must synchronize on it. */
+    public void write(OutputStream out, Frame frame) throws IOException {
+        byte[] head = (frame.id + " " + frame.head + "\n").getBytes(charset);
+        writeRaw(out, head, frame.payload);
+    }
+
+    /** Write length prefix and {@code parts}; callers sharing a stream must synchronize on it. */
+    public void writeRaw(OutputStream out, byte[]... parts) throws IOException {
+        int length = 0;
+        for (byte[] part : parts) length += part.length;
+        if (prefixBytes == 2 && length > 0xFFFF) {
+            throw new IOException("Frame of " + length + " bytes does not fit a 2-byte length prefix");
+        }
+        ByteBuffer buf = ByteBuffer.allocate(prefixBytes + length);
+        if (prefixBytes == 2) {
+            buf.putShort((short) length);
+        } else {
+            buf.putInt(length);
+        }
+        for (byte[] part : parts) buf.put(part);
+        out.write(buf.array());
+        out.flush();
+    }
+}
@@ -0,0 +1,148 @@
+package com.hitachi.mockswitch.socket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Socket listener for IMPS Backend's socket transport (mock.socket.enabled).
+ *
+ * IMPS connects once and sends framed requests (/switch/reqpay/{txnId} ...). Each frame is handed to
+ * the mock's own HTTP endpoint on loopback, so the socket path runs exactly the same controller code,
+ * and the HTTP status and body go back on the same connection with the request's frame id.
+ */
+@Component
+public class SocketRelayServer {
+
+    @Value("${mock.socket.enabled:false}")
+    private boolean enabled;
+
+    @Value("${mock.socket.port:9182}")
+    private int port;
+
+    @Value("${mock.socket.length-prefix-bytes:4}")
+    private int lengthPrefixBytes;
+
+    @Value("${mock.socket.encoding:UTF-8}")
+    private String encoding;
+
+    @Value("${mock.socket.worker-threads:20}")
+    private int workerThreads;
+
+    @Value("${server.port:8082}")
+    private int httpPort;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private SocketFrameIO io;
+    private ServerSocket serverSocket;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) return;
+        io = new SocketFrameIO(lengthPrefixBytes, encoding);
+        workers = Executors.newFixedThreadPool(workerThreads);
+        serverSocket = new ServerSocket(port);
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "mock-socket-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("=== MOCK SWITCH: socket listener on port " + port
+            + " (" + lengthPrefixBytes + "-byte length prefix) ===");
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) serverSocket.close();
+        } catch (IOException e) {
+            // closing
+        }
+        if (workers != null) workers.shutdown();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Thread reader = new Thread(() -> serve(socket), "mock-socket-" + socket.getPort());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) System.err.println("MOCK SWITCH socket accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Read frames until the peer disconnects; responses may go back in any order. */
+    private void serve(Socket socket) {
+        System.out.println("=== MOCK SWITCH: socket connection from " + socket.getRemoteSocketAddress() + " ===");
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            SocketFrameIO.Frame request;
+            while ((request = io.read(in)) != null) {
+                SocketFrameIO.Frame req = request;
+                try {
+                    workers.execute(() -> reply(out, relay(req)));
+                } catch (RejectedExecutionException e) {
+                    reply(out, new SocketFrameIO.Frame(req.id, "503", "Busy".getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("MOCK SWITCH socket connection closed: " + e.getMessage());
+        }
+    }
+
+    /** POST the frame payload to the same path on this mock's HTTP port. */
+    private SocketFrameIO.Frame relay(SocketFrameIO.Frame request) {
+        String url = "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + httpPort + request.head;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        try {
+            ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.POST,
+                new HttpEntity<>(request.payload, headers), byte[].class);
+            return new SocketFrameIO.Frame(request.id, String.valueOf(response.getStatusCode().value()), response.getBody());
+        } catch (HttpStatusCodeException e) {
+            return new SocketFrameIO.Frame(request.id, String.valueOf(e.getStatusCode().value()), e.getResponseBodyAsByteArray());
+        } catch (Exception e) {
+            return new SocketFrameIO.Frame(request.id, "500", String.valueOf(e.getMessage()).getBytes(io.charset()));
+        }
+    }
+
+    private void reply(OutputStream out, SocketFrameIO.Frame response) {
+        try {
+            synchronized (out) {
+                io.write(out, response);
+            }
+        } catch (IOException e) {
+            System.err.println("MOCK SWITCH socket reply " + response.id + " not sent: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+-- ============================================
+-- IMPS - Outbox for responses to NPCI (npci_outbox)
+-- ============================================
+-- Database: imps_db (PostgreSQL)
+--
+-- Usage:
+--   psql -U postgres -d imps_db -f imps_npci_outbox.sql
+--
+-- For databases created before the outbox, or whose outbox is unique on msg_id. Fresh installs get the
+-- table from imps_full_schema.sql. The backend does not run schema.sql and ddl-auto does not create this
+-- table; SchemaGuard stops startup (with imps.outbox.enabled) until it exists.
+--
+-- RespPay / RespChkTxn / RespValAdd to NPCI are written here in the same DB transaction as the
+-- transaction status update, then delivered by NpciOutbox (imps.outbox.*):
+--   PENDING  waiting for delivery; next_attempt_at is when the relay next picks it up
+--   SENT     accepted by NPCI; deleted after imps.outbox.retention-hours
+--   DEAD     gave up after imps.outbox.max-attempts; see last_error
+-- (api_type, txn_id) is unique, so one response per transaction is stored; msg_id is the Head msgId
+-- of the stored XML (new on every render, so it is not unique).
+-- Rows stuck in DEAD can be retried with:
+--   UPDATE npci_outbox SET status = 'PENDING', attempts = 0, next_attempt_at = now() WHERE status = 'DEAD';
+-- ============================================
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS npci_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    msg_id VARCHAR(64) NOT NULL,
+    api_type VARCHAR(32) NOT NULL,
+    txn_id VARCHAR(255),
+    payload BYTEA NOT NULL,
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    last_error TEXT,
+    CONSTRAINT uk_npci_outbox_api_txn UNIQUE (api_type, txn_id)
+);
+-- Outboxes created when msg_id was the unique key
+ALTER TABLE npci_outbox DROP CONSTRAINT IF EXISTS uk_npci_outbox_msg_id;
+-- Keep the first response stored for each transaction (later ones were repeats)
+DELETE FROM npci_outbox o USING npci_outbox k
+WHERE o.api_type = k.api_type AND o.txn_id = k.txn_id AND o.id > k.id;
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_npci_outbox_api_txn') THEN
+        ALTER TABLE npci_outbox ADD CONSTRAINT uk_npci_outbox_api_txn UNIQUE (api_type, txn_id);
+    END IF;
+END $$;
+CREATE INDEX IF NOT EXISTS idx_npci_outbox_due ON npci_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_npci_outbox_sent_at ON npci_outbox(sent_at) WHERE status = 'SENT';
+
+COMMENT ON TABLE npci_outbox IS 'Responses to NPCI pending delivery (PENDING → SENT | DEAD), retried with backoff';
+COMMENT ON COLUMN npci_outbox.payload IS 'Response XML (PayloadCodec format, usually deflated)';
+
+COMMIT;
+
+SELECT status, count(*) FROM npci_outbox GROUP BY status;
@@ -0,0 +1,145 @@
+-- ============================================
+-- IMPS - Convert transaction / message_audit_log to range-partitioned tables
+-- ============================================
+-- Database: imps_db (PostgreSQL 12+)
+--
+-- Usage (Imps-backend stopped):
+--   psql -U postgres -d imps_db -f imps_partitioning.sql
+--
+-- For databases created before partitioning (imps_full_schema.sql / schema.sql with SERIAL ids).
+-- Fresh installs get partitioned tables from imps_full_schema.sql directly.
+--
+-- Each table is renamed to <table>_legacy and attached, as it is, as the partition for everything
+-- before the current period (month for transaction, day for message_audit_log); rows of the current
+-- period are moved into a new partition first. Imps-backend's PartitionManager then creates future
+-- partitions; it only retires partitions it named itself, so <table>_legacy is detached or dropped
+-- by hand once its rows are past retention.
+--
+-- Runs in one transaction; on error nothing changes. Building uk_transaction_txn_id fails if the
+-- legacy data holds the same txn_id twice on one day - remove those rows first.
+--
+-- uk_transaction_txn_id only covers one day once it includes txn_date; run imps_transaction_txn_id.sql
+-- afterwards so txn_id stays unique across days.
+-- ============================================
+
+BEGIN;
+
+-- ============================================
+-- 1. TRANSACTION (monthly, key txn_date)
+-- ============================================
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS txn_date DATE;
+ALTER TABLE transaction ADD COLUMN IF NOT EXISTS npci_txn_id VARCHAR(255);
+-- npci_txn_id of ValAdd requests still waiting for a response, written before the column existed
+-- (RespValAdd is matched on it). Read from req_xml while that is still TEXT.
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+         WHERE table_name = 'transaction' AND column_name = 'req_xml') = 'text' THEN
+        UPDATE transaction
+           SET npci_txn_id = substring(req_xml FROM '[<:]Txn[^>]*\sid\s*=\s*["'']([^"'']+)["'']')
+         WHERE txn_type = 'VALADD' AND switch_status = 'ISO_SENT' AND npci_txn_id IS NULL;
+    END IF;
+END $$;
+UPDATE transaction
+   SET txn_date = CASE WHEN req_in_date_time ~ '^[0-9]{8}'
+                       THEN to_date(left(req_in_date_time, 8), 'YYYYMMDD')
+                       ELSE CURRENT_DATE END
+ WHERE txn_date IS NULL;
+ALTER TABLE transaction ALTER COLUMN txn_date SET NOT NULL;
+
+ALTER TABLE transaction RENAME TO transaction_legacy;
+ALTER TABLE transaction_legacy DROP CONSTRAINT IF EXISTS transaction_pkey;
+-- index names are reused by the partitioned parent; attach rebuilds them on the legacy partition
+DROP INDEX IF EXISTS idx_transaction_txn_id;
+DROP INDEX IF EXISTS uk_transaction_txn_id;
+DROP INDEX IF EXISTS idx_transaction_npci_txn_id;
+DROP INDEX IF EXISTS idx_transaction_status;
+DROP INDEX IF EXISTS idx_transaction_de11_de37_de13;
+
+CREATE TABLE transaction (
+    id INTEGER NOT NULL DEFAULT nextval('transaction_id_seq'),
+    txn_id VARCHAR(255),
+    txn_type VARCHAR(255),
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    npci_txn_id VARCHAR(255),
+    req_in_date_time VARCHAR(255),
+    req_out_date_time VARCHAR(255),
+    resp_in_date_time VARCHAR(255),
+    resp_out_date_time TIMESTAMP,
+    req_xml TEXT,
+    resp_xml TEXT,
+    switch_status VARCHAR(255),
+    de11 VARCHAR(255),
+    de37 VARCHAR(255),
+    de12 VARCHAR(255),
+    de13 VARCHAR(255),
+    approval_number VARCHAR(255),
+    PRIMARY KEY (id, txn_date)
+) PARTITION BY RANGE (txn_date);
+ALTER SEQUENCE transaction_id_seq OWNED BY transaction.id;
+CREATE TABLE transaction_default PARTITION OF transaction DEFAULT;
+CREATE UNIQUE INDEX uk_transaction_txn_id ON transaction(txn_id, txn_date);
+CREATE INDEX idx_transaction_npci_txn_id ON transaction(npci_txn_id);
+CREATE INDEX idx_transaction_status ON transaction(switch_status);
+CREATE INDEX idx_transaction_de11_de37_de13 ON transaction(de11, de37, de13);
+
+DO $$
+DECLARE
+    bound DATE := date_trunc('month', CURRENT_DATE)::date;
+    cols TEXT := 'id, txn_id, txn_type, txn_date, npci_txn_id, req_in_date_time, req_out_date_time, '
+              || 'resp_in_date_time, resp_out_date_time, req_xml, resp_xml, switch_status, '
+              || 'de11, de37, de12, de13, approval_number';
+BEGIN
+    EXECUTE format('CREATE TABLE transaction_p%s PARTITION OF transaction FOR VALUES FROM (%L) TO (%L)',
+                   to_char(bound, 'YYYYMM'), bound, (bound + INTERVAL '1 month')::date);
+    EXECUTE format('INSERT INTO transaction (%s) SELECT %s FROM transaction_legacy WHERE txn_date >= %L', cols, cols, bound);
+    EXECUTE format('DELETE FROM transaction_legacy WHERE txn_date >= %L', bound);
+    -- a CHECK matching the partition bound lets ATTACH skip its validation scan
+    EXECUTE format('ALTER TABLE transaction_legacy ADD CONSTRAINT transaction_legacy_bound CHECK (txn_date < %L)', bound);
+    EXECUTE format('ALTER TABLE transaction ATTACH PARTITION transaction_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+END $$;
+
+-- ============================================
+-- 2. MESSAGE_AUDIT_LOG (daily, key created_at)
+-- ============================================
+UPDATE message_audit_log SET created_at = TIMESTAMP '1970-01-01' WHERE created_at IS NULL;
+ALTER TABLE message_audit_log ALTER COLUMN created_at SET NOT NULL;
+
+ALTER TABLE message_audit_log RENAME TO message_audit_log_legacy;
+ALTER TABLE message_audit_log_legacy DROP CONSTRAINT IF EXISTS message_audit_log_pkey;
+DROP INDEX IF EXISTS idx_message_audit_txn_id;
+DROP INDEX IF EXISTS idx_message_audit_stage;
+DROP INDEX IF EXISTS idx_message_audit_created_at;
+DROP INDEX IF EXISTS idx_audit_txn_id;
+DROP INDEX IF EXISTS idx_audit_stage;
+DROP INDEX IF EXISTS idx_audit_created_at;
+
+CREATE TABLE message_audit_log (
+    id INTEGER NOT NULL DEFAULT nextval('message_audit_log_id_seq'),
+    txn_id VARCHAR(255),
+    stage VARCHAR(255),
+    raw_message TEXT,
+    parsed_message TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+ALTER SEQUENCE message_audit_log_id_seq OWNED BY message_audit_log.id;
+CREATE TABLE message_audit_log_default PARTITION OF message_audit_log DEFAULT;
+CREATE INDEX idx_message_audit_txn_id ON message_audit_log(txn_id);
+CREATE INDEX idx_message_audit_stage ON message_audit_log(stage);
+CREATE INDEX idx_message_audit_created_at ON message_audit_log(created_at);
+
+DO $$
+DECLARE
+    bound DATE := CURRENT_DATE;
+    cols TEXT := 'id, txn_id, stage, raw_message, parsed_message, created_at';
+BEGIN
+    EXECUTE format('CREATE TABLE message_audit_log_p%s PARTITION OF message_audit_log FOR VALUES FROM (%L) TO (%L)',
+                   to_char(bound, 'YYYYMMDD'), bound, bound + 1);
+    EXECUTE format('INSERT INTO message_audit_log (%s) SELECT %s FROM message_audit_log_legacy WHERE created_at >= %L', cols, cols, bound);
+    EXECUTE format('DELETE FROM message_audit_log_legacy WHERE created_at >= %L', bound);
+    EXECUTE format('ALTER TABLE message_audit_log_legacy ADD CONSTRAINT message_audit_log_legacy_bound CHECK (created_at < %L)', bound);
+    EXECUTE format('ALTER TABLE message_audit_log ATTACH PARTITION message_audit_log_legacy FOR VALUES FROM (MINVALUE) TO (%L)', bound);
+END $$;
+
+COMMIT;
@@ -0,0 +1,45 @@
+-- ============================================
+-- IMPS - Payload columns TEXT -> BYTEA (compressed payload storage)
+-- ============================================
+-- Database: imps_db (PostgreSQL)
+--
+-- Usage (Imps-backend stopped; after imps_partitioning.sql if that is still pending):
+--   psql -U postgres -d imps_db -f imps_payload_compression.sql
+--
+-- For databases created before payloads were stored compressed. Fresh installs get BYTEA columns
+-- from imps_full_schema.sql directly.
+--
+-- Converts transaction.req_xml / resp_xml and message_audit_log.raw_message / parsed_message to BYTEA,
+-- keeping every value as its UTF-8 bytes; Imps-backend reads such values as they are (PayloadCodec).
+-- Pending ValAdd rows without npci_txn_id get it from req_xml first; it cannot be read in SQL afterwards.
+-- This rewrites both tables (all partitions) under an exclusive lock - plan a window.
+--
+-- Existing rows are compressed afterwards, online and in slices, by the running application:
+--   curl -X POST 'http://localhost:8081/imps/admin/payload/migrate?table=transaction&afterId=0&limit=10000'
+-- then repeat with afterId = nextAfterId from the reply until "done": true (same for message_audit_log).
+-- Space is returned to the OS by VACUUM FULL / pg_repack per partition, or when partitions are retired.
+-- ============================================
+
+BEGIN;
+
+-- npci_txn_id of ValAdd requests still waiting for a response, written before the column existed
+-- (RespValAdd is matched on it). Read from req_xml while that is still TEXT.
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+         WHERE table_name = 'transaction' AND column_name = 'req_xml') = 'text' THEN
+        UPDATE transaction
+           SET npci_txn_id = substring(req_xml FROM '[<:]Txn[^>]*\sid\s*=\s*["'']([^"'']+)["'']')
+         WHERE txn_type = 'VALADD' AND switch_status = 'ISO_SENT' AND npci_txn_id IS NULL;
+    END IF;
+END $$;
+
+ALTER TABLE transaction
+    ALTER COLUMN req_xml TYPE BYTEA USING convert_to(req_xml, 'UTF8'),
+    ALTER COLUMN resp_xml TYPE BYTEA USING convert_to(resp_xml, 'UTF8');
+
+ALTER TABLE message_audit_log
+    ALTER COLUMN raw_message TYPE BYTEA USING convert_to(raw_message, 'UTF8'),
+    ALTER COLUMN parsed_message TYPE BYTEA USING convert_to(parsed_message, 'UTF8');
+
+COMMIT;
@@ -0,0 +1,25 @@
+-- ============================================
+-- IMPS - Sequence ids for batched inserts (replaces IDENTITY-style inserts)
+-- ============================================
+-- Database: imps_db (PostgreSQL)
+--
+-- Usage (Imps-backend and Mock Switch stopped):
+--   psql -U postgres -d imps_db -f imps_sequence_ids.sql
+--
+-- For databases created before ids were allocated in blocks. Fresh installs get these increments
+-- from imps_full_schema.sql directly.
+--
+-- TransactionEntity, MessageAuditLog and the Mock Switch AuditLog take ids from their SERIAL
+-- sequences with allocationSize 50 (Hibernate pooled-lo: nextval v covers ids v .. v+49), so one
+-- nextval serves 50 inserts and inserts can be batched. Hibernate refuses to start while a sequence
+-- still increments by 1. Existing ids are untouched; the next block starts past the last id handed
+-- out. A manual INSERT that relies on the column DEFAULT still works but skips a block of ids.
+-- ============================================
+
+BEGIN;
+
+ALTER SEQUENCE transaction_id_seq INCREMENT BY 50;
+ALTER SEQUENCE message_audit_log_id_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS audit_log_id_seq INCREMENT BY 50;
+
+COMMIT;
@@ -0,0 +1,34 @@
+-- ============================================
+-- IMPS - Indexes for the transaction query API (/imps/admin/transactions)
+-- ============================================
+-- Database: imps_db (PostgreSQL)
+--
+-- Usage (after imps_partitioning.sql if that is still pending):
+--   psql -U postgres -d imps_db -f imps_transaction_query_indexes.sql
+--
+-- For databases created before the query API. Fresh installs get these indexes from
+-- imps_full_schema.sql directly.
+--
+-- TransactionQueryService pages newest first by (txn_date, id) with optional filters on
+-- switch_status, txn_type, de37 and de11:
+--   idx_transaction_browse       (txn_date, id) covering the summary columns: index-only date-range pages
+--   idx_transaction_status_date  replaces idx_transaction_status (switch_status) - same leading column
+--   idx_transaction_type_date    txn_type filter
+--   idx_transaction_de37_date    RRN lookups (de11 uses idx_transaction_de11_de37_de13)
+-- Building an index on the partitioned parent blocks writes to each partition while it is built;
+-- run off-peak.
+-- ============================================
+
+BEGIN;
+
+CREATE INDEX IF NOT EXISTS idx_transaction_browse ON transaction(txn_date, id)
+    INCLUDE (txn_id, txn_type, switch_status, npci_txn_id, de11, de37, de13, approval_number,
+             req_in_date_time, resp_in_date_time);
+CREATE INDEX IF NOT EXISTS idx_transaction_status_date ON transaction(switch_status, txn_date, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_type_date ON transaction(txn_type, txn_date, id);
+CREATE INDEX IF NOT EXISTS idx_transaction_de37_date ON transaction(de37, txn_date);
+DROP INDEX IF EXISTS idx_transaction_status;
+
+COMMIT;
+
+ANALYZE transaction;
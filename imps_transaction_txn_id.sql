@@ -0,0 +1,42 @@
+-- ============================================
+-- IMPS - Global txn_id uniqueness for the partitioned transaction table (transaction_txn_id)
+-- ============================================
+-- Database: imps_db (PostgreSQL)
+--
+-- Usage (Imps-backend stopped):
+--   psql -U postgres -d imps_db -f imps_transaction_txn_id.sql
+--
+-- For databases partitioned with imps_partitioning.sql. Fresh installs get the table from
+-- imps_full_schema.sql. The backend does not run schema.sql and ddl-auto does not create this table;
+-- SchemaGuard stops startup until it exists.
+--
+-- A unique index on a partitioned table must contain the partition key, so uk_transaction_txn_id is
+-- (txn_id, txn_date) and a txn_id repeated on a later day is not rejected by it. TransactionService
+-- inserts the txn_id here in the same DB transaction as the transaction row; the primary key then
+-- rejects a repeat on any day (DuplicateTxnIdException). PartitionManager deletes ids whose txn_date
+-- is older than the transaction partitions it retires.
+--
+-- Existing ids are copied below (latest txn_date per id). Runs in one transaction.
+-- ============================================
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS transaction_txn_id (
+    txn_id VARCHAR(255) NOT NULL,
+    txn_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    CONSTRAINT transaction_txn_id_pkey PRIMARY KEY (txn_id)
+);
+
+INSERT INTO transaction_txn_id (txn_id, txn_date)
+SELECT txn_id, max(txn_date)
+  FROM transaction
+ WHERE txn_id IS NOT NULL
+ GROUP BY txn_id
+ON CONFLICT (txn_id) DO NOTHING;
+
+COMMENT ON TABLE transaction_txn_id IS 'One row per txn_id ever stored in transaction (global uniqueness)';
+
+COMMIT;
+
+-- txn_ids already stored on more than one day (kept; new repeats are rejected from now on)
+SELECT txn_id, count(*) AS days FROM transaction WHERE txn_id IS NOT NULL GROUP BY txn_id HAVING count(*) > 1;